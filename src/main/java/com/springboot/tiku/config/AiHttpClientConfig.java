@@ -0,0 +1,108 @@
+package com.springboot.tiku.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * AI接口HTTP客户端配置
+ * 大模型调用使用独立的连接池：限制最大连接数和排队获取连接的请求数，连接保持长连接复用，
+ * 空闲或存活过久的连接在后台回收；HTTPS 下通过 ALPN 协商 HTTP/2（多个请求复用一条连接），否则使用 HTTP/1.1。
+ */
+@Configuration
+public class AiHttpClientConfig {
+
+    /**
+     * 最大连接数
+     */
+    @Value("${ai.http.max-connections:50}")
+    private int maxConnections;
+
+    /**
+     * 等待获取连接的请求数上限（超出后立即失败）
+     */
+    @Value("${ai.http.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    /**
+     * 等待获取连接的超时时间（毫秒）
+     */
+    @Value("${ai.http.pending-acquire-timeout-ms:10000}")
+    private long pendingAcquireTimeoutMs;
+
+    /**
+     * 连接最长空闲时间（毫秒）
+     */
+    @Value("${ai.http.max-idle-time-ms:60000}")
+    private long maxIdleTimeMs;
+
+    /**
+     * 连接最长存活时间（毫秒）
+     */
+    @Value("${ai.http.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    @Value("${ai.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    /**
+     * 是否启用 HTTP/2
+     */
+    @Value("${ai.http.http2-enabled:true}")
+    private boolean http2Enabled;
+
+    /**
+     * 响应体最大字节数
+     */
+    @Value("${ai.http.max-response-bytes:4194304}")
+    private int maxResponseBytes;
+
+    @Value("${ai.siliconflow.timeout:30000}")
+    private long responseTimeoutMs;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiConnectionProvider() {
+        return ConnectionProvider.builder("ai-http")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient aiWebClient(WebClient.Builder builder, ConnectionProvider aiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(aiConnectionProvider)
+                .protocol(http2Enabled
+                        ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                        : new HttpProtocol[]{HttpProtocol.HTTP11})
+                .keepAlive(true)
+                .compress(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseBytes))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.springboot.tiku.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置
+ * 启用 @Scheduled（计数刷盘等后台任务）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
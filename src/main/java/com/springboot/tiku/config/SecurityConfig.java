@@ -82,6 +82,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         // 健康检查
                         .requestMatchers("/actuator/health", "/api/actuator/health").permitAll()
+                        // 其他监控端点（指标等）仅管理员可访问
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // Swagger文档
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         // 管理员接口
@@ -8,6 +8,7 @@ import com.springboot.tiku.dto.auth.RegisterRequest;
 import com.springboot.tiku.entity.User;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.security.JwtPrincipal;
 import com.springboot.tiku.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -31,6 +32,9 @@ public class AuthController {
      * 从 Authentication 中获取用户ID
      */
     private Long getUserId(org.springframework.security.core.Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.getUserId();
+        }
         String username = authentication.getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ResultCode.USER_NOT_FOUND));
@@ -1,15 +1,20 @@
 package com.springboot.tiku.controller;
 
 import com.springboot.tiku.common.Result;
+import com.springboot.tiku.dto.question.ImportJobDTO;
 import com.springboot.tiku.dto.question.ImportResultDTO;
 import com.springboot.tiku.dto.question.SmartImportRequest;
 import com.springboot.tiku.service.DataImportService;
+import com.springboot.tiku.service.ImportJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -23,6 +28,7 @@ import java.util.Map;
 public class DataImportController {
     
     private final DataImportService dataImportService;
+    private final ImportJobService importJobService;
     
     /**
      * 导入马原题库
@@ -66,6 +72,25 @@ public class DataImportController {
             return Result.error(400, "导入失败");
         }
     }
+    
+    /**
+     * 上传文件智能导入（xlsx/csv，后台逐行读取、分块写入）
+     * 文件内容作为请求体直接上传，单独限制大小，不放宽全局 multipart 上限
+     */
+    @Operation(summary = "上传文件智能导入", description = "以请求体上传智能导入模板（xlsx或csv），返回导入任务ID，通过任务接口查询进度")
+    @PostMapping(value = "/smart-import/file", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Result<ImportJobDTO> smartImportFile(@RequestParam Long subjectId, @RequestParam String fileName,
+                                                HttpServletRequest request) throws IOException {
+        ImportJobDTO job = importJobService.submit(subjectId, fileName, request.getInputStream(), request.getContentLengthLong());
+        return Result.success("导入任务已提交", job);
+    }
+    
+    /**
+     * 查询文件导入任务进度
+     */
+    @Operation(summary = "查询导入任务进度")
+    @GetMapping("/jobs/{jobId}")
+    public Result<ImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return Result.success(importJobService.getJob(jobId));
+    }
 }
-
-
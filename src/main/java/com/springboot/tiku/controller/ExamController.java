@@ -0,0 +1,84 @@
+package com.springboot.tiku.controller;
+
+import com.springboot.tiku.common.Result;
+import com.springboot.tiku.common.ResultCode;
+import com.springboot.tiku.dto.exam.ExamAnswerRequest;
+import com.springboot.tiku.dto.exam.ExamResultDTO;
+import com.springboot.tiku.dto.exam.ExamSessionDTO;
+import com.springboot.tiku.entity.User;
+import com.springboot.tiku.exception.BusinessException;
+import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.security.JwtPrincipal;
+import com.springboot.tiku.service.ExamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 考试控制器
+ */
+@Tag(name = "考试", description = "开考、作答自动保存、交卷接口")
+@RestController
+@RequestMapping("/api/exams")
+@RequiredArgsConstructor
+public class ExamController {
+
+    private final ExamService examService;
+    private final UserRepository userRepository;
+
+    /**
+     * 从 Authentication 中获取用户ID
+     */
+    private Long getUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.getUserId();
+        }
+        String username = authentication.getName();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new BusinessException(ResultCode.USER_NOT_FOUND));
+        return user.getId();
+    }
+
+    /**
+     * 开始考试
+     */
+    @Operation(summary = "开始考试", description = "生成本人试卷并开始计时，已有进行中的考试时继续该场考试")
+    @PostMapping("/{examId}/start")
+    public Result<ExamSessionDTO> startExam(@PathVariable Long examId, Authentication authentication) {
+        return Result.success(examService.startExam(examId, getUserId(authentication)));
+    }
+
+    /**
+     * 获取考试会话
+     */
+    @Operation(summary = "获取考试会话", description = "刷新或断线重连后获取试卷、已保存作答和剩余时间")
+    @GetMapping("/sessions/{recordId}")
+    public Result<ExamSessionDTO> getSession(@PathVariable Long recordId, Authentication authentication) {
+        return Result.success(examService.getSession(recordId, getUserId(authentication)));
+    }
+
+    /**
+     * 保存作答
+     */
+    @Operation(summary = "保存作答", description = "自动保存有变化的作答，返回剩余秒数")
+    @PutMapping("/sessions/{recordId}/answers")
+    public Result<Long> saveAnswers(
+            @PathVariable Long recordId,
+            @Valid @RequestBody ExamAnswerRequest request,
+            Authentication authentication
+    ) {
+        return Result.success(examService.saveAnswers(recordId, getUserId(authentication), request.getAnswers()));
+    }
+
+    /**
+     * 交卷
+     */
+    @Operation(summary = "交卷", description = "判题并生成考试成绩，超过截止时间后按超时交卷处理")
+    @PostMapping("/sessions/{recordId}/submit")
+    public Result<ExamResultDTO> submit(@PathVariable Long recordId, Authentication authentication) {
+        return Result.success(examService.submit(recordId, getUserId(authentication)));
+    }
+}
@@ -40,6 +40,20 @@ public class GradingController {
         return Result.success(result);
     }
     
+    /**
+     * 查询判题结果（AI判题异步完成后轮询）
+     */
+    @Operation(summary = "查询判题结果", description = "提交主观题后轮询判题状态，PENDING表示AI判题中")
+    @GetMapping("/result/{answerRecordId}")
+    public Result<GradingResult> getGradingResult(
+            @PathVariable Long answerRecordId,
+            HttpServletRequest httpRequest
+    ) {
+        Long userId = getUserIdFromRequest(httpRequest);
+        GradingResult result = gradingService.getGradingResult(answerRecordId, userId);
+        return Result.success(result);
+    }
+    
     /**
      * 批量提交答案（考试场景）
      */
@@ -81,6 +81,21 @@ public class RankingController {
         return Result.success(ranking);
     }
     
+    /**
+     * 我的排名
+     */
+    @Operation(summary = "我的排名", description = "查询当前用户在指定排行榜中的名次，未上榜返回空")
+    @GetMapping("/me")
+    public Result<RankingItem> getMyRanking(
+            @RequestParam(defaultValue = "answer-count") String type,
+            @RequestParam(required = false) Long subjectId,
+            HttpServletRequest request
+    ) {
+        Long userId = getUserIdFromRequest(request);
+        RankingItem item = rankingService.getMyRanking(type, subjectId, userId);
+        return Result.success(item);
+    }
+    
     /**
      * 从请求中获取用户ID
      */
@@ -6,6 +6,7 @@ import com.springboot.tiku.dto.statistics.*;
 import com.springboot.tiku.entity.User;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.security.JwtPrincipal;
 import com.springboot.tiku.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -31,6 +32,9 @@ public class StatisticsController {
      * 从 Authentication 中获取用户ID
      */
     private Long getUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.getUserId();
+        }
         String username = authentication.getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ResultCode.USER_NOT_FOUND));
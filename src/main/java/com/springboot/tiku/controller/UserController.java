@@ -9,6 +9,7 @@ import com.springboot.tiku.dto.user.UserProfileResponse;
 import com.springboot.tiku.entity.User;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.security.JwtPrincipal;
 import com.springboot.tiku.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
@@ -28,6 +29,9 @@ public class UserController {
      * 从 Authentication 中获取用户ID
      */
     private Long getUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.getUserId();
+        }
         String username = authentication.getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new BusinessException(ResultCode.USER_NOT_FOUND));
@@ -3,6 +3,8 @@ package com.springboot.tiku.controller.admin;
 import com.springboot.tiku.common.Result;
 import com.springboot.tiku.dto.answer.AIGradingRecordDTO;
 import com.springboot.tiku.service.AIGradingService;
+import com.springboot.tiku.service.grading.AiGradingResultCache;
+import com.springboot.tiku.service.grading.AsyncGradingExecutor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Data;
@@ -29,6 +31,8 @@ import java.util.Map;
 public class AdminAIGradingController {
     
     private final AIGradingService aiGradingService;
+    private final AsyncGradingExecutor asyncGradingExecutor;
+    private final AiGradingResultCache aiGradingResultCache;
     
     /**
      * 分页查询AI判题记录
@@ -45,6 +49,24 @@ public class AdminAIGradingController {
         return Result.success(records);
     }
     
+    /**
+     * 获取异步判题队列状态
+     */
+    @Operation(summary = "获取异步判题队列状态", description = "排队深度、执行中数量、排队等待时间等背压指标")
+    @GetMapping("/queue")
+    public Result<Map<String, Object>> getGradingQueueStats() {
+        return Result.success(asyncGradingExecutor.getStats());
+    }
+    
+    /**
+     * 获取判题结果缓存状态
+     */
+    @Operation(summary = "获取判题结果缓存状态", description = "缓存命中率、省去的大模型调用次数和耗时")
+    @GetMapping("/cache")
+    public Result<Map<String, Object>> getGradingCacheStats() {
+        return Result.success(aiGradingResultCache.getStats());
+    }
+    
     /**
      * 获取AI判题统计
      */
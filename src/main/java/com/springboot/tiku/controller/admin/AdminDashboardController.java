@@ -1,11 +1,14 @@
 package com.springboot.tiku.controller.admin;
 
 import com.springboot.tiku.common.Result;
+import com.springboot.tiku.entity.DailyStat;
 import com.springboot.tiku.repository.*;
+import com.springboot.tiku.service.counter.DailyStatAggregator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,6 +31,8 @@ public class AdminDashboardController {
     private final QuestionRepository questionRepository;
     private final AnswerRecordRepository answerRecordRepository;
     private final SubjectRepository subjectRepository;
+    private final DailyStatRepository dailyStatRepository;
+    private final DailyStatAggregator dailyStatAggregator;
     
     /**
      * 获取Dashboard统计数据
@@ -75,10 +80,13 @@ public class AdminDashboardController {
         
         LocalDate today = LocalDate.now();
         
+        // 一次查询该时间段的全站每日汇总
+        Map<LocalDate, DailyStat> statByDate = dailyStatRepository
+                .findByStatDateBetweenOrderByStatDateAsc(today.minusDays(days - 1), today).stream()
+                .collect(Collectors.toMap(DailyStat::getStatDate, stat -> stat));
+        
         for (int i = days - 1; i >= 0; i--) {
             LocalDate date = today.minusDays(i);
-            LocalDateTime dayStart = date.atStartOfDay();
-            LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
             
             // 日期标签
             if ("week".equals(type)) {
@@ -87,13 +95,13 @@ public class AdminDashboardController {
                 labels.add(date.getDayOfMonth() + "日");
             }
             
+            DailyStat dailyStat = statByDate.get(date);
+            
             // 答题数
-            long answerCount = answerRecordRepository.countByAnsweredAtBetween(dayStart, dayEnd);
-            answerCounts.add((int) answerCount);
+            answerCounts.add(dailyStat != null ? dailyStat.getAnswerCount().intValue() : 0);
             
             // 活跃用户数（当天答题的用户数）
-            long userCount = answerRecordRepository.countDistinctUsersByAnsweredAtBetween(dayStart, dayEnd);
-            userCounts.add((int) userCount);
+            userCounts.add(dailyStat != null ? dailyStat.getActiveUserCount().intValue() : 0);
         }
         
         data.setLabels(labels);
@@ -103,6 +111,18 @@ public class AdminDashboardController {
         return Result.success(data);
     }
     
+    /**
+     * 重建每日学习汇总（不传日期时重建全部历史）
+     */
+    @Operation(summary = "重建每日学习汇总")
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<Map<String, Object>> rebuildRollup(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return Result.success(dailyStatAggregator.backfill(from, to));
+    }
+    
     /**
      * 获取学科分布数据
      */
@@ -3,6 +3,8 @@ package com.springboot.tiku.controller.admin;
 import com.springboot.tiku.common.Result;
 import com.springboot.tiku.entity.User;
 import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.security.PrincipalCache;
+import com.springboot.tiku.service.RankingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.Data;
@@ -32,6 +34,8 @@ public class AdminUserController {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RankingService rankingService;
+    private final PrincipalCache principalCache;
     
     /**
      * 分页查询用户列表
@@ -105,6 +109,7 @@ public class AdminUserController {
         user.setStatus(1); // 启用状态
         
         User savedUser = userRepository.save(user);
+        rankingService.refreshUser(savedUser);
         return Result.success(savedUser);
     }
     
@@ -135,6 +140,8 @@ public class AdminUserController {
         user.setPhone(request.getPhone());
         
         User updatedUser = userRepository.save(user);
+        rankingService.refreshUser(updatedUser);
+        principalCache.invalidate(id);
         return Result.success(updatedUser);
     }
     
@@ -154,6 +161,8 @@ public class AdminUserController {
         }
         
         userRepository.deleteById(id);
+        rankingService.removeUser(id);
+        principalCache.invalidate(id);
         return Result.success();
     }
     
@@ -193,6 +202,8 @@ public class AdminUserController {
                 .toList();
         
         userRepository.deleteAllById(canDeleteIds);
+        canDeleteIds.forEach(rankingService::removeUser);
+        principalCache.invalidateAll(canDeleteIds);
         return Result.success();
     }
     
@@ -0,0 +1,19 @@
+package com.springboot.tiku.dto.exam;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 考试作答保存请求（只需提交有变化的题目）
+ */
+@Data
+public class ExamAnswerRequest {
+    
+    /**
+     * 题目ID -> 答案（答案为null表示清空）
+     */
+    @NotNull(message = "作答不能为空")
+    private Map<Long, Object> answers;
+}
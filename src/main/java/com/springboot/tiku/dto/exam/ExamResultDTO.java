@@ -0,0 +1,86 @@
+package com.springboot.tiku.dto.exam;
+
+import com.springboot.tiku.dto.grading.GradingResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 交卷结果DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamResultDTO {
+    
+    /**
+     * 考试记录ID
+     */
+    private Long recordId;
+    
+    /**
+     * 考试ID
+     */
+    private Long examId;
+    
+    /**
+     * 得分（AI判题中的题目暂按0分计）
+     */
+    private BigDecimal score;
+    
+    /**
+     * 试卷总分
+     */
+    private BigDecimal totalScore;
+    
+    /**
+     * 是否及格
+     */
+    private Boolean passed;
+    
+    /**
+     * 正确题数
+     */
+    private Integer correctCount;
+    
+    /**
+     * 错误题数（含未作答）
+     */
+    private Integer wrongCount;
+    
+    /**
+     * 总题数
+     */
+    private Integer totalCount;
+    
+    /**
+     * AI判题中的题数
+     */
+    private Integer pendingCount;
+    
+    /**
+     * 用时（秒）
+     */
+    private Integer timeSpent;
+    
+    /**
+     * 考试状态：SUBMITTED-已提交, TIMEOUT-超时自动交卷
+     */
+    private String status;
+    
+    /**
+     * 交卷时间
+     */
+    private LocalDateTime submitTime;
+    
+    /**
+     * 各题判题结果（按试卷顺序，仅含已作答题目）
+     */
+    private List<GradingResult> results;
+}
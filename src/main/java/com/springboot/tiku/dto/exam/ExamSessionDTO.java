@@ -0,0 +1,77 @@
+package com.springboot.tiku.dto.exam;
+
+import com.springboot.tiku.dto.question.QuestionDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 考试会话DTO（题目不含答案和解析）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamSessionDTO {
+    
+    /**
+     * 考试记录ID（后续作答、交卷使用）
+     */
+    private Long recordId;
+    
+    /**
+     * 考试ID
+     */
+    private Long examId;
+    
+    /**
+     * 试卷名称
+     */
+    private String examName;
+    
+    /**
+     * 考试时长（分钟）
+     */
+    private Integer duration;
+    
+    /**
+     * 试卷总分
+     */
+    private BigDecimal totalScore;
+    
+    /**
+     * 及格分
+     */
+    private BigDecimal passScore;
+    
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+    
+    /**
+     * 截止时间
+     */
+    private LocalDateTime deadline;
+    
+    /**
+     * 剩余秒数
+     */
+    private Long remainingSeconds;
+    
+    /**
+     * 题目列表（分值为本卷分值，选项已按考生打乱）
+     */
+    private List<QuestionDTO> questions;
+    
+    /**
+     * 已保存的作答（题目ID -> 答案）
+     */
+    private Map<Long, Object> answers;
+}
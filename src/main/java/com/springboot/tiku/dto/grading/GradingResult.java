@@ -63,6 +63,11 @@ public class GradingResult {
      */
     private Boolean needManualReview;
     
+    /**
+     * 判题状态（PENDING-异步判题中，GRADED-已判题，REVIEWING-待人工复核）
+     */
+    private String gradingStatus;
+    
     /**
      * AI判题反馈
      */
@@ -1,5 +1,6 @@
 package com.springboot.tiku.dto.grading;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -33,6 +34,12 @@ public class SubmitAnswerRequest {
      */
     private Long examId;
     
+    /**
+     * 考试记录ID（仅由考试交卷在服务端填写，不接受客户端传入）
+     */
+    @JsonIgnore
+    private Long examRecordId;
+    
     /**
      * 答题用时（秒）
      */
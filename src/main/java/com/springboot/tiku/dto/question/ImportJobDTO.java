@@ -0,0 +1,84 @@
+package com.springboot.tiku.dto.question;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 文件导入任务状态DTO
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 学科ID
+     */
+    private Long subjectId;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 状态：PENDING、RUNNING、COMPLETED、FAILED
+     */
+    private String status;
+
+    /**
+     * 已读取行数（不含表头）
+     */
+    private int processedRows;
+
+    /**
+     * 成功数量
+     */
+    private int successCount;
+
+    /**
+     * 失败数量
+     */
+    private int failCount;
+
+    /**
+     * 创建的章节数量（完成后）
+     */
+    private int createdChapters;
+
+    /**
+     * 错误消息列表（完成后）
+     */
+    private List<String> errors;
+
+    /**
+     * 任务失败原因
+     */
+    private String message;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime submittedAt;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+}
@@ -95,6 +95,11 @@ public class WrongQuestionDTO {
      */
     private LocalDateTime lastWrongAt;
     
+    /**
+     * 下次复习时间
+     */
+    private LocalDateTime dueAt;
+    
     /**
      * 错误记录
      */
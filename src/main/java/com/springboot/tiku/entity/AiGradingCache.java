@@ -0,0 +1,48 @@
+package com.springboot.tiku.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * AI判题结果缓存实体
+ * 按（题目ID、题目评分版本、规范化后的学生答案）的哈希保存判题结果，相同答案再次提交时不再调用大模型
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "ai_grading_cache",
+    uniqueConstraints = @UniqueConstraint(name = "uk_cache_key", columnNames = "cache_key"),
+    indexes = {
+        @Index(name = "idx_question_id", columnList = "question_id"),
+        @Index(name = "idx_expires_at", columnList = "expires_at")
+    }
+)
+public class AiGradingCache extends BaseEntity {
+    
+    /**
+     * 缓存键（SHA-256 十六进制）
+     */
+    @Column(name = "cache_key", nullable = false, length = 64)
+    private String cacheKey;
+    
+    /**
+     * 题目ID
+     */
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+    
+    /**
+     * 判题结果（GradingResult JSON）
+     */
+    @Column(nullable = false, columnDefinition = "JSON")
+    private String result;
+    
+    /**
+     * 过期时间
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
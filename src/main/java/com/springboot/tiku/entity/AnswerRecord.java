@@ -15,9 +15,12 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "answer_record", indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
+    @Index(name = "idx_user_question", columnList = "user_id, question_id"),
     @Index(name = "idx_question_id", columnList = "question_id"),
     @Index(name = "idx_exam_id", columnList = "exam_id"),
-    @Index(name = "idx_grading_status", columnList = "grading_status")
+    @Index(name = "idx_exam_record_id", columnList = "exam_record_id"),
+    @Index(name = "idx_grading_status", columnList = "grading_status"),
+    @Index(name = "idx_claim_token", columnList = "claim_token")
 })
 public class AnswerRecord extends BaseEntity {
     
@@ -45,6 +48,12 @@ public class AnswerRecord extends BaseEntity {
     @Column(name = "exam_id")
     private Long examId;
     
+    /**
+     * 考试记录ID（考试交卷时写入，AI判题完成后据此重算考试得分）
+     */
+    @Column(name = "exam_record_id")
+    private Long examRecordId;
+    
     /**
      * 用户答案（JSON格式）
      */
@@ -103,6 +112,24 @@ public class AnswerRecord extends BaseEntity {
      */
     private LocalDateTime gradedAt;
     
+    /**
+     * 重新判题认领标识（认领该记录的批次，防止多个节点重复判题）
+     */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+    
+    /**
+     * 认领时间（超过租约时间未完成视为失效，可被重新认领）
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
+    /**
+     * 重新判题次数
+     */
+    @Column(name = "regrade_attempts", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer regradeAttempts = 0;
+    
     /**
      * 判题方式枚举
      */
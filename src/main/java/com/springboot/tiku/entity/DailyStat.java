@@ -0,0 +1,50 @@
+package com.springboot.tiku.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+
+/**
+ * 全站每日学习汇总实体
+ * 活跃用户数取自当日的用户每日汇总行数
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "daily_stat",
+    uniqueConstraints = @UniqueConstraint(name = "uk_stat_date", columnNames = {"stat_date"})
+)
+public class DailyStat extends BaseEntity {
+    
+    /**
+     * 统计日期
+     */
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    /**
+     * 当日答题数
+     */
+    @Column(nullable = false)
+    private Long answerCount = 0L;
+    
+    /**
+     * 当日正确数
+     */
+    @Column(nullable = false)
+    private Long correctCount = 0L;
+    
+    /**
+     * 当日活跃用户数
+     */
+    @Column(nullable = false)
+    private Long activeUserCount = 0L;
+    
+    /**
+     * 当日答题用时（秒）
+     */
+    @Column(nullable = false)
+    private Long timeSpent = 0L;
+}
@@ -16,8 +16,9 @@ import java.time.LocalDateTime;
 @Table(name = "exam_record", indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_exam_id", columnList = "exam_id"),
-    @Index(name = "idx_status", columnList = "status")
-})
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_status_deadline", columnList = "status, deadline")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_ongoing_key", columnNames = "ongoing_key"))
 public class ExamRecord extends BaseEntity {
     
     /**
@@ -54,6 +55,12 @@ public class ExamRecord extends BaseEntity {
     @Column(nullable = false)
     private Integer totalCount;
     
+    /**
+     * AI判题中的题数（大于0时得分未定，是否及格为空）
+     */
+    @Column(name = "pending_count", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer pendingCount = 0;
+    
     /**
      * 用时（秒）
      */
@@ -74,6 +81,23 @@ public class ExamRecord extends BaseEntity {
      */
     private LocalDateTime submitTime;
     
+    /**
+     * 答题截止时间（开始时间 + 考试时长，不晚于考试结束时间）
+     */
+    private LocalDateTime deadline;
+    
+    /**
+     * 冻结的试卷（JSON格式：题目ID、分值、选项顺序），开考时生成
+     */
+    @Column(columnDefinition = "JSON")
+    private String paper;
+    
+    /**
+     * 作答检查点（JSON格式：题目ID -> 答案），考试中定时批量写入
+     */
+    @Column(columnDefinition = "JSON")
+    private String answers;
+    
     /**
      * 考试状态：ONGOING-进行中, SUBMITTED-已提交, TIMEOUT-超时
      */
@@ -81,6 +105,14 @@ public class ExamRecord extends BaseEntity {
     @Column(nullable = false, length = 20)
     private ExamStatus status = ExamStatus.ONGOING;
     
+    /**
+     * 进行中记录的唯一键（用户ID:考试ID，其他状态为NULL），由数据库生成，多节点下同一用户同一考试只能有一条进行中的记录
+     */
+    @Column(name = "ongoing_key", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(41) GENERATED ALWAYS AS " +
+                    "(IF(status = 'ONGOING' AND paper IS NOT NULL, CONCAT(user_id, ':', exam_id), NULL)) VIRTUAL")
+    private String ongoingKey;
+    
     /**
      * 考试状态枚举
      */
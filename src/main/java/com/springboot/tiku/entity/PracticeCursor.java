@@ -0,0 +1,42 @@
+package com.springboot.tiku.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 顺序刷题进度游标实体
+ * 记录用户在某学科（及章节/题型/难度筛选条件）下最后下发的题目ID，继续刷题时从该ID之后取题
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "practice_cursor",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_subject_filter", columnNames = {"user_id", "subject_id", "filter_key"})
+)
+public class PracticeCursor extends BaseEntity {
+    
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    /**
+     * 学科ID
+     */
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+    
+    /**
+     * 筛选条件（章节/题型/难度组合，如 "c:12|t:SINGLE|d:-"）
+     */
+    @Column(name = "filter_key", nullable = false, length = 100)
+    private String filterKey;
+    
+    /**
+     * 最后下发的题目ID
+     */
+    @Column(name = "last_question_id", nullable = false)
+    private Long lastQuestionId = 0L;
+}
@@ -16,7 +16,8 @@ import java.math.BigDecimal;
     @Index(name = "idx_subject_id", columnList = "subject_id"),
     @Index(name = "idx_chapter_id", columnList = "chapter_id"),
     @Index(name = "idx_type", columnList = "type"),
-    @Index(name = "idx_difficulty", columnList = "difficulty")
+    @Index(name = "idx_difficulty", columnList = "difficulty"),
+    @Index(name = "idx_subject_status_id", columnList = "subject_id, status, id")
 })
 public class Question extends BaseEntity {
     
@@ -123,20 +124,21 @@ public class Question extends BaseEntity {
     
     /**
      * 使用次数
+     * 答题计数字段由 CounterAggregator 以增量 UPDATE 批量写入，实体保存时不覆盖
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer useCount = 0;
     
     /**
      * 答对次数
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer correctCount = 0;
     
     /**
      * 答错次数
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer wrongCount = 0;
     
     /**
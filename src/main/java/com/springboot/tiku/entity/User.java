@@ -86,14 +86,15 @@ public class User extends BaseEntity {
     
     /**
      * 累计答题数
+     * 答题计数字段由 CounterAggregator 以增量 UPDATE 批量写入，实体保存时不覆盖
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer totalAnswerCount = 0;
     
     /**
      * 累计正确数
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer totalCorrectCount = 0;
     
     /**
@@ -0,0 +1,53 @@
+package com.springboot.tiku.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每日学习汇总实体
+ * 由答题提交增量维护，可从答题记录回填重建
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "user_daily_stat",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_stat_date", columnNames = {"user_id", "stat_date"}),
+    indexes = {
+        @Index(name = "idx_stat_date", columnList = "stat_date")
+    }
+)
+public class UserDailyStat extends BaseEntity {
+    
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    /**
+     * 统计日期
+     */
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    /**
+     * 当日答题数
+     */
+    @Column(nullable = false)
+    private Long answerCount = 0L;
+    
+    /**
+     * 当日正确数
+     */
+    @Column(nullable = false)
+    private Long correctCount = 0L;
+    
+    /**
+     * 当日答题用时（秒）
+     */
+    @Column(nullable = false)
+    private Long timeSpent = 0L;
+}
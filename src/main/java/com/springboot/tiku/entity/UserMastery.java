@@ -0,0 +1,76 @@
+package com.springboot.tiku.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户知识掌握度实体
+ * 按学科下的章节、题型两个维度记录答题数、正确数和指数衰减正确率，由答题提交增量维护
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "user_mastery",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_mastery", columnNames = {"user_id", "subject_id", "dimension", "ref_key"})
+)
+public class UserMastery extends BaseEntity {
+    
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    /**
+     * 学科ID
+     */
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+    
+    /**
+     * 维度：CHAPTER-章节, TYPE-题型
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Dimension dimension;
+    
+    /**
+     * 维度取值（章节ID或题型名称）
+     */
+    @Column(name = "ref_key", nullable = false, length = 50)
+    private String refKey;
+    
+    /**
+     * 答题数
+     */
+    @Column(nullable = false)
+    private Long attempts = 0L;
+    
+    /**
+     * 正确数
+     */
+    @Column(nullable = false)
+    private Long correctCount = 0L;
+    
+    /**
+     * 指数衰减正确率（0-1，近期答题权重更高）
+     */
+    @Column(nullable = false)
+    private Double decayedAccuracy = 0.5;
+    
+    /**
+     * 最后答题时间
+     */
+    private LocalDateTime lastAnsweredAt;
+    
+    /**
+     * 掌握度维度枚举
+     */
+    public enum Dimension {
+        CHAPTER,  // 章节
+        TYPE      // 题型
+    }
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.time.LocalDateTime;
+
 /**
  * 错题本实体
  */
@@ -15,7 +17,8 @@ import lombok.EqualsAndHashCode;
     indexes = {
         @Index(name = "idx_user_id", columnList = "user_id"),
         @Index(name = "idx_question_id", columnList = "question_id"),
-        @Index(name = "idx_status", columnList = "status")
+        @Index(name = "idx_status", columnList = "status"),
+        @Index(name = "idx_user_due_at", columnList = "user_id, due_at")
     }
 )
 public class WrongQuestion extends BaseEntity {
@@ -57,6 +60,27 @@ public class WrongQuestion extends BaseEntity {
     @Column(nullable = false)
     private Boolean removed = false;
     
+    /**
+     * 下次复习时间（间隔重复调度，为空表示立即复习）
+     */
+    @Column(name = "due_at")
+    private LocalDateTime dueAt;
+    
+    /**
+     * 当前复习间隔（天）
+     */
+    private Integer intervalDays;
+    
+    /**
+     * 难度系数（SM-2 ease factor，初始2.5，最低1.3）
+     */
+    private Double easeFactor;
+    
+    /**
+     * 连续答对次数
+     */
+    private Integer repetitions;
+    
     /**
      * 错题状态枚举
      */
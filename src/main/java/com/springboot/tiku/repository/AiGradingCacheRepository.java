@@ -0,0 +1,19 @@
+package com.springboot.tiku.repository;
+
+import com.springboot.tiku.entity.AiGradingCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * AI判题结果缓存Repository
+ */
+@Repository
+public interface AiGradingCacheRepository extends JpaRepository<AiGradingCache, Long> {
+    
+    /**
+     * 根据缓存键查询
+     */
+    Optional<AiGradingCache> findByCacheKey(String cacheKey);
+}
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,6 +50,11 @@ public interface AnswerRecordRepository extends JpaRepository<AnswerRecord, Long
      */
     Page<AnswerRecord> findByGradingStatusOrderByAnsweredAtDesc(AnswerRecord.GradingStatus status, Pageable pageable);
     
+    /**
+     * 查询某个重新判题批次认领的记录
+     */
+    List<AnswerRecord> findByClaimTokenOrderByIdAsc(String claimToken);
+    
     /**
      * 统计某时间段内的答题数
      */
@@ -85,6 +91,21 @@ public interface AnswerRecordRepository extends JpaRepository<AnswerRecord, Long
     @Query("SELECT COUNT(a) FROM AnswerRecord a JOIN Question q ON a.questionId = q.id WHERE a.userId = :userId AND q.chapterId = :chapterId AND a.isCorrect = :isCorrect")
     long countByUserIdAndQuestionChapterIdAndIsCorrect(@Param("userId") Long userId, @Param("chapterId") Long chapterId, @Param("isCorrect") Boolean isCorrect);
     
+    /**
+     * 按学科分组统计用户的答题数和正确数（返回 [subjectId, count, correctCount]）
+     */
+    @Query("SELECT q.subjectId, COUNT(a), SUM(CASE WHEN a.isCorrect = true THEN 1 ELSE 0 END) " +
+            "FROM AnswerRecord a JOIN Question q ON a.questionId = q.id WHERE a.userId = :userId GROUP BY q.subjectId")
+    List<Object[]> aggregateByUserIdGroupBySubject(@Param("userId") Long userId);
+    
+    /**
+     * 按章节分组统计用户在指定章节中的答题数和正确数（返回 [chapterId, count, correctCount]）
+     */
+    @Query("SELECT q.chapterId, COUNT(a), SUM(CASE WHEN a.isCorrect = true THEN 1 ELSE 0 END) " +
+            "FROM AnswerRecord a JOIN Question q ON a.questionId = q.id " +
+            "WHERE a.userId = :userId AND q.chapterId IN :chapterIds GROUP BY q.chapterId")
+    List<Object[]> aggregateByUserIdGroupByChapter(@Param("userId") Long userId, @Param("chapterIds") Collection<Long> chapterIds);
+    
     /**
      * 查询时间范围内的答题记录
      */
@@ -138,11 +159,42 @@ public interface AnswerRecordRepository extends JpaRepository<AnswerRecord, Long
      */
     Integer countByUserIdAndQuestionId(Long userId, Long questionId);
     
+    /**
+     * 按用户分组统计答题数和正确数（返回 [userId, count, correctCount]，排除指定判题状态）
+     */
+    @Query("SELECT a.userId, COUNT(a), SUM(CASE WHEN a.isCorrect = true THEN 1 ELSE 0 END) FROM AnswerRecord a " +
+            "WHERE a.gradingStatus <> :excludedStatus GROUP BY a.userId")
+    List<Object[]> aggregateByUser(@Param("excludedStatus") AnswerRecord.GradingStatus excludedStatus);
+    
+    /**
+     * 按用户、学科分组统计答题数和正确数（返回 [userId, subjectId, count, correctCount]，排除指定判题状态）
+     */
+    @Query("SELECT a.userId, q.subjectId, COUNT(a), SUM(CASE WHEN a.isCorrect = true THEN 1 ELSE 0 END) " +
+            "FROM AnswerRecord a JOIN Question q ON a.questionId = q.id " +
+            "WHERE a.gradingStatus <> :excludedStatus GROUP BY a.userId, q.subjectId")
+    List<Object[]> aggregateByUserAndSubject(@Param("excludedStatus") AnswerRecord.GradingStatus excludedStatus);
+    
+    /**
+     * 按题目分组统计用户的答题次数（返回 [questionId, count]）
+     */
+    @Query("SELECT a.questionId, COUNT(a) FROM AnswerRecord a WHERE a.userId = :userId AND a.questionId IN :questionIds GROUP BY a.questionId")
+    List<Object[]> countGroupByQuestionIdForUser(@Param("userId") Long userId, @Param("questionIds") Collection<Long> questionIds);
+    
     /**
      * 统计用户在指定题目列表中做过的不同题目数量
      */
     @Query("SELECT COUNT(DISTINCT a.questionId) FROM AnswerRecord a WHERE a.userId = :userId AND a.questionId IN :questionIds")
     Long countDistinctQuestionsByUserIdAndQuestionIdIn(@Param("userId") Long userId, @Param("questionIds") List<Long> questionIds);
+    
+    /**
+     * 批量查询用户在指定题目上最近N次错误作答（返回 [questionId, answeredAt, userAnswer]，按题目、时间倒序）
+     */
+    @Query(value = "SELECT t.question_id, t.answered_at, t.user_answer FROM (" +
+            "SELECT a.question_id, a.answered_at, a.user_answer, " +
+            "ROW_NUMBER() OVER (PARTITION BY a.question_id ORDER BY a.answered_at DESC, a.id DESC) AS rn " +
+            "FROM answer_record a WHERE a.user_id = :userId AND a.question_id IN (:questionIds) AND a.is_correct = false" +
+            ") t WHERE t.rn <= :limit ORDER BY t.question_id, t.rn", nativeQuery = true)
+    List<Object[]> findRecentWrongAttempts(@Param("userId") Long userId,
+                                           @Param("questionIds") Collection<Long> questionIds,
+                                           @Param("limit") int limit);
 }
-
-
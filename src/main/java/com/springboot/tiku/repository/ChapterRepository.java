@@ -3,8 +3,10 @@ package com.springboot.tiku.repository;
 import com.springboot.tiku.entity.Chapter;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +35,22 @@ public interface ChapterRepository extends JpaRepository<Chapter, Long>, JpaSpec
      * 根据学科ID和章节名称查找
      */
     Optional<Chapter> findBySubjectIdAndName(Long subjectId, String name);
+    
+    /**
+     * 根据学科ID和章节名称批量查找
+     */
+    List<Chapter> findBySubjectIdAndNameIn(Long subjectId, Collection<String> names);
+    
+    /**
+     * 统计学科下的章节数
+     */
+    long countBySubjectId(Long subjectId);
+    
+    /**
+     * 按学科分组统计章节数（返回 [subjectId, count]）
+     */
+    @Query("SELECT c.subjectId, COUNT(c) FROM Chapter c GROUP BY c.subjectId")
+    List<Object[]> countGroupBySubjectId();
 }
 
 
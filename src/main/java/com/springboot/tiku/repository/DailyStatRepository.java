@@ -0,0 +1,20 @@
+package com.springboot.tiku.repository;
+
+import com.springboot.tiku.entity.DailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 全站每日学习汇总Repository
+ */
+@Repository
+public interface DailyStatRepository extends JpaRepository<DailyStat, Long> {
+    
+    /**
+     * 查询某时间段内的每日汇总
+     */
+    List<DailyStat> findByStatDateBetweenOrderByStatDateAsc(LocalDate start, LocalDate end);
+}
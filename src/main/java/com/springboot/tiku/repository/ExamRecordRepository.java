@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,19 @@ public interface ExamRecordRepository extends JpaRepository<ExamRecord, Long>, J
      */
     Optional<ExamRecord> findByUserIdAndExamIdAndStatus(Long userId, Long examId, ExamRecord.ExamStatus status);
     
+    /**
+     * 是否已有结束的考试记录（正式考试只允许参加一次）
+     */
+    boolean existsByUserIdAndExamIdAndStatusNot(Long userId, Long examId, ExamRecord.ExamStatus status);
+    
+    /**
+     * 查询已过截止时间仍在进行中的记录ID
+     */
+    @Query("SELECT e.id FROM ExamRecord e WHERE e.status = :status AND e.deadline < :time ORDER BY e.deadline")
+    List<Long> findIdsByStatusAndDeadlineBefore(@Param("status") ExamRecord.ExamStatus status,
+                                                @Param("time") LocalDateTime time,
+                                                Pageable pageable);
+    
     /**
      * 查询考试的所有记录
      */
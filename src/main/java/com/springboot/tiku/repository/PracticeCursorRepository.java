@@ -0,0 +1,19 @@
+package com.springboot.tiku.repository;
+
+import com.springboot.tiku.entity.PracticeCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 顺序刷题进度游标Repository
+ */
+@Repository
+public interface PracticeCursorRepository extends JpaRepository<PracticeCursor, Long> {
+    
+    /**
+     * 查询用户在某学科、某筛选条件下的游标
+     */
+    Optional<PracticeCursor> findByUserIdAndSubjectIdAndFilterKey(Long userId, Long subjectId, String filterKey);
+}
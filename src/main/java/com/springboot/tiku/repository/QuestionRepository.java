@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -70,7 +71,47 @@ public interface QuestionRepository extends JpaRepository<Question, Long>, JpaSp
      */
     @Query(value = "SELECT * FROM question WHERE chapter_id = :chapterId AND status = :status ORDER BY RAND() LIMIT :limit", nativeQuery = true)
     List<Question> findRandomQuestionsByChapter(@Param("chapterId") Long chapterId, @Param("status") Integer status, @Param("limit") Integer limit);
+
+    /**
+     * 查询学科下的题目ID（用于内存随机抽样）
+     */
+    @Query("SELECT q.id FROM Question q WHERE q.subjectId = :subjectId AND q.status = :status")
+    List<Long> findIdsBySubjectIdAndStatus(@Param("subjectId") Long subjectId, @Param("status") Integer status);
+
+    /**
+     * 查询学科下某题型的题目ID（用于内存随机抽样）
+     */
+    @Query("SELECT q.id FROM Question q WHERE q.subjectId = :subjectId AND q.type = :type AND q.status = :status")
+    List<Long> findIdsBySubjectIdAndTypeAndStatus(@Param("subjectId") Long subjectId, @Param("type") Question.QuestionType type, @Param("status") Integer status);
+
+    /**
+     * 查询章节下的题目ID（用于内存随机抽样）
+     */
+    @Query("SELECT q.id FROM Question q WHERE q.chapterId = :chapterId AND q.status = :status")
+    List<Long> findIdsByChapterIdAndStatus(@Param("chapterId") Long chapterId, @Param("status") Integer status);
+    
+    /**
+     * 顺序刷题：按ID游标取下一批题目（走 (subject_id, status, id) 索引，与已刷进度无关）
+     */
+    @Query("SELECT q FROM Question q WHERE q.subjectId = :subjectId AND q.status = :status AND q.id > :cursor " +
+           "AND (:chapterId IS NULL OR q.chapterId = :chapterId) " +
+           "AND (:type IS NULL OR q.type = :type) " +
+           "AND (:difficulty IS NULL OR q.difficulty = :difficulty) " +
+           "ORDER BY q.id")
+    List<Question> findNextBySubject(@Param("subjectId") Long subjectId,
+                                     @Param("status") Integer status,
+                                     @Param("cursor") Long cursor,
+                                     @Param("chapterId") Long chapterId,
+                                     @Param("type") Question.QuestionType type,
+                                     @Param("difficulty") Question.Difficulty difficulty,
+                                     Pageable pageable);
     
+    /**
+     * 查询仍存在的题目ID
+     */
+    @Query("SELECT q.id FROM Question q WHERE q.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
     /**
      * 统计某时间之后创建的题目数
      */
@@ -92,6 +133,10 @@ public interface QuestionRepository extends JpaRepository<Question, Long>, JpaSp
      */
     @Query("SELECT MAX(q.serialNumber) FROM Question q WHERE q.chapterId = :chapterId")
     Integer findMaxSerialNumberByChapterId(@Param("chapterId") Long chapterId);
+    
+    /**
+     * 批量获取章节中最大的序号（返回 [chapterId, maxSerialNumber]）
+     */
+    @Query("SELECT q.chapterId, MAX(q.serialNumber) FROM Question q WHERE q.chapterId IN :chapterIds GROUP BY q.chapterId")
+    List<Object[]> findMaxSerialNumbersByChapterIds(@Param("chapterIds") Collection<Long> chapterIds);
 }
-
-
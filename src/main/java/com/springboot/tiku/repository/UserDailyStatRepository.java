@@ -0,0 +1,20 @@
+package com.springboot.tiku.repository;
+
+import com.springboot.tiku.entity.UserDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 用户每日学习汇总Repository
+ */
+@Repository
+public interface UserDailyStatRepository extends JpaRepository<UserDailyStat, Long> {
+    
+    /**
+     * 查询用户某时间段内的每日汇总
+     */
+    List<UserDailyStat> findByUserIdAndStatDateBetweenOrderByStatDateAsc(Long userId, LocalDate start, LocalDate end);
+}
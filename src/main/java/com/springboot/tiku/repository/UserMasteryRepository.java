@@ -0,0 +1,19 @@
+package com.springboot.tiku.repository;
+
+import com.springboot.tiku.entity.UserMastery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 用户知识掌握度Repository
+ */
+@Repository
+public interface UserMasteryRepository extends JpaRepository<UserMastery, Long> {
+    
+    /**
+     * 查询用户的全部掌握度
+     */
+    List<UserMastery> findByUserId(Long userId);
+}
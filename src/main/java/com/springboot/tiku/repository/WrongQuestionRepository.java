@@ -1,12 +1,16 @@
 package com.springboot.tiku.repository;
 
+import com.springboot.tiku.entity.Question;
 import com.springboot.tiku.entity.WrongQuestion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +30,15 @@ public interface WrongQuestionRepository extends JpaRepository<WrongQuestion, Lo
      */
     List<WrongQuestion> findByUserIdAndStatusAndRemovedOrderByWrongCountDesc(Long userId, WrongQuestion.WrongStatus status, Boolean removed);
     
+    /**
+     * 复习队列：按下次复习时间取前N道错题（未调度的排在最前，走 (user_id, due_at) 索引）
+     * 已掌握的错题只在到期后重新进入队列，不提前占用名额
+     */
+    @Query("SELECT w FROM WrongQuestion w WHERE w.userId = :userId AND w.removed = false " +
+            "AND (w.status <> 'MASTERED' OR w.dueAt <= :now) " +
+            "ORDER BY w.dueAt ASC")
+    List<WrongQuestion> findReviewQueue(@Param("userId") Long userId, @Param("now") LocalDateTime now, Pageable pageable);
+    
     /**
      * 查找特定错题
      */
@@ -40,8 +53,31 @@ public interface WrongQuestionRepository extends JpaRepository<WrongQuestion, Lo
      * 统计用户错题数
      */
     long countByUserIdAndRemoved(Long userId, Boolean removed);
+    
+    /**
+     * 按状态统计用户错题数
+     */
+    long countByUserIdAndStatusAndRemoved(Long userId, WrongQuestion.WrongStatus status, Boolean removed);
+    
+    /**
+     * 联表题目分页查询用户错题（筛选条件为空时不限制）
+     */
+    @Query(value = "SELECT w FROM WrongQuestion w JOIN Question q ON q.id = w.questionId " +
+            "WHERE w.userId = :userId AND w.removed = false " +
+            "AND (:status IS NULL OR w.status = :status) " +
+            "AND (:subjectId IS NULL OR q.subjectId = :subjectId) " +
+            "AND (:chapterId IS NULL OR q.chapterId = :chapterId) " +
+            "AND (:type IS NULL OR q.type = :type)",
+            countQuery = "SELECT COUNT(w) FROM WrongQuestion w JOIN Question q ON q.id = w.questionId " +
+                    "WHERE w.userId = :userId AND w.removed = false " +
+                    "AND (:status IS NULL OR w.status = :status) " +
+                    "AND (:subjectId IS NULL OR q.subjectId = :subjectId) " +
+                    "AND (:chapterId IS NULL OR q.chapterId = :chapterId) " +
+                    "AND (:type IS NULL OR q.type = :type)")
+    Page<WrongQuestion> findPageByFilters(@Param("userId") Long userId,
+                                          @Param("status") WrongQuestion.WrongStatus status,
+                                          @Param("subjectId") Long subjectId,
+                                          @Param("chapterId") Long chapterId,
+                                          @Param("type") Question.QuestionType type,
+                                          Pageable pageable);
 }
-
-
-
-
@@ -1,6 +1,7 @@
 package com.springboot.tiku.security;
 
 import com.springboot.tiku.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,8 +11,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -28,7 +27,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     
     @Value("${jwt.header}")
     private String header;
@@ -57,23 +56,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                // 从Token中获取用户名
-                String username = jwtUtil.getUsernameFromToken(token);
+                // 解析并校验Token（签名、过期时间一次完成）
+                Claims claims = jwtUtil.parseToken(token);
+                Long userId = claims != null ? claims.get("userId", Long.class) : null;
                 
-                if (username != null) {
-                    // 加载用户详情
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (userId != null) {
+                    // 从缓存确认账号状态，未命中时才查询用户表
+                    JwtPrincipal principal = principalCache.get(userId);
                     
-                    // 验证Token
-                    if (jwtUtil.validateToken(token, username)) {
+                    if (principal != null) {
                         // 创建认证对象
                         UsernamePasswordAuthenticationToken authentication = 
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         
                         // 设置到SecurityContext
                         SecurityContextHolder.getContext().setAuthentication(authentication);
-                        log.debug("设置用户认证信息：{}", username);
+                        log.debug("设置用户认证信息：{}", principal.getUsername());
                     }
                 }
             } catch (Exception e) {
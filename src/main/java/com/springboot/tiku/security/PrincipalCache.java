@@ -0,0 +1,91 @@
+package com.springboot.tiku.security;
+
+import com.springboot.tiku.entity.User;
+import com.springboot.tiku.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 认证用户缓存（用户ID -> 账号状态快照）
+ * JWT过滤器按Token中的用户ID确认账号仍然启用，命中缓存时不查询用户表。
+ * 条目按TTL过期，数量有上限；管理员禁用、删除用户或修改角色时主动失效。
+ * 并发加载与失效交错时，旧快照最多保留一个TTL。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+    
+    private final UserRepository userRepository;
+    
+    /**
+     * 缓存有效期（秒）
+     */
+    @Value("${jwt.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    /**
+     * 最大条目数
+     */
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+    
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    
+    /**
+     * 获取可用的认证用户（用户不存在或已禁用返回null）
+     */
+    public JwtPrincipal get(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.expiresAt() < now) {
+            entry = load(userId, now);
+        }
+        return entry.principal();
+    }
+    
+    /**
+     * 使指定用户的缓存失效
+     */
+    public void invalidate(Long userId) {
+        entries.remove(userId);
+    }
+    
+    /**
+     * 批量失效
+     */
+    public void invalidateAll(Collection<Long> userIds) {
+        userIds.forEach(entries::remove);
+    }
+    
+    private Entry load(Long userId, long now) {
+        User user = userRepository.findById(userId).orElse(null);
+        // 用户不存在或未启用（含状态为空）时缓存空结果，避免无效Token反复查询
+        JwtPrincipal principal = user != null && Integer.valueOf(1).equals(user.getStatus())
+                ? new JwtPrincipal(user.getId(), user.getUsername(), user.getRole().name())
+                : null;
+        Entry entry = new Entry(principal, now + ttlSeconds * 1000);
+        
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> e.expiresAt() < now);
+            if (entries.size() >= maxSize) {
+                log.debug("认证用户缓存已满，清空后重新加载：{}", entries.size());
+                entries.clear();
+            }
+        }
+        entries.put(userId, entry);
+        return entry;
+    }
+    
+    /**
+     * 缓存条目
+     */
+    private record Entry(JwtPrincipal principal, long expiresAt) {
+    }
+}
@@ -31,6 +31,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final RankingService rankingService;
     
     /**
      * 获取当前用户信息
@@ -68,6 +69,7 @@ public class AuthService {
         user.setStatus(1);
         
         user = userRepository.save(user);
+        rankingService.refreshUser(user);
         log.info("用户注册成功：{}", user.getUsername());
         
         // 生成Token并返回
@@ -1,25 +1,24 @@
 package com.springboot.tiku.service;
 
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.common.ResultCode;
 import com.springboot.tiku.dto.question.ImportResultDTO;
 import com.springboot.tiku.dto.question.SmartImportRequest;
 import com.springboot.tiku.entity.Chapter;
 import com.springboot.tiku.entity.Question;
 import com.springboot.tiku.entity.Subject;
-import com.springboot.tiku.repository.ChapterRepository;
-import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.service.importer.MayuanQuestionReader;
+import com.springboot.tiku.service.importer.QuestionImportPipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -35,51 +34,40 @@ import java.util.regex.Pattern;
 public class DataImportService {
     
     private final SubjectRepository subjectRepository;
-    private final ChapterRepository chapterRepository;
-    private final QuestionRepository questionRepository;
     private final ObjectMapper objectMapper;
+    private final QuestionImportPipeline questionImportPipeline;
     
     /**
-     * 从HTML文件导入马原题库
+     * 从HTML文件导入马原题库（流式读取，按块批量写入）
      */
-    @Transactional
     public Map<String, Object> importMayuanQuestions(String htmlFilePath) {
-        try {
-            log.info("开始导入马原题库，文件：{}", htmlFilePath);
-            
-            // 1. 创建学科
-            Subject subject = createOrGetSubject();
-            
-            // 2. 读取HTML文件
-            String html = Files.readString(Path.of(htmlFilePath));
-            
-            // 3. 提取questions数组
-            String questionsJson = extractQuestionsJson(html);
-            
-            // 4. 解析题目数据
-            JSONArray questionsArray = JSON.parseArray(questionsJson);
-            
-            // 5. 统计章节
-            Map<String, Chapter> chapterMap = createChapters(subject, questionsArray);
-            
-            // 6. 导入题目
-            int importedCount = importQuestions(subject, chapterMap, questionsArray);
-            
-            // 7. 更新统计
-            updateStatistics(subject);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("subject", subject.getName());
-            result.put("totalQuestions", importedCount);
-            result.put("chapters", chapterMap.size());
-            
-            log.info("马原题库导入完成，共导入{}道题目，{}个章节", importedCount, chapterMap.size());
-            return result;
-            
+        log.info("开始导入马原题库，文件：{}", htmlFilePath);
+        
+        // 1. 创建学科
+        Subject subject = createOrGetSubject();
+        
+        // 2. 逐题读取并导入
+        ImportResultDTO importResult;
+        try (MayuanQuestionReader reader = new MayuanQuestionReader(Path.of(htmlFilePath))) {
+            importResult = questionImportPipeline.run(subject, reader,
+                    data -> {
+                        String unit = data.getString("unit");
+                        return unit != null && !unit.isEmpty() ? new QuestionImportPipeline.ChapterKey(unit, null) : null;
+                    },
+                    (data, chapter) -> convertToQuestion(subject, chapter, data));
         } catch (Exception e) {
             log.error("导入题库失败", e);
             throw new RuntimeException("导入题库失败：" + e.getMessage(), e);
         }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("subject", subject.getName());
+        result.put("totalQuestions", importResult.getSuccessCount());
+        result.put("failedQuestions", importResult.getFailCount());
+        result.put("chapters", importResult.getCreatedChapters());
+        
+        log.info("马原题库导入完成，共导入{}道题目，{}个章节", importResult.getSuccessCount(), importResult.getCreatedChapters());
+        return result;
     }
     
     /**
@@ -98,121 +86,19 @@ public class DataImportService {
         });
     }
     
-    /**
-     * 从HTML中提取questions数组的JSON
-     */
-    private String extractQuestionsJson(String html) {
-        // 查找 const questions = [ ... ];
-        Pattern pattern = Pattern.compile("const questions = \\[(.*?)\\];", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(html);
-        
-        if (matcher.find()) {
-            String questionsContent = matcher.group(1);
-            // 处理JavaScript对象为JSON格式
-            questionsContent = processJavaScriptToJson(questionsContent);
-            return "[" + questionsContent + "]";
-        }
-        
-        throw new RuntimeException("未找到题目数据");
-    }
-    
-    /**
-     * 将JavaScript对象转换为JSON格式
-     */
-    private String processJavaScriptToJson(String js) {
-        // 移除注释
-        js = js.replaceAll("//[^\\n]*", "");
-        
-        // 将单引号替换为双引号（但要注意字符串内部的单引号）
-        // 将 key: value 转换为 "key": value
-        js = js.replaceAll("(\\w+):", "\"$1\":");
-        
-        // 处理尾部逗号
-        js = js.replaceAll(",\\s*}", "}");
-        js = js.replaceAll(",\\s*]", "]");
-        
-        return js;
-    }
-    
-    /**
-     * 创建章节
-     */
-    private Map<String, Chapter> createChapters(Subject subject, JSONArray questionsArray) {
-        Map<String, Chapter> chapterMap = new HashMap<>();
-        Set<String> unitNames = new HashSet<>();
-        
-        // 收集所有章节名称
-        for (int i = 0; i < questionsArray.size(); i++) {
-            JSONObject question = questionsArray.getJSONObject(i);
-            String unit = question.getString("unit");
-            if (unit != null && !unit.isEmpty()) {
-                unitNames.add(unit);
-            }
-        }
-        
-        // 创建章节
-        int sortOrder = 1;
-        for (String unitName : unitNames) {
-            Chapter chapter = chapterRepository.findBySubjectIdAndName(subject.getId(), unitName)
-                    .orElseGet(() -> {
-                        Chapter ch = new Chapter();
-                        ch.setSubjectId(subject.getId());
-                        ch.setName(unitName);
-                        ch.setParentId(0L);
-                        ch.setLevel(1);
-                        ch.setSortOrder(sortOrder);
-                        ch.setQuestionCount(0);
-                        return chapterRepository.save(ch);
-                    });
-            chapterMap.put(unitName, chapter);
-        }
-        
-        return chapterMap;
-    }
-    
-    /**
-     * 导入题目
-     */
-    private int importQuestions(Subject subject, Map<String, Chapter> chapterMap, JSONArray questionsArray) {
-        int count = 0;
-        
-        for (int i = 0; i < questionsArray.size(); i++) {
-            JSONObject questionData = null;
-            try {
-                questionData = questionsArray.getJSONObject(i);
-                Question question = convertToQuestion(subject, chapterMap, questionData);
-                questionRepository.save(question);
-                count++;
-                
-                if (count % 100 == 0) {
-                    log.info("已导入{}道题目", count);
-                }
-            } catch (Exception e) {
-                log.error("导入题目失败：{}", questionData != null ? questionData.toJSONString() : "null", e);
-            }
-        }
-        
-        return count;
-    }
-    
     /**
      * 转换为Question实体
      */
-    private Question convertToQuestion(Subject subject, Map<String, Chapter> chapterMap, JSONObject data) {
+    private Question convertToQuestion(Subject subject, Chapter chapter, JSONObject data) {
         Question question = new Question();
         
         // 基本信息
         question.setSubjectId(subject.getId());
         
-        // 章节
+        // 章节（序号由导入流水线分配）
         String unit = data.getString("unit");
-        if (unit != null && chapterMap.containsKey(unit)) {
-            Chapter chapter = chapterMap.get(unit);
+        if (chapter != null) {
             question.setChapterId(chapter.getId());
-            
-            // 自动计算序号：获取该章节当前最大序号+1
-            Integer maxSerialNumber = questionRepository.findMaxSerialNumberByChapterId(chapter.getId());
-            question.setSerialNumber(maxSerialNumber != null ? maxSerialNumber + 1 : 1);
         }
         
         // 题型
@@ -332,142 +218,57 @@ public class DataImportService {
     }
     
     /**
-     * 更新统计信息
+     * 智能批量导入（根据Excel中的章节信息自动归类）
+     * 章节按名称每块一次解析，题目按块批量写入，每块一个事务
      */
-    private void updateStatistics(Subject subject) {
-        // 更新学科题目数
-        long questionCount = questionRepository.countBySubjectIdAndStatus(subject.getId(), 1);
-        subject.setQuestionCount((int) questionCount);
-        subjectRepository.save(subject);
-        
-        // 更新每个章节的题目数
-        List<Chapter> chapters = chapterRepository.findBySubjectIdOrderBySortOrderAsc(subject.getId());
-        for (Chapter chapter : chapters) {
-            long count = questionRepository.countByChapterIdAndStatus(chapter.getId(), 1);
-            chapter.setQuestionCount((int) count);
-            chapterRepository.save(chapter);
-        }
+    public ImportResultDTO smartImport(SmartImportRequest request) {
+        return smartImport(request.getSubjectId(), request.getQuestions().iterator(), null);
     }
     
     /**
-     * 智能批量导入（根据Excel中的章节信息自动归类）
+     * 智能批量导入（逐条读取导入项，文件导入任务使用）
      */
-    @Transactional
-    public ImportResultDTO smartImport(SmartImportRequest request) {
-        ImportResultDTO result = new ImportResultDTO();
-        result.setTotalCount(request.getQuestions().size());
+    public ImportResultDTO smartImport(Long subjectId, Iterator<SmartImportRequest.QuestionImportItem> items,
+                                       QuestionImportPipeline.ProgressListener listener) {
+        Subject subject = subjectRepository.findById(subjectId)
+                .orElseThrow(() -> new BusinessException(ResultCode.SUBJECT_NOT_FOUND));
         
         try {
-            // 1. 获取学科
-            Subject subject = subjectRepository.findById(request.getSubjectId())
-                    .orElseThrow(() -> new RuntimeException("学科不存在"));
-            
-            // 2. 章节缓存（章节名称 -> Chapter实体）
-            Map<String, Chapter> chapterCache = new HashMap<>();
-            
-            // 3. 按章节分组统计
-            Map<String, Integer> chapterQuestionCount = new HashMap<>();
-            
-            // 4. 遍历题目进行导入
-            for (int i = 0; i < request.getQuestions().size(); i++) {
-                SmartImportRequest.QuestionImportItem item = request.getQuestions().get(i);
-                
-                try {
-                    // 获取或创建章节
-                    Chapter chapter = getOrCreateChapter(subject, item, chapterCache);
-                    
-                    // 创建题目
-                    Question question = convertToQuestion(subject, chapter, item);
-                    questionRepository.save(question);
-                    
-                    result.incrementSuccess();
-                    
-                    // 统计
-                    String chapterName = chapter.getName();
-                    chapterQuestionCount.put(chapterName, 
-                        chapterQuestionCount.getOrDefault(chapterName, 0) + 1);
-                    
-                } catch (Exception e) {
-                    result.incrementFail();
-                    result.addError(String.format("第%d行导入失败: %s", i + 1, e.getMessage()));
-                    log.error("导入第{}行题目失败", i + 1, e);
-                }
-            }
-            
-            // 5. 设置章节统计
-            result.setChapterStats(chapterQuestionCount);
-            result.setCreatedChapters(chapterCache.size());
-            
-            // 6. 更新统计信息
-            updateStatistics(subject);
-            
-            log.info("智能导入完成：成功{}，失败{}，创建章节{}", 
-                    result.getSuccessCount(), result.getFailCount(), result.getCreatedChapters());
-            
+            return questionImportPipeline.run(subject, items,
+                    this::chapterKey,
+                    (item, chapter) -> convertToQuestion(subject, chapter, item),
+                    listener);
         } catch (Exception e) {
             log.error("智能导入失败", e);
             throw new RuntimeException("导入失败：" + e.getMessage(), e);
         }
-        
-        return result;
     }
     
     /**
-     * 获取或创建章节
+     * 导入项的章节键（优先使用章节名称，其次章节序号，都没有归入“未分类”）
      */
-    private Chapter getOrCreateChapter(Subject subject, SmartImportRequest.QuestionImportItem item, 
-                                       Map<String, Chapter> chapterCache) {
+    private QuestionImportPipeline.ChapterKey chapterKey(SmartImportRequest.QuestionImportItem item) {
         String chapterName = item.getChapterName();
-        final String chapterOrder = item.getChapterOrder();
+        String chapterOrder = item.getChapterOrder();
+        boolean hasName = chapterName != null && !chapterName.trim().isEmpty();
+        boolean hasOrder = chapterOrder != null && !chapterOrder.trim().isEmpty();
         
-        // 如果没有章节信息，使用默认章节
-        if ((chapterName == null || chapterName.trim().isEmpty()) && 
-            (chapterOrder == null || chapterOrder.trim().isEmpty())) {
-            chapterName = "未分类";
+        if (!hasName && !hasOrder) {
+            return new QuestionImportPipeline.ChapterKey("未分类", null);
         }
-        
-        // 优先使用章节名称
-        if (chapterName == null || chapterName.trim().isEmpty()) {
+        if (!hasName) {
             chapterName = "第" + chapterOrder + "章";
         }
         
-        // 从缓存获取
-        if (chapterCache.containsKey(chapterName)) {
-            return chapterCache.get(chapterName);
+        Integer sortOrder = null;
+        if (hasOrder) {
+            try {
+                sortOrder = Integer.parseInt(chapterOrder.trim());
+            } catch (NumberFormatException e) {
+                // 不是数字时排在已有章节之后
+            }
         }
-        
-        final String finalChapterName = chapterName;
-        
-        // 从数据库查找或创建
-        Chapter chapter = chapterRepository.findBySubjectIdAndName(subject.getId(), finalChapterName)
-                .orElseGet(() -> {
-                    Chapter newChapter = new Chapter();
-                    newChapter.setSubjectId(subject.getId());
-                    newChapter.setName(finalChapterName);
-                    newChapter.setParentId(0L);
-                    newChapter.setLevel(1);
-                    
-                    // 设置排序号
-                    if (chapterOrder != null && !chapterOrder.trim().isEmpty()) {
-                        try {
-                            newChapter.setSortOrder(Integer.parseInt(chapterOrder));
-                        } catch (NumberFormatException e) {
-                            // 如果不是数字，使用当前章节数量+1
-                            int count = chapterRepository.findBySubjectIdOrderBySortOrderAsc(subject.getId()).size();
-                            newChapter.setSortOrder(count + 1);
-                        }
-                    } else {
-                        // 使用当前章节数量+1
-                        int count = chapterRepository.findBySubjectIdOrderBySortOrderAsc(subject.getId()).size();
-                        newChapter.setSortOrder(count + 1);
-                    }
-                    
-                    newChapter.setQuestionCount(0);
-                    return chapterRepository.save(newChapter);
-                });
-        
-        chapterCache.put(finalChapterName, chapter);
-        return chapter;
+        return new QuestionImportPipeline.ChapterKey(chapterName, sortOrder);
     }
     
     /**
@@ -477,12 +278,9 @@ public class DataImportService {
         Question question = new Question();
         
         question.setSubjectId(subject.getId());
+        // 章节序号由导入流水线分配
         question.setChapterId(chapter.getId());
         
-        // 自动计算序号：获取该章节当前最大序号+1（每个章节独立编号）
-        Integer maxSerialNumber = questionRepository.findMaxSerialNumberByChapterId(chapter.getId());
-        question.setSerialNumber(maxSerialNumber != null ? maxSerialNumber + 1 : 1);
-        
         // 题目内容
         question.setTitle(item.getContent());
         question.setContent(item.getContent());
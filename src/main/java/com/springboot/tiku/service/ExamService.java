@@ -0,0 +1,415 @@
+package com.springboot.tiku.service;
+
+import com.springboot.tiku.common.ResultCode;
+import com.springboot.tiku.dto.exam.ExamResultDTO;
+import com.springboot.tiku.dto.exam.ExamSessionDTO;
+import com.springboot.tiku.dto.grading.GradingResult;
+import com.springboot.tiku.dto.grading.SubmitAnswerRequest;
+import com.springboot.tiku.dto.practice.PracticeMode;
+import com.springboot.tiku.dto.question.QuestionDTO;
+import com.springboot.tiku.entity.AnswerRecord;
+import com.springboot.tiku.entity.Exam;
+import com.springboot.tiku.entity.ExamRecord;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.exception.BusinessException;
+import com.springboot.tiku.repository.ExamRecordRepository;
+import com.springboot.tiku.repository.ExamRepository;
+import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
+import com.springboot.tiku.service.exam.ExamPaper;
+import com.springboot.tiku.service.exam.ExamPaperGenerator;
+import com.springboot.tiku.service.exam.ExamSession;
+import com.springboot.tiku.service.exam.ExamSessionStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 考试服务
+ * 开考时生成并冻结试卷，考试中作答只写内存会话（定时检查点），到截止时间自动交卷；
+ * 交卷时在一个事务内批量判题、批量写入答题记录并更新考试记录。
+ * 同一用户同一考试只允许一条进行中的记录：本节点内按用户加锁，多节点并发开考时由唯一索引拒绝后到的插入，后到者继续先创建的那一场。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExamService {
+
+    private final ExamRepository examRepository;
+    private final ExamRecordRepository examRecordRepository;
+    private final QuestionRepository questionRepository;
+    private final QuestionAssembler questionAssembler;
+    private final ExamPaperGenerator paperGenerator;
+    private final ExamSessionStore sessionStore;
+    private final GradingService gradingService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 截止后仍接受作答和交卷的宽限秒数（网络延迟）
+     */
+    @Value("${exam.submit-grace-seconds:30}")
+    private long submitGraceSeconds;
+
+    /**
+     * 不在本节点内存中的过期记录，超过该秒数后由本节点接管自动交卷
+     */
+    @Value("${exam.orphan-grace-seconds:120}")
+    private long orphanGraceSeconds;
+
+    /**
+     * 同一用户开考在本节点内串行化；跨节点由 exam_record.ongoing_key 唯一索引兜底
+     */
+    private final Object[] startLocks = createLocks(64);
+
+    /**
+     * 开始考试（已有进行中的记录时继续该场考试）
+     */
+    public ExamSessionDTO startExam(Long examId, Long userId) {
+        Exam exam = examRepository.findById(examId)
+                .filter(e -> Integer.valueOf(1).equals(e.getStatus()))
+                .orElseThrow(() -> new BusinessException(ResultCode.EXAM_NOT_FOUND));
+        LocalDateTime now = LocalDateTime.now();
+        if (exam.getStartTime() != null && now.isBefore(exam.getStartTime())) {
+            throw new BusinessException(ResultCode.EXAM_NOT_STARTED);
+        }
+        if (exam.getEndTime() != null && !now.isBefore(exam.getEndTime())) {
+            throw new BusinessException(ResultCode.EXAM_ENDED);
+        }
+
+        synchronized (startLocks[(int) (userId % startLocks.length)]) {
+            Optional<ExamRecord> ongoing = examRecordRepository
+                    .findByUserIdAndExamIdAndStatus(userId, examId, ExamRecord.ExamStatus.ONGOING);
+            if (ongoing.isPresent()) {
+                ExamSession session = sessionStore.get(ongoing.get().getId());
+                if (session != null && !isPastGrace(session, now)) {
+                    return toSessionDTO(exam, session, now);
+                }
+                if (session != null) {
+                    // 上一场已超时，先自动交卷再开新的一场
+                    finishQuietly(session, exam);
+                }
+            }
+
+            if (exam.getType() == Exam.ExamType.FORMAL && examRecordRepository
+                    .existsByUserIdAndExamIdAndStatusNot(userId, examId, ExamRecord.ExamStatus.ONGOING)) {
+                throw new BusinessException(ResultCode.EXAM_ALREADY_SUBMITTED);
+            }
+
+            ExamPaper paper = paperGenerator.generate(exam);
+            LocalDateTime deadline = now.plusMinutes(exam.getDuration());
+            if (exam.getEndTime() != null && exam.getEndTime().isBefore(deadline)) {
+                deadline = exam.getEndTime();
+            }
+
+            ExamRecord record = new ExamRecord();
+            record.setUserId(userId);
+            record.setExamId(examId);
+            record.setTotalCount(paper.items().size());
+            record.setStartTime(now);
+            record.setDeadline(deadline);
+            record.setPaper(sessionStore.writeJson(paper));
+            record.setAnswers("{}");
+            record.setStatus(ExamRecord.ExamStatus.ONGOING);
+            try {
+                record = examRecordRepository.save(record);
+            } catch (DataIntegrityViolationException e) {
+                // 其他节点同时为该用户开考，进行中记录唯一键冲突：继续那一场
+                return resumeOngoing(exam, userId, now);
+            }
+
+            ExamSession session = sessionStore.register(record, paper);
+            log.info("开始考试：examId={}, userId={}, recordId={}, 题目数={}", examId, userId, record.getId(), paper.items().size());
+            return toSessionDTO(exam, session, now);
+        }
+    }
+
+    /**
+     * 继续其他节点刚创建的进行中记录（会话从记录恢复到本节点）
+     */
+    private ExamSessionDTO resumeOngoing(Exam exam, Long userId, LocalDateTime now) {
+        ExamSession session = examRecordRepository
+                .findByUserIdAndExamIdAndStatus(userId, exam.getId(), ExamRecord.ExamStatus.ONGOING)
+                .map(record -> sessionStore.get(record.getId()))
+                .orElse(null);
+        if (session == null) {
+            throw new BusinessException(ResultCode.CONFLICT, "考试正在开始，请稍后重试");
+        }
+        log.info("开考冲突，继续已创建的考试：examId={}, userId={}, recordId={}", exam.getId(), userId, session.getRecordId());
+        return toSessionDTO(exam, session, now);
+    }
+
+    /**
+     * 获取考试会话（刷新页面、断线重连）
+     */
+    public ExamSessionDTO getSession(Long recordId, Long userId) {
+        ExamSession session = requireSession(recordId, userId);
+        Exam exam = examRepository.findById(session.getExamId()).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        if (isPastGrace(session, now)) {
+            finishQuietly(session, exam);
+            throw new BusinessException(ResultCode.EXAM_TIMEOUT);
+        }
+        return toSessionDTO(exam, session, now);
+    }
+
+    /**
+     * 保存作答（只写内存，由检查点定时落库），返回剩余秒数
+     */
+    public long saveAnswers(Long recordId, Long userId, Map<Long, Object> answers) {
+        ExamSession session = requireSession(recordId, userId);
+        LocalDateTime now = LocalDateTime.now();
+        if (session.isFinishing()) {
+            throw new BusinessException(ResultCode.EXAM_ALREADY_SUBMITTED);
+        }
+        if (isPastGrace(session, now)) {
+            throw new BusinessException(ResultCode.EXAM_TIMEOUT);
+        }
+        for (Long questionId : answers.keySet()) {
+            if (session.getPaper().find(questionId) == null) {
+                throw new BusinessException(ResultCode.BAD_REQUEST, "题目不在本试卷中：" + questionId);
+            }
+        }
+        answers.forEach(session::putAnswer);
+        return session.remainingSeconds(now);
+    }
+
+    /**
+     * 交卷（截止宽限期后提交按超时处理，以已保存的作答为准）
+     */
+    public ExamResultDTO submit(Long recordId, Long userId) {
+        ExamSession session = requireSession(recordId, userId);
+        Exam exam = examRepository.findById(session.getExamId()).orElse(null);
+        ExamRecord.ExamStatus status = isPastGrace(session, LocalDateTime.now())
+                ? ExamRecord.ExamStatus.TIMEOUT : ExamRecord.ExamStatus.SUBMITTED;
+        return finish(session, exam, status);
+    }
+
+    /**
+     * 定时自动交卷：本节点内存中已过截止时间的会话，以及其他节点或重启前遗留的过期记录
+     */
+    @Scheduled(fixedDelayString = "${exam.sweep-interval-ms:5000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (ExamSession session : sessionStore.expired(now.minusSeconds(submitGraceSeconds))) {
+                finishQuietly(session, examRepository.findById(session.getExamId()).orElse(null));
+            }
+
+            List<Long> orphanIds = examRecordRepository.findIdsByStatusAndDeadlineBefore(
+                    ExamRecord.ExamStatus.ONGOING, now.minusSeconds(orphanGraceSeconds), PageRequest.of(0, 100));
+            for (Long recordId : orphanIds) {
+                ExamSession session = sessionStore.get(recordId);
+                if (session != null && !session.isFinishing()) {
+                    finishQuietly(session, examRepository.findById(session.getExamId()).orElse(null));
+                }
+            }
+        } catch (Exception e) {
+            log.error("自动交卷扫描失败", e);
+        }
+    }
+
+    /**
+     * 交卷：一个事务内批量判题、批量写入答题记录、更新考试记录
+     */
+    private ExamResultDTO finish(ExamSession session, Exam exam, ExamRecord.ExamStatus status) {
+        if (!session.beginFinish()) {
+            throw new BusinessException(ResultCode.EXAM_ALREADY_SUBMITTED);
+        }
+        ExamResultDTO result;
+        try {
+            result = transactionTemplate.execute(tx -> {
+                ExamResultDTO graded = grade(session, exam, status);
+                if (graded == null) {
+                    tx.setRollbackOnly();
+                }
+                return graded;
+            });
+        } catch (RuntimeException e) {
+            session.abortFinish();
+            throw e;
+        }
+        sessionStore.remove(session.getRecordId());
+        if (result == null) {
+            // 其他节点已交卷
+            throw new BusinessException(ResultCode.EXAM_ALREADY_SUBMITTED);
+        }
+        log.info("考试已交卷：recordId={}, status={}, score={}", session.getRecordId(), status, result.getScore());
+        return result;
+    }
+
+    private void finishQuietly(ExamSession session, Exam exam) {
+        try {
+            finish(session, exam, ExamRecord.ExamStatus.TIMEOUT);
+        } catch (BusinessException e) {
+            log.debug("自动交卷跳过：recordId={}, {}", session.getRecordId(), e.getMessage());
+        } catch (Exception e) {
+            log.error("自动交卷失败：recordId={}", session.getRecordId(), e);
+        }
+    }
+
+    /**
+     * 批量判题并写入考试记录（记录已不是进行中时返回null）
+     */
+    private ExamResultDTO grade(ExamSession session, Exam exam, ExamRecord.ExamStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Object> answers = session.snapshotAnswers();
+        ExamPaper paper = session.getPaper();
+
+        // 已删除的题目不参与判题
+        Set<Long> answeredIds = new HashSet<>();
+        for (ExamPaper.Item item : paper.items()) {
+            if (answers.containsKey(item.questionId())) {
+                answeredIds.add(item.questionId());
+            }
+        }
+        Set<Long> existingIds = answeredIds.isEmpty()
+                ? Set.of() : new HashSet<>(questionRepository.findExistingIds(answeredIds));
+
+        List<ExamPaper.Item> gradedItems = new ArrayList<>();
+        List<SubmitAnswerRequest> requests = new ArrayList<>();
+        for (ExamPaper.Item item : paper.items()) {
+            Object answer = answers.get(item.questionId());
+            if (answer == null || !existingIds.contains(item.questionId())) {
+                continue;
+            }
+            SubmitAnswerRequest request = new SubmitAnswerRequest();
+            request.setQuestionId(item.questionId());
+            request.setUserAnswer(item.toOriginalAnswer(answer));
+            request.setPracticeMode(PracticeMode.EXAM.name());
+            request.setExamId(session.getExamId());
+            request.setExamRecordId(session.getRecordId());
+            gradedItems.add(item);
+            requests.add(request);
+        }
+        List<GradingResult> results = gradingService.batchSubmitAndGrade(requests, session.getUserId());
+
+        // 按本卷分值折算得分
+        BigDecimal score = BigDecimal.ZERO;
+        int correctCount = 0;
+        int pendingCount = 0;
+        for (int i = 0; i < results.size(); i++) {
+            GradingResult graded = results.get(i);
+            if (AnswerRecord.GradingStatus.PENDING.name().equals(graded.getGradingStatus())) {
+                pendingCount++;
+                continue;
+            }
+            if (Boolean.TRUE.equals(graded.getIsCorrect())) {
+                correctCount++;
+            }
+            score = score.add(gradedItems.get(i).earnedScore(graded.getIsCorrect(), graded.getScore(), graded.getTotalScore()));
+        }
+
+        int totalCount = paper.items().size();
+        int wrongCount = totalCount - correctCount - pendingCount;
+        LocalDateTime end = now.isBefore(session.getDeadline()) ? now : session.getDeadline();
+        int timeSpent = (int) Math.max(0, Duration.between(session.getStartTime(), end).getSeconds());
+        // 还有AI判题中的题目时得分未定，判题完成后由 ExamSessionStore.rescore 重算
+        Boolean passed = pendingCount == 0 && exam != null && exam.getPassScore() != null
+                ? score.compareTo(exam.getPassScore()) >= 0 : null;
+
+        if (!sessionStore.finish(session, score, correctCount, wrongCount, pendingCount, timeSpent, passed, now, status)) {
+            return null;
+        }
+
+        return ExamResultDTO.builder()
+                .recordId(session.getRecordId())
+                .examId(session.getExamId())
+                .score(score)
+                .totalScore(paper.totalScore())
+                .passed(passed)
+                .correctCount(correctCount)
+                .wrongCount(wrongCount)
+                .totalCount(totalCount)
+                .pendingCount(pendingCount)
+                .timeSpent(timeSpent)
+                .status(status.name())
+                .submitTime(now)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * 获取本人进行中的会话
+     */
+    private ExamSession requireSession(Long recordId, Long userId) {
+        ExamSession session = sessionStore.get(recordId);
+        if (session == null) {
+            ExamRecord record = examRecordRepository.findById(recordId)
+                    .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "考试记录不存在"));
+            if (!record.getUserId().equals(userId)) {
+                throw new BusinessException(ResultCode.FORBIDDEN);
+            }
+            throw new BusinessException(ResultCode.EXAM_ALREADY_SUBMITTED);
+        }
+        if (!session.getUserId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN);
+        }
+        return session;
+    }
+
+    private boolean isPastGrace(ExamSession session, LocalDateTime now) {
+        return session.isExpired(now.minusSeconds(submitGraceSeconds));
+    }
+
+    /**
+     * 组装会话DTO：按试卷顺序返回题目，去掉答案和解析，分值和选项按本卷处理
+     */
+    private ExamSessionDTO toSessionDTO(Exam exam, ExamSession session, LocalDateTime now) {
+        ExamPaper paper = session.getPaper();
+        Map<Long, Question> questionMap = questionAssembler.loadQuestions(
+                paper.items().stream().map(ExamPaper.Item::questionId).toList());
+        List<Question> questions = new ArrayList<>(paper.items().size());
+        for (ExamPaper.Item item : paper.items()) {
+            Question question = questionMap.get(item.questionId());
+            if (question != null) {
+                questions.add(question);
+            }
+        }
+
+        List<QuestionDTO> dtos = questionAssembler.toDTOs(questions);
+        for (QuestionDTO dto : dtos) {
+            ExamPaper.Item item = paper.find(dto.getId());
+            dto.setAnswer(null);
+            dto.setAnswerAnalysis(null);
+            dto.setUseCount(null);
+            dto.setCorrectCount(null);
+            dto.setWrongCount(null);
+            dto.setScore(item.score());
+            if (dto.getOptions() instanceof List<?> options) {
+                dto.setOptions(item.displayOptions(options));
+            }
+        }
+
+        return ExamSessionDTO.builder()
+                .recordId(session.getRecordId())
+                .examId(session.getExamId())
+                .examName(exam != null ? exam.getName() : null)
+                .duration(exam != null ? exam.getDuration() : null)
+                .totalScore(paper.totalScore())
+                .passScore(exam != null ? exam.getPassScore() : null)
+                .startTime(session.getStartTime())
+                .deadline(session.getDeadline())
+                .remainingSeconds(session.remainingSeconds(now))
+                .questions(dtos)
+                .answers(session.snapshotAnswers())
+                .build();
+    }
+
+    private static Object[] createLocks(int size) {
+        Object[] locks = new Object[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
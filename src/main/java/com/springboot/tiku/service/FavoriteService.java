@@ -5,14 +5,11 @@ import com.springboot.tiku.dto.favorite.FavoriteDTO;
 import com.springboot.tiku.dto.favorite.FavoriteStatsDTO;
 import com.springboot.tiku.entity.Favorite;
 import com.springboot.tiku.entity.Question;
-import com.springboot.tiku.entity.Subject;
-import com.springboot.tiku.entity.Chapter;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.FavoriteRepository;
 import com.springboot.tiku.repository.QuestionRepository;
-import com.springboot.tiku.repository.SubjectRepository;
-import com.springboot.tiku.repository.ChapterRepository;
 import com.springboot.tiku.repository.AnswerRecordRepository;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -23,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,9 +36,8 @@ public class FavoriteService {
     
     private final FavoriteRepository favoriteRepository;
     private final QuestionRepository questionRepository;
-    private final SubjectRepository subjectRepository;
-    private final ChapterRepository chapterRepository;
     private final AnswerRecordRepository answerRecordRepository;
+    private final QuestionAssembler questionAssembler;
     
     /**
      * 收藏题目
@@ -84,9 +81,7 @@ public class FavoriteService {
     public Page<FavoriteDTO> getUserFavorites(Long userId, Pageable pageable) {
         Page<Favorite> favoritePage = favoriteRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
         
-        List<FavoriteDTO> favoriteDTOs = favoritePage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<FavoriteDTO> favoriteDTOs = convertToDTOs(userId, favoritePage.getContent());
         
         return new PageImpl<>(favoriteDTOs, pageable, favoritePage.getTotalElements());
     }
@@ -96,9 +91,7 @@ public class FavoriteService {
      */
     public List<FavoriteDTO> getAllUserFavorites(Long userId) {
         List<Favorite> favorites = favoriteRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return favorites.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(userId, favorites);
     }
     
     /**
@@ -157,10 +150,46 @@ public class FavoriteService {
         return new FavoriteStatsDTO(totalCount, weekCount, practicedCount);
     }
     
+    /**
+     * 批量转换Favorite为FavoriteDTO（题目、学科、章节、练习次数批量加载）
+     */
+    private List<FavoriteDTO> convertToDTOs(Long userId, List<Favorite> favorites) {
+        if (favorites.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> questionIds = favorites.stream()
+                .map(Favorite::getQuestionId)
+                .collect(Collectors.toList());
+        Map<Long, Question> questionMap = questionAssembler.loadQuestions(questionIds);
+        Map<Long, String> subjectNames = questionAssembler.subjectNames(questionMap.values().stream()
+                .map(Question::getSubjectId)
+                .collect(Collectors.toSet()));
+        Map<Long, String> chapterNames = questionAssembler.chapterNames(questionMap.values().stream()
+                .map(Question::getChapterId)
+                .collect(Collectors.toSet()));
+        
+        // 练习次数（一次分组统计）
+        Map<Long, Integer> practiceCounts = new HashMap<>();
+        if (!questionMap.isEmpty()) {
+            for (Object[] row : answerRecordRepository.countGroupByQuestionIdForUser(userId, questionMap.keySet())) {
+                practiceCounts.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+        }
+        
+        return favorites.stream()
+                .map(favorite -> convertToDTO(favorite, questionMap, subjectNames, chapterNames, practiceCounts))
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 转换Favorite为FavoriteDTO
      */
-    private FavoriteDTO convertToDTO(Favorite favorite) {
+    private FavoriteDTO convertToDTO(Favorite favorite,
+                                     Map<Long, Question> questionMap,
+                                     Map<Long, String> subjectNames,
+                                     Map<Long, String> chapterNames,
+                                     Map<Long, Integer> practiceCounts) {
         FavoriteDTO dto = new FavoriteDTO();
         dto.setFavoriteId(favorite.getId());
         dto.setQuestionId(favorite.getQuestionId());
@@ -169,7 +198,7 @@ public class FavoriteService {
         dto.setFavoriteAt(favorite.getCreatedAt());
         
         // 获取题目信息
-        Question question = questionRepository.findById(favorite.getQuestionId()).orElse(null);
+        Question question = questionMap.get(favorite.getQuestionId());
         if (question != null) {
             dto.setType(question.getType() != null ? question.getType().name() : null);
             dto.setDifficulty(question.getDifficulty() != null ? question.getDifficulty().name() : null);
@@ -182,29 +211,19 @@ public class FavoriteService {
             // 获取学科信息
             if (question.getSubjectId() != null) {
                 dto.setSubjectId(question.getSubjectId());
-                Subject subject = subjectRepository.findById(question.getSubjectId()).orElse(null);
-                if (subject != null) {
-                    dto.setSubjectName(subject.getName());
-                }
+                dto.setSubjectName(subjectNames.get(question.getSubjectId()));
             }
             
             // 获取章节信息
             if (question.getChapterId() != null) {
                 dto.setChapterId(question.getChapterId());
-                Chapter chapter = chapterRepository.findById(question.getChapterId()).orElse(null);
-                if (chapter != null) {
-                    dto.setChapterName(chapter.getName());
-                }
+                dto.setChapterName(chapterNames.get(question.getChapterId()));
             }
             
             // 获取练习次数
-            Integer practiceCount = answerRecordRepository.countByUserIdAndQuestionId(favorite.getUserId(), question.getId());
-            dto.setPracticeCount(practiceCount);
+            dto.setPracticeCount(practiceCounts.getOrDefault(question.getId(), 0));
         }
         
         return dto;
     }
 }
-
-
-
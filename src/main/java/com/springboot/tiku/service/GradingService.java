@@ -10,17 +10,34 @@ import com.springboot.tiku.entity.Question;
 import com.springboot.tiku.entity.WrongQuestion;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.*;
+import com.springboot.tiku.service.counter.CounterAggregator;
+import com.springboot.tiku.service.counter.DailyStatAggregator;
+import com.springboot.tiku.service.exam.ExamSessionStore;
 import com.springboot.tiku.service.grading.AIGradingStrategy;
+import com.springboot.tiku.service.grading.AnswerBatchWriter;
+import com.springboot.tiku.service.grading.AsyncGradingExecutor;
 import com.springboot.tiku.service.grading.AutoGradingStrategy;
 import com.springboot.tiku.service.grading.GradingStrategy;
+import com.springboot.tiku.service.grading.PendingAnswerBatcher;
+import com.springboot.tiku.service.grading.ReviewSchedule;
+import com.springboot.tiku.service.mastery.MasteryStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 判题服务
@@ -33,15 +50,84 @@ public class GradingService {
     private final QuestionRepository questionRepository;
     private final AnswerRecordRepository answerRecordRepository;
     private final WrongQuestionRepository wrongQuestionRepository;
-    private final UserRepository userRepository;
     private final SubjectRepository subjectRepository;
     private final AiGradingRecordRepository aiGradingRecordRepository;
     
     private final AutoGradingStrategy autoGradingStrategy;
     private final AIGradingStrategy aiGradingStrategy;
     
+    private final CounterAggregator counterAggregator;
+    private final DailyStatAggregator dailyStatAggregator;
+    private final RankingService rankingService;
+    private final AsyncGradingExecutor asyncGradingExecutor;
+    private final AnswerBatchWriter answerBatchWriter;
+    private final MasteryStore masteryStore;
+    private final ExamSessionStore examSessionStore;
+    private final TransactionTemplate transactionTemplate;
+    
     private final ObjectMapper objectMapper;
     
+    /**
+     * 是否启用异步AI判题
+     */
+    @Value("${ai.grading.async.enabled:true}")
+    private boolean asyncGradingEnabled;
+    
+    /**
+     * 批量提交（考试交卷）的主观题是否按题目合并判题
+     */
+    @Value("${ai.grading.batch.enabled:true}")
+    private boolean batchGradingEnabled;
+    
+    /**
+     * 每批合并的答案数
+     */
+    @Value("${ai.grading.batch.size:10}")
+    private int gradingBatchSize;
+    
+    /**
+     * 答案在合并队列中的最长等待时间（毫秒）
+     */
+    @Value("${ai.grading.batch.linger-ms:2000}")
+    private long gradingBatchLingerMs;
+    
+    /**
+     * 判题认领租约（分钟），超时未完成的认领可被重新判题接管
+     */
+    @Value("${ai.grading.regrade.lease-minutes:10}")
+    private long claimLeaseMinutes;
+    
+    private PendingAnswerBatcher pendingAnswerBatcher;
+    
+    @PostConstruct
+    public void init() {
+        pendingAnswerBatcher = new PendingAnswerBatcher(gradingBatchSize, gradingBatchLingerMs,
+                (questionId, answerRecordIds) -> asyncGradingExecutor.execute(
+                        () -> gradePending(answerRecordIds), answerRecordIds.size()));
+    }
+    
+    /**
+     * 派发等待时间已到的合并判题批次
+     */
+    @Scheduled(fixedDelayString = "${ai.grading.batch.flush-interval-ms:500}")
+    public void flushGradingBatches() {
+        pendingAnswerBatcher.flush(false);
+    }
+    
+    /**
+     * 关闭前派发合并队列中剩余的批次
+     * 本服务依赖 AsyncGradingExecutor，容器先销毁本服务，派发的任务仍能在执行器关闭等待期内完成；
+     * 未完成的记录保持PENDING状态，由重新判题接管。
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            pendingAnswerBatcher.flush(true);
+        } catch (RuntimeException e) {
+            log.warn("关闭前派发合并判题批次失败，剩余记录由重新判题接管", e);
+        }
+    }
+    
     /**
      * 提交答案并判题
      */
@@ -54,23 +140,36 @@ public class GradingService {
         // 选择判题策略
         GradingStrategy strategy = selectGradingStrategy(question);
         
+        // AI判题走异步队列，不在事务内等待AI响应
+        if (asyncGradingEnabled && strategy == aiGradingStrategy) {
+            return submitForAsyncGrading(request, userId, question, false, false);
+        }
+        
         // 执行判题
         GradingResult result = strategy.grade(question, request.getUserAnswer());
         
         // 保存答题记录
         AnswerRecord record = saveAnswerRecord(request, userId, question, result);
         result.setAnswerRecordId(record.getId());
+        result.setGradingStatus(record.getGradingStatus().name());
+        
+        // AI服务暂不可用：记录保持待判题，重新判题完成后再计入统计
+        if (isDeferred(result)) {
+            return result;
+        }
         
         // 如果是AI判题，保存AI判题记录
         if ("AI".equals(result.getGradingType()) && result.getAiFeedback() != null) {
             saveAIGradingRecord(record, question, result);
         }
         
-        // 更新题目统计
-        updateQuestionStatistics(question, result.getIsCorrect());
+        // 更新题目、用户统计（写后置批量累加）
+        counterAggregator.recordAnswer(question.getId(), userId, result.getIsCorrect());
+        dailyStatAggregator.recordAnswer(userId, record.getAnsweredAt(), result.getIsCorrect(), record.getTimeSpent());
         
-        // 更新用户统计
-        updateUserStatistics(userId, result.getIsCorrect());
+        // 更新排行榜
+        rankingService.recordAnswer(userId, question.getSubjectId(), result.getIsCorrect());
+        recordMastery(userId, record.getId(), question, result.getIsCorrect());
         
         // 处理错题本
         handleWrongQuestion(userId, question.getId(), result.getIsCorrect());
@@ -78,14 +177,370 @@ public class GradingService {
         return result;
     }
     
+    /**
+     * 查询判题结果（异步判题轮询）
+     */
+    public GradingResult getGradingResult(Long answerRecordId, Long userId) {
+        AnswerRecord record = answerRecordRepository.findById(answerRecordId)
+                .orElseThrow(() -> new BusinessException(ResultCode.NOT_FOUND, "答题记录不存在"));
+        if (!record.getUserId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN);
+        }
+        
+        AnswerRecord.GradingStatus status = record.getGradingStatus();
+        GradingResult result = GradingResult.builder()
+                .answerRecordId(record.getId())
+                .isCorrect(record.getIsCorrect())
+                .score(record.getScore())
+                .gradingType(record.getGradingType() != null ? record.getGradingType().name() : null)
+                .gradingStatus(status.name())
+                .needManualReview(status == AnswerRecord.GradingStatus.REVIEWING)
+                .build();
+        
+        questionRepository.findById(record.getQuestionId()).ifPresent(question -> {
+            result.setTotalScore(question.getScore());
+            // 判题完成后才返回参考答案
+            if (status != AnswerRecord.GradingStatus.PENDING) {
+                result.setCorrectAnswer(question.getAnswer());
+                result.setAnswerAnalysis(question.getAnswerAnalysis());
+            }
+        });
+        
+        if (record.getGradingType() == AnswerRecord.GradingType.AI && status != AnswerRecord.GradingStatus.PENDING) {
+            aiGradingRecordRepository.findByAnswerRecordId(record.getId()).ifPresent(aiRecord -> {
+                if (aiRecord.getAiFeedback() != null) {
+                    try {
+                        result.setAiFeedback(objectMapper.readValue(aiRecord.getAiFeedback(), GradingResult.AIFeedback.class));
+                    } catch (Exception e) {
+                        log.error("解析AI判题反馈失败：answerRecordId={}", record.getId(), e);
+                    }
+                }
+            });
+        }
+        
+        return result;
+    }
+    
     /**
      * 批量提交答案（考试场景）
+     * 题目一次查出，判题在内存中完成，答题记录和错题本按批写入，计数和排行榜每批只登记一次
      */
     @Transactional
     public List<GradingResult> batchSubmitAndGrade(List<SubmitAnswerRequest> requests, Long userId) {
-        return requests.stream()
-                .map(request -> submitAndGrade(request, userId))
-                .toList();
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> questionIds = requests.stream().map(SubmitAnswerRequest::getQuestionId).collect(Collectors.toSet());
+        Map<Long, Question> questions = questionRepository.findAllById(questionIds).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        
+        GradingResult[] results = new GradingResult[requests.size()];
+        List<AnswerRecord> records = new ArrayList<>();
+        List<GradingResult> recordResults = new ArrayList<>();
+        List<Question> recordQuestions = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SubmitAnswerRequest request = requests.get(i);
+            Question question = questions.get(request.getQuestionId());
+            if (question == null) {
+                throw new BusinessException(ResultCode.QUESTION_NOT_FOUND);
+            }
+            
+            GradingStrategy strategy = selectGradingStrategy(question);
+            if (asyncGradingEnabled && strategy == aiGradingStrategy) {
+                results[i] = submitForAsyncGrading(request, userId, question, batchGradingEnabled, true);
+                continue;
+            }
+            
+            GradingResult result = strategy.grade(question, request.getUserAnswer());
+            records.add(buildAnswerRecord(request, userId, question, result));
+            recordResults.add(result);
+            recordQuestions.add(question);
+            results[i] = result;
+        }
+        
+        // 答题记录一次批量插入
+        answerBatchWriter.insertAnswerRecords(records);
+        
+        Map<Long, long[]> questionCounts = new HashMap<>();
+        Map<Long, long[]> subjectCounts = new HashMap<>();
+        Map<Long, Boolean> wrongResults = new LinkedHashMap<>();
+        List<MasteryStore.Attempt> attempts = new ArrayList<>();
+        long answerCount = 0;
+        long correctCount = 0;
+        long timeSpent = 0;
+        for (int i = 0; i < records.size(); i++) {
+            AnswerRecord record = records.get(i);
+            GradingResult result = recordResults.get(i);
+            Question question = recordQuestions.get(i);
+            result.setAnswerRecordId(record.getId());
+            result.setGradingStatus(record.getGradingStatus().name());
+            if (isDeferred(result)) {
+                continue;
+            }
+            if ("AI".equals(result.getGradingType()) && result.getAiFeedback() != null) {
+                saveAIGradingRecord(record, question, result);
+            }
+            
+            int correct = Boolean.TRUE.equals(result.getIsCorrect()) ? 1 : 0;
+            addCount(questionCounts, question.getId(), correct);
+            addCount(subjectCounts, question.getSubjectId(), correct);
+            answerCount++;
+            correctCount += correct;
+            if (record.getTimeSpent() != null && record.getTimeSpent() > 0) {
+                timeSpent += record.getTimeSpent();
+            }
+            // 同一题多次作答以最后一次为准
+            wrongResults.remove(question.getId());
+            wrongResults.put(question.getId(), result.getIsCorrect());
+            if (result.getIsCorrect() != null) {
+                attempts.add(MasteryStore.Attempt.of(record.getId(), question, result.getIsCorrect()));
+            }
+        }
+        
+        if (answerCount > 0) {
+            counterAggregator.recordAnswers(userId, questionCounts);
+            dailyStatAggregator.recordAnswers(userId, records.get(0).getAnsweredAt(), answerCount, correctCount, timeSpent);
+            rankingService.recordAnswers(userId, subjectCounts);
+            masteryStore.recordAnswers(userId, attempts);
+            answerBatchWriter.applyWrongQuestions(userId, wrongResults);
+        }
+        
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * 更新掌握度（待人工复核的答题不计入）
+     */
+    private void recordMastery(Long userId, Long answerRecordId, Question question, Boolean isCorrect) {
+        if (isCorrect != null) {
+            masteryStore.recordAnswers(userId, List.of(MasteryStore.Attempt.of(answerRecordId, question, isCorrect)));
+        }
+    }
+    
+    private void addCount(Map<Long, long[]> counts, Long id, int correct) {
+        long[] count = counts.computeIfAbsent(id, k -> new long[2]);
+        count[0]++;
+        count[1] += correct;
+    }
+    
+    /**
+     * 提交异步AI判题：保存PENDING答题记录，事务提交后入队（batched 为 true 时先按题目合并）
+     * 判题队列已满时，单题提交直接拒绝；批量提交（考试交卷）不能因判题繁忙失败，
+     * 记录照常保存为PENDING但不入队，由后台重新判题接管。
+     */
+    private GradingResult submitForAsyncGrading(SubmitAnswerRequest request, Long userId, Question question,
+                                                boolean batched, boolean overflowToRegrade) {
+        boolean reserved = asyncGradingExecutor.tryReserve();
+        if (!reserved && !overflowToRegrade) {
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "AI判题繁忙，请稍后重试");
+        }
+        
+        AnswerRecord record;
+        try {
+            record = new AnswerRecord();
+            record.setUserId(userId);
+            record.setQuestionId(question.getId());
+            record.setPracticeMode(request.getPracticeMode());
+            record.setExamId(request.getExamId());
+            record.setExamRecordId(request.getExamRecordId());
+            record.setUserAnswer(serializeUserAnswer(request.getUserAnswer()));
+            record.setTimeSpent(request.getTimeSpent());
+            record.setAnsweredAt(LocalDateTime.now());
+            record.setGradingType(AnswerRecord.GradingType.AI);
+            record.setGradingStatus(AnswerRecord.GradingStatus.PENDING);
+            record = answerRecordRepository.save(record);
+        } catch (RuntimeException e) {
+            if (reserved) {
+                asyncGradingExecutor.release();
+            }
+            throw e;
+        }
+        
+        Long answerRecordId = record.getId();
+        if (reserved) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED && batched) {
+                        pendingAnswerBatcher.add(question.getId(), answerRecordId);
+                    } else if (status == STATUS_COMMITTED) {
+                        asyncGradingExecutor.execute(() -> gradePending(List.of(answerRecordId)));
+                    } else {
+                        asyncGradingExecutor.release();
+                    }
+                }
+            });
+        } else {
+            log.warn("AI判题队列已满，答题记录留待重新判题：answerRecordId={}", answerRecordId);
+        }
+        
+        return GradingResult.builder()
+                .answerRecordId(answerRecordId)
+                .totalScore(question.getScore())
+                .gradingType("AI")
+                .gradingStatus(AnswerRecord.GradingStatus.PENDING.name())
+                .needManualReview(false)
+                .build();
+    }
+    
+    /**
+     * 执行PENDING答题记录的AI判题（工作线程中运行，AI调用不占用事务和数据库连接）
+     * 先通过 claim_token 认领，已被重新判题认领或已判完的记录跳过，避免重复判题和重复计数；
+     * 同一题目的多条记录合并为一次AI请求。
+     */
+    private void gradePending(List<Long> answerRecordIds) {
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = answerBatchWriter.claim(claimToken, answerRecordIds,
+                List.of(AnswerRecord.GradingStatus.PENDING), now, now.minusMinutes(claimLeaseMinutes));
+        if (claimed == 0) {
+            return;
+        }
+        Map<Long, List<AnswerRecord>> byQuestion = new LinkedHashMap<>();
+        for (AnswerRecord record : answerRecordRepository.findByClaimTokenOrderByIdAsc(claimToken)) {
+            byQuestion.computeIfAbsent(record.getQuestionId(), k -> new ArrayList<>()).add(record);
+        }
+        byQuestion.forEach((id, records) -> {
+            Map<String, Integer> outcomes = gradeClaimed(claimToken, id, records, 1, false);
+            log.info("异步AI判题完成：questionId={}, 记录数={}, 结果={}", id, records.size(), outcomes);
+        });
+    }
+    
+    /**
+     * 重新判题一批已认领的同题答题记录，返回各结果的记录数（键为 graded、reviewing、retry、deferred、lost）
+     */
+    public Map<String, Integer> regradeClaimed(String claimToken, Long questionId, List<AnswerRecord> records, int maxAttempts) {
+        Map<String, Integer> outcomes = gradeClaimed(claimToken, questionId, records, maxAttempts, true);
+        log.info("重新判题完成：questionId={}, 结果={}", questionId, outcomes);
+        return outcomes;
+    }
+    
+    /**
+     * 判题一批已认领的同题答题记录
+     * AI调用在事务外执行；写回时先锁定仍由该批次认领的记录，认领已失效的记录丢弃结果，
+     * 统计只登记实际写回成功的记录。PENDING 记录此前未计入统计，完成后按正常答题登记；
+     * REVIEWING 记录判题失败时已按答错计入，只有改判为正确时才补正确数（计数、排行、每日汇总、掌握度）并将错题标记为已掌握。
+     * AI再次失败的记录释放认领等待下次重试，PENDING 记录用完重试次数后按失败结果转人工复核
+     * （异步判题 maxAttempts 为1，失败即转人工复核）。regrade 为 true 时计入重新判题次数。
+     */
+    private Map<String, Integer> gradeClaimed(String claimToken, Long questionId, List<AnswerRecord> records,
+                                              int maxAttempts, boolean regrade) {
+        Map<String, Integer> outcomes = new TreeMap<>();
+        List<Long> recordIds = records.stream().map(AnswerRecord::getId).toList();
+        Question question = questionRepository.findById(questionId).orElse(null);
+        if (question == null) {
+            log.warn("判题题目不存在：questionId={}, 记录数={}", questionId, records.size());
+            transactionTemplate.executeWithoutResult(tx -> answerBatchWriter.releaseClaims(claimToken, recordIds, regrade));
+            outcomes.put("retry", records.size());
+            return outcomes;
+        }
+        
+        List<GradingResult> results = records.size() == 1
+                ? List.of(aiGradingStrategy.grade(question, deserializeUserAnswer(records.get(0).getUserAnswer())))
+                : aiGradingStrategy.gradeBatch(question, records.stream()
+                        .map(record -> deserializeUserAnswer(record.getUserAnswer()))
+                        .toList());
+        
+        transactionTemplate.executeWithoutResult(tx -> {
+            Set<Long> claimed = new HashSet<>(answerBatchWriter.lockClaimed(claimToken));
+            List<AnswerRecord> graded = new ArrayList<>();
+            List<GradingResult> gradedResults = new ArrayList<>();
+            List<Boolean> gradedWasPending = new ArrayList<>();
+            List<Long> retry = new ArrayList<>();
+            List<Long> deferred = new ArrayList<>();
+            
+            for (int i = 0; i < records.size(); i++) {
+                AnswerRecord record = records.get(i);
+                GradingResult result = results.get(i);
+                if (!claimed.contains(record.getId())) {
+                    outcomes.merge("lost", 1, Integer::sum);
+                    continue;
+                }
+                if (isDeferred(result)) {
+                    deferred.add(record.getId());
+                    continue;
+                }
+                boolean wasPending = record.getGradingStatus() == AnswerRecord.GradingStatus.PENDING;
+                boolean failed = Boolean.TRUE.equals(result.getNeedManualReview()) && result.getAiFeedback() == null;
+                int attempt = (record.getRegradeAttempts() != null ? record.getRegradeAttempts() : 0) + 1;
+                if (failed && (!wasPending || attempt < maxAttempts)) {
+                    retry.add(record.getId());
+                    continue;
+                }
+                
+                applyGradingResult(record, result);
+                if (regrade) {
+                    record.setRegradeAttempts(attempt);
+                }
+                graded.add(record);
+                gradedResults.add(result);
+                gradedWasPending.add(wasPending);
+            }
+            
+            int[] updated = answerBatchWriter.updateGradedRecords(claimToken, graded);
+            answerBatchWriter.releaseClaims(claimToken, retry, regrade);
+            answerBatchWriter.releaseClaims(claimToken, deferred, false);
+            
+            Map<Long, Map<Long, long[]>> questionCounts = new HashMap<>();
+            Map<Long, Map<Long, long[]>> subjectCounts = new HashMap<>();
+            Map<Long, Map<Long, Boolean>> wrongResults = new HashMap<>();
+            Map<Long, List<MasteryStore.Attempt>> attempts = new HashMap<>();
+            Map<Long, List<MasteryStore.Attempt>> corrections = new HashMap<>();
+            Set<Long> examRecordIds = new TreeSet<>();
+            for (int i = 0; i < graded.size(); i++) {
+                AnswerRecord record = graded.get(i);
+                GradingResult result = gradedResults.get(i);
+                if (updated[i] == 0) {
+                    outcomes.merge("lost", 1, Integer::sum);
+                    continue;
+                }
+                if (result.getAiFeedback() != null) {
+                    saveAIGradingRecord(record, question, result);
+                }
+                outcomes.merge(record.getGradingStatus().name().toLowerCase(Locale.ROOT), 1, Integer::sum);
+                if (record.getExamRecordId() != null) {
+                    examRecordIds.add(record.getExamRecordId());
+                }
+                
+                Long userId = record.getUserId();
+                boolean correct = Boolean.TRUE.equals(result.getIsCorrect());
+                if (gradedWasPending.get(i)) {
+                    addCount(questionCounts.computeIfAbsent(userId, k -> new HashMap<>()), question.getId(), correct ? 1 : 0);
+                    addCount(subjectCounts.computeIfAbsent(userId, k -> new HashMap<>()), question.getSubjectId(), correct ? 1 : 0);
+                    dailyStatAggregator.recordAnswer(userId, record.getAnsweredAt(), result.getIsCorrect(), record.getTimeSpent());
+                    wrongResults.computeIfAbsent(userId, k -> new LinkedHashMap<>()).put(question.getId(), result.getIsCorrect());
+                    if (result.getIsCorrect() != null) {
+                        attempts.computeIfAbsent(userId, k -> new ArrayList<>()).add(MasteryStore.Attempt.of(record.getId(), question, correct));
+                    }
+                } else if (correct) {
+                    // 失败时已按答错计入各项统计，改判正确只补正确数
+                    questionCounts.computeIfAbsent(userId, k -> new HashMap<>()).merge(question.getId(), new long[]{0, 1}, this::sumCounts);
+                    subjectCounts.computeIfAbsent(userId, k -> new HashMap<>()).merge(question.getSubjectId(), new long[]{0, 1}, this::sumCounts);
+                    dailyStatAggregator.recordCorrection(userId, record.getAnsweredAt());
+                    corrections.computeIfAbsent(userId, k -> new ArrayList<>()).add(MasteryStore.Attempt.of(record.getId(), question, true));
+                    wrongResults.computeIfAbsent(userId, k -> new LinkedHashMap<>()).put(question.getId(), true);
+                }
+            }
+            
+            questionCounts.forEach(counterAggregator::recordAnswers);
+            subjectCounts.forEach(rankingService::recordAnswers);
+            attempts.forEach(masteryStore::recordAnswers);
+            corrections.forEach(masteryStore::recordCorrections);
+            wrongResults.forEach(answerBatchWriter::applyWrongQuestions);
+            // 考试交卷时AI判题中的题目已判完，重算考试得分
+            examRecordIds.forEach(examSessionStore::rescore);
+            if (!retry.isEmpty()) {
+                outcomes.put("retry", retry.size());
+            }
+            if (!deferred.isEmpty()) {
+                outcomes.put("deferred", deferred.size());
+            }
+        });
+        return outcomes;
+    }
+    
+    private long[] sumCounts(long[] a, long[] b) {
+        return new long[]{a[0] + b[0], a[1] + b[1]};
     }
     
     /**
@@ -119,31 +574,41 @@ public class GradingService {
      * 保存答题记录
      */
     private AnswerRecord saveAnswerRecord(SubmitAnswerRequest request, Long userId, Question question, GradingResult result) {
+        return answerRecordRepository.save(buildAnswerRecord(request, userId, question, result));
+    }
+    
+    /**
+     * 构建已判题的答题记录（未保存）
+     */
+    private AnswerRecord buildAnswerRecord(SubmitAnswerRequest request, Long userId, Question question, GradingResult result) {
         AnswerRecord record = new AnswerRecord();
         record.setUserId(userId);
         record.setQuestionId(question.getId());
         record.setPracticeMode(request.getPracticeMode());
         record.setExamId(request.getExamId());
+        record.setExamRecordId(request.getExamRecordId());
         
         // 序列化用户答案为JSON字符串
-        try {
-            String userAnswerJson = objectMapper.writeValueAsString(request.getUserAnswer());
-            record.setUserAnswer(userAnswerJson);
-        } catch (Exception e) {
-            log.error("序列化用户答案失败", e);
-            // 如果序列化失败，尝试直接转换为字符串
-            record.setUserAnswer(String.valueOf(request.getUserAnswer()));
-        }
-        
-        record.setIsCorrect(result.getIsCorrect());
-        record.setScore(result.getScore());
+        record.setUserAnswer(serializeUserAnswer(request.getUserAnswer()));
         record.setTimeSpent(request.getTimeSpent());
         record.setAnsweredAt(LocalDateTime.now());
+        applyGradingResult(record, result);
+        return record;
+    }
+    
+    /**
+     * 将判题结果写入答题记录（得分、判题类型和状态）
+     */
+    private void applyGradingResult(AnswerRecord record, GradingResult result) {
+        record.setIsCorrect(result.getIsCorrect());
+        record.setScore(result.getScore());
         
         // 设置判题类型和状态
         if ("AI".equals(result.getGradingType())) {
             record.setGradingType(AnswerRecord.GradingType.AI);
-            if (Boolean.TRUE.equals(result.getNeedManualReview())) {
+            if (isDeferred(result)) {
+                record.setGradingStatus(AnswerRecord.GradingStatus.PENDING);
+            } else if (Boolean.TRUE.equals(result.getNeedManualReview())) {
                 record.setGradingStatus(AnswerRecord.GradingStatus.REVIEWING);
             } else {
                 record.setGradingStatus(AnswerRecord.GradingStatus.GRADED);
@@ -154,8 +619,37 @@ public class GradingService {
             record.setGradingStatus(AnswerRecord.GradingStatus.GRADED);
             record.setGradedAt(LocalDateTime.now());
         }
-        
-        return answerRecordRepository.save(record);
+    }
+    
+    /**
+     * 判题是否被延后（AI服务熔断或繁忙时记录保持PENDING，等待重新判题）
+     */
+    private boolean isDeferred(GradingResult result) {
+        return AnswerRecord.GradingStatus.PENDING.name().equals(result.getGradingStatus());
+    }
+    
+    /**
+     * 序列化用户答案
+     */
+    private String serializeUserAnswer(Object userAnswer) {
+        try {
+            return objectMapper.writeValueAsString(userAnswer);
+        } catch (Exception e) {
+            log.error("序列化用户答案失败", e);
+            // 如果序列化失败，尝试直接转换为字符串
+            return String.valueOf(userAnswer);
+        }
+    }
+    
+    /**
+     * 反序列化用户答案（失败时返回原始字符串）
+     */
+    private Object deserializeUserAnswer(String userAnswerJson) {
+        try {
+            return objectMapper.readValue(userAnswerJson, Object.class);
+        } catch (Exception e) {
+            return userAnswerJson;
+        }
     }
     
     /**
@@ -217,35 +711,10 @@ public class GradingService {
     }
     
     /**
-     * 更新题目统计
-     */
-    private void updateQuestionStatistics(Question question, Boolean isCorrect) {
-        question.setUseCount(question.getUseCount() + 1);
-        if (Boolean.TRUE.equals(isCorrect)) {
-            question.setCorrectCount(question.getCorrectCount() + 1);
-        } else {
-            question.setWrongCount(question.getWrongCount() + 1);
-        }
-        questionRepository.save(question);
-    }
-    
-    /**
-     * 更新用户统计
-     */
-    private void updateUserStatistics(Long userId, Boolean isCorrect) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setTotalAnswerCount(user.getTotalAnswerCount() + 1);
-            if (Boolean.TRUE.equals(isCorrect)) {
-                user.setTotalCorrectCount(user.getTotalCorrectCount() + 1);
-            }
-            userRepository.save(user);
-        });
-    }
-    
-    /**
-     * 处理错题本
+     * 处理错题本（同时按 SM-2 更新复习计划，待人工复核的答案结果未定，不处理）
      */
     private void handleWrongQuestion(Long userId, Long questionId, Boolean isCorrect) {
+        LocalDateTime now = LocalDateTime.now();
         if (Boolean.FALSE.equals(isCorrect)) {
             // 答错了，加入或更新错题本
             WrongQuestion wrongQuestion = wrongQuestionRepository
@@ -263,16 +732,17 @@ public class GradingService {
             } else {
                 wrongQuestion.setStatus(WrongQuestion.WrongStatus.WRONG);
             }
+            ReviewSchedule.onWrong(wrongQuestion, now);
             
             wrongQuestionRepository.save(wrongQuestion);
-        } else {
-            // 答对了，更新错题状态为已掌握
+        } else if (Boolean.TRUE.equals(isCorrect)) {
+            // 答对了，更新错题状态为已掌握，推迟下次复习
             wrongQuestionRepository.findByUserIdAndQuestionId(userId, questionId)
                     .ifPresent(wrongQuestion -> {
                         wrongQuestion.setStatus(WrongQuestion.WrongStatus.MASTERED);
+                        ReviewSchedule.onCorrect(wrongQuestion, now);
                         wrongQuestionRepository.save(wrongQuestion);
                     });
         }
     }
 }
-
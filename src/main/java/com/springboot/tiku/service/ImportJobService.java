@@ -0,0 +1,240 @@
+package com.springboot.tiku.service;
+
+import com.springboot.tiku.common.ResultCode;
+import com.springboot.tiku.dto.question.ImportJobDTO;
+import com.springboot.tiku.dto.question.ImportResultDTO;
+import com.springboot.tiku.exception.BusinessException;
+import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.service.importer.QuestionSheetReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件导入任务服务
+ * 上传的 xlsx/csv 以请求体流式写入临时文件（单独限制大小），由后台线程逐行读取并交给导入流水线按块写入，内存中只保留当前块；
+ * 任务状态保存在内存中，供前端轮询进度（只保留最近的若干个任务）。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportJobService {
+
+    private final DataImportService dataImportService;
+    private final SubjectRepository subjectRepository;
+
+    /**
+     * 排队等待的导入任务上限
+     */
+    @Value("${import.job.queue-capacity:10}")
+    private int queueCapacity;
+
+    /**
+     * 保留的任务状态数
+     */
+    @Value("${import.job.max-retained:100}")
+    private int maxRetained;
+
+    /**
+     * 导入文件大小上限（MB）
+     */
+    @Value("${import.job.max-file-mb:200}")
+    private long maxFileMb;
+
+    private final Map<String, ImportJobDTO> jobs = new LinkedHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "question-import");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交文件导入任务
+     */
+    public ImportJobDTO submit(Long subjectId, String fileName, InputStream content, long contentLength) {
+        String lowerName = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (!lowerName.endsWith(".xlsx") && !lowerName.endsWith(".csv")) {
+            throw new BusinessException(ResultCode.FILE_TYPE_ERROR, "仅支持 .xlsx 和 .csv 文件");
+        }
+        long maxBytes = maxFileMb * 1024 * 1024;
+        if (contentLength > maxBytes) {
+            throw new BusinessException(ResultCode.FILE_SIZE_ERROR, "导入文件不能超过" + maxFileMb + "MB");
+        }
+        if (subjectId == null || !subjectRepository.existsById(subjectId)) {
+            throw new BusinessException(ResultCode.SUBJECT_NOT_FOUND);
+        }
+
+        Path temp;
+        long size;
+        try {
+            temp = Files.createTempFile("question-import-", lowerName.substring(lowerName.lastIndexOf('.')));
+        } catch (IOException e) {
+            log.error("保存导入文件失败：{}", fileName, e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_ERROR);
+        }
+        try {
+            size = copy(content, temp, maxBytes);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("保存导入文件失败：{}", fileName, e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_ERROR);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+        if (size == 0) {
+            deleteQuietly(temp);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_ERROR, "文件不能为空");
+        }
+
+        ImportJobDTO job = ImportJobDTO.builder()
+                .jobId(UUID.randomUUID().toString())
+                .subjectId(subjectId)
+                .fileName(fileName)
+                .status("PENDING")
+                .errors(List.of())
+                .submittedAt(LocalDateTime.now())
+                .build();
+        synchronized (jobs) {
+            evictFinished();
+            jobs.put(job.getJobId(), job);
+        }
+
+        try {
+            executor.execute(() -> run(job, temp));
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(job.getJobId());
+            }
+            deleteQuietly(temp);
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "导入任务繁忙，请稍后重试");
+        }
+        log.info("提交文件导入任务：jobId={}, 文件={}, 大小={}字节", job.getJobId(), fileName, size);
+        return snapshot(job);
+    }
+
+    /**
+     * 查询任务状态
+     */
+    public ImportJobDTO getJob(String jobId) {
+        ImportJobDTO job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "导入任务不存在");
+        }
+        return snapshot(job);
+    }
+
+    private void run(ImportJobDTO job, Path file) {
+        synchronized (job) {
+            job.setStatus("RUNNING");
+            job.setStartedAt(LocalDateTime.now());
+        }
+        try (QuestionSheetReader reader = QuestionSheetReader.open(file, job.getFileName())) {
+            ImportResultDTO result = dataImportService.smartImport(job.getSubjectId(), reader,
+                    (rows, success, fail) -> {
+                        synchronized (job) {
+                            job.setProcessedRows(rows);
+                            job.setSuccessCount(success);
+                            job.setFailCount(fail);
+                        }
+                    });
+            synchronized (job) {
+                job.setProcessedRows(result.getTotalCount());
+                job.setSuccessCount(result.getSuccessCount());
+                job.setFailCount(result.getFailCount());
+                job.setCreatedChapters(result.getCreatedChapters());
+                job.setErrors(List.copyOf(result.getErrors()));
+                job.setStatus("COMPLETED");
+            }
+        } catch (Exception e) {
+            log.error("文件导入任务失败：jobId={}", job.getJobId(), e);
+            synchronized (job) {
+                job.setMessage(e.getMessage());
+                job.setStatus("FAILED");
+            }
+        } finally {
+            synchronized (job) {
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * 将请求体写入临时文件，超过上限时中止（Content-Length 可能缺失或不可信）
+     */
+    private long copy(InputStream in, Path target, long maxBytes) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+                if (total > maxBytes) {
+                    throw new BusinessException(ResultCode.FILE_SIZE_ERROR, "导入文件不能超过" + maxFileMb + "MB");
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return total;
+    }
+
+    private ImportJobDTO snapshot(ImportJobDTO job) {
+        synchronized (job) {
+            return job.toBuilder().build();
+        }
+    }
+
+    /**
+     * 超过保留数时移除最早结束的任务（须持有 jobs 锁）
+     */
+    private void evictFinished() {
+        Iterator<ImportJobDTO> iterator = jobs.values().iterator();
+        while (jobs.size() >= maxRetained && iterator.hasNext()) {
+            ImportJobDTO job = iterator.next();
+            synchronized (job) {
+                if (job.getFinishedAt() != null) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导入临时文件失败：{}", file, e);
+        }
+    }
+}
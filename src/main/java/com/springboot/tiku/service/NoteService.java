@@ -2,15 +2,12 @@ package com.springboot.tiku.service;
 
 import com.springboot.tiku.common.ResultCode;
 import com.springboot.tiku.dto.note.NoteDTO;
-import com.springboot.tiku.entity.Chapter;
 import com.springboot.tiku.entity.Note;
 import com.springboot.tiku.entity.Question;
-import com.springboot.tiku.entity.Subject;
 import com.springboot.tiku.exception.BusinessException;
-import com.springboot.tiku.repository.ChapterRepository;
 import com.springboot.tiku.repository.NoteRepository;
 import com.springboot.tiku.repository.QuestionRepository;
-import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -20,7 +17,11 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -33,8 +34,7 @@ public class NoteService {
     
     private final NoteRepository noteRepository;
     private final QuestionRepository questionRepository;
-    private final SubjectRepository subjectRepository;
-    private final ChapterRepository chapterRepository;
+    private final QuestionAssembler questionAssembler;
     
     /**
      * 添加笔记
@@ -127,9 +127,7 @@ public class NoteService {
         
         Page<Note> notePage = noteRepository.findAll(spec, pageable);
         
-        List<NoteDTO> noteDTOs = notePage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<NoteDTO> noteDTOs = convertToDTOs(notePage.getContent());
         
         return new PageImpl<>(noteDTOs, pageable, notePage.getTotalElements());
     }
@@ -139,9 +137,7 @@ public class NoteService {
      */
     public List<NoteDTO> getAllUserNotes(Long userId) {
         List<Note> notes = noteRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return notes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(notes);
     }
     
     /**
@@ -152,10 +148,42 @@ public class NoteService {
                 .orElse(null);
     }
     
+    /**
+     * 批量转换Note为NoteDTO（题目、学科、章节批量加载）
+     */
+    private List<NoteDTO> convertToDTOs(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, Question> questionMap = questionAssembler.loadQuestions(notes.stream()
+                .map(Note::getQuestionId)
+                .collect(Collectors.toList()));
+        
+        Set<Long> subjectIds = new HashSet<>();
+        Set<Long> chapterIds = new HashSet<>();
+        for (Note note : notes) {
+            subjectIds.add(note.getSubjectId());
+        }
+        for (Question question : questionMap.values()) {
+            subjectIds.add(question.getSubjectId());
+            chapterIds.add(question.getChapterId());
+        }
+        Map<Long, String> subjectNames = questionAssembler.subjectNames(subjectIds);
+        Map<Long, String> chapterNames = questionAssembler.chapterNames(chapterIds);
+        
+        return notes.stream()
+                .map(note -> convertToDTO(note, questionMap, subjectNames, chapterNames))
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 转换Note为NoteDTO
      */
-    private NoteDTO convertToDTO(Note note) {
+    private NoteDTO convertToDTO(Note note,
+                                 Map<Long, Question> questionMap,
+                                 Map<Long, String> subjectNames,
+                                 Map<Long, String> chapterNames) {
         NoteDTO dto = new NoteDTO();
         dto.setId(note.getId());
         dto.setTitle(note.getTitle());
@@ -168,7 +196,7 @@ public class NoteService {
         
         // 获取题目信息
         if (note.getQuestionId() != null) {
-            Question question = questionRepository.findById(note.getQuestionId()).orElse(null);
+            Question question = questionMap.get(note.getQuestionId());
             if (question != null) {
                 dto.setQuestionTitle(question.getTitle());
                 
@@ -179,25 +207,16 @@ public class NoteService {
                 
                 if (question.getChapterId() != null) {
                     dto.setChapterId(question.getChapterId());
-                    Chapter chapter = chapterRepository.findById(question.getChapterId()).orElse(null);
-                    if (chapter != null) {
-                        dto.setChapterName(chapter.getName());
-                    }
+                    dto.setChapterName(chapterNames.get(question.getChapterId()));
                 }
             }
         }
         
         // 获取学科名称
         if (dto.getSubjectId() != null) {
-            Subject subject = subjectRepository.findById(dto.getSubjectId()).orElse(null);
-            if (subject != null) {
-                dto.setSubjectName(subject.getName());
-            }
+            dto.setSubjectName(subjectNames.get(dto.getSubjectId()));
         }
         
         return dto;
     }
 }
-
-
-
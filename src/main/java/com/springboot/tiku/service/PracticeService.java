@@ -8,10 +8,15 @@ import com.springboot.tiku.dto.question.QuestionDTO;
 import com.springboot.tiku.entity.*;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.*;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
+import com.springboot.tiku.service.mastery.MasteryStore;
+import com.springboot.tiku.service.sampling.ExamPaperPool;
+import com.springboot.tiku.service.sampling.PracticeCursorStore;
+import com.springboot.tiku.service.sampling.QuestionSampler;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -33,9 +38,25 @@ public class PracticeService {
     private final QuestionRepository questionRepository;
     private final SubjectRepository subjectRepository;
     private final ChapterRepository chapterRepository;
-    private final AnswerRecordRepository answerRecordRepository;
     private final WrongQuestionRepository wrongQuestionRepository;
     private final FavoriteRepository favoriteRepository;
+    private final QuestionSampler questionSampler;
+    private final ExamPaperPool examPaperPool;
+    private final PracticeCursorStore practiceCursorStore;
+    private final MasteryStore masteryStore;
+    private final QuestionAssembler questionAssembler;
+    
+    /**
+     * 智能推荐：章节/题型至少答题多少次才参与薄弱判断
+     */
+    @Value("${practice.mastery.min-attempts:3}")
+    private int minMasteryAttempts;
+    
+    /**
+     * 智能推荐：最多选取的薄弱章节数
+     */
+    @Value("${practice.mastery.weak-chapters:3}")
+    private int weakChapterCount;
     
     /**
      * 开始刷题（根据模式选择对应的策略）
@@ -62,45 +83,52 @@ public class PracticeService {
             throw new BusinessException("没有找到符合条件的题目");
         }
         
-        // 转换为DTO
-        List<QuestionDTO> questionDTOs = questions.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // 批量转换为DTO（学科/章节名称一次查询解析）
+        List<QuestionDTO> questionDTOs = questionAssembler.toDTOs(questions);
         
         // 构建刷题会话
         return buildPracticeSession(request, subject, questionDTOs);
     }
     
     /**
-     * 1. 顺序刷题
+     * 1. 顺序刷题（按题目ID游标续刷，续刷位置的查询代价与已刷进度无关）
      */
     private List<Question> getSequentialQuestions(PracticeRequest request, Long userId) {
-        Specification<Question> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("subjectId"), request.getSubjectId()));
-            predicates.add(cb.equal(root.get("status"), 1));
-            
-            if (request.getQuestionType() != null) {
-                predicates.add(cb.equal(root.get("type"), request.getQuestionType()));
-            }
-            if (request.getDifficulty() != null) {
-                predicates.add(cb.equal(root.get("difficulty"), request.getDifficulty()));
-            }
-            if (request.getChapterId() != null) {
-                predicates.add(cb.equal(root.get("chapterId"), request.getChapterId()));
-            }
-            
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
+        String filterKey = PracticeCursorStore.filterKey(
+                request.getChapterId(), request.getQuestionType(), request.getDifficulty());
         
-        // 如果继续上次进度，获取上次最后答题的位置
-        int offset = 0;
+        // 如果继续上次进度，从上次最后下发的题目之后开始
+        long cursor = 0L;
         if (Boolean.TRUE.equals(request.getContinueProgress())) {
-            offset = getLastProgress(userId, request.getSubjectId());
+            cursor = practiceCursorStore.get(userId, request.getSubjectId(), filterKey);
         }
         
-        Pageable pageable = PageRequest.of(offset / request.getCount(), request.getCount());
-        return questionRepository.findAll(spec, pageable).getContent();
+        List<Question> questions = new ArrayList<>(nextSequentialQuestions(request, cursor, request.getCount()));
+        if (questions.size() < request.getCount() && cursor > 0) {
+            // 已刷到题库末尾，从头继续
+            for (Question question : nextSequentialQuestions(request, 0L, request.getCount() - questions.size())) {
+                if (question.getId() <= cursor) {
+                    questions.add(question);
+                }
+            }
+        }
+        
+        if (!questions.isEmpty()) {
+            practiceCursorStore.save(userId, request.getSubjectId(), filterKey, questions.get(questions.size() - 1).getId());
+        }
+        return questions;
+    }
+    
+    private List<Question> nextSequentialQuestions(PracticeRequest request, long cursor, int count) {
+        return questionRepository.findNextBySubject(
+                request.getSubjectId(),
+                1,
+                cursor,
+                request.getChapterId(),
+                request.getQuestionType(),
+                request.getDifficulty(),
+                PageRequest.of(0, count)
+        );
     }
     
     /**
@@ -108,14 +136,14 @@ public class PracticeService {
      */
     private List<Question> getRandomQuestions(PracticeRequest request) {
         if (request.getQuestionType() != null) {
-            return questionRepository.findRandomQuestionsByType(
+            return questionSampler.sampleBySubjectAndType(
                     request.getSubjectId(),
-                    request.getQuestionType().name(),
+                    request.getQuestionType(),
                     1,
                     request.getCount()
             );
         } else {
-            return questionRepository.findRandomQuestions(
+            return questionSampler.sampleBySubject(
                     request.getSubjectId(),
                     1,
                     request.getCount()
@@ -131,7 +159,7 @@ public class PracticeService {
             throw new BusinessException("章节练习模式必须指定章节");
         }
         
-        return questionRepository.findRandomQuestionsByChapter(
+        return questionSampler.sampleByChapter(
                 request.getChapterId(),
                 1,
                 request.getCount()
@@ -139,70 +167,61 @@ public class PracticeService {
     }
     
     /**
-     * 4. 考试模拟（按章节抽题）
+     * 4. 考试模拟（按章节抽题，从试卷池发放）
      */
     private List<Question> getExamQuestions(PracticeRequest request) {
+        ExamPaperPool.PaperKey key = new ExamPaperPool.PaperKey(
+                request.getSubjectId(), request.getQuestionType(), request.getCount());
+        return questionSampler.fetch(examPaperPool.take(key, this::buildExamPaper));
+    }
+    
+    /**
+     * 组卷：各章节均匀抽题（学科没有章节时随机抽取），返回题目ID
+     */
+    private List<Long> buildExamPaper(ExamPaperPool.PaperKey key) {
         // 获取学科的所有章节
-        List<Chapter> chapters = chapterRepository.findBySubjectIdOrderBySortOrderAsc(request.getSubjectId());
+        List<Chapter> chapters = chapterRepository.findBySubjectIdOrderBySortOrderAsc(key.subjectId());
         
         if (chapters.isEmpty()) {
             // 如果没有章节，随机抽取
-            return getRandomQuestions(request);
+            return questionSampler.sampleSubjectIds(key.subjectId(), key.type(), 1, key.count());
         }
         
         // 每个章节抽取的题目数
-        int questionsPerChapter = Math.max(1, request.getCount() / chapters.size());
-        List<Question> allQuestions = new ArrayList<>();
+        int questionsPerChapter = Math.max(1, key.count() / chapters.size());
+        List<Long> allQuestionIds = new ArrayList<>();
         
         for (Chapter chapter : chapters) {
-            List<Question> chapterQuestions = questionRepository.findRandomQuestionsByChapter(
+            allQuestionIds.addAll(questionSampler.sampleChapterIds(
                     chapter.getId(),
                     1,
                     questionsPerChapter
-            );
-            allQuestions.addAll(chapterQuestions);
+            ));
         }
         
-        // 打乱顺序
-        Collections.shuffle(allQuestions);
-        
-        // 限制总数
-        return allQuestions.stream()
-                .limit(request.getCount())
+        // 打乱顺序并限制总数
+        Collections.shuffle(allQuestionIds);
+        return allQuestionIds.stream()
+                .limit(key.count())
                 .collect(Collectors.toList());
     }
     
     /**
-     * 5. 错题强化
+     * 5. 错题强化（按间隔重复计划取最该复习的错题）
      */
     private List<Question> getWrongQuestions(PracticeRequest request, Long userId) {
-        // 获取用户的错题
-        List<WrongQuestion> wrongQuestions = wrongQuestionRepository
-                .findByUserIdAndStatusAndRemovedOrderByWrongCountDesc(
-                        userId,
-                        WrongQuestion.WrongStatus.WRONG,
-                        false
-                );
-        
-        if (wrongQuestions.isEmpty()) {
-            wrongQuestions = wrongQuestionRepository
-                    .findByUserIdAndStatusAndRemovedOrderByWrongCountDesc(
-                            userId,
-                            WrongQuestion.WrongStatus.REPEATED_WRONG,
-                            false
-                    );
-        }
-        
-        List<Long> questionIds = wrongQuestions.stream()
+        // 到期的错题优先，不足时提前复习即将到期、尚未掌握的
+        List<Long> questionIds = wrongQuestionRepository
+                .findReviewQueue(userId, LocalDateTime.now(), PageRequest.of(0, request.getCount()))
+                .stream()
                 .map(WrongQuestion::getQuestionId)
-                .limit(request.getCount())
                 .collect(Collectors.toList());
         
         if (questionIds.isEmpty()) {
             throw new BusinessException("暂无错题，建议先完成一些练习");
         }
         
-        return questionRepository.findAllById(questionIds);
+        return questionSampler.fetch(questionIds);
     }
     
     /**
@@ -276,59 +295,77 @@ public class PracticeService {
     }
     
     /**
-     * 9. 智能推荐
+     * 9. 智能推荐（基于用户掌握度，不逐条查询答题记录）
      */
     private List<Question> getSmartRecommendQuestions(PracticeRequest request, Long userId) {
-        // 分析用户的答题数据
-        List<AnswerRecord> records = answerRecordRepository
-                .findByUserIdOrderByAnsweredAtDesc(userId, PageRequest.of(0, 100))
-                .getContent();
-        
-        // 统计每个章节的正确率
-        Map<Long, List<AnswerRecord>> chapterRecords = records.stream()
-                .filter(r -> r.getIsCorrect() != null)
-                .collect(Collectors.groupingBy(r -> {
-                    Question q = questionRepository.findById(r.getQuestionId()).orElse(null);
-                    return q != null && q.getChapterId() != null ? q.getChapterId() : 0L;
-                }));
-        
-        // 找出正确率最低的章节
-        Long weakChapterId = chapterRecords.entrySet().stream()
-                .filter(entry -> entry.getKey() > 0)
-                .min(Comparator.comparingDouble(entry -> {
-                    List<AnswerRecord> chapterAnswers = entry.getValue();
-                    long correctCount = chapterAnswers.stream()
-                            .filter(r -> Boolean.TRUE.equals(r.getIsCorrect()))
-                            .count();
-                    return (double) correctCount / chapterAnswers.size();
-                }))
-                .map(Map.Entry::getKey)
-                .orElse(null);
+        Long subjectId = request.getSubjectId();
+        int count = request.getCount();
+        MasteryStore.UserKnowledge knowledge = masteryStore.get(userId);
+        
+        // 按章节掌握度找出薄弱章节（正确率最低的若干章，需有足够答题量）
+        List<Long> weakChapterIds = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        List<Chapter> chapters = chapterRepository.findBySubjectIdOrderBySortOrderAsc(subjectId);
+        chapters.stream()
+                .map(chapter -> Map.entry(chapter.getId(), Optional.ofNullable(knowledge.chapter(subjectId, chapter.getId()))))
+                .filter(entry -> entry.getValue().map(m -> m.attempts() >= minMasteryAttempts).orElse(false))
+                .sorted(Comparator.comparingDouble(entry -> entry.getValue().get().accuracy()))
+                .limit(weakChapterCount)
+                .forEach(entry -> {
+                    weakChapterIds.add(entry.getKey());
+                    weights.add(Math.max(0.05, 1 - entry.getValue().get().accuracy()));
+                });
+        
+        // 目标难度按学科整体掌握度确定
+        Map<Question.QuestionType, MasteryStore.Mastery> typeMastery = knowledge.types(subjectId);
+        Question.Difficulty targetDifficulty = targetDifficulty(typeMastery.values());
+        
+        // 按薄弱程度分配题量，过采样后一次加载，目标难度优先
+        List<Long> ids = new ArrayList<>();
+        if (!weakChapterIds.isEmpty()) {
+            double totalWeight = weights.stream().mapToDouble(Double::doubleValue).sum();
+            for (int i = 0; i < weakChapterIds.size(); i++) {
+                int share = (int) Math.ceil(count * weights.get(i) / totalWeight);
+                ids.addAll(questionSampler.sampleChapterIds(weakChapterIds.get(i), 1, share * 2));
+            }
+        } else {
+            // 没有章节数据时按最薄弱题型推荐
+            typeMastery.entrySet().stream()
+                    .filter(entry -> entry.getValue().attempts() >= minMasteryAttempts)
+                    .min(Comparator.comparingDouble(entry -> entry.getValue().accuracy()))
+                    .ifPresent(entry -> ids.addAll(
+                            questionSampler.sampleSubjectIds(subjectId, entry.getKey(), 1, count * 2)));
+        }
         
-        // 如果找到薄弱章节，推荐该章节的题目
-        if (weakChapterId != null) {
-            return questionRepository.findRandomQuestionsByChapter(
-                    weakChapterId,
-                    1,
-                    request.getCount()
-            );
+        if (ids.isEmpty()) {
+            // 没有掌握度数据，随机推荐
+            return getRandomQuestions(request);
         }
         
-        // 否则随机推荐
-        return getRandomQuestions(request);
+        return questionSampler.fetch(ids.stream().distinct().toList()).stream()
+                .sorted(Comparator.comparing((Question q) -> q.getDifficulty() != targetDifficulty))
+                .limit(count)
+                .collect(Collectors.toList());
     }
     
     /**
-     * 获取用户上次答题进度
+     * 按整体正确率确定推荐难度
      */
-    private int getLastProgress(Long userId, Long subjectId) {
-        // 查询用户在该学科的答题总数
-        long count = answerRecordRepository.countByUserIdAndAnsweredAtBetween(
-                userId,
-                LocalDateTime.now().minusDays(7),
-                LocalDateTime.now()
-        );
-        return (int) count;
+    private Question.Difficulty targetDifficulty(Collection<MasteryStore.Mastery> masteries) {
+        long attempts = 0;
+        double weighted = 0;
+        for (MasteryStore.Mastery mastery : masteries) {
+            attempts += mastery.attempts();
+            weighted += mastery.accuracy() * mastery.attempts();
+        }
+        if (attempts == 0) {
+            return Question.Difficulty.EASY;
+        }
+        double accuracy = weighted / attempts;
+        if (accuracy < 0.6) {
+            return Question.Difficulty.EASY;
+        }
+        return accuracy < 0.8 ? Question.Difficulty.MEDIUM : Question.Difficulty.HARD;
     }
     
     /**
@@ -389,43 +426,4 @@ public class PracticeService {
         
         return builder.build();
     }
-    
-    /**
-     * 转换为DTO
-     */
-    private QuestionDTO convertToDTO(Question question) {
-        QuestionDTO dto = new QuestionDTO();
-        BeanUtils.copyProperties(question, dto);
-        
-        // 将 JSON 字符串反序列化为对象
-        try {
-            if (question.getOptions() != null && !question.getOptions().isEmpty()) {
-                Object options = new com.fasterxml.jackson.databind.ObjectMapper().readValue(question.getOptions(), Object.class);
-                dto.setOptions(options);
-            }
-            if (question.getAnswer() != null && !question.getAnswer().isEmpty()) {
-                Object answer = new com.fasterxml.jackson.databind.ObjectMapper().readValue(question.getAnswer(), Object.class);
-                dto.setAnswer(answer);
-            }
-        } catch (Exception e) {
-            log.error("反序列化JSON字段失败: questionId={}", question.getId(), e);
-        }
-        
-        // 填充学科名称
-        subjectRepository.findById(question.getSubjectId()).ifPresent(subject -> {
-            dto.setSubjectName(subject.getName());
-        });
-        
-        // 填充章节名称
-        if (question.getChapterId() != null) {
-            chapterRepository.findById(question.getChapterId()).ifPresent(chapter -> {
-                dto.setChapterName(chapter.getName());
-            });
-        }
-        
-        return dto;
-    }
 }
-
-
-
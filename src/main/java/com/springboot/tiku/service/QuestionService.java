@@ -14,12 +14,17 @@ import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.ChapterRepository;
 import com.springboot.tiku.repository.QuestionRepository;
 import com.springboot.tiku.repository.SubjectRepository;
-import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
+import com.springboot.tiku.service.grading.AiGradingResultCache;
+import com.springboot.tiku.service.grading.AnswerKeyCache;
+import com.springboot.tiku.service.sampling.QuestionSampler;
+import com.springboot.tiku.service.search.QuestionSearchIndex;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -39,8 +44,12 @@ public class QuestionService {
     private final QuestionRepository questionRepository;
     private final SubjectRepository subjectRepository;
     private final ChapterRepository chapterRepository;
-    private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
+    private final QuestionSampler questionSampler;
+    private final AnswerKeyCache answerKeyCache;
+    private final AiGradingResultCache aiGradingResultCache;
+    private final QuestionAssembler questionAssembler;
+    private final QuestionSearchIndex questionSearchIndex;
     
     /**
      * 创建题目
@@ -84,6 +93,7 @@ public class QuestionService {
         }
         
         question = questionRepository.save(question);
+        questionSampler.evict(question.getSubjectId(), question.getChapterId());
         
         // 更新学科题目数量
         subject.setQuestionCount(subject.getQuestionCount() + 1);
@@ -117,6 +127,10 @@ public class QuestionService {
             subjectRepository.save(newSubject);
         }
         
+        // 失效原学科/章节的抽样池
+        questionSampler.evict(question.getSubjectId(), question.getChapterId());
+        String gradingVersion = AiGradingResultCache.version(question);
+        
         // 更新题目字段
         question.setSubjectId(request.getSubjectId());
         question.setChapterId(request.getChapterId());
@@ -154,6 +168,11 @@ public class QuestionService {
         }
         
         question = questionRepository.save(question);
+        questionSampler.evict(question.getSubjectId(), question.getChapterId());
+        // 参考答案、评分标准等评分依据变化时清除AI判题缓存
+        if (!gradingVersion.equals(AiGradingResultCache.version(question))) {
+            aiGradingResultCache.evictQuestion(id);
+        }
         
         log.info("更新题目成功：{}", question.getTitle());
         return convertToDTO(question);
@@ -175,6 +194,9 @@ public class QuestionService {
         }
         
         questionRepository.delete(question);
+        questionSampler.evict(question.getSubjectId(), question.getChapterId());
+        answerKeyCache.evict(id);
+        aiGradingResultCache.evictQuestion(id);
         log.info("删除题目成功：{}", question.getTitle());
     }
     
@@ -199,11 +221,19 @@ public class QuestionService {
     
     /**
      * 分页查询题目
+     * 有关键词或标签时走全文索引（按指定排序，未指定时按相关度），索引不可用或排序字段不支持时退回条件查询
      */
     public Page<QuestionDTO> getQuestions(QuestionQueryRequest queryRequest, Pageable pageable) {
+        Page<Long> idPage = questionSearchIndex.search(queryRequest, pageable);
+        if (idPage != null) {
+            List<QuestionDTO> dtos = questionAssembler.toDetailedDTOs(questionSampler.fetch(idPage.getContent()));
+            return new PageImpl<>(dtos, pageable, idPage.getTotalElements());
+        }
+        
         Specification<Question> spec = buildSpecification(queryRequest);
-        return questionRepository.findAll(spec, pageable)
-                .map(this::convertToDTO);
+        Page<Question> questionPage = questionRepository.findAll(spec, pageable);
+        List<QuestionDTO> dtos = questionAssembler.toDetailedDTOs(questionPage.getContent());
+        return new PageImpl<>(dtos, pageable, questionPage.getTotalElements());
     }
     
     /**
@@ -212,11 +242,11 @@ public class QuestionService {
     public List<QuestionDTO> getRandomQuestions(Long subjectId, Question.QuestionType type, Integer count) {
         List<Question> questions;
         if (type != null) {
-            questions = questionRepository.findRandomQuestionsByType(subjectId, type.name(), 1, count);
+            questions = questionSampler.sampleBySubjectAndType(subjectId, type, 1, count);
         } else {
-            questions = questionRepository.findRandomQuestions(subjectId, 1, count);
+            questions = questionSampler.sampleBySubject(subjectId, 1, count);
         }
-        return questions.stream().map(this::convertToDTO).toList();
+        return questionAssembler.toDetailedDTOs(questions);
     }
     
     /**
@@ -228,6 +258,7 @@ public class QuestionService {
                 .orElseThrow(() -> new BusinessException(ResultCode.QUESTION_NOT_FOUND));
         question.setStatus(status);
         questionRepository.save(question);
+        questionSampler.evict(question.getSubjectId(), question.getChapterId());
     }
     
     /**
@@ -281,59 +312,6 @@ public class QuestionService {
      * 转换为DTO
      */
     private QuestionDTO convertToDTO(Question question) {
-        QuestionDTO dto = new QuestionDTO();
-        BeanUtils.copyProperties(question, dto);
-        
-        // 将 JSON 字符串反序列化为对象
-        try {
-            if (question.getOptions() != null && !question.getOptions().isEmpty()) {
-                Object options = objectMapper.readValue(question.getOptions(), Object.class);
-                dto.setOptions(options);
-            }
-            if (question.getAnswer() != null && !question.getAnswer().isEmpty()) {
-                Object answer = objectMapper.readValue(question.getAnswer(), Object.class);
-                dto.setAnswer(answer);
-            }
-            if (question.getAiGradingConfig() != null && !question.getAiGradingConfig().isEmpty()) {
-                @SuppressWarnings("unchecked")
-                java.util.Map<String, Object> config = objectMapper.readValue(question.getAiGradingConfig(), java.util.Map.class);
-                dto.setAiGradingConfig(config);
-            }
-            if (question.getScoringCriteria() != null && !question.getScoringCriteria().isEmpty()) {
-                Object criteria = objectMapper.readValue(question.getScoringCriteria(), Object.class);
-                dto.setScoringCriteria(criteria);
-            }
-            if (question.getReferenceKeywords() != null && !question.getReferenceKeywords().isEmpty()) {
-                Object keywords = objectMapper.readValue(question.getReferenceKeywords(), Object.class);
-                dto.setReferenceKeywords(keywords);
-            }
-        } catch (JsonProcessingException e) {
-            log.error("反序列化JSON字段失败: questionId={}", question.getId(), e);
-            // 发生错误时，保持字段为 null，不影响其他数据
-        }
-        
-        // 填充学科名称
-        subjectRepository.findById(question.getSubjectId()).ifPresent(subject -> {
-            dto.setSubjectName(subject.getName());
-        });
-        
-        // 填充章节名称
-        if (question.getChapterId() != null) {
-            chapterRepository.findById(question.getChapterId()).ifPresent(chapter -> {
-                dto.setChapterName(chapter.getName());
-            });
-        }
-        
-        // 填充创建者名称
-        if (question.getCreatorId() != null) {
-            userRepository.findById(question.getCreatorId()).ifPresent(user -> {
-                dto.setCreatorName(user.getUsername());
-            });
-        }
-        
-        return dto;
+        return questionAssembler.toDetailedDTOs(List.of(question)).get(0);
     }
 }
-
-
-
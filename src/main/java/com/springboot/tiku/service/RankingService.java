@@ -1,201 +1,339 @@
 package com.springboot.tiku.service;
 
+import com.springboot.tiku.common.ResultCode;
 import com.springboot.tiku.dto.statistics.RankingItem;
 import com.springboot.tiku.entity.AnswerRecord;
 import com.springboot.tiku.entity.User;
+import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.AnswerRecordRepository;
 import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.service.ranking.Leaderboard;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * 排行榜服务
+ * 启动时通过分组聚合一次性构建内存排行榜，判题提交后增量更新，
+ * 并定期全量重建以纠正偏差（如用户状态变化、异常情况下丢失的增量）。
+ * 榜单基于顺序统计树，前N名和个人名次查询均为 O(log n)。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RankingService {
-    
+
+    /**
+     * 正确率排行榜的最少答题数
+     */
+    private static final int ACCURACY_MIN_ANSWERS = 10;
+
+    /**
+     * 答题数榜：答题数降序，用户ID升序
+     */
+    private static final Comparator<RankEntry> BY_ANSWER_COUNT = Comparator
+            .comparingLong(RankEntry::answerCount).reversed()
+            .thenComparing(RankEntry::userId);
+
+    /**
+     * 正确率榜：正确率降序，答题数降序，用户ID升序
+     */
+    private static final Comparator<RankEntry> BY_ACCURACY = Comparator
+            .comparing(RankEntry::accuracy).reversed()
+            .thenComparing(Comparator.comparingLong(RankEntry::answerCount).reversed())
+            .thenComparing(RankEntry::userId);
+
+    /**
+     * 积分榜：正确数降序，用户ID升序
+     */
+    private static final Comparator<RankEntry> BY_POINTS = Comparator
+            .comparingLong(RankEntry::correctCount).reversed()
+            .thenComparing(RankEntry::userId);
+
     private final UserRepository userRepository;
     private final AnswerRecordRepository answerRecordRepository;
-    
+
+    /**
+     * 当前榜单快照（全量重建时整体替换）
+     */
+    private volatile Boards boards = new Boards();
+
     /**
      * 获取答题数排行榜
      */
     public List<RankingItem> getAnswerCountRanking(Integer limit, Long currentUserId) {
-        if (limit == null || limit <= 0) {
-            limit = 100;
-        }
-        
-        List<User> users = userRepository.findByStatusOrderByIdAsc(1);
-        
-        // 统计每个用户的答题数（包括0的用户）
-        List<RankingItem> rankings = new ArrayList<>();
-        for (User user : users) {
-            long answerCount = answerRecordRepository.countByUserId(user.getId());
-            // 所有用户都加入排行榜，包括答题数为0的
-            RankingItem item = RankingItem.builder()
-                    .userId(user.getId())
-                    .username(user.getUsername())
-                    .realName(maskName(user.getRealName()))
-                    .value(answerCount)
-                    .isCurrentUser(user.getId().equals(currentUserId))
-                    .build();
-            rankings.add(item);
-        }
-        
-        // 按答题数排序
-        rankings.sort(Comparator.comparing(RankingItem::getValue).reversed());
-        
-        // 设置排名
-        for (int i = 0; i < rankings.size(); i++) {
-            rankings.get(i).setRank(i + 1);
-        }
-        
-        return rankings.stream().limit(limit).collect(Collectors.toList());
-    }
-    
+        Boards current = boards;
+        synchronized (current) {
+            return toItems(current, current.answerCount.top(normalizeLimit(limit)), 1, currentUserId,
+                    this::answerCountItem);
+        }
+    }
+
     /**
      * 获取正确率排行榜（至少答题10道）
      */
     public List<RankingItem> getAccuracyRanking(Integer limit, Long currentUserId) {
-        if (limit == null || limit <= 0) {
-            limit = 100;
-        }
-        
-        List<User> users = userRepository.findByStatusOrderByIdAsc(1);
-        
-        List<RankingItem> rankings = new ArrayList<>();
-        for (User user : users) {
-            long totalAnswered = answerRecordRepository.countByUserId(user.getId());
-            
-            // 至少答题10道才进入排行榜
-            if (totalAnswered >= 10) {
-                long correctCount = answerRecordRepository.countByUserIdAndIsCorrect(user.getId(), true);
-                
-                BigDecimal accuracy = BigDecimal.valueOf(correctCount)
-                        .multiply(BigDecimal.valueOf(100))
-                        .divide(BigDecimal.valueOf(totalAnswered), 2, RoundingMode.HALF_UP);
-                
-                RankingItem item = RankingItem.builder()
-                        .userId(user.getId())
-                        .username(user.getUsername())
-                        .realName(maskName(user.getRealName()))
-                        .value(totalAnswered)
-                        .accuracy(accuracy)
-                        .isCurrentUser(user.getId().equals(currentUserId))
-                        .build();
-                rankings.add(item);
-            }
-        }
-        
-        // 按正确率排序，正确率相同则按答题数排序
-        rankings.sort(Comparator
-                .comparing(RankingItem::getAccuracy).reversed()
-                .thenComparing(RankingItem::getValue, Comparator.reverseOrder()));
-        
-        // 设置排名
-        for (int i = 0; i < rankings.size(); i++) {
-            rankings.get(i).setRank(i + 1);
+        Boards current = boards;
+        synchronized (current) {
+            return toItems(current, current.accuracy.top(normalizeLimit(limit)), 1, currentUserId,
+                    this::accuracyItem);
         }
-        
-        return rankings.stream().limit(limit).collect(Collectors.toList());
     }
-    
+
     /**
      * 获取积分排行榜
      */
     public List<RankingItem> getPointsRanking(Integer limit, Long currentUserId) {
-        if (limit == null || limit <= 0) {
-            limit = 100;
-        }
-        
-        List<User> users = userRepository.findByStatusOrderByIdAsc(1);
-        
-        List<RankingItem> rankings = new ArrayList<>();
-        for (User user : users) {
-            long correctCount = answerRecordRepository.countByUserIdAndIsCorrect(user.getId(), true);
-            
-            // 简单积分规则：正确题数 * 10
-            int points = (int) (correctCount * 10);
-            
-            // 所有用户都加入排行榜，包括积分为0的
-            RankingItem item = RankingItem.builder()
-                    .userId(user.getId())
-                    .username(user.getUsername())
-                    .realName(maskName(user.getRealName()))
-                    .points(points)
-                    .value(correctCount)
-                    .isCurrentUser(user.getId().equals(currentUserId))
-                    .build();
-            rankings.add(item);
-        }
-        
-        // 按积分排序
-        rankings.sort(Comparator.comparing(RankingItem::getPoints).reversed());
-        
-        // 设置排名
-        for (int i = 0; i < rankings.size(); i++) {
-            rankings.get(i).setRank(i + 1);
-        }
-        
-        return rankings.stream().limit(limit).collect(Collectors.toList());
-    }
-    
+        Boards current = boards;
+        synchronized (current) {
+            return toItems(current, current.points.top(normalizeLimit(limit)), 1, currentUserId,
+                    this::pointsItem);
+        }
+    }
+
     /**
      * 获取学科排行榜
      */
     public List<RankingItem> getSubjectRanking(Long subjectId, Integer limit, Long currentUserId) {
-        if (limit == null || limit <= 0) {
-            limit = 100;
-        }
-        
-        List<User> users = userRepository.findByStatusOrderByIdAsc(1);
-        
-        List<RankingItem> rankings = new ArrayList<>();
-        for (User user : users) {
-            long answerCount = answerRecordRepository
-                    .countByUserIdAndQuestionSubjectId(user.getId(), subjectId);
-            
-            if (answerCount > 0) {
-                long correctCount = answerRecordRepository
-                        .countByUserIdAndQuestionSubjectIdAndIsCorrect(user.getId(), subjectId, true);
-                
-                BigDecimal accuracy = BigDecimal.valueOf(correctCount)
-                        .multiply(BigDecimal.valueOf(100))
-                        .divide(BigDecimal.valueOf(answerCount), 2, RoundingMode.HALF_UP);
-                
-                RankingItem item = RankingItem.builder()
-                        .userId(user.getId())
-                        .username(user.getUsername())
-                        .realName(maskName(user.getRealName()))
-                        .value(answerCount)
-                        .accuracy(accuracy)
-                        .isCurrentUser(user.getId().equals(currentUserId))
-                        .build();
-                rankings.add(item);
+        Boards current = boards;
+        synchronized (current) {
+            Leaderboard<RankEntry> board = current.subjects.get(subjectId);
+            if (board == null) {
+                return new ArrayList<>();
+            }
+            return toItems(current, board.top(normalizeLimit(limit)), 1, currentUserId, this::accuracyItem);
+        }
+    }
+
+    /**
+     * 获取当前用户在指定榜单中的名次（未上榜返回null）
+     * @param type 榜单类型：answer-count / accuracy / points / subject
+     */
+    public RankingItem getMyRanking(String type, Long subjectId, Long userId) {
+        Boards current = boards;
+        synchronized (current) {
+            Leaderboard<RankEntry> board;
+            Function<RankEntry, RankingItem.RankingItemBuilder> mapper;
+            switch (type) {
+                case "answer-count" -> {
+                    board = current.answerCount;
+                    mapper = this::answerCountItem;
+                }
+                case "accuracy" -> {
+                    board = current.accuracy;
+                    mapper = this::accuracyItem;
+                }
+                case "points" -> {
+                    board = current.points;
+                    mapper = this::pointsItem;
+                }
+                case "subject" -> {
+                    board = subjectId != null ? current.subjects.get(subjectId) : null;
+                    mapper = this::accuracyItem;
+                }
+                default -> throw new BusinessException(ResultCode.BAD_REQUEST, "不支持的排行榜类型：" + type);
+            }
+
+            int rank = board != null ? board.rankOf(userId) : 0;
+            if (rank == 0) {
+                return null;
+            }
+            return toItems(current, List.of(board.get(userId)), rank, userId, mapper).get(0);
+        }
+    }
+
+    /**
+     * 登记一次答题（在事务中调用时，提交后才生效）
+     */
+    public void recordAnswer(Long userId, Long subjectId, Boolean isCorrect) {
+        Map<Long, long[]> subjectCounts = new HashMap<>();
+        subjectCounts.put(subjectId, new long[]{1, Boolean.TRUE.equals(isCorrect) ? 1 : 0});
+        recordAnswers(userId, subjectCounts);
+    }
+
+    /**
+     * 登记一批答题（学科ID -> [答题数, 正确数]，在事务中调用时，提交后才生效）
+     */
+    public void recordAnswers(Long userId, Map<Long, long[]> subjectCounts) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyAnswers(userId, subjectCounts);
+                }
+            });
+        } else {
+            applyAnswers(userId, subjectCounts);
+        }
+    }
+
+    /**
+     * 用户信息或状态变化后同步到榜单（禁用的用户从榜单移除）
+     */
+    public void refreshUser(User user) {
+        Boards current = boards;
+        synchronized (current) {
+            if (Integer.valueOf(1).equals(user.getStatus())) {
+                current.users.put(user.getId(), new UserInfo(user.getUsername(), user.getRealName()));
+                current.updateUser(user.getId());
+                current.subjectTotals.forEach((subjectId, totals) -> {
+                    if (totals.containsKey(user.getId())) {
+                        current.updateSubject(subjectId, user.getId());
+                    }
+                });
+            } else {
+                current.removeUser(user.getId());
             }
         }
-        
-        // 按答题数排序
-        rankings.sort(Comparator.comparing(RankingItem::getValue).reversed());
-        
-        // 设置排名
-        for (int i = 0; i < rankings.size(); i++) {
-            rankings.get(i).setRank(i + 1);
+    }
+
+    /**
+     * 从榜单中移除用户（删除用户时调用）
+     */
+    public void removeUser(Long userId) {
+        Boards current = boards;
+        synchronized (current) {
+            current.removeUser(userId);
         }
-        
-        return rankings.stream().limit(limit).collect(Collectors.toList());
     }
-    
+
+    /**
+     * 启动时构建排行榜
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定期全量重建
+     */
+    @Scheduled(initialDelayString = "${ranking.rebuild-interval-ms:600000}",
+            fixedDelayString = "${ranking.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建排行榜（活跃用户一次查询，答题统计两次分组聚合）
+     * 异步判题中的PENDING记录不计入，判题完成后由增量更新计入
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Boards rebuilt = new Boards();
+
+        for (User user : userRepository.findByStatusOrderByIdAsc(1)) {
+            rebuilt.users.put(user.getId(), new UserInfo(user.getUsername(), user.getRealName()));
+        }
+        for (Object[] row : answerRecordRepository.aggregateByUser(AnswerRecord.GradingStatus.PENDING)) {
+            rebuilt.totals.put((Long) row[0], new long[]{toLong(row[1]), toLong(row[2])});
+        }
+        for (Object[] row : answerRecordRepository.aggregateByUserAndSubject(AnswerRecord.GradingStatus.PENDING)) {
+            rebuilt.subjectTotals.computeIfAbsent((Long) row[1], id -> new HashMap<>())
+                    .put((Long) row[0], new long[]{toLong(row[2]), toLong(row[3])});
+        }
+        for (Long userId : rebuilt.users.keySet()) {
+            rebuilt.updateUser(userId);
+        }
+        rebuilt.subjectTotals.forEach((subjectId, totals) ->
+                totals.keySet().forEach(userId -> rebuilt.updateSubject(subjectId, userId)));
+
+        boards = rebuilt;
+        log.info("排行榜重建完成：用户{}人，学科榜{}个，耗时{}ms",
+                rebuilt.users.size(), rebuilt.subjects.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 增量更新榜单
+     */
+    private void applyAnswers(Long userId, Map<Long, long[]> subjectCounts) {
+        Boards current = boards;
+        User newUser = null;
+        if (!current.hasUser(userId)) {
+            // 新注册用户首次答题，补充用户信息
+            newUser = userRepository.findById(userId).orElse(null);
+            if (newUser == null || !Integer.valueOf(1).equals(newUser.getStatus())) {
+                return;
+            }
+        }
+
+        synchronized (current) {
+            if (newUser != null) {
+                current.users.putIfAbsent(userId, new UserInfo(newUser.getUsername(), newUser.getRealName()));
+            }
+            long[] total = current.totals.computeIfAbsent(userId, id -> new long[2]);
+            for (Map.Entry<Long, long[]> entry : subjectCounts.entrySet()) {
+                long[] counts = entry.getValue();
+                total[0] += counts[0];
+                total[1] += counts[1];
+
+                if (entry.getKey() != null) {
+                    long[] subjectTotal = current.subjectTotals
+                            .computeIfAbsent(entry.getKey(), id -> new HashMap<>())
+                            .computeIfAbsent(userId, id -> new long[2]);
+                    subjectTotal[0] += counts[0];
+                    subjectTotal[1] += counts[1];
+                    current.updateSubject(entry.getKey(), userId);
+                }
+            }
+            current.updateUser(userId);
+        }
+    }
+
+    private List<RankingItem> toItems(Boards current, List<RankEntry> entries, int firstRank, Long currentUserId,
+                                      Function<RankEntry, RankingItem.RankingItemBuilder> mapper) {
+        List<RankingItem> items = new ArrayList<>(entries.size());
+        int rank = firstRank;
+        for (RankEntry entry : entries) {
+            UserInfo info = current.users.get(entry.userId());
+            items.add(mapper.apply(entry)
+                    .rank(rank++)
+                    .userId(entry.userId())
+                    .username(info != null ? info.username() : null)
+                    .realName(info != null ? maskName(info.realName()) : null)
+                    .isCurrentUser(entry.userId().equals(currentUserId))
+                    .build());
+        }
+        return items;
+    }
+
+    private RankingItem.RankingItemBuilder answerCountItem(RankEntry entry) {
+        return RankingItem.builder().value(entry.answerCount());
+    }
+
+    private RankingItem.RankingItemBuilder accuracyItem(RankEntry entry) {
+        return RankingItem.builder().value(entry.answerCount()).accuracy(entry.accuracy());
+    }
+
+    private RankingItem.RankingItemBuilder pointsItem(RankEntry entry) {
+        // 简单积分规则：正确题数 * 10
+        return RankingItem.builder().points((int) (entry.correctCount() * 10)).value(entry.correctCount());
+    }
+
+    private int normalizeLimit(Integer limit) {
+        return limit == null || limit <= 0 ? 100 : limit;
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    private static BigDecimal accuracyOf(long correctCount, long answerCount) {
+        return BigDecimal.valueOf(correctCount)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(answerCount), 2, RoundingMode.HALF_UP);
+    }
+
     /**
      * 隐藏真实姓名部分字符（隐私保护）
      */
@@ -203,11 +341,11 @@ public class RankingService {
         if (realName == null || realName.length() <= 1) {
             return realName;
         }
-        
+
         if (realName.length() == 2) {
             return realName.charAt(0) + "*";
         }
-        
+
         // 保留首尾，中间用*代替
         StringBuilder masked = new StringBuilder();
         masked.append(realName.charAt(0));
@@ -215,10 +353,86 @@ public class RankingService {
             masked.append("*");
         }
         masked.append(realName.charAt(realName.length() - 1));
-        
+
         return masked.toString();
     }
-}
 
+    /**
+     * 榜单条目（不可变，更新时整体替换）
+     */
+    private record RankEntry(Long userId, long answerCount, long correctCount, BigDecimal accuracy) {
+    }
+
+    /**
+     * 用户展示信息
+     */
+    private record UserInfo(String username, String realName) {
+    }
+
+    /**
+     * 榜单快照（所有访问需在实例上加锁）
+     */
+    private static class Boards {
 
+        /**
+         * 活跃用户
+         */
+        final Map<Long, UserInfo> users = new HashMap<>();
 
+        /**
+         * 用户答题统计（userId -> [答题数, 正确数]）
+         */
+        final Map<Long, long[]> totals = new HashMap<>();
+
+        /**
+         * 学科答题统计（subjectId -> userId -> [答题数, 正确数]）
+         */
+        final Map<Long, Map<Long, long[]>> subjectTotals = new HashMap<>();
+
+        final Leaderboard<RankEntry> answerCount = new Leaderboard<>(BY_ANSWER_COUNT);
+        final Leaderboard<RankEntry> accuracy = new Leaderboard<>(BY_ACCURACY);
+        final Leaderboard<RankEntry> points = new Leaderboard<>(BY_POINTS);
+        final Map<Long, Leaderboard<RankEntry>> subjects = new HashMap<>();
+
+        synchronized boolean hasUser(Long userId) {
+            return users.containsKey(userId);
+        }
+
+        /**
+         * 刷新用户在总榜中的条目（所有活跃用户都在答题数榜和积分榜，答题满10道进入正确率榜）
+         */
+        void updateUser(Long userId) {
+            if (!users.containsKey(userId)) {
+                return;
+            }
+            long[] total = totals.getOrDefault(userId, new long[2]);
+            answerCount.put(userId, new RankEntry(userId, total[0], total[1], null));
+            points.put(userId, new RankEntry(userId, total[0], total[1], null));
+            if (total[0] >= ACCURACY_MIN_ANSWERS) {
+                accuracy.put(userId, new RankEntry(userId, total[0], total[1], accuracyOf(total[1], total[0])));
+            } else {
+                accuracy.remove(userId);
+            }
+        }
+
+        /**
+         * 刷新用户在学科榜中的条目（答题数大于0才上榜）
+         */
+        void updateSubject(Long subjectId, Long userId) {
+            long[] total = subjectTotals.getOrDefault(subjectId, Map.of()).get(userId);
+            if (!users.containsKey(userId) || total == null || total[0] == 0) {
+                return;
+            }
+            subjects.computeIfAbsent(subjectId, id -> new Leaderboard<>(BY_ANSWER_COUNT))
+                    .put(userId, new RankEntry(userId, total[0], total[1], accuracyOf(total[1], total[0])));
+        }
+
+        void removeUser(Long userId) {
+            users.remove(userId);
+            answerCount.remove(userId);
+            accuracy.remove(userId);
+            points.remove(userId);
+            subjects.values().forEach(board -> board.remove(userId));
+        }
+    }
+}
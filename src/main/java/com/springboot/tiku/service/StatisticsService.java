@@ -3,6 +3,7 @@ package com.springboot.tiku.service;
 import com.springboot.tiku.dto.statistics.*;
 import com.springboot.tiku.entity.*;
 import com.springboot.tiku.repository.*;
+import com.springboot.tiku.service.assembler.StatisticsAssembler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
@@ -32,7 +33,9 @@ public class StatisticsService {
     private final WrongQuestionRepository wrongQuestionRepository;
     private final UserAchievementRepository userAchievementRepository;
     private final DailyCheckInRepository dailyCheckInRepository;
+    private final UserDailyStatRepository userDailyStatRepository;
     private final QuestionRepository questionRepository;
+    private final StatisticsAssembler statisticsAssembler;
     
     /**
      * 获取用户学习统计
@@ -96,83 +99,28 @@ public class StatisticsService {
     }
     
     /**
-     * 获取学科学习统计
+     * 获取学科学习统计（一次分组聚合）
      */
     public List<SubjectStatistics> getSubjectStatistics(Long userId) {
         List<Subject> subjects = subjectRepository.findByStatusOrderBySortOrderAsc(1);
-        
-        return subjects.stream()
-                .map(subject -> {
-                    long answeredCount = answerRecordRepository
-                            .countByUserIdAndQuestionSubjectId(userId, subject.getId());
-                    long correctCount = answerRecordRepository
-                            .countByUserIdAndQuestionSubjectIdAndIsCorrect(userId, subject.getId(), true);
-                    
-                    BigDecimal accuracy = BigDecimal.ZERO;
-                    if (answeredCount > 0) {
-                        accuracy = BigDecimal.valueOf(correctCount)
-                                .multiply(BigDecimal.valueOf(100))
-                                .divide(BigDecimal.valueOf(answeredCount), 2, RoundingMode.HALF_UP);
-                    }
-                    
-                    BigDecimal progress = BigDecimal.ZERO;
-                    if (subject.getQuestionCount() > 0) {
-                        progress = BigDecimal.valueOf(answeredCount)
-                                .multiply(BigDecimal.valueOf(100))
-                                .divide(BigDecimal.valueOf(subject.getQuestionCount()), 2, RoundingMode.HALF_UP);
-                    }
-                    
-                    return SubjectStatistics.builder()
-                            .subjectId(subject.getId())
-                            .subjectName(subject.getName())
-                            .answeredCount(answeredCount)
-                            .correctCount(correctCount)
-                            .accuracy(accuracy)
-                            .totalQuestions(subject.getQuestionCount())
-                            .progress(progress)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        Map<Long, long[]> counts = statisticsAssembler.toCountMap(
+                answerRecordRepository.aggregateByUserIdGroupBySubject(userId));
+        return statisticsAssembler.toSubjectStatistics(subjects, counts);
     }
     
     /**
-     * 获取章节学习统计
+     * 获取章节学习统计（一次分组聚合）
      */
     public List<ChapterStatistics> getChapterStatistics(Long userId, Long subjectId) {
         List<Chapter> chapters = chapterRepository.findBySubjectIdOrderBySortOrderAsc(subjectId);
+        if (chapters.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        return chapters.stream()
-                .map(chapter -> {
-                    long answeredCount = answerRecordRepository
-                            .countByUserIdAndQuestionChapterId(userId, chapter.getId());
-                    long correctCount = answerRecordRepository
-                            .countByUserIdAndQuestionChapterIdAndIsCorrect(userId, chapter.getId(), true);
-                    
-                    BigDecimal accuracy = BigDecimal.ZERO;
-                    if (answeredCount > 0) {
-                        accuracy = BigDecimal.valueOf(correctCount)
-                                .multiply(BigDecimal.valueOf(100))
-                                .divide(BigDecimal.valueOf(answeredCount), 2, RoundingMode.HALF_UP);
-                    }
-                    
-                    // 计算掌握程度（正确率 * 答题完整度）
-                    int masteryLevel = 0;
-                    if (chapter.getQuestionCount() > 0) {
-                        double answerRate = (double) answeredCount / chapter.getQuestionCount();
-                        masteryLevel = (int) (accuracy.doubleValue() * answerRate / 100);
-                    }
-                    
-                    return ChapterStatistics.builder()
-                            .chapterId(chapter.getId())
-                            .chapterName(chapter.getName())
-                            .answeredCount(answeredCount)
-                            .correctCount(correctCount)
-                            .accuracy(accuracy)
-                            .totalQuestions(chapter.getQuestionCount())
-                            .masteryLevel(masteryLevel)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        List<Long> chapterIds = chapters.stream().map(Chapter::getId).collect(Collectors.toList());
+        Map<Long, long[]> counts = statisticsAssembler.toCountMap(
+                answerRecordRepository.aggregateByUserIdGroupByChapter(userId, chapterIds));
+        return statisticsAssembler.toChapterStatistics(chapters, counts);
     }
     
     /**
@@ -185,16 +133,13 @@ public class StatisticsService {
         LocalDate startDate = LocalDate.of(year, month, 1);
         LocalDate endDate = startDate.plusMonths(1).minusDays(1);
         
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
         // 获取该月的打卡记录
         List<DailyCheckIn> checkIns = dailyCheckInRepository
                 .findByUserIdAndCheckDateBetween(userId, startDate, endDate);
         
-        // 获取该月的答题记录
-        List<AnswerRecord> records = answerRecordRepository
-                .findByUserIdAndAnsweredAtBetween(userId, startDateTime, endDateTime);
+        // 获取该月的每日答题汇总
+        List<UserDailyStat> dailyStats = userDailyStatRepository
+                .findByUserIdAndStatDateBetweenOrderByStatDateAsc(userId, startDate, endDate);
         
         // 构建每日学习数据
         Map<String, StudyCalendar.DayStudyData> studyDataMap = new HashMap<>();
@@ -212,23 +157,17 @@ public class StatisticsService {
             studyDataMap.put(dateKey, dayData);
         }
         
-        // 统计每日答题数据
-        Map<LocalDate, List<AnswerRecord>> recordsByDate = records.stream()
-                .collect(Collectors.groupingBy(r -> r.getAnsweredAt().toLocalDate()));
-        
-        for (Map.Entry<LocalDate, List<AnswerRecord>> entry : recordsByDate.entrySet()) {
-            String dateKey = entry.getKey().toString();
-            List<AnswerRecord> dayRecords = entry.getValue();
+        // 填充每日答题数据
+        for (UserDailyStat dailyStat : dailyStats) {
+            String dateKey = dailyStat.getStatDate().toString();
             
-            long answeredCount = dayRecords.size();
-            long correctCount = dayRecords.stream()
-                    .filter(r -> Boolean.TRUE.equals(r.getIsCorrect()))
-                    .count();
+            long answeredCount = dailyStat.getAnswerCount();
+            long correctCount = dailyStat.getCorrectCount();
             int accuracy = answeredCount > 0 ? (int) (correctCount * 100 / answeredCount) : 0;
             
             StudyCalendar.DayStudyData dayData = studyDataMap.getOrDefault(dateKey,
                     StudyCalendar.DayStudyData.builder()
-                            .date(entry.getKey())
+                            .date(dailyStat.getStatDate())
                             .checked(false)
                             .studyMinutes(0L)
                             .build());
@@ -358,28 +297,23 @@ public class StatisticsService {
         List<Integer> accuracyList = new ArrayList<>();
         List<Long> studyMinutes = new ArrayList<>();
         
+        // 一次查询该时间段的每日汇总
+        Map<LocalDate, UserDailyStat> statByDate = userDailyStatRepository
+                .findByUserIdAndStatDateBetweenOrderByStatDateAsc(userId, startDate, today).stream()
+                .collect(Collectors.toMap(UserDailyStat::getStatDate, stat -> stat));
+        
         // 为每一天生成数据
         for (int i = 0; i < days; i++) {
             LocalDate date = startDate.plusDays(i);
             dates.add(date);
             
-            LocalDateTime dayStart = date.atStartOfDay();
-            LocalDateTime dayEnd = date.atTime(23, 59, 59);
-            
-            // 查询该天的答题记录
-            List<AnswerRecord> dayRecords = answerRecordRepository
-                    .findByUserIdAndAnsweredAtBetween(userId, dayStart, dayEnd);
-            
-            long answerCount = dayRecords.size();
+            UserDailyStat dailyStat = statByDate.get(date);
+            long answerCount = dailyStat != null ? dailyStat.getAnswerCount() : 0L;
             answerCounts.add(answerCount);
             
             // 计算正确率
             if (answerCount > 0) {
-                long correctCount = dayRecords.stream()
-                        .filter(r -> Boolean.TRUE.equals(r.getIsCorrect()))
-                        .count();
-                int accuracy = (int) (correctCount * 100 / answerCount);
-                accuracyList.add(accuracy);
+                accuracyList.add((int) (dailyStat.getCorrectCount() * 100 / answerCount));
             } else {
                 accuracyList.add(0);
             }
@@ -4,11 +4,11 @@ import com.springboot.tiku.common.ResultCode;
 import com.springboot.tiku.dto.subject.SubjectDTO;
 import com.springboot.tiku.dto.subject.SubjectRequest;
 import com.springboot.tiku.entity.Subject;
-import com.springboot.tiku.entity.User;
 import com.springboot.tiku.exception.BusinessException;
 import com.springboot.tiku.repository.AnswerRecordRepository;
 import com.springboot.tiku.repository.ChapterRepository;
 import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.security.JwtPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -19,7 +19,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -108,8 +110,20 @@ public class SubjectService {
         List<Subject> subjects = subjectRepository.findByStatusOrderBySortOrderAsc(1);
         Long currentUserId = getCurrentUserId();
         
+        // 章节数、已答题数各一次分组统计
+        Map<Long, Long> chapterCounts = new HashMap<>();
+        for (Object[] row : chapterRepository.countGroupBySubjectId()) {
+            chapterCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        Map<Long, Long> answeredCounts = new HashMap<>();
+        if (currentUserId != null) {
+            for (Object[] row : answerRecordRepository.aggregateByUserIdGroupBySubject(currentUserId)) {
+                answeredCounts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        
         return subjects.stream()
-                .map(subject -> convertToDTOWithStats(subject, currentUserId))
+                .map(subject -> convertToDTOWithStats(subject, chapterCounts, answeredCounts))
                 .collect(Collectors.toList());
     }
     
@@ -145,21 +159,15 @@ public class SubjectService {
     /**
      * 转换为DTO（带统计信息）
      */
-    private SubjectDTO convertToDTOWithStats(Subject subject, Long userId) {
+    private SubjectDTO convertToDTOWithStats(Subject subject, Map<Long, Long> chapterCounts, Map<Long, Long> answeredCounts) {
         SubjectDTO dto = new SubjectDTO();
         BeanUtils.copyProperties(subject, dto);
         
         // 统计章节数
-        long chapterCount = chapterRepository.findBySubjectIdOrderBySortOrderAsc(subject.getId()).size();
-        dto.setChapterCount((int) chapterCount);
+        dto.setChapterCount(chapterCounts.getOrDefault(subject.getId(), 0L).intValue());
         
-        // 统计用户已答题数（如果用户已登录）
-        if (userId != null) {
-            long answeredCount = answerRecordRepository.countByUserIdAndQuestionSubjectId(userId, subject.getId());
-            dto.setAnsweredCount((int) answeredCount);
-        } else {
-            dto.setAnsweredCount(0);
-        }
+        // 统计用户已答题数（未登录为0）
+        dto.setAnsweredCount(answeredCounts.getOrDefault(subject.getId(), 0L).intValue());
         
         return dto;
     }
@@ -173,8 +181,8 @@ public class SubjectService {
             if (authentication != null && authentication.isAuthenticated() 
                     && !"anonymousUser".equals(authentication.getPrincipal())) {
                 Object principal = authentication.getPrincipal();
-                if (principal instanceof User) {
-                    return ((User) principal).getId();
+                if (principal instanceof JwtPrincipal jwtPrincipal) {
+                    return jwtPrincipal.getUserId();
                 }
             }
         } catch (Exception e) {
@@ -8,6 +8,10 @@ import com.springboot.tiku.repository.AnswerRecordRepository;
 import com.springboot.tiku.repository.QuestionRepository;
 import com.springboot.tiku.repository.SystemConfigRepository;
 import com.springboot.tiku.repository.UserRepository;
+import com.springboot.tiku.service.config.SystemConfigCache;
+import com.springboot.tiku.service.counter.DailyStatAggregator;
+import com.springboot.tiku.service.mastery.MasteryStore;
+import com.springboot.tiku.service.search.QuestionSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -15,7 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -26,18 +32,43 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SystemConfigService {
     
+    private static final List<String> DEFAULT_PASSWORD_COMPLEXITY = List.of("数字", "小写字母");
+    
     private final SystemConfigRepository systemConfigRepository;
     private final UserRepository userRepository;
     private final QuestionRepository questionRepository;
     private final AnswerRecordRepository answerRecordRepository;
+    private final DailyStatAggregator dailyStatAggregator;
+    private final MasteryStore masteryStore;
+    private final QuestionSearchIndex questionSearchIndex;
+    private final SystemConfigCache systemConfigCache;
     
     /**
-     * 获取配置值
+     * 获取配置值（读取内存快照）
      */
     public String getConfig(String key, String defaultValue) {
-        return systemConfigRepository.findByConfigKey(key)
-                .map(SystemConfig::getConfigValue)
-                .orElse(defaultValue);
+        return systemConfigCache.getString(key, defaultValue);
+    }
+    
+    /**
+     * 获取整数配置
+     */
+    public int getIntConfig(String key, int defaultValue) {
+        return systemConfigCache.getInt(key, defaultValue);
+    }
+    
+    /**
+     * 获取布尔配置
+     */
+    public boolean getBooleanConfig(String key, boolean defaultValue) {
+        return systemConfigCache.getBoolean(key, defaultValue);
+    }
+    
+    /**
+     * 获取字符串列表配置（JSON数组）
+     */
+    public List<String> getListConfig(String key, List<String> defaultValue) {
+        return systemConfigCache.getStringList(key, defaultValue);
     }
     
     /**
@@ -51,6 +82,7 @@ public class SystemConfigService {
         config.setConfigValue(value);
         config.setCategory(category);
         systemConfigRepository.save(config);
+        systemConfigCache.put(key, value);
     }
     
     /**
@@ -63,22 +95,22 @@ public class SystemConfigService {
         SystemSettingsDTO.BasicSettings basic = new SystemSettingsDTO.BasicSettings();
         basic.setSystemName(getConfig("system.name", "题库系统"));
         basic.setSystemDesc(getConfig("system.desc", "一个功能完善的在线刷题系统"));
-        basic.setAllowRegister(Boolean.parseBoolean(getConfig("system.allowRegister", "true")));
+        basic.setAllowRegister(getBooleanConfig("system.allowRegister", true));
         basic.setDefaultRole(getConfig("system.defaultRole", "STUDENT"));
         settings.setBasic(basic);
         
         // 答题设置
         SystemSettingsDTO.PracticeSettings practice = new SystemSettingsDTO.PracticeSettings();
-        practice.setDefaultQuestionCount(Integer.parseInt(getConfig("practice.defaultQuestionCount", "20")));
-        practice.setExamDuration(Integer.parseInt(getConfig("practice.examDuration", "120")));
-        practice.setTimedChallengeDuration(Integer.parseInt(getConfig("practice.timedChallengeDuration", "30")));
-        practice.setAutoGrading(Boolean.parseBoolean(getConfig("practice.autoGrading", "true")));
-        practice.setShowExplanation(Boolean.parseBoolean(getConfig("practice.showExplanation", "true")));
+        practice.setDefaultQuestionCount(getIntConfig("practice.defaultQuestionCount", 20));
+        practice.setExamDuration(getIntConfig("practice.examDuration", 120));
+        practice.setTimedChallengeDuration(getIntConfig("practice.timedChallengeDuration", 30));
+        practice.setAutoGrading(getBooleanConfig("practice.autoGrading", true));
+        practice.setShowExplanation(getBooleanConfig("practice.showExplanation", true));
         settings.setPractice(practice);
         
         // AI设置
         SystemSettingsDTO.AISettings ai = new SystemSettingsDTO.AISettings();
-        ai.setEnableAI(Boolean.parseBoolean(getConfig("ai.enable", "false")));
+        ai.setEnableAI(getBooleanConfig("ai.enable", false));
         ai.setApiKey(getConfig("ai.apiKey", ""));
         ai.setApiUrl(getConfig("ai.apiUrl", "https://api.siliconflow.cn/v1/chat/completions"));
         ai.setModelName(getConfig("ai.modelName", "qwen/qwen-plus"));
@@ -86,11 +118,11 @@ public class SystemConfigService {
         
         // 安全设置
         SystemSettingsDTO.SecuritySettings security = new SystemSettingsDTO.SecuritySettings();
-        security.setMinPasswordLength(Integer.parseInt(getConfig("security.minPasswordLength", "6")));
-        String complexityJson = getConfig("security.passwordComplexity", "[\"数字\",\"小写字母\"]");
-        security.setPasswordComplexity(JSON.parseArray(complexityJson, String.class));
-        security.setSessionTimeout(Integer.parseInt(getConfig("security.sessionTimeout", "120")));
-        security.setMaxLoginAttempts(Integer.parseInt(getConfig("security.maxLoginAttempts", "5")));
+        security.setMinPasswordLength(getIntConfig("security.minPasswordLength", 6));
+        security.setPasswordComplexity(new ArrayList<>(
+                getListConfig("security.passwordComplexity", DEFAULT_PASSWORD_COMPLEXITY)));
+        security.setSessionTimeout(getIntConfig("security.sessionTimeout", 120));
+        security.setMaxLoginAttempts(getIntConfig("security.maxLoginAttempts", 5));
         settings.setSecurity(security);
         
         return settings;
@@ -191,6 +223,8 @@ public class SystemConfigService {
     public Map<String, Object> clearAnswerRecords() {
         long count = answerRecordRepository.count();
         answerRecordRepository.deleteAll();
+        dailyStatAggregator.clear();
+        masteryStore.clear();
         
         Map<String, Object> result = new HashMap<>();
         result.put("deletedCount", count);
@@ -213,15 +247,12 @@ public class SystemConfigService {
     }
     
     /**
-     * 重建索引（模拟）
+     * 重建题目全文索引
      */
     public Map<String, Object> rebuildIndex() {
-        Map<String, Object> result = new HashMap<>();
-        result.put("rebuiltTables", new String[]{"question", "answer_record", "user"});
+        Map<String, Object> result = questionSearchIndex.rebuild();
         result.put("rebuildTime", java.time.LocalDateTime.now());
         result.put("success", true);
-        
-        log.info("重建数据库索引");
         return result;
     }
 }
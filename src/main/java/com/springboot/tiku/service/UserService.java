@@ -26,6 +26,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final StudyPlanRepository studyPlanRepository;
+    private final RankingService rankingService;
 
     /**
      * 获取用户个人资料
@@ -69,6 +70,7 @@ public class UserService {
         }
 
         userRepository.save(user);
+        rankingService.refreshUser(user);
         log.info("用户 {} 更新了个人资料", userId);
         
         return UserProfileResponse.fromEntity(user);
@@ -3,27 +3,28 @@ package com.springboot.tiku.service;
 import com.springboot.tiku.dto.wrong.WrongQuestionDTO;
 import com.springboot.tiku.dto.wrong.WrongQuestionStatsDTO;
 import com.springboot.tiku.entity.AnswerRecord;
-import com.springboot.tiku.entity.Chapter;
 import com.springboot.tiku.entity.Question;
-import com.springboot.tiku.entity.Subject;
 import com.springboot.tiku.entity.WrongQuestion;
 import com.springboot.tiku.repository.AnswerRecordRepository;
-import com.springboot.tiku.repository.ChapterRepository;
-import com.springboot.tiku.repository.QuestionRepository;
-import com.springboot.tiku.repository.SubjectRepository;
 import com.springboot.tiku.repository.WrongQuestionRepository;
-import jakarta.persistence.criteria.Predicate;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
+import com.springboot.tiku.service.grading.ReviewSchedule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -34,11 +35,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WrongQuestionService {
     
+    /**
+     * 每道错题展示的最近错误记录数
+     */
+    private static final int RECENT_WRONG_RECORDS = 5;
+    
     private final WrongQuestionRepository wrongQuestionRepository;
-    private final QuestionRepository questionRepository;
-    private final SubjectRepository subjectRepository;
-    private final ChapterRepository chapterRepository;
     private final AnswerRecordRepository answerRecordRepository;
+    private final QuestionAssembler questionAssembler;
     
     /**
      * 获取用户错题列表（支持筛选）
@@ -51,32 +55,18 @@ public class WrongQuestionService {
             String status,
             Pageable pageable
     ) {
-        // 构建查询条件
-        Specification<WrongQuestion> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            
-            // 用户ID条件
-            predicates.add(cb.equal(root.get("userId"), userId));
-            
-            // 未移除
-            predicates.add(cb.equal(root.get("removed"), false));
-            
-            // 状态筛选
-            if (status != null && !status.isEmpty()) {
-                predicates.add(cb.equal(root.get("status"), WrongQuestion.WrongStatus.valueOf(status)));
-            }
-            
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        
-        Page<WrongQuestion> wrongQuestionPage = wrongQuestionRepository.findAll(spec, pageable);
-        
-        List<WrongQuestionDTO> dtos = wrongQuestionPage.getContent().stream()
-                .map(wq -> convertToDTO(wq, subjectId, chapterId, type))
-                .filter(dto -> dto != null) // 过滤掉null（不符合筛选条件的）
-                .collect(Collectors.toList());
-        
-        return new PageImpl<>(dtos, pageable, dtos.size());
+        // 筛选、分页均在数据库完成（联表题目按学科/章节/题型过滤）
+        Page<WrongQuestion> wrongQuestionPage = wrongQuestionRepository.findPageByFilters(
+                userId,
+                status != null && !status.isEmpty() ? WrongQuestion.WrongStatus.valueOf(status) : null,
+                subjectId,
+                chapterId,
+                type != null && !type.isEmpty() ? Question.QuestionType.valueOf(type) : null,
+                pageable);
+        
+        List<WrongQuestionDTO> dtos = convertToDTOs(wrongQuestionPage.getContent());
+        
+        return new PageImpl<>(dtos, pageable, wrongQuestionPage.getTotalElements());
     }
     
     /**
@@ -87,10 +77,7 @@ public class WrongQuestionService {
                 .findByUserIdAndRemovedOrderByCreatedAtDesc(userId, false, Pageable.unpaged())
                 .getContent();
         
-        return wrongQuestions.stream()
-                .map(wq -> convertToDTO(wq, null, null, null))
-                .filter(dto -> dto != null)
-                .collect(Collectors.toList());
+        return convertToDTOs(wrongQuestions);
     }
     
     /**
@@ -101,9 +88,8 @@ public class WrongQuestionService {
         long totalWrong = wrongQuestionRepository.countByUserIdAndRemoved(userId, false);
         
         // 已掌握
-        long mastered = wrongQuestionRepository.findByUserIdAndStatusAndRemovedOrderByWrongCountDesc(
-                userId, WrongQuestion.WrongStatus.MASTERED, false
-        ).size();
+        long mastered = wrongQuestionRepository.countByUserIdAndStatusAndRemoved(
+                userId, WrongQuestion.WrongStatus.MASTERED, false);
         
         // 待复习 = 总数 - 已掌握
         long needReview = totalWrong - mastered;
@@ -118,6 +104,7 @@ public class WrongQuestionService {
     public void markAsMastered(Long userId, Long questionId) {
         wrongQuestionRepository.findByUserIdAndQuestionId(userId, questionId).ifPresent(wq -> {
             wq.setStatus(WrongQuestion.WrongStatus.MASTERED);
+            ReviewSchedule.onCorrect(wq, LocalDateTime.now());
             wrongQuestionRepository.save(wq);
             log.info("用户{}标记题目{}为已掌握", userId, questionId);
         });
@@ -143,22 +130,86 @@ public class WrongQuestionService {
         questionIds.forEach(questionId -> removeFromWrongBook(userId, questionId));
     }
     
+    /**
+     * 批量转换WrongQuestion为DTO（题目、学科、章节、最后答题记录、最近错误记录批量加载，语句数与条数无关）
+     */
+    private List<WrongQuestionDTO> convertToDTOs(List<WrongQuestion> wrongQuestions) {
+        if (wrongQuestions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Long userId = wrongQuestions.get(0).getUserId();
+        List<Long> questionIds = wrongQuestions.stream()
+                .map(WrongQuestion::getQuestionId)
+                .collect(Collectors.toList());
+        
+        Map<Long, Question> questionMap = questionAssembler.loadQuestions(questionIds);
+        Map<Long, String> subjectNames = questionAssembler.subjectNames(questionMap.values().stream()
+                .map(Question::getSubjectId)
+                .collect(Collectors.toSet()));
+        Map<Long, String> chapterNames = questionAssembler.chapterNames(questionMap.values().stream()
+                .map(Question::getChapterId)
+                .collect(Collectors.toSet()));
+        
+        List<Long> lastRecordIds = wrongQuestions.stream()
+                .map(WrongQuestion::getLastAnswerRecordId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Long, AnswerRecord> lastRecords = lastRecordIds.isEmpty()
+                ? new HashMap<>()
+                : answerRecordRepository.findAllById(lastRecordIds).stream()
+                        .collect(Collectors.toMap(AnswerRecord::getId, Function.identity()));
+        
+        Map<Long, List<WrongQuestionDTO.WrongRecord>> wrongRecords = loadRecentWrongRecords(userId, questionIds);
+        
+        return wrongQuestions.stream()
+                .map(wq -> convertToDTO(wq, questionMap, subjectNames, chapterNames, lastRecords, wrongRecords))
+                .filter(Objects::nonNull) // 题目已删除的跳过
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 批量加载每道题最近N次错误作答（题目ID -> 错误记录）
+     */
+    private Map<Long, List<WrongQuestionDTO.WrongRecord>> loadRecentWrongRecords(Long userId, List<Long> questionIds) {
+        Map<Long, List<WrongQuestionDTO.WrongRecord>> result = new HashMap<>();
+        for (Object[] row : answerRecordRepository.findRecentWrongAttempts(userId, questionIds, RECENT_WRONG_RECORDS)) {
+            WrongQuestionDTO.WrongRecord record = new WrongQuestionDTO.WrongRecord();
+            record.setWrongAt(toLocalDateTime(row[1]));
+            record.setUserAnswer((String) row[2]);
+            result.computeIfAbsent(((Number) row[0]).longValue(), id -> new ArrayList<>()).add(record);
+        }
+        return result;
+    }
+    
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+    
     /**
      * 转换WrongQuestion为DTO
      */
-    private WrongQuestionDTO convertToDTO(WrongQuestion wrongQuestion, Long subjectId, Long chapterId, String type) {
+    private WrongQuestionDTO convertToDTO(WrongQuestion wrongQuestion,
+                                          Map<Long, Question> questionMap,
+                                          Map<Long, String> subjectNames,
+                                          Map<Long, String> chapterNames,
+                                          Map<Long, AnswerRecord> lastRecords,
+                                          Map<Long, List<WrongQuestionDTO.WrongRecord>> wrongRecords) {
+        // 获取题目信息
+        Question question = questionMap.get(wrongQuestion.getQuestionId());
+        if (question == null) {
+            return null; // 题目不存在，跳过
+        }
+        
         WrongQuestionDTO dto = new WrongQuestionDTO();
         dto.setWrongQuestionId(wrongQuestion.getId());
         dto.setQuestionId(wrongQuestion.getQuestionId());
         dto.setWrongCount(wrongQuestion.getWrongCount());
         dto.setStatus(wrongQuestion.getStatus().name());
         dto.setLastWrongAt(wrongQuestion.getUpdatedAt());
-        
-        // 获取题目信息
-        Question question = questionRepository.findById(wrongQuestion.getQuestionId()).orElse(null);
-        if (question == null) {
-            return null; // 题目不存在，跳过
-        }
+        dto.setDueAt(wrongQuestion.getDueAt());
         
         dto.setType(question.getType() != null ? question.getType().name() : null);
         dto.setDifficulty(question.getDifficulty() != null ? question.getDifficulty().name() : null);
@@ -168,76 +219,27 @@ public class WrongQuestionService {
         dto.setCorrectAnswer(question.getAnswer());
         dto.setExplanation(question.getAnswerAnalysis());
         
-        // 学科筛选
         if (question.getSubjectId() != null) {
             dto.setSubjectId(question.getSubjectId());
-            if (subjectId != null && !subjectId.equals(question.getSubjectId())) {
-                return null; // 不符合学科筛选
-            }
-            
-            Subject subject = subjectRepository.findById(question.getSubjectId()).orElse(null);
-            if (subject != null) {
-                dto.setSubjectName(subject.getName());
-            }
+            dto.setSubjectName(subjectNames.get(question.getSubjectId()));
         }
         
-        // 章节筛选
         if (question.getChapterId() != null) {
             dto.setChapterId(question.getChapterId());
-            if (chapterId != null && !chapterId.equals(question.getChapterId())) {
-                return null; // 不符合章节筛选
-            }
-            
-            Chapter chapter = chapterRepository.findById(question.getChapterId()).orElse(null);
-            if (chapter != null) {
-                dto.setChapterName(chapter.getName());
-            }
-        }
-        
-        // 题型筛选
-        if (type != null && !type.isEmpty()) {
-            if (dto.getType() == null || !dto.getType().equals(type)) {
-                return null; // 不符合题型筛选
-            }
+            dto.setChapterName(chapterNames.get(question.getChapterId()));
         }
         
         // 获取最后一次错误的答题记录
         if (wrongQuestion.getLastAnswerRecordId() != null) {
-            answerRecordRepository.findById(wrongQuestion.getLastAnswerRecordId()).ifPresent(ar -> {
-                dto.setUserAnswer(ar.getUserAnswer());
-            });
+            AnswerRecord lastRecord = lastRecords.get(wrongQuestion.getLastAnswerRecordId());
+            if (lastRecord != null) {
+                dto.setUserAnswer(lastRecord.getUserAnswer());
+            }
         }
         
-        // 获取所有错误记录（最近5次）
-        List<AnswerRecord> wrongRecords = answerRecordRepository
-                .findAll((root, query, cb) -> {
-                    query.orderBy(cb.desc(root.get("answeredAt")));
-                    return cb.and(
-                            cb.equal(root.get("userId"), wrongQuestion.getUserId()),
-                            cb.equal(root.get("questionId"), wrongQuestion.getQuestionId()),
-                            cb.equal(root.get("isCorrect"), false)
-                    );
-                })
-                .stream()
-                .limit(5)
-                .collect(Collectors.toList());
-        
-        List<WrongQuestionDTO.WrongRecord> records = wrongRecords.stream()
-                .map(ar -> {
-                    WrongQuestionDTO.WrongRecord record = new WrongQuestionDTO.WrongRecord();
-                    record.setWrongAt(ar.getAnsweredAt());
-                    record.setUserAnswer(ar.getUserAnswer());
-                    return record;
-                })
-                .collect(Collectors.toList());
-        dto.setWrongRecords(records);
+        // 最近的错误记录
+        dto.setWrongRecords(wrongRecords.getOrDefault(wrongQuestion.getQuestionId(), new ArrayList<>()));
         
         return dto;
     }
 }
-
-
-
-
-
-
@@ -0,0 +1,22 @@
+package com.springboot.tiku.service.ai;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI服务健康状态（/actuator/health 中的 aiBackend）
+ * 熔断打开只影响主观题判题，不代表应用不可用，因此始终报告 UP，断路器状态和拒绝次数放在详情中
+ */
+@Component
+@RequiredArgsConstructor
+public class AiBackendHealthIndicator implements HealthIndicator {
+
+    private final AiResilienceGuard aiResilienceGuard;
+
+    @Override
+    public Health health() {
+        return Health.up().withDetails(aiResilienceGuard.getStats()).build();
+    }
+}
@@ -0,0 +1,218 @@
+package com.springboot.tiku.service.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AI调用保护：断路器 + 并发隔离 + 重试
+ * 1. 每次尝试先向断路器申请许可，熔断打开时立即以 {@link AiUnavailableException} 失败，不再等待超时；
+ * 2. 同时进行的调用数受信号量限制，已满时立即拒绝，不排队占用线程；
+ * 3. 只有可重试的错误（连接失败、超时、429 和 5xx）按带抖动的指数退避重试，并计入断路器失败率；
+ *    其他错误（如 4xx、响应格式错误）直接返回，不影响熔断。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiResilienceGuard {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 失败后的重试次数
+     */
+    @Value("${ai.grading.retry-times:2}")
+    private int retryTimes;
+
+    /**
+     * 首次重试的退避时间（毫秒）
+     */
+    @Value("${ai.resilience.retry.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    /**
+     * 最大退避时间（毫秒）
+     */
+    @Value("${ai.resilience.retry.max-backoff-ms:5000}")
+    private long maxBackoffMs;
+
+    /**
+     * 统计失败率的调用窗口大小
+     */
+    @Value("${ai.resilience.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    /**
+     * 开始计算失败率的最小调用数
+     */
+    @Value("${ai.resilience.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    /**
+     * 熔断的失败率阈值（0-1）
+     */
+    @Value("${ai.resilience.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    /**
+     * 熔断打开后等待多久进入半开（毫秒）
+     */
+    @Value("${ai.resilience.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    /**
+     * 半开状态放行的试探调用数
+     */
+    @Value("${ai.resilience.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    /**
+     * 最大并发调用数
+     */
+    @Value("${ai.resilience.bulkhead.max-concurrent:20}")
+    private int maxConcurrent;
+
+    private CircuitBreaker circuitBreaker;
+    private Semaphore bulkhead;
+    private Retry retry;
+
+    private Counter circuitRejected;
+    private Counter bulkheadRejected;
+    private Counter retries;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDurationMs, halfOpenCalls);
+        bulkhead = new Semaphore(maxConcurrent);
+
+        circuitRejected = rejected("circuit_open");
+        bulkheadRejected = rejected("bulkhead_full");
+        retries = Counter.builder("ai.calls.retries")
+                .description("AI调用重试次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.circuit.state", this, guard -> stateValue(guard.circuitBreaker.getState()))
+                .description("AI断路器状态：0关闭，1半开，2打开")
+                .register(meterRegistry);
+        Gauge.builder("ai.circuit.failure.rate", this, guard -> guard.circuitBreaker.failureRate())
+                .description("AI断路器窗口内失败率")
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("AI调用剩余并发名额")
+                .register(meterRegistry);
+
+        retry = Retry.backoff(retryTimes, Duration.ofMillis(initialBackoffMs))
+                .maxBackoff(Duration.ofMillis(maxBackoffMs))
+                .jitter(0.5)
+                .filter(AiResilienceGuard::isRetryable)
+                .doBeforeRetry(signal -> {
+                    retries.increment();
+                    log.warn("AI调用失败，第{}次重试：{}", signal.totalRetries() + 1, signal.failure().getMessage());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * 在保护下执行调用（每次重试都会重新订阅 call）
+     */
+    public <T> Mono<T> execute(Mono<T> call) {
+        return Mono.defer(() -> attempt(call)).retryWhen(retry);
+    }
+
+    private <T> Mono<T> attempt(Mono<T> call) {
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            circuitRejected.increment();
+            return Mono.error(new AiUnavailableException(AiUnavailableException.Reason.CIRCUIT_OPEN, "AI服务熔断中，请稍后重试"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release(permit);
+            bulkheadRejected.increment();
+            return Mono.error(new AiUnavailableException(AiUnavailableException.Reason.BULKHEAD_FULL, "AI服务并发已满，请稍后重试"));
+        }
+        return call
+                .doOnSuccess(value -> onResult(permit, false))
+                .doOnError(e -> {
+                    // 不可重试的错误（4xx、解析失败）不反映服务健康，半开时也不能算作试探成功
+                    if (isRetryable(e)) {
+                        onResult(permit, true);
+                    } else {
+                        circuitBreaker.release(permit);
+                    }
+                })
+                .doOnCancel(() -> circuitBreaker.release(permit))
+                .doFinally(signal -> bulkhead.release());
+    }
+
+    private void onResult(CircuitBreaker.Permit permit, boolean failure) {
+        CircuitBreaker.State before = circuitBreaker.getState();
+        circuitBreaker.onResult(permit, failure);
+        CircuitBreaker.State after = circuitBreaker.getState();
+        if (before != after) {
+            log.warn("AI断路器状态变化：{} -> {}，失败率={}", before, after, String.format("%.2f", circuitBreaker.failureRate()));
+        }
+    }
+
+    /**
+     * 是否为可重试的错误（连接失败、超时、429、5xx）
+     */
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return e instanceof WebClientRequestException
+                || e instanceof TimeoutException
+                || e instanceof IOException;
+    }
+
+    /**
+     * 获取保护状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuitState", circuitBreaker.getState().name());
+        stats.put("failureRate", circuitBreaker.failureRate());
+        stats.put("recordedCalls", circuitBreaker.getRecordedCalls());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("availableConcurrent", bulkhead.availablePermits());
+        stats.put("circuitRejected", (long) circuitRejected.count());
+        stats.put("bulkheadRejected", (long) bulkheadRejected.count());
+        stats.put("retries", (long) retries.count());
+        return stats;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private static int stateValue(CircuitBreaker.State state) {
+        return switch (state) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> 2;
+        };
+    }
+
+    private Counter rejected(String reason) {
+        return Counter.builder("ai.calls.rejected")
+                .description("被保护机制拒绝的AI调用数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
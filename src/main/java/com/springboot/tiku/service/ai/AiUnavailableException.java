@@ -0,0 +1,27 @@
+package com.springboot.tiku.service.ai;
+
+/**
+ * AI服务暂不可用（熔断打开或并发已满），调用未发出
+ * 判题时遇到此异常不应转人工复核，而是保持待判题状态，稍后重新判题
+ */
+public class AiUnavailableException extends RuntimeException {
+
+    private final Reason reason;
+
+    public AiUnavailableException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * 拒绝原因
+     */
+    public enum Reason {
+        CIRCUIT_OPEN,   // 熔断打开
+        BULKHEAD_FULL   // 并发已满
+    }
+}
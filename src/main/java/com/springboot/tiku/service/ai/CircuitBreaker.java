@@ -0,0 +1,147 @@
+package com.springboot.tiku.service.ai;
+
+/**
+ * 按失败率熔断的断路器（基于最近 N 次调用的计数滑动窗口）
+ * 1. 关闭：窗口内调用数达到最小值且失败率达到阈值时打开；
+ * 2. 打开：拒绝所有调用，等待时间到后转为半开；
+ * 3. 半开：只放行少量试探调用，全部成功则关闭，任一失败则重新打开。
+ * 每次状态变化后纪元加一，状态变化前发出的调用结果不再计入。
+ * 与服务健康无关的失败（4xx、响应解析失败）通过 {@link #release} 归还许可，既不算失败也不算成功。
+ */
+public class CircuitBreaker {
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long epoch;
+    private long openedAt;
+    private int trialsInFlight;
+    private int trialSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMillis, int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationMillis * 1_000_000L;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    /**
+     * 申请调用许可，被拒绝时返回null
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return switch (state) {
+            case CLOSED -> new Permit(epoch);
+            case HALF_OPEN -> {
+                if (trialsInFlight >= halfOpenCalls) {
+                    yield null;
+                }
+                trialsInFlight++;
+                yield new Permit(epoch);
+            }
+            case OPEN -> null;
+        };
+    }
+
+    /**
+     * 登记调用结果
+     */
+    public synchronized void onResult(Permit permit, boolean failure) {
+        if (permit.epoch() != epoch) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            trialsInFlight--;
+            if (failure) {
+                transitionTo(State.OPEN);
+            } else if (++trialSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+
+        if (recorded == windowSize && outcomes[position]) {
+            failures--;
+        }
+        outcomes[position] = failure;
+        position = (position + 1) % windowSize;
+        recorded = Math.min(recorded + 1, windowSize);
+        if (failure) {
+            failures++;
+        }
+        if (recorded >= minimumCalls && failureRate() >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 归还不计入结果的许可（调用被取消、未发出，或失败与服务健康无关）
+     */
+    public synchronized void release(Permit permit) {
+        if (permit.epoch() == epoch && state == State.HALF_OPEN) {
+            trialsInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * 当前窗口的失败率（0-1）
+     */
+    public synchronized double failureRate() {
+        return recorded > 0 ? (double) failures / recorded : 0.0;
+    }
+
+    public synchronized int getRecordedCalls() {
+        return recorded;
+    }
+
+    private void transitionTo(State target) {
+        state = target;
+        epoch++;
+        trialsInFlight = 0;
+        trialSuccesses = 0;
+        if (target == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (target == State.CLOSED) {
+            position = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+
+    /**
+     * 调用许可（记录发放时的纪元）
+     */
+    public record Permit(long epoch) {
+    }
+
+    /**
+     * 断路器状态
+     */
+    public enum State {
+        CLOSED,     // 关闭（正常放行）
+        OPEN,       // 打开（拒绝调用）
+        HALF_OPEN   // 半开（少量试探）
+    }
+}
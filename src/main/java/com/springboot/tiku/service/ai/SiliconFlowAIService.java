@@ -1,23 +1,27 @@
 package com.springboot.tiku.service.ai;
 
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONObject;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.springboot.tiku.service.SystemConfigService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 硅基流动AI服务
+ * 请求通过 AI 专用连接池（见 AiHttpClientConfig）发送，请求体直接编码为 JSON，响应体按数据块流式解码，
+ * 不生成中间字符串；{@link #chatAsync} 返回 Mono，调用方可以并发发起多个请求而不必每个请求占用一个线程。
+ * 调用经过 {@link AiResilienceGuard} 的熔断、并发隔离和重试，被拒绝时抛出 {@link AiUnavailableException}。
  */
 @Slf4j
 @Service
@@ -25,6 +29,9 @@ public class SiliconFlowAIService {
     
     private final SystemConfigService systemConfigService;
     private final WebClient webClient;
+    private final AiResilienceGuard resilienceGuard;
+    private final Counter promptTokens;
+    private final Counter completionTokens;
     
     @Value("${ai.siliconflow.api-key:}")
     private String configApiKey;
@@ -44,11 +51,15 @@ public class SiliconFlowAIService {
     @Value("${ai.siliconflow.timeout:30000}")
     private Integer timeout;
     
-    public SiliconFlowAIService(SystemConfigService systemConfigService) {
+    public SiliconFlowAIService(SystemConfigService systemConfigService,
+                                @Qualifier("aiWebClient") WebClient webClient,
+                                AiResilienceGuard resilienceGuard,
+                                MeterRegistry meterRegistry) {
         this.systemConfigService = systemConfigService;
-        this.webClient = WebClient.builder()
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+        this.webClient = webClient;
+        this.resilienceGuard = resilienceGuard;
+        this.promptTokens = tokenCounter(meterRegistry, "prompt");
+        this.completionTokens = tokenCounter(meterRegistry, "completion");
     }
     
     /**
@@ -102,64 +113,146 @@ public class SiliconFlowAIService {
      * @return AI响应
      */
     public String chat(List<Map<String, String>> messages, String model, Double temperature, Integer maxTokens) {
-        try {
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", temperature);
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("stream", false);
-            
+        return chatAsync(messages, model, temperature, maxTokens).block();
+    }
+    
+    /**
+     * 简化的单消息调用
+     * @param systemPrompt 系统提示词
+     * @param userMessage 用户消息
+     * @return AI响应
+     */
+    public String chat(String systemPrompt, String userMessage) {
+        return chat(buildMessages(systemPrompt, userMessage));
+    }
+    
+    /**
+     * 异步调用硅基流动AI API
+     * @param messages 消息列表
+     * @return AI响应
+     */
+    public Mono<String> chatAsync(List<Map<String, String>> messages) {
+        return chatAsync(messages, getDefaultModel(), temperature, maxTokens);
+    }
+    
+    /**
+     * 异步的单消息调用
+     * @param systemPrompt 系统提示词
+     * @param userMessage 用户消息
+     * @return AI响应
+     */
+    public Mono<String> chatAsync(String systemPrompt, String userMessage) {
+        return chatAsync(buildMessages(systemPrompt, userMessage));
+    }
+    
+    /**
+     * 异步的单消息调用（自定义最大token数）
+     * @param systemPrompt 系统提示词
+     * @param userMessage 用户消息
+     * @param maxTokens 最大token数
+     * @return AI响应
+     */
+    public Mono<String> chatAsync(String systemPrompt, String userMessage, Integer maxTokens) {
+        return chatAsync(buildMessages(systemPrompt, userMessage), getDefaultModel(), temperature, maxTokens);
+    }
+    
+    /**
+     * 异步调用硅基流动AI API（自定义参数）
+     * 订阅时才发起请求；熔断或并发已满时以 AiUnavailableException 结束，其他失败以 RuntimeException 结束
+     * @param messages 消息列表
+     * @param model 模型名称
+     * @param temperature 温度参数
+     * @param maxTokens 最大token数
+     * @return AI响应
+     */
+    public Mono<String> chatAsync(List<Map<String, String>> messages, String model, Double temperature, Integer maxTokens) {
+        return Mono.defer(() -> {
             String actualApiKey = getApiKey();
             String actualBaseUrl = getBaseUrl();
             
-            log.debug("调用硅基流动API：model={}, baseUrl={}, messages={}", model, actualBaseUrl, JSON.toJSONString(messages));
-            
             // 验证API密钥
             if (actualApiKey == null || actualApiKey.trim().isEmpty()) {
-                throw new RuntimeException("AI API密钥未配置，请在系统设置中配置AI密钥");
+                return Mono.error(new RuntimeException("AI API密钥未配置，请在系统设置中配置AI密钥"));
+            }
+            
+            if (log.isDebugEnabled()) {
+                log.debug("调用硅基流动API：model={}, baseUrl={}, messages={}", model, actualBaseUrl, messages);
             }
             
             // 发送请求（拼接完整的API端点）
-            String chatCompletionsUrl = actualBaseUrl + "/chat/completions";
-            String response = webClient.post()
-                    .uri(chatCompletionsUrl)
+            Mono<String> call = webClient.post()
+                    .uri(actualBaseUrl + "/chat/completions")
                     .header(HttpHeaders.AUTHORIZATION, "Bearer " + actualApiKey)
-                    .bodyValue(requestBody)
+                    .bodyValue(new ChatRequest(model, messages, temperature, maxTokens, false))
                     .retrieve()
-                    .bodyToMono(String.class)
+                    .bodyToMono(ChatResponse.class)
                     .timeout(Duration.ofMillis(timeout))
-                    .block();
-            
-            // 解析响应
-            JSONObject jsonResponse = JSON.parseObject(response);
-            String content = jsonResponse.getJSONArray("choices")
-                    .getJSONObject(0)
-                    .getJSONObject("message")
-                    .getString("content");
-            
-            log.debug("硅基流动API响应：{}", content);
-            return content;
-            
-        } catch (Exception e) {
+                    .map(this::extractContent);
+            return resilienceGuard.execute(call);
+        }).onErrorMap(e -> !(e instanceof AiUnavailableException), e -> {
             log.error("调用硅基流动API失败", e);
-            throw new RuntimeException("AI服务调用失败：" + e.getMessage(), e);
-        }
+            return new RuntimeException("AI服务调用失败：" + e.getMessage(), e);
+        });
     }
     
     /**
-     * 简化的单消息调用
-     * @param systemPrompt 系统提示词
-     * @param userMessage 用户消息
-     * @return AI响应
+     * 提取第一条回复的内容
      */
-    public String chat(String systemPrompt, String userMessage) {
-        List<Map<String, String>> messages = List.of(
+    private String extractContent(ChatResponse response) {
+        if (response.choices() == null || response.choices().isEmpty()
+                || response.choices().get(0).message() == null) {
+            throw new IllegalStateException("AI响应中没有回复内容");
+        }
+        if (response.usage() != null) {
+            promptTokens.increment(response.usage().promptTokens());
+            completionTokens.increment(response.usage().completionTokens());
+        }
+        String content = response.choices().get(0).message().content();
+        log.debug("硅基流动API响应：{}", content);
+        return content;
+    }
+    
+    private static Counter tokenCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("ai.tokens")
+                .description("大模型调用消耗的token数")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+    
+    private List<Map<String, String>> buildMessages(String systemPrompt, String userMessage) {
+        return List.of(
                 Map.of("role", "system", "content", systemPrompt),
                 Map.of("role", "user", "content", userMessage)
         );
-        return chat(messages);
+    }
+    
+    /**
+     * 对话补全请求体
+     */
+    record ChatRequest(String model,
+                       List<Map<String, String>> messages,
+                       Double temperature,
+                       @JsonProperty("max_tokens") Integer maxTokens,
+                       boolean stream) {
+    }
+    
+    /**
+     * 对话补全响应（只解析用到的字段）
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ChatResponse(List<Choice> choices, Usage usage) {
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Usage(@JsonProperty("prompt_tokens") long promptTokens,
+                 @JsonProperty("completion_tokens") long completionTokens) {
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Choice(ChatMessage message) {
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ChatMessage(String role, String content) {
     }
 }
-
@@ -0,0 +1,207 @@
+package com.springboot.tiku.service.assembler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.springboot.tiku.dto.question.QuestionDTO;
+import com.springboot.tiku.entity.Chapter;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.entity.Subject;
+import com.springboot.tiku.entity.User;
+import com.springboot.tiku.repository.ChapterRepository;
+import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 题目批量组装器
+ * 一次查询批量解析学科/章节名称，复用预配置的JSON读取器，
+ * 避免逐题 findById 和重复创建 ObjectMapper
+ */
+@Slf4j
+@Component
+public class QuestionAssembler {
+
+    private final QuestionRepository questionRepository;
+    private final SubjectRepository subjectRepository;
+    private final ChapterRepository chapterRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * 共享的JSON读取器（线程安全）
+     */
+    private final ObjectReader jsonReader;
+    private final ObjectReader mapReader;
+
+    public QuestionAssembler(QuestionRepository questionRepository,
+                             SubjectRepository subjectRepository,
+                             ChapterRepository chapterRepository,
+                             UserRepository userRepository,
+                             ObjectMapper objectMapper) {
+        this.questionRepository = questionRepository;
+        this.subjectRepository = subjectRepository;
+        this.chapterRepository = chapterRepository;
+        this.userRepository = userRepository;
+        this.jsonReader = objectMapper.readerFor(Object.class);
+        this.mapReader = objectMapper.readerFor(Map.class);
+    }
+
+    /**
+     * 批量转换为DTO（题干、选项、答案、学科/章节名称）
+     */
+    public List<QuestionDTO> toDTOs(List<Question> questions) {
+        return assemble(questions, false);
+    }
+
+    /**
+     * 批量转换为DTO（额外包含AI配置、评分标准、关键词、创建者名称，用于题目管理）
+     */
+    public List<QuestionDTO> toDetailedDTOs(List<Question> questions) {
+        return assemble(questions, true);
+    }
+
+    /**
+     * 按ID批量加载题目
+     */
+    public Map<Long, Question> loadQuestions(Collection<Long> questionIds) {
+        Set<Long> ids = nonNullIds(questionIds);
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return questionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+    }
+
+    /**
+     * 批量获取学科名称
+     */
+    public Map<Long, String> subjectNames(Collection<Long> subjectIds) {
+        Set<Long> ids = nonNullIds(subjectIds);
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return subjectRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Subject::getId, Subject::getName));
+    }
+
+    /**
+     * 批量获取章节名称
+     */
+    public Map<Long, String> chapterNames(Collection<Long> chapterIds) {
+        Set<Long> ids = nonNullIds(chapterIds);
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return chapterRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Chapter::getId, Chapter::getName));
+    }
+
+    /**
+     * 解析JSON字段（失败返回null）
+     */
+    public Object readJson(String json, Long questionId) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return jsonReader.readValue(json);
+        } catch (Exception e) {
+            log.error("反序列化JSON字段失败: questionId={}", questionId, e);
+            return null;
+        }
+    }
+
+    private List<QuestionDTO> assemble(List<Question> questions, boolean detailed) {
+        if (questions.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, String> subjectNames = subjectNames(questions.stream()
+                .map(Question::getSubjectId).collect(Collectors.toSet()));
+        Map<Long, String> chapterNames = chapterNames(questions.stream()
+                .map(Question::getChapterId).collect(Collectors.toSet()));
+        Map<Long, String> creatorNames = detailed
+                ? creatorNames(questions.stream().map(Question::getCreatorId).collect(Collectors.toSet()))
+                : Collections.emptyMap();
+
+        List<QuestionDTO> dtos = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            QuestionDTO dto = new QuestionDTO();
+            BeanUtils.copyProperties(question, dto);
+
+            // 将 JSON 字符串反序列化为对象（解析失败时保留原始字符串）
+            Object options = readJson(question.getOptions(), question.getId());
+            if (options != null) {
+                dto.setOptions(options);
+            }
+            Object answer = readJson(question.getAnswer(), question.getId());
+            if (answer != null) {
+                dto.setAnswer(answer);
+            }
+
+            if (detailed) {
+                dto.setAiGradingConfig(readMap(question.getAiGradingConfig(), question.getId()));
+                Object criteria = readJson(question.getScoringCriteria(), question.getId());
+                if (criteria != null) {
+                    dto.setScoringCriteria(criteria);
+                }
+                Object keywords = readJson(question.getReferenceKeywords(), question.getId());
+                if (keywords != null) {
+                    dto.setReferenceKeywords(keywords);
+                }
+                if (question.getCreatorId() != null) {
+                    dto.setCreatorName(creatorNames.get(question.getCreatorId()));
+                }
+            }
+
+            dto.setSubjectName(subjectNames.get(question.getSubjectId()));
+            if (question.getChapterId() != null) {
+                dto.setChapterName(chapterNames.get(question.getChapterId()));
+            }
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    /**
+     * 批量获取创建者用户名
+     */
+    private Map<Long, String> creatorNames(Collection<Long> userIds) {
+        Set<Long> ids = nonNullIds(userIds);
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, User::getUsername));
+    }
+
+    private Map<String, Object> readMap(String json, Long questionId) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return mapReader.readValue(json);
+        } catch (Exception e) {
+            log.error("反序列化JSON字段失败: questionId={}", questionId, e);
+            return null;
+        }
+    }
+
+    private Set<Long> nonNullIds(Collection<Long> ids) {
+        Set<Long> result = new HashSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id != null) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.springboot.tiku.service.assembler;
+
+import com.springboot.tiku.dto.statistics.ChapterStatistics;
+import com.springboot.tiku.dto.statistics.SubjectStatistics;
+import com.springboot.tiku.entity.Chapter;
+import com.springboot.tiku.entity.Subject;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 学习统计组装器
+ * 将分组聚合查询结果（[分组ID, 答题数, 正确数]）组装为学科/章节统计DTO，
+ * 没有答题记录的学科/章节按0处理
+ */
+@Component
+public class StatisticsAssembler {
+
+    private static final long[] EMPTY = new long[2];
+
+    /**
+     * 将分组聚合结果转换为 分组ID -> [答题数, 正确数]
+     */
+    public Map<Long, long[]> toCountMap(List<Object[]> rows) {
+        Map<Long, long[]> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put((Long) row[0], new long[]{toLong(row[1]), toLong(row[2])});
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 组装学科统计
+     */
+    public List<SubjectStatistics> toSubjectStatistics(List<Subject> subjects, Map<Long, long[]> counts) {
+        List<SubjectStatistics> result = new ArrayList<>(subjects.size());
+        for (Subject subject : subjects) {
+            long[] count = counts.getOrDefault(subject.getId(), EMPTY);
+            long answeredCount = count[0];
+            long correctCount = count[1];
+
+            BigDecimal progress = BigDecimal.ZERO;
+            if (subject.getQuestionCount() > 0) {
+                progress = BigDecimal.valueOf(answeredCount)
+                        .multiply(BigDecimal.valueOf(100))
+                        .divide(BigDecimal.valueOf(subject.getQuestionCount()), 2, RoundingMode.HALF_UP);
+            }
+
+            result.add(SubjectStatistics.builder()
+                    .subjectId(subject.getId())
+                    .subjectName(subject.getName())
+                    .answeredCount(answeredCount)
+                    .correctCount(correctCount)
+                    .accuracy(accuracy(correctCount, answeredCount))
+                    .totalQuestions(subject.getQuestionCount())
+                    .progress(progress)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * 组装章节统计
+     */
+    public List<ChapterStatistics> toChapterStatistics(List<Chapter> chapters, Map<Long, long[]> counts) {
+        List<ChapterStatistics> result = new ArrayList<>(chapters.size());
+        for (Chapter chapter : chapters) {
+            long[] count = counts.getOrDefault(chapter.getId(), EMPTY);
+            long answeredCount = count[0];
+            long correctCount = count[1];
+            BigDecimal accuracy = accuracy(correctCount, answeredCount);
+
+            // 计算掌握程度（正确率 * 答题完整度）
+            int masteryLevel = 0;
+            if (chapter.getQuestionCount() > 0) {
+                double answerRate = (double) answeredCount / chapter.getQuestionCount();
+                masteryLevel = (int) (accuracy.doubleValue() * answerRate / 100);
+            }
+
+            result.add(ChapterStatistics.builder()
+                    .chapterId(chapter.getId())
+                    .chapterName(chapter.getName())
+                    .answeredCount(answeredCount)
+                    .correctCount(correctCount)
+                    .accuracy(accuracy)
+                    .totalQuestions(chapter.getQuestionCount())
+                    .masteryLevel(masteryLevel)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * 计算正确率（百分比，保留两位小数）
+     */
+    public BigDecimal accuracy(long correctCount, long answeredCount) {
+        if (answeredCount <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(correctCount)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(answeredCount), 2, RoundingMode.HALF_UP);
+    }
+
+    private long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,192 @@
+package com.springboot.tiku.service.config;
+
+import com.alibaba.fastjson2.JSON;
+import com.springboot.tiku.entity.SystemConfig;
+import com.springboot.tiku.repository.SystemConfigRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 系统配置快照缓存
+ * 将 system_config 整表加载为不可变快照，读取不访问数据库；
+ * 本节点修改配置时在事务提交后原子替换快照，其他节点的修改由定时全量刷新同步。
+ * 类型化读取的解析结果随快照缓存，快照替换后自动失效；配置值变化时发布 {@link SystemConfigChangedEvent}。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SystemConfigCache {
+
+    /**
+     * 解析失败占位（ConcurrentHashMap 不能存 null）
+     */
+    private static final Object INVALID = new Object();
+
+    private final SystemConfigRepository systemConfigRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 获取字符串配置
+     */
+    public String getString(String key, String defaultValue) {
+        String value = current().values().get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 获取整数配置（值缺失或格式错误时返回默认值）
+     */
+    public int getInt(String key, int defaultValue) {
+        Integer value = parsed(key, "int", raw -> {
+            try {
+                return Integer.parseInt(raw.trim());
+            } catch (NumberFormatException e) {
+                log.warn("系统配置不是有效整数：{}={}", key, raw);
+                return null;
+            }
+        });
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 获取布尔配置
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Boolean value = parsed(key, "boolean", raw -> Boolean.parseBoolean(raw.trim()));
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 获取字符串列表配置（JSON数组，值缺失或格式错误时返回默认值）
+     */
+    public List<String> getStringList(String key, List<String> defaultValue) {
+        List<String> value = parsed(key, "list", raw -> {
+            try {
+                List<String> list = JSON.parseArray(raw, String.class);
+                return list != null ? List.copyOf(list) : null;
+            } catch (Exception e) {
+                log.warn("系统配置不是有效JSON数组：{}={}", key, raw);
+                return null;
+            }
+        });
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 登记配置修改（在事务中调用时，提交后才替换快照）
+     */
+    public void put(String key, String value) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(key, value);
+                }
+            });
+        } else {
+            apply(key, value);
+        }
+    }
+
+    /**
+     * 定时从数据库全量刷新（同步其他节点的修改）
+     */
+    @Scheduled(fixedDelayString = "${system-config.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("刷新系统配置快照失败，继续使用旧快照", e);
+        }
+    }
+
+    /**
+     * 从数据库重新加载快照
+     */
+    public synchronized void refresh() {
+        Map<String, String> values = new HashMap<>();
+        for (SystemConfig config : systemConfigRepository.findAll()) {
+            if (config.getConfigKey() != null && config.getConfigValue() != null) {
+                values.put(config.getConfigKey(), config.getConfigValue());
+            }
+        }
+        swap(values);
+    }
+
+    private synchronized void apply(String key, String value) {
+        Map<String, String> values = new HashMap<>(current().values());
+        if (value != null) {
+            values.put(key, value);
+        } else {
+            values.remove(key);
+        }
+        swap(values);
+    }
+
+    /**
+     * 替换快照并通知变更（首次加载不通知）
+     */
+    private void swap(Map<String, String> values) {
+        Snapshot previous = snapshot;
+        if (previous != null && previous.values().equals(values)) {
+            return;
+        }
+        snapshot = new Snapshot(Map.copyOf(values));
+        if (previous == null) {
+            log.info("系统配置快照已加载：{}项", values.size());
+            return;
+        }
+
+        Set<String> changedKeys = new HashSet<>(values.keySet());
+        changedKeys.addAll(previous.values().keySet());
+        changedKeys.removeIf(key -> Objects.equals(values.get(key), previous.values().get(key)));
+        log.info("系统配置已更新：{}", changedKeys);
+        eventPublisher.publishEvent(new SystemConfigChangedEvent(Set.copyOf(changedKeys)));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T parsed(String key, String type, Function<String, T> parser) {
+        Snapshot current = current();
+        String raw = current.values().get(key);
+        if (raw == null) {
+            return null;
+        }
+        Object value = current.parsed().computeIfAbsent(type + ":" + key,
+                k -> Objects.requireNonNullElse(parser.apply(raw), INVALID));
+        return value == INVALID ? null : (T) value;
+    }
+
+    /**
+     * 配置快照（原始值不可变，解析结果按需缓存）
+     */
+    private record Snapshot(Map<String, String> values, Map<String, Object> parsed) {
+        Snapshot(Map<String, String> values) {
+            this(values, new ConcurrentHashMap<>());
+        }
+    }
+}
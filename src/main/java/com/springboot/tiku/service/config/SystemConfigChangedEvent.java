@@ -0,0 +1,10 @@
+package com.springboot.tiku.service.config;
+
+import java.util.Set;
+
+/**
+ * 系统配置变更事件（快照替换后发布，包含值发生变化的配置键）
+ * 本节点修改和定时刷新同步到其他节点的修改都会发布，监听方据此清理依赖旧配置的状态
+ */
+public record SystemConfigChangedEvent(Set<String> changedKeys) {
+}
@@ -0,0 +1,337 @@
+package com.springboot.tiku.service.counter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 答题计数聚合器（写后置）
+ * 判题时只在内存中累加题目、用户的答题计数，由定时任务批量执行
+ * UPDATE ... SET x = x + ? 刷入数据库，避免热点行的读-改-写和行锁竞争。
+ * <p>
+ * 一致性说明：
+ * 1. 增量仅在答题事务提交后登记，回滚的提交不会计数；
+ * 2. 刷盘失败时增量回滚到内存，下次重试；
+ * 3. 应用正常关闭时执行最后一次刷盘；
+ * 4. 进程异常退出最多丢失一个刷盘周期的计数，answer_record 仍是准确数据来源：
+ *    后台按主键游标分页对账，用 answer_record 重新统计题目、用户计数并修正偏差。
+ *    只修正静默期内没有答题变更、且内存中没有未刷盘增量的行，写回时比较旧值，
+ *    期间有新的增量刷入则放弃本次修正，避免与增量重复计数。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CounterAggregator {
+
+    private static final String UPDATE_QUESTION_SQL =
+            "UPDATE question SET use_count = use_count + ?, correct_count = correct_count + ?, wrong_count = wrong_count + ? WHERE id = ?";
+
+    private static final String UPDATE_USER_SQL =
+            "UPDATE `user` SET total_answer_count = total_answer_count + ?, total_correct_count = total_correct_count + ? WHERE id = ?";
+
+    private static final String RECONCILE_QUESTION_SQL =
+            "SELECT q.id, q.use_count, q.correct_count, q.wrong_count, " +
+            "COUNT(a.id) AS answers, COALESCE(SUM(a.is_correct = 1), 0) AS correct, MAX(a.updated_at) AS last_change " +
+            "FROM (SELECT id, use_count, correct_count, wrong_count FROM question WHERE id > ? ORDER BY id LIMIT ?) q " +
+            "LEFT JOIN answer_record a ON a.question_id = q.id AND a.grading_status <> 'PENDING' " +
+            "GROUP BY q.id, q.use_count, q.correct_count, q.wrong_count ORDER BY q.id";
+
+    private static final String RECONCILE_USER_SQL =
+            "SELECT u.id, u.total_answer_count, u.total_correct_count, " +
+            "COUNT(a.id) AS answers, COALESCE(SUM(a.is_correct = 1), 0) AS correct, MAX(a.updated_at) AS last_change " +
+            "FROM (SELECT id, total_answer_count, total_correct_count FROM `user` WHERE id > ? ORDER BY id LIMIT ?) u " +
+            "LEFT JOIN answer_record a ON a.user_id = u.id AND a.grading_status <> 'PENDING' " +
+            "GROUP BY u.id, u.total_answer_count, u.total_correct_count ORDER BY u.id";
+
+    private static final String FIX_QUESTION_SQL =
+            "UPDATE question SET use_count = ?, correct_count = ?, wrong_count = ? " +
+            "WHERE id = ? AND use_count = ? AND correct_count = ? AND wrong_count = ?";
+
+    private static final String FIX_USER_SQL =
+            "UPDATE `user` SET total_answer_count = ?, total_correct_count = ? " +
+            "WHERE id = ? AND total_answer_count = ? AND total_correct_count = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 是否启用计数对账
+     */
+    @Value("${practice.counter.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    /**
+     * 每次对账的题目数、用户数
+     */
+    @Value("${practice.counter.reconcile.page-size:500}")
+    private int reconcilePageSize;
+
+    /**
+     * 静默期（分钟），期间有答题变更的行本次不对账
+     */
+    @Value("${practice.counter.reconcile.quiet-minutes:10}")
+    private long reconcileQuietMinutes;
+
+    /**
+     * 对账游标（上次对账到的最大ID，到末尾后从头开始）
+     */
+    private long questionCursor;
+    private long userCursor;
+
+    /**
+     * 题目计数增量（题目ID -> 增量，条目常驻以避免并发删除丢计数，规模受题目总数约束）
+     */
+    private final Map<Long, QuestionDelta> questionDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * 用户计数增量（用户ID -> 增量）
+     */
+    private final Map<Long, UserDelta> userDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * 登记一次答题（在事务中调用时，提交后才生效）
+     */
+    public void recordAnswer(Long questionId, Long userId, Boolean isCorrect) {
+        Map<Long, long[]> questionCounts = new HashMap<>();
+        questionCounts.put(questionId, new long[]{1, Boolean.TRUE.equals(isCorrect) ? 1 : 0});
+        recordAnswers(userId, questionCounts);
+    }
+
+    /**
+     * 登记一批答题（题目ID -> [答题数, 正确数]，在事务中调用时，提交后才生效）
+     */
+    public void recordAnswers(Long userId, Map<Long, long[]> questionCounts) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(userId, questionCounts);
+                }
+            });
+        } else {
+            accumulate(userId, questionCounts);
+        }
+    }
+
+    /**
+     * 定时刷盘
+     */
+    @Scheduled(fixedDelayString = "${practice.counter.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 应用关闭前刷盘
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("应用关闭，刷新答题计数");
+        flush();
+    }
+
+    /**
+     * 定时对账（每次一页题目和一页用户）
+     */
+    @Scheduled(fixedDelayString = "${practice.counter.reconcile.interval-ms:60000}",
+            initialDelayString = "${practice.counter.reconcile.interval-ms:60000}")
+    public void scheduledReconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("答题计数对账失败", e);
+        }
+    }
+
+    /**
+     * 用 answer_record 对账一页题目和一页用户的计数，返回修正的行数
+     */
+    public synchronized int reconcile() {
+        flush();
+        Timestamp quietCutoff = Timestamp.valueOf(LocalDateTime.now().minusMinutes(reconcileQuietMinutes));
+        int fixed = reconcileQuestions(quietCutoff) + reconcileUsers(quietCutoff);
+        if (fixed > 0) {
+            log.warn("答题计数对账修正{}行（题目游标={}, 用户游标={}）", fixed, questionCursor, userCursor);
+        }
+        return fixed;
+    }
+
+    private int reconcileQuestions(Timestamp quietCutoff) {
+        List<Object[]> fixes = new ArrayList<>();
+        List<Long> ids = jdbcTemplate.query(RECONCILE_QUESTION_SQL, (rs, rowNum) -> {
+            long id = rs.getLong("id");
+            long answers = rs.getLong("answers");
+            long correct = rs.getLong("correct");
+            long use = rs.getLong("use_count");
+            long correctCount = rs.getLong("correct_count");
+            long wrongCount = rs.getLong("wrong_count");
+            boolean drifted = use != answers || correctCount != correct || wrongCount != answers - correct;
+            if (drifted && isQuiet(rs.getTimestamp("last_change"), quietCutoff) && !hasPendingDelta(questionDeltas.get(id))) {
+                fixes.add(new Object[]{answers, correct, answers - correct, id, use, correctCount, wrongCount});
+            }
+            return id;
+        }, questionCursor, reconcilePageSize);
+        questionCursor = ids.size() < reconcilePageSize ? 0 : ids.get(ids.size() - 1);
+        return fixes.isEmpty() ? 0 : countUpdated(jdbcTemplate.batchUpdate(FIX_QUESTION_SQL, fixes));
+    }
+
+    private int reconcileUsers(Timestamp quietCutoff) {
+        List<Object[]> fixes = new ArrayList<>();
+        List<Long> ids = jdbcTemplate.query(RECONCILE_USER_SQL, (rs, rowNum) -> {
+            long id = rs.getLong("id");
+            long answers = rs.getLong("answers");
+            long correct = rs.getLong("correct");
+            long answerCount = rs.getLong("total_answer_count");
+            long correctCount = rs.getLong("total_correct_count");
+            boolean drifted = answerCount != answers || correctCount != correct;
+            if (drifted && isQuiet(rs.getTimestamp("last_change"), quietCutoff) && !hasPendingDelta(userDeltas.get(id))) {
+                fixes.add(new Object[]{answers, correct, id, answerCount, correctCount});
+            }
+            return id;
+        }, userCursor, reconcilePageSize);
+        userCursor = ids.size() < reconcilePageSize ? 0 : ids.get(ids.size() - 1);
+        return fixes.isEmpty() ? 0 : countUpdated(jdbcTemplate.batchUpdate(FIX_USER_SQL, fixes));
+    }
+
+    private static boolean isQuiet(Timestamp lastChange, Timestamp quietCutoff) {
+        return lastChange == null || lastChange.before(quietCutoff);
+    }
+
+    private static boolean hasPendingDelta(QuestionDelta delta) {
+        return delta != null && (delta.use.sum() != 0 || delta.correct.sum() != 0 || delta.wrong.sum() != 0);
+    }
+
+    private static boolean hasPendingDelta(UserDelta delta) {
+        return delta != null && (delta.answer.sum() != 0 || delta.correct.sum() != 0);
+    }
+
+    private static int countUpdated(int[] counts) {
+        int updated = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 将内存中的增量批量写入数据库
+     */
+    public synchronized void flush() {
+        flushQuestions();
+        flushUsers();
+    }
+
+    private void accumulate(Long userId, Map<Long, long[]> questionCounts) {
+        long answerTotal = 0;
+        long correctTotal = 0;
+        for (Map.Entry<Long, long[]> entry : questionCounts.entrySet()) {
+            long answers = entry.getValue()[0];
+            long correct = entry.getValue()[1];
+            answerTotal += answers;
+            correctTotal += correct;
+            if (entry.getKey() != null) {
+                QuestionDelta delta = questionDeltas.computeIfAbsent(entry.getKey(), id -> new QuestionDelta());
+                delta.use.add(answers);
+                delta.correct.add(correct);
+                delta.wrong.add(answers - correct);
+            }
+        }
+        if (userId != null) {
+            UserDelta delta = userDeltas.computeIfAbsent(userId, id -> new UserDelta());
+            delta.answer.add(answerTotal);
+            delta.correct.add(correctTotal);
+        }
+    }
+
+    private void flushQuestions() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, QuestionDelta> entry : questionDeltas.entrySet()) {
+            QuestionDelta delta = entry.getValue();
+            long use = delta.use.sumThenReset();
+            long correct = delta.correct.sumThenReset();
+            long wrong = delta.wrong.sumThenReset();
+            if (use != 0 || correct != 0 || wrong != 0) {
+                batch.add(new Object[]{use, correct, wrong, entry.getKey()});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_QUESTION_SQL, batch);
+            log.debug("刷新题目计数：{}条", batch.size());
+        } catch (Exception e) {
+            log.error("刷新题目计数失败，增量保留至下次刷新：{}条", batch.size(), e);
+            for (Object[] row : batch) {
+                QuestionDelta delta = questionDeltas.computeIfAbsent((Long) row[3], id -> new QuestionDelta());
+                delta.use.add((Long) row[0]);
+                delta.correct.add((Long) row[1]);
+                delta.wrong.add((Long) row[2]);
+            }
+        }
+    }
+
+    private void flushUsers() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, UserDelta> entry : userDeltas.entrySet()) {
+            UserDelta delta = entry.getValue();
+            long answer = delta.answer.sumThenReset();
+            long correct = delta.correct.sumThenReset();
+            if (answer != 0 || correct != 0) {
+                batch.add(new Object[]{answer, correct, entry.getKey()});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_USER_SQL, batch);
+            log.debug("刷新用户计数：{}条", batch.size());
+        } catch (Exception e) {
+            log.error("刷新用户计数失败，增量保留至下次刷新：{}条", batch.size(), e);
+            for (Object[] row : batch) {
+                UserDelta delta = userDeltas.computeIfAbsent((Long) row[2], id -> new UserDelta());
+                delta.answer.add((Long) row[0]);
+                delta.correct.add((Long) row[1]);
+            }
+        }
+    }
+
+    /**
+     * 题目计数增量
+     */
+    private static class QuestionDelta {
+        final LongAdder use = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final LongAdder wrong = new LongAdder();
+    }
+
+    /**
+     * 用户计数增量
+     */
+    private static class UserDelta {
+        final LongAdder answer = new LongAdder();
+        final LongAdder correct = new LongAdder();
+    }
+}
@@ -0,0 +1,458 @@
+package com.springboot.tiku.service.counter;
+
+import com.springboot.tiku.repository.DailyStatRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 每日学习汇总聚合器
+ * 判题完成后在内存中按（用户, 日期）累加答题数、正确数、用时，定时在同一事务内批量写入
+ * user_daily_stat 和 daily_stat；趋势、日历、后台趋势图只读汇总表，查询量与历史数据规模无关。
+ * <p>
+ * 一致性说明：
+ * 1. 与 {@link CounterAggregator} 相同，增量在事务提交后登记，刷盘失败回滚到内存重试；
+ * 2. 活跃用户数在刷盘时按当日用户汇总行数重新计算，不需要在内存中去重；
+ * 3. 汇总以答题时间归日，仅统计已判题记录（PENDING 记录在异步判题完成时计入）；
+ * 4. 汇总表可随时通过 {@link #backfill} 从 answer_record 重建，首次启动时汇总表为空会自动回填。
+ *    重建历史日期时先对该段答题记录加共享锁（可重复读隔离级别下同时锁住间隙），该段新的答题和判题写入会等待重建提交；
+ *    已写入的事务提交后登记的内存增量已被重建计入，重建提交前等待它们登记完毕并丢弃，等待超时则整段回滚，避免重复计数。
+ *    当日仍有大量答题写入，不加锁：先关闭提交闸门（等待提交中的答题事务登记完增量，新的提交暂缓），
+ *    用一致性读重建当日汇总并丢弃当日增量，再打开闸门，闸门关闭期间只有当日一天的聚合查询。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyStatAggregator {
+
+    private static final String UPSERT_USER_SQL =
+            "INSERT INTO user_daily_stat (user_id, stat_date, answer_count, correct_count, time_spent, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, NOW(), NOW()) "
+                    + "ON DUPLICATE KEY UPDATE answer_count = answer_count + VALUES(answer_count), "
+                    + "correct_count = correct_count + VALUES(correct_count), "
+                    + "time_spent = time_spent + VALUES(time_spent), updated_at = NOW()";
+
+    private static final String UPSERT_DAILY_SQL =
+            "INSERT INTO daily_stat (stat_date, answer_count, correct_count, time_spent, active_user_count, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, (SELECT COUNT(*) FROM user_daily_stat WHERE stat_date = ?), NOW(), NOW()) "
+                    + "ON DUPLICATE KEY UPDATE answer_count = answer_count + VALUES(answer_count), "
+                    + "correct_count = correct_count + VALUES(correct_count), "
+                    + "time_spent = time_spent + VALUES(time_spent), "
+                    + "active_user_count = VALUES(active_user_count), updated_at = NOW()";
+
+    private static final String BACKFILL_USER_SQL =
+            "INSERT INTO user_daily_stat (user_id, stat_date, answer_count, correct_count, time_spent, created_at, updated_at) "
+                    + "SELECT user_id, DATE(answered_at), COUNT(*), "
+                    + "SUM(CASE WHEN is_correct = 1 THEN 1 ELSE 0 END), COALESCE(SUM(time_spent), 0), NOW(), NOW() "
+                    + "FROM answer_record "
+                    + "WHERE answered_at >= ? AND answered_at < ? AND grading_status <> 'PENDING' "
+                    + "GROUP BY user_id, DATE(answered_at)";
+
+    private static final String BACKFILL_LOCK_SQL =
+            "SELECT COUNT(*) FROM answer_record WHERE answered_at >= ? AND answered_at < ? FOR SHARE";
+
+    private static final String DAY_USER_SQL =
+            "SELECT user_id, COUNT(*), SUM(CASE WHEN is_correct = 1 THEN 1 ELSE 0 END), COALESCE(SUM(time_spent), 0) "
+                    + "FROM answer_record "
+                    + "WHERE answered_at >= ? AND answered_at < ? AND grading_status <> 'PENDING' "
+                    + "GROUP BY user_id";
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO user_daily_stat (user_id, stat_date, answer_count, correct_count, time_spent, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, NOW(), NOW())";
+
+    private static final String INSERT_DAILY_SQL =
+            "INSERT INTO daily_stat (stat_date, answer_count, correct_count, time_spent, active_user_count, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, NOW(), NOW())";
+
+    private static final String BACKFILL_DAILY_SQL =
+            "INSERT INTO daily_stat (stat_date, answer_count, correct_count, time_spent, active_user_count, created_at, updated_at) "
+                    + "SELECT stat_date, SUM(answer_count), SUM(correct_count), SUM(time_spent), COUNT(*), NOW(), NOW() "
+                    + "FROM user_daily_stat WHERE stat_date >= ? AND stat_date <= ? "
+                    + "GROUP BY stat_date";
+
+    /**
+     * 回填时每批处理的天数
+     */
+    private static final int BACKFILL_CHUNK_DAYS = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DailyStatRepository dailyStatRepository;
+
+    /**
+     * 重建时等待已提交事务登记增量的最长毫秒数
+     */
+    @Value("${practice.counter.backfill-wait-ms:5000}")
+    private long inFlightWaitMs;
+
+    /**
+     * 用户每日增量（用户ID + 日期 -> 增量）
+     */
+    private final Map<UserDay, DayDelta> deltas = new ConcurrentHashMap<>();
+
+    /**
+     * 正在提交、尚未登记增量的事务数（答题日期 -> 事务数）
+     */
+    private final Map<LocalDate, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 提交闸门：答题事务从提交前到提交完成持有读锁，重建当日汇总时持有写锁
+     */
+    private final ReadWriteLock commitGate = new ReentrantReadWriteLock();
+
+    /**
+     * 登记一次已判题的答题（在事务中调用时，提交后才生效）
+     */
+    public void recordAnswer(Long userId, LocalDateTime answeredAt, Boolean isCorrect, Integer timeSpent) {
+        recordAnswers(userId, answeredAt, 1, Boolean.TRUE.equals(isCorrect) ? 1 : 0,
+                timeSpent != null && timeSpent > 0 ? timeSpent : 0);
+    }
+
+    /**
+     * 登记同一天的一批已判题答题（答题数、正确数、用时秒数合计）
+     */
+    public void recordAnswers(Long userId, LocalDateTime answeredAt, long answers, long correct, long timeSpent) {
+        if (userId == null || answers <= 0) {
+            return;
+        }
+        register(userId, answeredAt, answers, correct, timeSpent);
+    }
+
+    /**
+     * 登记一次改判为正确的答题（之前已按答错计入答题数，只补正确数）
+     */
+    public void recordCorrection(Long userId, LocalDateTime answeredAt) {
+        if (userId == null) {
+            return;
+        }
+        register(userId, answeredAt, 0, 1, 0);
+    }
+
+    private void register(Long userId, LocalDateTime answeredAt, long answers, long correct, long timeSpent) {
+        UserDay key = new UserDay(userId, answeredAt != null ? answeredAt.toLocalDate() : LocalDate.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean committing;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitGate.readLock().lock();
+                    inFlight.computeIfAbsent(key.date(), d -> new AtomicInteger()).incrementAndGet();
+                    committing = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    accumulate(key, answers, correct, timeSpent);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (committing) {
+                        inFlight.get(key.date()).decrementAndGet();
+                        commitGate.readLock().unlock();
+                    }
+                }
+            });
+        } else {
+            accumulate(key, answers, correct, timeSpent);
+        }
+    }
+
+    /**
+     * 定时刷盘
+     */
+    @Scheduled(fixedDelayString = "${practice.counter.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 应用关闭前刷盘
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("应用关闭，刷新每日学习汇总");
+        flush();
+    }
+
+    /**
+     * 首次启动时汇总表为空则从答题记录回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (dailyStatRepository.count() > 0) {
+            return;
+        }
+        try {
+            Map<String, Object> result = backfill(null, null);
+            log.info("每日学习汇总初始化完成：{}", result);
+        } catch (Exception e) {
+            log.error("每日学习汇总初始化失败", e);
+        }
+    }
+
+    /**
+     * 将内存中的增量批量写入汇总表
+     */
+    public synchronized void flush() {
+        List<Object[]> userBatch = new ArrayList<>();
+        Map<LocalDate, long[]> dailyTotals = new HashMap<>();
+        for (Map.Entry<UserDay, DayDelta> entry : deltas.entrySet()) {
+            DayDelta delta = entry.getValue();
+            long answer = delta.answer.sumThenReset();
+            long correct = delta.correct.sumThenReset();
+            long seconds = delta.timeSpent.sumThenReset();
+            if (answer == 0 && correct == 0 && seconds == 0) {
+                // 非当日的空条目可以移除，避免按天无限增长（与累加在同一把桶锁内判断，不丢增量）
+                if (!entry.getKey().date().equals(LocalDate.now())) {
+                    deltas.computeIfPresent(entry.getKey(), (k, d) -> d.isEmpty() ? null : d);
+                }
+                continue;
+            }
+            UserDay key = entry.getKey();
+            userBatch.add(new Object[]{key.userId(), Date.valueOf(key.date()), answer, correct, seconds});
+            long[] total = dailyTotals.computeIfAbsent(key.date(), d -> new long[3]);
+            total[0] += answer;
+            total[1] += correct;
+            total[2] += seconds;
+        }
+        if (userBatch.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> dailyBatch = new ArrayList<>(dailyTotals.size());
+        dailyTotals.forEach((date, total) ->
+                dailyBatch.add(new Object[]{Date.valueOf(date), total[0], total[1], total[2], Date.valueOf(date)}));
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.batchUpdate(UPSERT_USER_SQL, userBatch);
+                jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, dailyBatch);
+            });
+            log.debug("刷新每日学习汇总：用户{}条，日期{}条", userBatch.size(), dailyBatch.size());
+        } catch (Exception e) {
+            log.error("刷新每日学习汇总失败，增量保留至下次刷新：{}条", userBatch.size(), e);
+            for (Object[] row : userBatch) {
+                UserDay key = new UserDay((Long) row[0], ((Date) row[1]).toLocalDate());
+                DayDelta delta = deltas.computeIfAbsent(key, k -> new DayDelta());
+                delta.answer.add((Long) row[2]);
+                delta.correct.add((Long) row[3]);
+                delta.timeSpent.add((Long) row[4]);
+            }
+        }
+    }
+
+    /**
+     * 从答题记录重建指定日期范围（含首尾）的汇总，日期为空时重建全部历史（结束日期最晚到当日）
+     * 历史日期按批次逐段删除并重新聚合，每批一个事务；当日单独重建。建议在低峰期执行。
+     */
+    public synchronized Map<String, Object> backfill(LocalDate from, LocalDate to) {
+        flush();
+
+        LocalDate today = LocalDate.now();
+        LocalDate end = to != null && to.isBefore(today) ? to : today;
+        LocalDate start = from;
+        if (start == null) {
+            Timestamp earliest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(answered_at) FROM answer_record", Timestamp.class);
+            start = earliest != null ? earliest.toLocalDateTime().toLocalDate() : end;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int userRows = 0;
+        int dailyRows = 0;
+        LocalDate lockedEnd = end.isBefore(today) ? end : today.minusDays(1);
+        for (LocalDate chunkStart = start; !chunkStart.isAfter(lockedEnd); chunkStart = chunkStart.plusDays(BACKFILL_CHUNK_DAYS)) {
+            LocalDate chunkEnd = chunkStart.plusDays(BACKFILL_CHUNK_DAYS - 1);
+            if (chunkEnd.isAfter(lockedEnd)) {
+                chunkEnd = lockedEnd;
+            }
+            int[] rows = backfillChunk(chunkStart, chunkEnd);
+            userRows += rows[0];
+            dailyRows += rows[1];
+        }
+        if (end.equals(today) && !start.isAfter(today)) {
+            int[] rows = backfillToday(today);
+            userRows += rows[0];
+            dailyRows += rows[1];
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", start);
+        result.put("to", end);
+        result.put("userDailyRows", userRows);
+        result.put("dailyRows", dailyRows);
+        result.put("costMs", System.currentTimeMillis() - startTime);
+        log.info("回填每日学习汇总：{}", result);
+        return result;
+    }
+
+    /**
+     * 清空汇总表（清空答题记录时调用）
+     */
+    public synchronized void clear() {
+        deltas.clear();
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update("DELETE FROM user_daily_stat");
+            jdbcTemplate.update("DELETE FROM daily_stat");
+        });
+    }
+
+    private int[] backfillChunk(LocalDate start, LocalDate end) {
+        Date startDate = Date.valueOf(start);
+        Date endDate = Date.valueOf(end);
+        Timestamp startAt = Timestamp.valueOf(start.atStartOfDay());
+        Timestamp endAt = Timestamp.valueOf(end.plusDays(1).atStartOfDay());
+        int[] rows = new int[2];
+        Map<UserDay, DayDelta> discarded = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                // 锁住该段答题记录：之前写入的事务已提交，之后的写入等待本事务结束
+                jdbcTemplate.queryForObject(BACKFILL_LOCK_SQL, Long.class, startAt, endAt);
+                jdbcTemplate.update("DELETE FROM user_daily_stat WHERE stat_date >= ? AND stat_date <= ?", startDate, endDate);
+                jdbcTemplate.update("DELETE FROM daily_stat WHERE stat_date >= ? AND stat_date <= ?", startDate, endDate);
+                rows[0] = jdbcTemplate.update(BACKFILL_USER_SQL, startAt, endAt);
+                rows[1] = jdbcTemplate.update(BACKFILL_DAILY_SQL, startDate, endDate);
+                // 已提交事务的增量已计入重建结果，等待登记完毕后丢弃
+                awaitInFlight(start, end);
+                deltas.entrySet().removeIf(entry -> {
+                    LocalDate date = entry.getKey().date();
+                    if (date.isBefore(start) || date.isAfter(end)) {
+                        return false;
+                    }
+                    discarded.put(entry.getKey(), entry.getValue());
+                    return true;
+                });
+            });
+        } catch (RuntimeException e) {
+            // 重建回滚，丢弃的增量放回内存
+            discarded.forEach((key, delta) -> accumulate(key, delta.answer.sum(), delta.correct.sum(), delta.timeSpent.sum()));
+            throw e;
+        }
+        return rows;
+    }
+
+    /**
+     * 重建当日汇总：关闭提交闸门后用一致性读聚合（不加锁，未提交的答题在闸门打开后提交并登记增量）
+     */
+    private int[] backfillToday(LocalDate today) {
+        Lock gate = commitGate.writeLock();
+        try {
+            if (!gate.tryLock(inFlightWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("等待答题事务登记增量超时：" + today);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("回填每日学习汇总被中断", e);
+        }
+        try {
+            Date date = Date.valueOf(today);
+            int[] rows = new int[2];
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.update("DELETE FROM user_daily_stat WHERE stat_date = ?", date);
+                jdbcTemplate.update("DELETE FROM daily_stat WHERE stat_date = ?", date);
+                List<Object[]> userBatch = jdbcTemplate.query(DAY_USER_SQL,
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), date, rs.getLong(2), rs.getLong(3), rs.getLong(4)},
+                        Timestamp.valueOf(today.atStartOfDay()), Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+                if (userBatch.isEmpty()) {
+                    return;
+                }
+                long[] total = new long[3];
+                for (Object[] row : userBatch) {
+                    total[0] += (Long) row[2];
+                    total[1] += (Long) row[3];
+                    total[2] += (Long) row[4];
+                }
+                jdbcTemplate.batchUpdate(INSERT_USER_SQL, userBatch);
+                jdbcTemplate.update(INSERT_DAILY_SQL, date, total[0], total[1], total[2], userBatch.size());
+                rows[0] = userBatch.size();
+                rows[1] = 1;
+            });
+            // 闸门关闭期间没有事务在提交，内存中的当日增量都已计入重建结果
+            deltas.keySet().removeIf(key -> key.date().equals(today));
+            return rows;
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    private void awaitInFlight(LocalDate start, LocalDate end) {
+        long deadline = System.currentTimeMillis() + inFlightWaitMs;
+        while (System.currentTimeMillis() < deadline) {
+            boolean pending = inFlight.entrySet().stream().anyMatch(entry -> entry.getValue().get() > 0
+                    && !entry.getKey().isBefore(start) && !entry.getKey().isAfter(end));
+            if (!pending) {
+                return;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("回填每日学习汇总被中断", e);
+            }
+        }
+        // 超时后仍可能有已计入重建的增量登记进来，回滚本段重建，由调用方放回已丢弃的增量
+        throw new IllegalStateException("等待答题事务登记增量超时：" + start + " ~ " + end);
+    }
+
+    private void accumulate(UserDay key, long answers, long correct, long seconds) {
+        deltas.compute(key, (k, delta) -> {
+            if (delta == null) {
+                delta = new DayDelta();
+            }
+            delta.answer.add(answers);
+            delta.correct.add(correct);
+            if (seconds > 0) {
+                delta.timeSpent.add(seconds);
+            }
+            return delta;
+        });
+    }
+
+    /**
+     * 用户 + 日期
+     */
+    private record UserDay(Long userId, LocalDate date) {
+    }
+
+    /**
+     * 每日增量
+     */
+    private static class DayDelta {
+        final LongAdder answer = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final LongAdder timeSpent = new LongAdder();
+
+        boolean isEmpty() {
+            return answer.sum() == 0 && correct.sum() == 0 && timeSpent.sum() == 0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.springboot.tiku.service.exam;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 冻结的试卷
+ * 开考时生成并随考试记录保存，之后不再随题库变化；题目顺序和选项顺序已按考生打乱。
+ */
+public record ExamPaper(List<Item> items) {
+
+    /**
+     * 试卷总分
+     */
+    public BigDecimal totalScore() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Item item : items) {
+            total = total.add(item.score());
+        }
+        return total;
+    }
+
+    /**
+     * 查找题目
+     */
+    public Item find(Long questionId) {
+        for (Item item : items) {
+            if (item.questionId().equals(questionId)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 试卷题目
+     * @param questionId  题目ID
+     * @param score       本卷中的分值
+     * @param optionOrder 选项顺序（第i个展示位置对应原选项下标），为null表示不打乱
+     */
+    public record Item(Long questionId, BigDecimal score, int[] optionOrder) {
+
+        /**
+         * 选项前缀，如 "A. "、"B、"
+         */
+        private static final Pattern OPTION_LABEL = Pattern.compile("^\\s*[A-Za-z]\\s*[.、．:：)）]\\s*");
+
+        /**
+         * 按本卷分值折算得分（答对得满分，否则按原题得分比例折算）
+         */
+        public BigDecimal earnedScore(Boolean isCorrect, BigDecimal gradedScore, BigDecimal gradedTotal) {
+            if (Boolean.TRUE.equals(isCorrect)) {
+                return score;
+            }
+            if (gradedScore != null && gradedTotal != null && gradedTotal.compareTo(BigDecimal.ZERO) > 0) {
+                return score.multiply(gradedScore).divide(gradedTotal, 2, RoundingMode.HALF_UP);
+            }
+            return BigDecimal.ZERO;
+        }
+
+        /**
+         * 按展示顺序重排选项，并重新标注选项字母（文本选项的前缀、对象选项的 key 字段）
+         */
+        public List<Object> displayOptions(List<?> options) {
+            if (optionOrder == null || optionOrder.length != options.size()) {
+                return new ArrayList<>(options);
+            }
+            List<Object> result = new ArrayList<>(options.size());
+            for (int i = 0; i < optionOrder.length; i++) {
+                Object option = options.get(optionOrder[i]);
+                if (option instanceof String text && OPTION_LABEL.matcher(text).find()) {
+                    option = (char) ('A' + i) + ". " + OPTION_LABEL.matcher(text).replaceFirst("");
+                } else if (option instanceof Map<?, ?> map && map.containsKey("key")) {
+                    Map<Object, Object> relabeled = new LinkedHashMap<>(map);
+                    relabeled.put("key", String.valueOf((char) ('A' + i)));
+                    option = relabeled;
+                }
+                result.add(option);
+            }
+            return result;
+        }
+
+        /**
+         * 将考生按展示字母作答的答案还原为原选项字母
+         * 原选项字母按下标推算，对象选项的 key 与下标不一致时组卷不会打乱选项
+         */
+        public Object toOriginalAnswer(Object userAnswer) {
+            if (optionOrder == null || userAnswer == null) {
+                return userAnswer;
+            }
+            if (userAnswer instanceof Map<?, ?> map) {
+                Map<Object, Object> result = new LinkedHashMap<>(map);
+                result.computeIfPresent("answer", (key, value) -> toOriginalValue(value));
+                return result;
+            }
+            return toOriginalValue(userAnswer);
+        }
+
+        private Object toOriginalValue(Object value) {
+            if (value instanceof Collection<?> values) {
+                List<Object> result = new ArrayList<>(values.size());
+                for (Object label : values) {
+                    result.add(toOriginalLabel(label));
+                }
+                return result;
+            }
+            return toOriginalLabel(value);
+        }
+
+        private Object toOriginalLabel(Object label) {
+            if (!(label instanceof String text) || text.length() != 1) {
+                return label;
+            }
+            char c = Character.toUpperCase(text.charAt(0));
+            int index = c - 'A';
+            if (index < 0 || index >= optionOrder.length) {
+                return label;
+            }
+            return String.valueOf((char) ('A' + optionOrder[index]));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.springboot.tiku.service.exam;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.common.ResultCode;
+import com.springboot.tiku.entity.Exam;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.exception.BusinessException;
+import com.springboot.tiku.service.sampling.QuestionSampler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 试卷生成器
+ * 固定试卷使用 Exam.questionIds；按题型配置组卷时，非随机试卷首次组卷后写回 questionIds 冻结，所有考生共用同一套题，
+ * 随机试卷则每位考生单独抽题。randomQuestion / randomOption 时按考生打乱题目顺序和单选、多选的选项顺序。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExamPaperGenerator {
+
+    private final QuestionSampler questionSampler;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 为一名考生生成试卷
+     */
+    public ExamPaper generate(Exam exam) {
+        Map<Question.QuestionType, TypeConfig> config = parseConfig(exam);
+        boolean randomQuestion = Boolean.TRUE.equals(exam.getRandomQuestion());
+
+        List<Question> questions;
+        List<Long> fixedIds = parseIds(exam.getQuestionIds());
+        if (!fixedIds.isEmpty()) {
+            questions = questionSampler.fetch(fixedIds);
+            if (randomQuestion) {
+                Collections.shuffle(questions, ThreadLocalRandom.current());
+            }
+        } else if (!config.isEmpty()) {
+            questions = sample(exam, config);
+            if (!randomQuestion) {
+                questions = freeze(exam, questions);
+            }
+        } else {
+            questions = List.of();
+        }
+
+        if (questions.isEmpty()) {
+            throw new BusinessException(ResultCode.EXAM_NOT_FOUND, "试卷没有可用题目");
+        }
+
+        boolean randomOption = Boolean.TRUE.equals(exam.getRandomOption());
+        List<ExamPaper.Item> items = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            TypeConfig typeConfig = config.get(question.getType());
+            BigDecimal score = typeConfig != null && typeConfig.scorePerQuestion() != null
+                    ? typeConfig.scorePerQuestion() : question.getScore();
+            int[] optionOrder = randomOption ? shuffledOptionOrder(question) : null;
+            items.add(new ExamPaper.Item(question.getId(), score, optionOrder));
+        }
+        return new ExamPaper(List.copyOf(items));
+    }
+
+    /**
+     * 按题型配置抽题（按配置顺序排列）
+     */
+    private List<Question> sample(Exam exam, Map<Question.QuestionType, TypeConfig> config) {
+        List<Question> questions = new ArrayList<>();
+        config.forEach((type, typeConfig) -> {
+            List<Question> sampled = questionSampler.sampleBySubjectAndType(exam.getSubjectId(), type, 1, typeConfig.count());
+            if (sampled.size() < typeConfig.count()) {
+                log.warn("题库题目不足：examId={}, type={}, 需要{}，实际{}", exam.getId(), type, typeConfig.count(), sampled.size());
+            }
+            questions.addAll(sampled);
+        });
+        return questions;
+    }
+
+    /**
+     * 冻结非随机试卷：仅第一次组卷写入 questionIds，并发组卷时以先写入的为准
+     */
+    private List<Question> freeze(Exam exam, List<Question> questions) {
+        List<Long> ids = questions.stream().map(Question::getId).toList();
+        int updated = jdbcTemplate.update(
+                "UPDATE exam SET question_ids = ?, updated_at = NOW() WHERE id = ? AND question_ids IS NULL",
+                toJson(ids), exam.getId());
+        if (updated > 0) {
+            exam.setQuestionIds(toJson(ids));
+            log.info("试卷已冻结：examId={}, 题目数={}", exam.getId(), ids.size());
+            return questions;
+        }
+        String frozen = jdbcTemplate.queryForObject("SELECT question_ids FROM exam WHERE id = ?", String.class, exam.getId());
+        exam.setQuestionIds(frozen);
+        return questionSampler.fetch(parseIds(frozen));
+    }
+
+    /**
+     * 单选、多选题的随机选项顺序
+     */
+    private int[] shuffledOptionOrder(Question question) {
+        if (question.getType() != Question.QuestionType.SINGLE && question.getType() != Question.QuestionType.MULTIPLE) {
+            return null;
+        }
+        int size = optionCount(question);
+        if (size < 2) {
+            return null;
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Random random = ThreadLocalRandom.current();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    private int optionCount(Question question) {
+        if (question.getOptions() == null || question.getOptions().isEmpty()) {
+            return 0;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(question.getOptions());
+            if (!node.isArray()) {
+                return 0;
+            }
+            // 对象选项的 key 必须依次为 A、B、C…，否则答案无法按下标还原，不打乱
+            for (int i = 0; i < node.size(); i++) {
+                JsonNode key = node.get(i).get("key");
+                if (key != null && !key.asText().trim().equalsIgnoreCase(String.valueOf((char) ('A' + i)))) {
+                    return 0;
+                }
+            }
+            return node.size();
+        } catch (Exception e) {
+            log.warn("解析选项失败：questionId={}", question.getId());
+            return 0;
+        }
+    }
+
+    /**
+     * 解析题型配置：{"single": {"count": 30, "scorePerQuestion": 2}, ...}
+     */
+    private Map<Question.QuestionType, TypeConfig> parseConfig(Exam exam) {
+        Map<Question.QuestionType, TypeConfig> config = new LinkedHashMap<>();
+        if (exam.getQuestionConfig() == null || exam.getQuestionConfig().isBlank()) {
+            return config;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(exam.getQuestionConfig());
+            root.fields().forEachRemaining(entry -> {
+                Question.QuestionType type;
+                try {
+                    type = Question.QuestionType.valueOf(entry.getKey().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    log.warn("试卷题型配置无法识别：examId={}, type={}", exam.getId(), entry.getKey());
+                    return;
+                }
+                JsonNode value = entry.getValue();
+                int count = value.path("count").asInt(0);
+                BigDecimal score = value.hasNonNull("scorePerQuestion") ? value.get("scorePerQuestion").decimalValue() : null;
+                if (count > 0) {
+                    config.put(type, new TypeConfig(count, score));
+                }
+            });
+        } catch (Exception e) {
+            log.error("解析试卷题型配置失败：examId={}", exam.getId(), e);
+        }
+        return config;
+    }
+
+    private List<Long> parseIds(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (JsonNode node : objectMapper.readTree(json)) {
+                ids.add(node.asLong());
+            }
+            return ids;
+        } catch (Exception e) {
+            log.error("解析试卷题目ID失败：{}", json, e);
+            return List.of();
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("序列化试卷失败", e);
+        }
+    }
+
+    /**
+     * 单个题型的组卷配置
+     */
+    private record TypeConfig(int count, BigDecimal scorePerQuestion) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.springboot.tiku.service.exam;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进行中的考试会话
+ * 作答只写入内存，由 {@link ExamSessionStore} 定时把有变化的会话批量写入检查点。
+ */
+@Getter
+public class ExamSession {
+
+    private final Long recordId;
+    private final Long examId;
+    private final Long userId;
+    private final ExamPaper paper;
+    private final LocalDateTime startTime;
+    private final LocalDateTime deadline;
+
+    /**
+     * 题目ID -> 考生答案（按展示的选项字母）
+     */
+    private final Map<Long, Object> answers;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean finishing = new AtomicBoolean();
+
+    public ExamSession(Long recordId, Long examId, Long userId, ExamPaper paper,
+                       LocalDateTime startTime, LocalDateTime deadline, Map<Long, Object> answers) {
+        this.recordId = recordId;
+        this.examId = examId;
+        this.userId = userId;
+        this.paper = paper;
+        this.startTime = startTime;
+        this.deadline = deadline;
+        this.answers = new ConcurrentHashMap<>();
+        answers.forEach((questionId, answer) -> {
+            if (questionId != null && answer != null) {
+                this.answers.put(questionId, answer);
+            }
+        });
+    }
+
+    /**
+     * 保存作答（答案为null表示清空）
+     */
+    public void putAnswer(Long questionId, Object answer) {
+        if (answer == null) {
+            answers.remove(questionId);
+        } else {
+            answers.put(questionId, answer);
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * 作答快照
+     */
+    public Map<Long, Object> snapshotAnswers() {
+        return new HashMap<>(answers);
+    }
+
+    /**
+     * 剩余秒数
+     */
+    public long remainingSeconds(LocalDateTime now) {
+        return Math.max(0, Duration.between(now, deadline).getSeconds());
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !now.isBefore(deadline);
+    }
+
+    /**
+     * 取出并清除变更标记（检查点写入时调用）
+     */
+    boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * 开始交卷，同一会话只有一个线程能成功
+     */
+    public boolean beginFinish() {
+        return finishing.compareAndSet(false, true);
+    }
+
+    /**
+     * 交卷失败后恢复，允许重试
+     */
+    public void abortFinish() {
+        finishing.set(false);
+    }
+
+    public boolean isFinishing() {
+        return finishing.get();
+    }
+}
@@ -0,0 +1,250 @@
+package com.springboot.tiku.service.exam;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.entity.AnswerRecord;
+import com.springboot.tiku.entity.ExamRecord;
+import com.springboot.tiku.repository.ExamRecordRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 考试会话存储
+ * 进行中的会话保存在内存中，作答不直接写库；定时把有变化的会话作答批量写入 exam_record.answers 作为检查点，
+ * 节点重启或会话不在内存时从考试记录恢复。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExamSessionStore {
+
+    private static final TypeReference<Map<Long, Object>> ANSWERS_TYPE = new TypeReference<>() {
+    };
+
+    private static final String CHECKPOINT_SQL =
+            "UPDATE exam_record SET answers = ?, updated_at = NOW() WHERE id = ? AND status = 'ONGOING'";
+
+    private static final String FINISH_SQL =
+            "UPDATE exam_record SET answers = ?, score = ?, correct_count = ?, wrong_count = ?, pending_count = ?, " +
+            "time_spent = ?, passed = ?, submit_time = ?, status = ?, updated_at = NOW() WHERE id = ? AND status = 'ONGOING'";
+
+    private static final String RESCORE_LOCK_SQL =
+            "SELECT r.paper, e.pass_score FROM exam_record r LEFT JOIN exam e ON e.id = r.exam_id " +
+            "WHERE r.id = ? AND r.status <> 'ONGOING' FOR UPDATE";
+
+    private static final String RESCORE_ANSWERS_SQL =
+            "SELECT a.question_id, a.is_correct, a.score, a.grading_status, q.score AS total_score " +
+            "FROM answer_record a LEFT JOIN question q ON q.id = a.question_id WHERE a.exam_record_id = ?";
+
+    private static final String RESCORE_SQL =
+            "UPDATE exam_record SET score = ?, correct_count = ?, wrong_count = ?, pending_count = ?, passed = ?, " +
+            "updated_at = NOW() WHERE id = ?";
+
+    private static final String PARTICIPANT_SQL =
+            "UPDATE exam SET participant_count = participant_count + 1 WHERE id = ?";
+
+    private final ExamRecordRepository examRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 考试记录ID -> 会话
+     */
+    private final Map<Long, ExamSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 登记新开考的会话
+     */
+    public ExamSession register(ExamRecord record, ExamPaper paper) {
+        ExamSession session = new ExamSession(record.getId(), record.getExamId(), record.getUserId(), paper,
+                record.getStartTime(), record.getDeadline(), Map.of());
+        sessions.put(session.getRecordId(), session);
+        return session;
+    }
+
+    /**
+     * 获取进行中的会话（不在内存时从检查点恢复，已结束返回null）
+     */
+    public ExamSession get(Long recordId) {
+        ExamSession session = sessions.get(recordId);
+        if (session != null) {
+            return session;
+        }
+        ExamRecord record = examRecordRepository.findById(recordId).orElse(null);
+        if (record == null || record.getStatus() != ExamRecord.ExamStatus.ONGOING || record.getPaper() == null) {
+            return null;
+        }
+        ExamSession restored = new ExamSession(record.getId(), record.getExamId(), record.getUserId(),
+                readPaper(record.getPaper()), record.getStartTime(), record.getDeadline(), readAnswers(record.getAnswers()));
+        ExamSession existing = sessions.putIfAbsent(recordId, restored);
+        if (existing == null) {
+            log.info("考试会话已从检查点恢复：recordId={}, 已答{}题", recordId, restored.getAnswers().size());
+        }
+        return existing != null ? existing : restored;
+    }
+
+    /**
+     * 移除会话
+     */
+    public void remove(Long recordId) {
+        sessions.remove(recordId);
+    }
+
+    /**
+     * 内存中已到截止时间的会话
+     */
+    public List<ExamSession> expired(LocalDateTime now) {
+        List<ExamSession> result = new ArrayList<>();
+        for (ExamSession session : sessions.values()) {
+            if (session.isExpired(now) && !session.isFinishing()) {
+                result.add(session);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 定时批量写入检查点
+     */
+    @Scheduled(fixedDelayString = "${exam.checkpoint-interval-ms:15000}")
+    public void scheduledCheckpoint() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            log.error("考试作答检查点写入失败，下次重试", e);
+        }
+    }
+
+    /**
+     * 将有变化的会话作答批量写库
+     */
+    public synchronized void checkpoint() {
+        List<ExamSession> changed = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        for (ExamSession session : sessions.values()) {
+            if (!session.isFinishing() && session.takeDirty()) {
+                changed.add(session);
+                args.add(new Object[]{writeJson(session.snapshotAnswers()), session.getRecordId()});
+            }
+        }
+        if (args.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(CHECKPOINT_SQL, args);
+            log.debug("考试作答检查点已写入：{}个会话", args.size());
+        } catch (RuntimeException e) {
+            changed.forEach(ExamSession::markDirty);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    /**
+     * 写入交卷结果并累加参考人数（须在交卷事务中调用），记录已不是进行中时返回false
+     */
+    public boolean finish(ExamSession session, BigDecimal score, int correctCount, int wrongCount, int pendingCount,
+                          int timeSpent, Boolean passed, LocalDateTime submitTime, ExamRecord.ExamStatus status) {
+        int updated = jdbcTemplate.update(FINISH_SQL,
+                writeJson(session.snapshotAnswers()), score, correctCount, wrongCount, pendingCount, timeSpent,
+                passed, Timestamp.valueOf(submitTime), status.name(), session.getRecordId());
+        if (updated == 0) {
+            return false;
+        }
+        jdbcTemplate.update(PARTICIPANT_SQL, session.getExamId());
+        return true;
+    }
+
+    /**
+     * 交卷后有答题记录完成AI判题时，按冻结试卷的分值重算考试得分（须在判题事务中调用）
+     * 仍有AI判题中的题目时是否及格保持为空，最后一题判完后按及格线判定。
+     */
+    public void rescore(Long recordId) {
+        List<Map<String, Object>> exam = jdbcTemplate.queryForList(RESCORE_LOCK_SQL, recordId);
+        if (exam.isEmpty() || exam.get(0).get("paper") == null) {
+            return;
+        }
+        ExamPaper paper = readPaper((String) exam.get(0).get("paper"));
+        BigDecimal passScore = (BigDecimal) exam.get(0).get("pass_score");
+
+        BigDecimal score = BigDecimal.ZERO;
+        int correctCount = 0;
+        int pendingCount = 0;
+        for (Map<String, Object> answer : jdbcTemplate.queryForList(RESCORE_ANSWERS_SQL, recordId)) {
+            ExamPaper.Item item = paper.find(((Number) answer.get("question_id")).longValue());
+            if (item == null) {
+                continue;
+            }
+            if (AnswerRecord.GradingStatus.PENDING.name().equals(answer.get("grading_status"))) {
+                pendingCount++;
+                continue;
+            }
+            Boolean isCorrect = toBoolean(answer.get("is_correct"));
+            if (Boolean.TRUE.equals(isCorrect)) {
+                correctCount++;
+            }
+            score = score.add(item.earnedScore(isCorrect,
+                    (BigDecimal) answer.get("score"), (BigDecimal) answer.get("total_score")));
+        }
+
+        int wrongCount = paper.items().size() - correctCount - pendingCount;
+        Boolean passed = pendingCount == 0 && passScore != null ? score.compareTo(passScore) >= 0 : null;
+        jdbcTemplate.update(RESCORE_SQL, score, correctCount, wrongCount, pendingCount, passed, recordId);
+        log.info("考试得分已重算：recordId={}, 得分={}, 判题中={}", recordId, score, pendingCount);
+    }
+
+    private Boolean toBoolean(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Boolean b ? b : ((Number) value).intValue() != 0;
+    }
+
+    public String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("序列化考试数据失败", e);
+        }
+    }
+
+    private ExamPaper readPaper(String json) {
+        try {
+            return objectMapper.readValue(json, ExamPaper.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("解析冻结试卷失败", e);
+        }
+    }
+
+    private Map<Long, Object> readAnswers(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, ANSWERS_TYPE);
+        } catch (Exception e) {
+            log.error("解析作答检查点失败，按未作答恢复", e);
+            return Map.of();
+        }
+    }
+}
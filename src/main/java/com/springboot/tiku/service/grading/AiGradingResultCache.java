@@ -0,0 +1,351 @@
+package com.springboot.tiku.service.grading;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.dto.grading.GradingResult;
+import com.springboot.tiku.entity.AiGradingCache;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.repository.AiGradingCacheRepository;
+import com.springboot.tiku.service.config.SystemConfigChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI判题结果缓存
+ * 以（题目ID、题目评分版本、规范化后的学生答案）的哈希为键，两级存储：内存中按 LRU 保留最近使用的结果，
+ * 持久层写入 ai_grading_cache 表，重启或内存淘汰后仍可命中；两级都按 TTL 过期。
+ * 题目版本是题型、题干、参考答案、评分标准和分值的摘要，这些内容变化后旧结果自然不再命中，
+ * 题目更新或删除时再由 {@link #evictQuestion} 清理旧条目；判题模型或服务地址变更时整体清空。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiGradingResultCache {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO ai_grading_cache (cache_key, question_id, result, expires_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE result = VALUES(result), expires_at = VALUES(expires_at), updated_at = NOW()";
+
+    private static final String PURGE_SQL = "DELETE FROM ai_grading_cache WHERE expires_at < ? LIMIT 1000";
+
+    /**
+     * 决定判题结果的系统配置（模型、服务地址），变化后已缓存的结果不再代表当前模型
+     */
+    private static final Set<String> MODEL_CONFIG_KEYS = Set.of("ai.modelName", "ai.apiUrl");
+
+    private final AiGradingCacheRepository aiGradingCacheRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 是否启用判题结果缓存
+     */
+    @Value("${ai.grading.cache-enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 内存中最多缓存的结果数
+     */
+    @Value("${ai.grading.cache.max-size:2000}")
+    private int maxSize;
+
+    /**
+     * 缓存有效期（小时）
+     */
+    @Value("${ai.grading.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    /**
+     * 内存 LRU（访问顺序，超出上限淘汰最久未使用的条目）
+     */
+    private Map<String, Entry> memory;
+
+    private Counter memoryHits;
+    private Counter dbHits;
+    private Counter misses;
+    private Timer llmTimer;
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        memory = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        memoryHits = requests("memory");
+        dbHits = requests("db");
+        misses = requests("miss");
+        llmTimer = Timer.builder("ai.grading.llm.latency")
+                .description("AI判题调用大模型的耗时")
+                .register(meterRegistry);
+        Gauge.builder("ai.grading.cache.hit.rate", this, AiGradingResultCache::hitRate)
+                .description("AI判题结果缓存命中率")
+                .register(meterRegistry);
+        Gauge.builder("ai.grading.cache.saved.calls", this, AiGradingResultCache::savedCalls)
+                .description("因缓存命中省去的大模型调用次数")
+                .register(meterRegistry);
+        Gauge.builder("ai.grading.cache.saved.seconds", this, AiGradingResultCache::savedSeconds)
+                .description("因缓存命中省去的大模型耗时估算（命中次数 × 平均调用耗时）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询缓存的判题结果（每次返回新的副本），未命中返回null
+     */
+    public GradingResult get(Question question, String studentAnswer) {
+        if (!enabled || question.getId() == null) {
+            return null;
+        }
+        String key = cacheKey(question, studentAnswer);
+        LocalDateTime now = LocalDateTime.now();
+
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+            if (entry != null && entry.expiresAt().isBefore(now)) {
+                memory.remove(key);
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            GradingResult result = deserialize(entry.json());
+            if (result != null) {
+                memoryHits.increment();
+                return result;
+            }
+        }
+
+        try {
+            AiGradingCache row = aiGradingCacheRepository.findByCacheKey(key).orElse(null);
+            if (row != null && row.getExpiresAt().isAfter(now)) {
+                GradingResult result = deserialize(row.getResult());
+                if (result != null) {
+                    remember(key, new Entry(row.getQuestionId(), row.getResult(), row.getExpiresAt()));
+                    dbHits.increment();
+                    return result;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取AI判题缓存失败：questionId={}", question.getId(), e);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 保存判题结果
+     */
+    public void put(Question question, String studentAnswer, GradingResult result) {
+        if (!enabled || question.getId() == null) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("序列化AI判题结果失败：questionId={}", question.getId(), e);
+            return;
+        }
+        String key = cacheKey(question, studentAnswer);
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+        remember(key, new Entry(question.getId(), json, expiresAt));
+        try {
+            jdbcTemplate.update(UPSERT_SQL, key, question.getId(), json, Timestamp.valueOf(expiresAt));
+        } catch (Exception e) {
+            log.warn("写入AI判题缓存失败：questionId={}", question.getId(), e);
+        }
+    }
+
+    /**
+     * 记录一次大模型调用耗时
+     */
+    public void recordLlmCall(long nanos) {
+        llmTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 使指定题目的全部缓存结果失效
+     */
+    public void evictQuestion(Long questionId) {
+        synchronized (memory) {
+            memory.values().removeIf(entry -> entry.questionId().equals(questionId));
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM ai_grading_cache WHERE question_id = ?", questionId);
+        if (deleted > 0) {
+            log.info("题目评分依据已变化，清除AI判题缓存：questionId={}, 条数={}", questionId, deleted);
+        }
+    }
+
+    /**
+     * 判题模型或服务地址变更后清空全部缓存结果
+     * 每个节点的配置快照刷新到新值时都会收到事件，各自清理内存；事件可能在配置事务提交后的回调中发布，删除在独立事务中执行。
+     */
+    @EventListener
+    public void onSystemConfigChanged(SystemConfigChangedEvent event) {
+        if (event.changedKeys().stream().noneMatch(MODEL_CONFIG_KEYS::contains)) {
+            return;
+        }
+        synchronized (memory) {
+            memory.clear();
+        }
+        try {
+            Integer deleted = newTransaction.execute(status -> jdbcTemplate.update("DELETE FROM ai_grading_cache"));
+            log.info("AI判题模型配置已变化，清除AI判题缓存：{}条", deleted);
+        } catch (Exception e) {
+            log.warn("清除AI判题缓存失败", e);
+        }
+    }
+
+    /**
+     * 定时清理过期的持久化条目（每次最多删除1000条，避免长事务）
+     */
+    @Scheduled(fixedDelayString = "${ai.grading.cache.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now()));
+            if (deleted > 0) {
+                log.debug("清理过期AI判题缓存：{}条", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理过期AI判题缓存失败", e);
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (memory) {
+            stats.put("memorySize", memory.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("memoryHits", (long) memoryHits.count());
+        stats.put("dbHits", (long) dbHits.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("hitRate", hitRate());
+        stats.put("llmCalls", llmTimer.count());
+        stats.put("avgLlmLatencyMs", llmTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("savedLlmCalls", (long) savedCalls());
+        stats.put("savedSeconds", savedSeconds());
+        return stats;
+    }
+
+    /**
+     * 题目的评分版本（影响判题结果的字段摘要）
+     */
+    public static String version(Question question) {
+        return sha256(String.join("\u0000",
+                String.valueOf(question.getType()),
+                String.valueOf(question.getTitle()),
+                String.valueOf(question.getContent()),
+                String.valueOf(question.getAnswer()),
+                String.valueOf(question.getScoringCriteria()),
+                question.getScore() != null ? question.getScore().stripTrailingZeros().toPlainString() : "null"));
+    }
+
+    /**
+     * 规范化学生答案：全角转半角（NFKC）、去除空白、英文转小写
+     */
+    static String normalize(String answer) {
+        String normalized = Normalizer.normalize(answer, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        normalized.codePoints()
+                .filter(c -> !Character.isWhitespace(c) && !Character.isSpaceChar(c))
+                .forEach(sb::appendCodePoint);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private String cacheKey(Question question, String studentAnswer) {
+        return sha256(question.getId() + ":" + version(question) + ":" + normalize(studentAnswer));
+    }
+
+    private void remember(String key, Entry entry) {
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+    }
+
+    private GradingResult deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, GradingResult.class);
+        } catch (Exception e) {
+            log.warn("反序列化AI判题缓存失败", e);
+            return null;
+        }
+    }
+
+    private double hitRate() {
+        double hits = memoryHits.count() + dbHits.count();
+        double total = hits + misses.count();
+        return total > 0 ? hits / total : 0.0;
+    }
+
+    private double savedCalls() {
+        return memoryHits.count() + dbHits.count();
+    }
+
+    private double savedSeconds() {
+        return savedCalls() * llmTimer.mean(TimeUnit.SECONDS);
+    }
+
+    private Counter requests(String result) {
+        return Counter.builder("ai.grading.cache.requests")
+                .description("AI判题结果缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 内存条目（题目ID + 结果JSON + 过期时间）
+     */
+    private record Entry(Long questionId, String json, LocalDateTime expiresAt) {
+    }
+}
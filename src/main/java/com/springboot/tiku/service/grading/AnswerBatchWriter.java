@@ -0,0 +1,202 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.AnswerRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 答题结果批量写入
+ * answer_record 使用自增主键，Hibernate 无法批量插入，这里直接用JDBC批处理写入并回填主键；
+ * 错题本按 (user_id, question_id) 唯一键批量 upsert；AI判题前按 claim_token 认领记录，结果按认领标识批量回写。须在调用方事务中使用。
+ */
+@Component
+@RequiredArgsConstructor
+public class AnswerBatchWriter {
+
+    private static final String INSERT_ANSWER_RECORD_SQL =
+            "INSERT INTO answer_record (user_id, question_id, practice_mode, exam_id, exam_record_id, user_answer, " +
+            "is_correct, score, grading_type, grading_status, time_spent, is_marked, answered_at, graded_at, " +
+            "created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)";
+
+    /**
+     * 答错：新增或累加错误次数，并立即进入复习队列（MySQL按顺序求值，status 判断时 wrong_count 已是累加后的值）
+     */
+    private static final String UPSERT_WRONG_QUESTION_SQL =
+            "INSERT INTO wrong_question (user_id, question_id, wrong_count, status, removed, " +
+            "due_at, interval_days, ease_factor, repetitions, created_at, updated_at) " +
+            "VALUES (?, ?, 1, 'WRONG', 0, NOW(), 0, " + ReviewSchedule.INITIAL_EASE + ", 0, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE wrong_count = wrong_count + 1, " +
+            "status = IF(wrong_count >= 3, 'REPEATED_WRONG', 'WRONG'), removed = 0, " +
+            "ease_factor = IF(ease_factor IS NULL, " + ReviewSchedule.INITIAL_EASE + ", " +
+            "GREATEST(" + ReviewSchedule.MIN_EASE + ", ease_factor - " + ReviewSchedule.EASE_PENALTY + ")), " +
+            "repetitions = 0, interval_days = 0, due_at = NOW(), updated_at = NOW()";
+
+    /**
+     * 答对：已有错题标记为已掌握，并按 SM-2 推迟下次复习（与 {@link ReviewSchedule#onCorrect} 一致）
+     */
+    private static final String MASTER_WRONG_QUESTION_SQL =
+            "UPDATE wrong_question SET status = 'MASTERED', " +
+            "repetitions = COALESCE(repetitions, 0) + 1, " +
+            "interval_days = CASE repetitions WHEN 1 THEN 1 WHEN 2 THEN 6 " +
+            "ELSE LEAST(" + ReviewSchedule.MAX_INTERVAL_DAYS + ", " +
+            "ROUND(COALESCE(interval_days, 1) * COALESCE(ease_factor, " + ReviewSchedule.INITIAL_EASE + "))) END, " +
+            "ease_factor = COALESCE(ease_factor, " + ReviewSchedule.INITIAL_EASE + ") + " + ReviewSchedule.EASE_BONUS + ", " +
+            "due_at = DATE_ADD(NOW(), INTERVAL interval_days DAY), updated_at = NOW() " +
+            "WHERE user_id = ? AND question_id = ?";
+
+    private static final String UPDATE_GRADED_SQL =
+            "UPDATE answer_record SET is_correct = ?, score = ?, grading_status = ?, graded_at = ?, " +
+            "claim_token = NULL, claimed_at = NULL, regrade_attempts = ?, updated_at = NOW() " +
+            "WHERE id = ? AND claim_token = ?";
+
+    private static final String RELEASE_CLAIM_SQL =
+            "UPDATE answer_record SET claim_token = NULL, claimed_at = NULL, " +
+            "regrade_attempts = regrade_attempts + ?, updated_at = NOW() WHERE id = ? AND claim_token = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量插入答题记录，并回填主键和审计时间
+     */
+    public void insertAnswerRecords(List<AnswerRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ANSWER_RECORD_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (AnswerRecord record : records) {
+                    record.setCreatedAt(now);
+                    record.setUpdatedAt(now);
+                    ps.setLong(1, record.getUserId());
+                    ps.setLong(2, record.getQuestionId());
+                    ps.setString(3, record.getPracticeMode());
+                    ps.setObject(4, record.getExamId(), Types.BIGINT);
+                    ps.setObject(5, record.getExamRecordId(), Types.BIGINT);
+                    ps.setString(6, record.getUserAnswer());
+                    ps.setObject(7, record.getIsCorrect(), Types.BOOLEAN);
+                    ps.setBigDecimal(8, record.getScore());
+                    ps.setString(9, record.getGradingType() != null ? record.getGradingType().name() : null);
+                    ps.setString(10, record.getGradingStatus().name());
+                    ps.setObject(11, record.getTimeSpent(), Types.INTEGER);
+                    ps.setTimestamp(12, toTimestamp(record.getAnsweredAt()));
+                    ps.setTimestamp(13, toTimestamp(record.getGradedAt()));
+                    ps.setTimestamp(14, toTimestamp(now));
+                    ps.setTimestamp(15, toTimestamp(now));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < records.size()) {
+                        records.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 批量更新错题本（题目ID -> 是否答对，答对只处理已有错题，待人工复核的不处理）
+     */
+    public void applyWrongQuestions(Long userId, Map<Long, Boolean> results) {
+        List<Object[]> wrongArgs = new ArrayList<>();
+        List<Object[]> masteredArgs = new ArrayList<>();
+        results.forEach((questionId, isCorrect) -> {
+            if (Boolean.FALSE.equals(isCorrect)) {
+                wrongArgs.add(new Object[]{userId, questionId});
+            } else if (Boolean.TRUE.equals(isCorrect)) {
+                masteredArgs.add(new Object[]{userId, questionId});
+            }
+        });
+        if (!wrongArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_WRONG_QUESTION_SQL, wrongArgs);
+        }
+        if (!masteredArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(MASTER_WRONG_QUESTION_SQL, masteredArgs);
+        }
+    }
+
+    /**
+     * 认领处于指定状态、且未被认领或认领已超过租约的记录，返回认领成功的条数
+     */
+    public int claim(String claimToken, List<Long> answerRecordIds, Collection<AnswerRecord.GradingStatus> statuses,
+                     LocalDateTime claimedAt, LocalDateTime leaseCutoff) {
+        if (answerRecordIds.isEmpty() || statuses.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(answerRecordIds.size() + statuses.size() + 3);
+        args.add(claimToken);
+        args.add(toTimestamp(claimedAt));
+        args.addAll(answerRecordIds);
+        statuses.forEach(status -> args.add(status.name()));
+        args.add(toTimestamp(leaseCutoff));
+        return jdbcTemplate.update("UPDATE answer_record SET claim_token = ?, claimed_at = ? " +
+                "WHERE id IN (" + placeholders(answerRecordIds.size()) + ") " +
+                "AND grading_status IN (" + placeholders(statuses.size()) + ") " +
+                "AND (claimed_at IS NULL OR claimed_at < ?)", args.toArray());
+    }
+
+    /**
+     * 锁定仍由该标识认领的记录，返回记录ID（认领已过期并被其他节点重新认领的记录不返回）
+     */
+    public List<Long> lockClaimed(String claimToken) {
+        return jdbcTemplate.queryForList("SELECT id FROM answer_record WHERE claim_token = ? FOR UPDATE",
+                Long.class, claimToken);
+    }
+
+    /**
+     * 批量回写已认领记录的判题结果并释放认领，返回每条记录的更新行数（认领已失效的为0）
+     */
+    public int[] updateGradedRecords(String claimToken, List<AnswerRecord> records) {
+        if (records.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> args = new ArrayList<>(records.size());
+        for (AnswerRecord record : records) {
+            args.add(new Object[]{record.getIsCorrect(), record.getScore(), record.getGradingStatus().name(),
+                    toTimestamp(record.getGradedAt()), record.getRegradeAttempts() != null ? record.getRegradeAttempts() : 0,
+                    record.getId(), claimToken});
+        }
+        return jdbcTemplate.batchUpdate(UPDATE_GRADED_SQL, args);
+    }
+
+    /**
+     * 批量释放认领（attempted 为 true 时计入一次重新判题）
+     */
+    public void releaseClaims(String claimToken, List<Long> answerRecordIds, boolean attempted) {
+        if (answerRecordIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(answerRecordIds.size());
+        for (Long id : answerRecordIds) {
+            args.add(new Object[]{attempted ? 1 : 0, id, claimToken});
+        }
+        jdbcTemplate.batchUpdate(RELEASE_CLAIM_SQL, args);
+    }
+
+    private String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+}
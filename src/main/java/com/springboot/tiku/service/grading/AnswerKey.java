@@ -0,0 +1,296 @@
+package com.springboot.tiku.service.grading;
+
+import com.alibaba.fastjson2.JSON;
+import com.springboot.tiku.entity.Question;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 预编译的标准答案
+ * 题目答案JSON只在编译时解析一次，判题时直接与用户答案的 answer 值比较，不再解析标准答案或构建临时集合。
+ * 比较语义与逐次解析JSON的判题方式保持一致。
+ */
+public interface AnswerKey {
+
+    /**
+     * 判断用户答案（已取出的 answer 值）是否正确
+     */
+    boolean matches(Object userValue);
+
+    /**
+     * 按题型编译标准答案
+     */
+    static AnswerKey compile(Question.QuestionType type, String answer) {
+        Object value = answerValue(answer);
+        return switch (type) {
+            case SINGLE -> new SingleKey(value != null ? value.toString() : null);
+            case JUDGE -> new JudgeKey(toBoolean(value));
+            case MULTIPLE -> MultipleKey.of((Collection<?>) value);
+            case FILL -> FillKey.of((List<?>) value);
+            case ORDERING -> OrderingKey.of((List<?>) value);
+            case MATCHING -> MatchingKey.of((Map<?, ?>) value);
+            default -> throw new IllegalArgumentException("不支持的题型：" + type);
+        };
+    }
+
+    /**
+     * 取出答案中的 answer 值（简单字符串视为答案本身）
+     */
+    static Object answerValue(Object answer) {
+        if (answer == null) {
+            return null;
+        }
+        if (answer instanceof String answerStr) {
+            if (!answerStr.trim().startsWith("{")) {
+                return answerStr;
+            }
+            return JSON.parseObject(answerStr).get("answer");
+        }
+        if (answer instanceof Map<?, ?> map) {
+            return map.get("answer");
+        }
+        return JSON.parseObject(JSON.toJSONString(answer)).get("answer");
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number number) {
+            return number.intValue() == 1;
+        }
+        String str = value.toString().trim();
+        if ("true".equalsIgnoreCase(str) || "1".equals(str)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(str) || "0".equals(str)) {
+            return false;
+        }
+        return null;
+    }
+
+    /**
+     * 标准化字符串（去除空格、转小写）
+     */
+    private static String normalize(Object value) {
+        return value == null ? "" : value.toString().trim().toLowerCase();
+    }
+
+    /**
+     * 值的规范形式：整数统一为Long，其余数值和字符串按原样比较
+     */
+    private static Object canonical(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return value;
+    }
+
+    /**
+     * 单选题：忽略大小写比较
+     */
+    record SingleKey(String answer) implements AnswerKey {
+        @Override
+        public boolean matches(Object userValue) {
+            return answer != null && userValue != null && answer.equalsIgnoreCase(userValue.toString());
+        }
+    }
+
+    /**
+     * 判断题
+     */
+    record JudgeKey(Boolean answer) implements AnswerKey {
+        @Override
+        public boolean matches(Object userValue) {
+            return answer != null && answer.equals(toBoolean(userValue));
+        }
+    }
+
+    /**
+     * 多选题：选项标签为单个字母时编译为位掩码（A-Z占0-25位，a-z占26-51位），否则按集合比较
+     */
+    record MultipleKey(long mask, Set<String> labels) implements AnswerKey {
+
+        static MultipleKey of(Collection<?> values) {
+            long mask = 0;
+            Set<String> labels = new HashSet<>();
+            boolean allLetters = true;
+            for (Object value : values) {
+                String label = String.valueOf(value);
+                labels.add(label);
+                long bit = bit(label);
+                if (bit == 0) {
+                    allLetters = false;
+                }
+                mask |= bit;
+            }
+            return allLetters ? new MultipleKey(mask, null) : new MultipleKey(0, Set.copyOf(labels));
+        }
+
+        @Override
+        public boolean matches(Object userValue) {
+            if (!(userValue instanceof Collection<?> values)) {
+                return false;
+            }
+            if (labels != null) {
+                if (values.size() < labels.size()) {
+                    return false;
+                }
+                Set<String> userLabels = new HashSet<>();
+                for (Object value : values) {
+                    userLabels.add(String.valueOf(value));
+                }
+                return labels.equals(userLabels);
+            }
+            long userMask = 0;
+            for (Object value : values) {
+                long bit = bit(String.valueOf(value));
+                if (bit == 0) {
+                    return false;
+                }
+                userMask |= bit;
+            }
+            return userMask == mask;
+        }
+
+        private static long bit(String label) {
+            if (label.length() != 1) {
+                return 0;
+            }
+            char c = label.charAt(0);
+            if (c >= 'A' && c <= 'Z') {
+                return 1L << (c - 'A');
+            }
+            if (c >= 'a' && c <= 'z') {
+                return 1L << (26 + c - 'a');
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 填空题：每个空预先拆分并标准化可选答案（用|分隔）
+     */
+    record FillKey(String[][] alternatives) implements AnswerKey {
+
+        static FillKey of(List<?> blanks) {
+            String[][] alternatives = new String[blanks.size()][];
+            for (int i = 0; i < blanks.size(); i++) {
+                String[] parts = String.valueOf(blanks.get(i)).split("\\|");
+                for (int j = 0; j < parts.length; j++) {
+                    parts[j] = normalize(parts[j]);
+                }
+                alternatives[i] = parts;
+            }
+            return new FillKey(alternatives);
+        }
+
+        @Override
+        public boolean matches(Object userValue) {
+            if (!(userValue instanceof List<?> values) || values.size() != alternatives.length) {
+                return false;
+            }
+            for (int i = 0; i < alternatives.length; i++) {
+                String user = normalize(values.get(i));
+                boolean matched = false;
+                for (String alternative : alternatives[i]) {
+                    if (alternative.equals(user)) {
+                        matched = true;
+                        break;
+                    }
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 排序题：整数序列编译为int数组，否则按规范值逐项比较
+     */
+    record OrderingKey(int[] order, Object[] items) implements AnswerKey {
+
+        static OrderingKey of(List<?> values) {
+            int[] order = new int[values.size()];
+            boolean allInts = true;
+            for (int i = 0; i < values.size(); i++) {
+                Object value = canonical(values.get(i));
+                if (value instanceof Long number && number == number.intValue()) {
+                    order[i] = number.intValue();
+                } else {
+                    allInts = false;
+                }
+            }
+            if (allInts) {
+                return new OrderingKey(order, null);
+            }
+            Object[] items = new Object[values.size()];
+            for (int i = 0; i < values.size(); i++) {
+                items[i] = canonical(values.get(i));
+            }
+            return new OrderingKey(null, items);
+        }
+
+        @Override
+        public boolean matches(Object userValue) {
+            if (!(userValue instanceof List<?> values)) {
+                return false;
+            }
+            if (order != null) {
+                if (values.size() != order.length) {
+                    return false;
+                }
+                for (int i = 0; i < order.length; i++) {
+                    if (!(canonical(values.get(i)) instanceof Long number) || number != order[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            if (values.size() != items.length) {
+                return false;
+            }
+            for (int i = 0; i < items.length; i++) {
+                if (!Objects.equals(items[i], canonical(values.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 匹配题：规范化的 左项 -> 右项 映射
+     */
+    record MatchingKey(Map<String, Object> pairs) implements AnswerKey {
+
+        static MatchingKey of(Map<?, ?> values) {
+            Map<String, Object> pairs = new HashMap<>();
+            values.forEach((key, value) -> pairs.put(String.valueOf(key), canonical(value)));
+            return new MatchingKey(Collections.unmodifiableMap(pairs));
+        }
+
+        @Override
+        public boolean matches(Object userValue) {
+            if (!(userValue instanceof Map<?, ?> values) || values.size() != pairs.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                if (!pairs.containsKey(key) || !Objects.equals(pairs.get(key), canonical(entry.getValue()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.Question;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 标准答案编译缓存（题目ID -> 编译后的答案）
+ * 以题目更新时间作为版本，题型、答案内容或版本变化时重新编译；条目数达到上限时整体清空。
+ */
+@Slf4j
+@Component
+public class AnswerKeyCache {
+
+    /**
+     * 最大缓存题目数
+     */
+    @Value("${practice.answer-key.cache-size:10000}")
+    private int maxSize;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 获取题目的编译答案
+     */
+    public AnswerKey get(Question question) {
+        if (question.getId() == null) {
+            return AnswerKey.compile(question.getType(), question.getAnswer());
+        }
+        Entry entry = entries.get(question.getId());
+        if (entry != null && entry.matches(question)) {
+            return entry.key();
+        }
+
+        AnswerKey key = AnswerKey.compile(question.getType(), question.getAnswer());
+        if (entries.size() >= maxSize) {
+            log.debug("标准答案缓存已满，清空后重新编译：{}", entries.size());
+            entries.clear();
+        }
+        entries.put(question.getId(), new Entry(question.getType(), question.getUpdatedAt(), question.getAnswer(), key));
+        return key;
+    }
+
+    /**
+     * 使指定题目的缓存失效
+     */
+    public void evict(Long questionId) {
+        entries.remove(questionId);
+    }
+
+    /**
+     * 缓存条目（题型 + 版本 + 答案原文 + 编译结果）
+     */
+    private record Entry(Question.QuestionType type, LocalDateTime version, String source, AnswerKey key) {
+
+        boolean matches(Question question) {
+            return type == question.getType()
+                    && Objects.equals(version, question.getUpdatedAt())
+                    && Objects.equals(source, question.getAnswer());
+        }
+    }
+}
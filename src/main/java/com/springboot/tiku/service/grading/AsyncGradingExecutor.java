@@ -0,0 +1,160 @@
+package com.springboot.tiku.service.grading;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步AI判题执行器
+ * 固定大小的工作线程池，容量（工作线程数 + 排队上限）由信号量控制：
+ * 提交前先预占名额，名额不足时由调用方直接拒绝，避免请求线程和数据库连接被AI调用长时间占用。
+ * 暴露排队深度、执行中数量、排队等待时间等背压指标（Micrometer + 管理接口）。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AsyncGradingExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 工作线程数
+     */
+    @Value("${ai.grading.async.worker-threads:4}")
+    private int workerThreads;
+
+    /**
+     * 排队上限
+     */
+    @Value("${ai.grading.async.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private Timer waitTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ai-grading-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        permits = new Semaphore(workerThreads + queueCapacity);
+
+        Gauge.builder("grading.async.queue.depth", executor, e -> e.getQueue().size())
+                .description("等待执行的AI判题任务数")
+                .register(meterRegistry);
+        Gauge.builder("grading.async.in.flight", inFlight, AtomicInteger::get)
+                .description("正在执行的AI判题任务数")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("grading.async.wait")
+                .description("AI判题任务排队等待时间")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("grading.async.rejected")
+                .description("因队列已满被拒绝的AI判题提交数")
+                .register(meterRegistry);
+
+        log.info("异步AI判题执行器已启动：工作线程{}，排队上限{}", workerThreads, queueCapacity);
+    }
+
+    /**
+     * 预占一个执行名额（名额不足返回false）
+     */
+    public boolean tryReserve() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 释放预占的名额（任务未能提交时调用）
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 执行任务（调用前必须已通过 tryReserve 预占名额，任务结束后自动释放）
+     */
+    public void execute(Runnable task) {
+        execute(task, 1);
+    }
+
+    /**
+     * 执行合并了多个预占名额的任务（如按题目合并的批量判题），任务结束后释放全部名额
+     */
+    public void execute(Runnable task, int reserved) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                inFlight.incrementAndGet();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("异步AI判题任务执行异常", e);
+                } finally {
+                    inFlight.decrementAndGet();
+                    permits.release(reserved);
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release(reserved);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取队列统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workerThreads", workerThreads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("inFlight", inFlight.get());
+        stats.put("availablePermits", permits.availablePermits());
+        stats.put("completedTasks", executor.getCompletedTaskCount());
+        stats.put("rejectedTasks", (long) rejectedCounter.count());
+        stats.put("avgWaitMs", waitTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxWaitMs", waitTimer.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("异步AI判题执行器关闭超时，剩余任务保持PENDING状态：{}", executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.springboot.tiku.service.grading;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 待判题答题记录按题目合并
+ * 同一题目的记录攒到 batchSize 条立即派发，不足的在最早一条等待超过 linger 后由 {@link #flush} 派发；
+ * 派发回调在锁外执行，参数为题目ID和答题记录ID列表。
+ */
+public class PendingAnswerBatcher {
+
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BiConsumer<Long, List<Long>> dispatcher;
+
+    private final Map<Long, Batch> batches = new HashMap<>();
+
+    public PendingAnswerBatcher(int batchSize, long lingerMillis, BiConsumer<Long, List<Long>> dispatcher) {
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = lingerMillis * 1_000_000L;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 加入一条待判题记录
+     */
+    public void add(Long questionId, Long answerRecordId) {
+        List<Long> full = null;
+        synchronized (batches) {
+            Batch batch = batches.computeIfAbsent(questionId, k -> new Batch(System.nanoTime()));
+            batch.answerRecordIds.add(answerRecordId);
+            if (batch.answerRecordIds.size() >= batchSize) {
+                batches.remove(questionId);
+                full = batch.answerRecordIds;
+            }
+        }
+        if (full != null) {
+            dispatcher.accept(questionId, full);
+        }
+    }
+
+    /**
+     * 派发等待时间已到的批次（force 为 true 时派发全部）
+     */
+    public void flush(boolean force) {
+        Map<Long, List<Long>> due = new HashMap<>();
+        long now = System.nanoTime();
+        synchronized (batches) {
+            Iterator<Map.Entry<Long, Batch>> iterator = batches.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Batch> entry = iterator.next();
+                if (force || now - entry.getValue().createdAt >= lingerNanos) {
+                    due.put(entry.getKey(), entry.getValue().answerRecordIds);
+                    iterator.remove();
+                }
+            }
+        }
+        due.forEach(dispatcher);
+    }
+
+    /**
+     * 等待派发的记录数
+     */
+    public int size() {
+        synchronized (batches) {
+            return batches.values().stream().mapToInt(batch -> batch.answerRecordIds.size()).sum();
+        }
+    }
+
+    private static final class Batch {
+        private final long createdAt;
+        private final List<Long> answerRecordIds = new ArrayList<>();
+
+        private Batch(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+}
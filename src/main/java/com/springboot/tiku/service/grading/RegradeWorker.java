@@ -0,0 +1,211 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.AnswerRecord;
+import com.springboot.tiku.repository.AnswerRecordRepository;
+import com.springboot.tiku.service.GradingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台重新判题
+ * 定时按主键游标（id > 上一批最大id）扫描AI判题失败转人工复核、或长时间停留在待判题的答题记录，
+ * 已有AI判题记录的 REVIEWING（低置信度，等待人工复核）不在此列。每批先通过 claim_token 条件更新认领，
+ * 只处理本节点认领成功的记录，多节点部署时不会重复判题；认领超过租约时间未完成视为失效，可被重新认领。
+ * 认领的记录按题目分组合并判题，分组间并发数受限；AI服务暂不可用时结束本次扫描。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegradeWorker {
+
+    private static final String CANDIDATE_CONDITION =
+            "a.grading_type = 'AI' AND a.grading_status IN ('PENDING', 'REVIEWING') AND a.regrade_attempts < ? " +
+            "AND a.answered_at < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM ai_grading_record r WHERE r.answer_record_id = a.id)";
+
+    private static final String CANDIDATE_SQL =
+            "SELECT a.id FROM answer_record a WHERE a.id > ? AND " + CANDIDATE_CONDITION +
+            " AND (a.claimed_at IS NULL OR a.claimed_at < ?) ORDER BY a.id LIMIT ?";
+
+    private static final String BACKLOG_SQL =
+            "SELECT COUNT(*) AS total, MIN(a.answered_at) AS oldest FROM answer_record a WHERE " + CANDIDATE_CONDITION;
+
+    private static final List<AnswerRecord.GradingStatus> REGRADE_STATUSES =
+            List.of(AnswerRecord.GradingStatus.PENDING, AnswerRecord.GradingStatus.REVIEWING);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnswerBatchWriter answerBatchWriter;
+    private final AnswerRecordRepository answerRecordRepository;
+    private final GradingService gradingService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 是否启用后台重新判题
+     */
+    @Value("${ai.grading.regrade.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每批认领的记录数
+     */
+    @Value("${ai.grading.regrade.page-size:50}")
+    private int pageSize;
+
+    /**
+     * 每次扫描最多处理的批数
+     */
+    @Value("${ai.grading.regrade.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    /**
+     * 每条记录最多重新判题次数
+     */
+    @Value("${ai.grading.regrade.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 答题后超过该分钟数才参与重新判题
+     */
+    @Value("${ai.grading.regrade.min-age-minutes:10}")
+    private long minAgeMinutes;
+
+    /**
+     * 认领租约（分钟）
+     */
+    @Value("${ai.grading.regrade.lease-minutes:10}")
+    private long leaseMinutes;
+
+    /**
+     * 并发判题的题目数
+     */
+    @Value("${ai.grading.regrade.concurrency:4}")
+    private int concurrency;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong backlogAgeSeconds = new AtomicLong();
+
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        batchTimer = Timer.builder("grading.regrade.batch")
+                .description("重新判题每批耗时（认领、判题、写回）")
+                .register(meterRegistry);
+        Gauge.builder("grading.regrade.backlog", backlog, AtomicLong::get)
+                .description("等待重新判题的答题记录数")
+                .register(meterRegistry);
+        Gauge.builder("grading.regrade.backlog.age.seconds", backlogAgeSeconds, AtomicLong::get)
+                .description("等待重新判题的最早答题距今秒数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定时扫描并重新判题
+     */
+    @Scheduled(fixedDelayString = "${ai.grading.regrade.interval-ms:60000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long lastId = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> ids = jdbcTemplate.queryForList(CANDIDATE_SQL, Long.class, lastId, maxAttempts,
+                        Timestamp.valueOf(now.minusMinutes(minAgeMinutes)),
+                        Timestamp.valueOf(now.minusMinutes(leaseMinutes)), pageSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                lastId = ids.get(ids.size() - 1);
+                Map<String, Integer> outcomes = batchTimer.record(() -> regradeBatch(ids));
+                if (outcomes.containsKey("deferred")) {
+                    log.info("AI服务暂不可用，结束本次重新判题");
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("重新判题扫描失败", e);
+        } finally {
+            refreshBacklog();
+        }
+    }
+
+    /**
+     * 认领一批记录并按题目分组判题，返回各结果的记录数
+     */
+    private Map<String, Integer> regradeBatch(List<Long> candidateIds) {
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = answerBatchWriter.claim(claimToken, candidateIds, REGRADE_STATUSES, now, now.minusMinutes(leaseMinutes));
+        if (claimed == 0) {
+            return Map.of();
+        }
+
+        Map<Long, List<AnswerRecord>> byQuestion = new LinkedHashMap<>();
+        for (AnswerRecord record : answerRecordRepository.findByClaimTokenOrderByIdAsc(claimToken)) {
+            byQuestion.computeIfAbsent(record.getQuestionId(), k -> new ArrayList<>()).add(record);
+        }
+
+        Map<String, Integer> outcomes = Flux.fromIterable(byQuestion.entrySet())
+                .flatMap(entry -> Mono.fromCallable(() -> gradingService.regradeClaimed(
+                                        claimToken, entry.getKey(), entry.getValue(), maxAttempts))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .onErrorResume(e -> {
+                                    // 认领不释放，租约到期后重新认领
+                                    log.error("重新判题失败：questionId={}, 记录数={}", entry.getKey(), entry.getValue().size(), e);
+                                    return Mono.just(Map.of("error", entry.getValue().size()));
+                                }),
+                        Math.max(1, concurrency))
+                .collect(LinkedHashMap<String, Integer>::new, (total, part) -> part.forEach(
+                        (outcome, count) -> total.merge(outcome, count, Integer::sum)))
+                .block();
+
+        outcomes.forEach((outcome, count) -> Counter.builder("grading.regrade.records")
+                .description("重新判题处理的答题记录数")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count));
+        log.info("重新判题批次完成：认领={}, 题目数={}, 结果={}", claimed, byQuestion.size(), outcomes);
+        return outcomes;
+    }
+
+    /**
+     * 刷新积压记录数和最早积压时间
+     */
+    private void refreshBacklog() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.query(BACKLOG_SQL, rs -> {
+                backlog.set(rs.getLong("total"));
+                Timestamp oldest = rs.getTimestamp("oldest");
+                backlogAgeSeconds.set(oldest != null
+                        ? Math.max(0, Duration.between(oldest.toLocalDateTime(), now).getSeconds()) : 0);
+            }, maxAttempts, Timestamp.valueOf(now.minusMinutes(minAgeMinutes)));
+        } catch (Exception e) {
+            log.warn("统计重新判题积压失败", e);
+        }
+    }
+}
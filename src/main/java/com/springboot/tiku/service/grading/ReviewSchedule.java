@@ -0,0 +1,56 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.WrongQuestion;
+
+import java.time.LocalDateTime;
+
+/**
+ * 错题间隔重复调度（SM-2）
+ * 答错：连续答对次数清零，立即进入复习队列，难度系数下调；
+ * 答对：间隔按 1天、6天、上次间隔×难度系数 递增，难度系数上调。
+ * {@link AnswerBatchWriter} 的批量SQL与这里的计算保持一致。
+ */
+public final class ReviewSchedule {
+
+    public static final double INITIAL_EASE = 2.5;
+    public static final double MIN_EASE = 1.3;
+    public static final double EASE_BONUS = 0.1;
+    public static final double EASE_PENALTY = 0.2;
+    public static final int MAX_INTERVAL_DAYS = 365;
+
+    private ReviewSchedule() {
+    }
+
+    /**
+     * 答错后重新调度
+     */
+    public static void onWrong(WrongQuestion wrongQuestion, LocalDateTime now) {
+        double ease = wrongQuestion.getEaseFactor() != null
+                ? Math.max(MIN_EASE, wrongQuestion.getEaseFactor() - EASE_PENALTY) : INITIAL_EASE;
+        wrongQuestion.setEaseFactor(ease);
+        wrongQuestion.setRepetitions(0);
+        wrongQuestion.setIntervalDays(0);
+        wrongQuestion.setDueAt(now);
+    }
+
+    /**
+     * 答对后推迟下次复习
+     */
+    public static void onCorrect(WrongQuestion wrongQuestion, LocalDateTime now) {
+        int repetitions = (wrongQuestion.getRepetitions() != null ? wrongQuestion.getRepetitions() : 0) + 1;
+        double ease = wrongQuestion.getEaseFactor() != null ? wrongQuestion.getEaseFactor() : INITIAL_EASE;
+        int previous = wrongQuestion.getIntervalDays() != null ? wrongQuestion.getIntervalDays() : 1;
+        int interval;
+        if (repetitions == 1) {
+            interval = 1;
+        } else if (repetitions == 2) {
+            interval = 6;
+        } else {
+            interval = (int) Math.min(MAX_INTERVAL_DAYS, Math.round(previous * ease));
+        }
+        wrongQuestion.setRepetitions(repetitions);
+        wrongQuestion.setIntervalDays(interval);
+        wrongQuestion.setEaseFactor(ease + EASE_BONUS);
+        wrongQuestion.setDueAt(now.plusDays(interval));
+    }
+}
@@ -0,0 +1,170 @@
+package com.springboot.tiku.service.importer;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 马原题库HTML流式读取
+ * 顺序扫描页面脚本中的 const questions = [ ... ]; ，每次只取出并解析一个题目对象，不把整个文件读入内存。
+ * 单个对象解析失败时由 next 抛出异常，后续对象继续读取。
+ */
+public class MayuanQuestionReader implements Iterator<JSONObject>, Closeable {
+
+    private static final String MARKER = "const questions = [";
+
+    private final BufferedReader reader;
+    private boolean started;
+    private boolean finished;
+    private String pending;
+    private int pushback = -1;
+
+    public MayuanQuestionReader(Path path) throws IOException {
+        this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null && !finished) {
+            try {
+                if (!started) {
+                    skipToMarker();
+                    started = true;
+                }
+                pending = readObject();
+                finished = pending == null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return pending != null;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String object = pending;
+        pending = null;
+        return JSON.parseObject(processJavaScriptToJson(object));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void skipToMarker() throws IOException {
+        int matched = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == MARKER.charAt(matched)) {
+                if (++matched == MARKER.length()) {
+                    return;
+                }
+            } else {
+                matched = c == MARKER.charAt(0) ? 1 : 0;
+            }
+        }
+        throw new IllegalStateException("未找到题目数据");
+    }
+
+    /**
+     * 读取下一个顶层对象字面量，遇到数组结尾返回null
+     */
+    private String readObject() throws IOException {
+        StringBuilder object = new StringBuilder();
+        int depth = 0;
+        int quote = 0;
+        boolean escaped = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (quote != 0) {
+                object.append((char) c);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (c == '/') {
+                int next = read();
+                if (next == '/') {
+                    skipLine();
+                    continue;
+                }
+                unread(next);
+            }
+            if (depth == 0) {
+                if (c == ']') {
+                    return null;
+                }
+                if (c != '{') {
+                    // 对象之间的逗号和空白
+                    continue;
+                }
+            }
+            object.append((char) c);
+            if (c == '"' || c == '\'' || c == '`') {
+                quote = c;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0) {
+                    return object.toString();
+                }
+            }
+        }
+        if (depth > 0) {
+            throw new IllegalStateException("题目数据不完整");
+        }
+        return null;
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // 跳过注释
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != -1) {
+            int c = pushback;
+            pushback = -1;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+
+    /**
+     * 将JavaScript对象转换为JSON格式
+     */
+    private static String processJavaScriptToJson(String js) {
+        // 将 key: value 转换为 "key": value
+        js = js.replaceAll("(\\w+):", "\"$1\":");
+
+        // 处理尾部逗号
+        js = js.replaceAll(",\\s*}", "}");
+        js = js.replaceAll(",\\s*]", "]");
+
+        return js;
+    }
+}
@@ -0,0 +1,67 @@
+package com.springboot.tiku.service.importer;
+
+import com.springboot.tiku.entity.Question;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 题目批量写入
+ * question 使用自增主键，Hibernate 无法批量插入，这里用JDBC批处理写入（配合 rewriteBatchedStatements 合并为多行INSERT）。
+ * 须在调用方事务中使用。
+ */
+@Component
+@RequiredArgsConstructor
+public class QuestionBatchWriter {
+
+    private static final String INSERT_QUESTION_SQL =
+            "INSERT INTO question (subject_id, chapter_id, type, title, content, difficulty, score, options, answer, " +
+            "answer_analysis, ai_grading_enabled, ai_grading_config, scoring_criteria, reference_keywords, " +
+            "use_count, correct_count, wrong_count, serial_number, tags, knowledge_points, creator_id, status, " +
+            "created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量插入题目（不回填主键）
+     */
+    public void insertQuestions(List<Question> questions) {
+        if (questions.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            args.add(new Object[]{
+                    question.getSubjectId(),
+                    question.getChapterId(),
+                    question.getType().name(),
+                    question.getTitle(),
+                    question.getContent(),
+                    question.getDifficulty().name(),
+                    question.getScore(),
+                    question.getOptions(),
+                    question.getAnswer(),
+                    question.getAnswerAnalysis(),
+                    question.getAiGradingEnabled(),
+                    question.getAiGradingConfig(),
+                    question.getScoringCriteria(),
+                    question.getReferenceKeywords(),
+                    question.getSerialNumber(),
+                    question.getTags(),
+                    question.getKnowledgePoints(),
+                    question.getCreatorId(),
+                    question.getStatus(),
+                    now,
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_QUESTION_SQL, args);
+    }
+}
@@ -0,0 +1,304 @@
+package com.springboot.tiku.service.importer;
+
+import com.springboot.tiku.dto.question.ImportResultDTO;
+import com.springboot.tiku.entity.Chapter;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.entity.Subject;
+import com.springboot.tiku.repository.ChapterRepository;
+import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.service.sampling.QuestionSampler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 题目批量导入流水线
+ * 逐条读取数据源，按块处理：章节按名称每块一次查询、缺失的一次创建，章节序号每章只查一次，
+ * 题目按块JDBC批量插入，每块一个事务，失败只影响本块；学科和章节题目数在全部导入后统一更新一次。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuestionImportPipeline {
+
+    private static final int MAX_ERRORS = 1000;
+
+    private static final String UPDATE_CHAPTER_COUNT_SQL =
+            "UPDATE chapter c LEFT JOIN (SELECT chapter_id, COUNT(*) AS cnt FROM question " +
+            "WHERE subject_id = ? AND status = 1 GROUP BY chapter_id) q ON q.chapter_id = c.id " +
+            "SET c.question_count = COALESCE(q.cnt, 0), c.updated_at = NOW() WHERE c.subject_id = ?";
+
+    private static final String UPDATE_SUBJECT_COUNT_SQL =
+            "UPDATE subject SET question_count = (SELECT COUNT(*) FROM question WHERE subject_id = ? AND status = 1), " +
+            "updated_at = NOW() WHERE id = ?";
+
+    private final ChapterRepository chapterRepository;
+    private final QuestionRepository questionRepository;
+    private final QuestionBatchWriter questionBatchWriter;
+    private final QuestionSampler questionSampler;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 每块题目数（一个事务、一次批量插入）
+     */
+    @Value("${import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 执行导入
+     * @param source    数据源（逐条读取，next 抛出异常时记为该行失败并继续）
+     * @param chapterOf 章节键（返回null表示不归入章节）
+     * @param converter 转换为题目，章节可能为null；序号由流水线分配
+     */
+    public <T> ImportResultDTO run(Subject subject, Iterator<T> source,
+                                   Function<T, ChapterKey> chapterOf,
+                                   BiFunction<T, Chapter, Question> converter) {
+        return run(subject, source, chapterOf, converter, null);
+    }
+
+    /**
+     * 执行导入，每处理完一块回调一次进度
+     */
+    public <T> ImportResultDTO run(Subject subject, Iterator<T> source,
+                                   Function<T, ChapterKey> chapterOf,
+                                   BiFunction<T, Chapter, Question> converter,
+                                   ProgressListener listener) {
+        long start = System.currentTimeMillis();
+        ImportResultDTO result = new ImportResultDTO();
+        ImportContext context = new ImportContext(subject);
+
+        int row = 0;
+        while (source.hasNext()) {
+            List<Row<T>> chunk = new ArrayList<>(batchSize);
+            while (chunk.size() < batchSize && source.hasNext()) {
+                row++;
+                try {
+                    chunk.add(new Row<>(row, source.next()));
+                } catch (RuntimeException e) {
+                    fail(result, row, e);
+                }
+            }
+            processChunk(context, chunk, chapterOf, converter, result);
+            if (listener != null) {
+                listener.onChunk(row, result.getSuccessCount(), result.getFailCount());
+            }
+            log.debug("导入进度：已读取{}行，成功{}", row, result.getSuccessCount());
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update(UPDATE_CHAPTER_COUNT_SQL, subject.getId(), subject.getId());
+            jdbcTemplate.update(UPDATE_SUBJECT_COUNT_SQL, subject.getId(), subject.getId());
+        });
+        questionSampler.evictAll();
+
+        result.setTotalCount(row);
+        result.setCreatedChapters(context.chapters.size());
+        if (result.getErrors().size() >= MAX_ERRORS) {
+            result.addError(String.format("其余错误已省略，共失败%d行", result.getFailCount()));
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        log.info("题目导入完成：学科={}，成功{}，失败{}，章节{}，耗时{}ms（{}题/秒）",
+                subject.getName(), result.getSuccessCount(), result.getFailCount(),
+                context.chapters.size(), elapsed, result.getSuccessCount() * 1000L / elapsed);
+        return result;
+    }
+
+    private <T> void processChunk(ImportContext context, List<Row<T>> chunk,
+                                  Function<T, ChapterKey> chapterOf,
+                                  BiFunction<T, Chapter, Question> converter,
+                                  ImportResultDTO result) {
+        // 1. 计算章节键，并一次解析本块新出现的章节
+        Map<Row<T>, ChapterKey> keys = new LinkedHashMap<>();
+        List<Row<T>> valid = new ArrayList<>(chunk.size());
+        for (Row<T> row : chunk) {
+            try {
+                keys.put(row, chapterOf.apply(row.item()));
+                valid.add(row);
+            } catch (RuntimeException e) {
+                fail(result, row.number(), e);
+            }
+        }
+        resolveChapters(context, keys.values());
+        loadSerialNumbers(context);
+
+        // 2. 转换并分配章节序号
+        Map<Long, Integer> serialSnapshot = new HashMap<>(context.serials);
+        List<Question> questions = new ArrayList<>(valid.size());
+        List<Row<T>> converted = new ArrayList<>(valid.size());
+        for (Row<T> row : valid) {
+            try {
+                ChapterKey key = keys.get(row);
+                Chapter chapter = key != null ? context.chapters.get(key.name()) : null;
+                Question question = converter.apply(row.item(), chapter);
+                validate(question);
+                if (question.getChapterId() != null) {
+                    question.setSerialNumber(context.serials.merge(question.getChapterId(), 1, Integer::sum));
+                }
+                questions.add(question);
+                converted.add(row);
+            } catch (RuntimeException e) {
+                fail(result, row.number(), e);
+            }
+        }
+        if (questions.isEmpty()) {
+            return;
+        }
+
+        // 3. 本块一次批量插入，失败时回退序号并整块记为失败
+        try {
+            transactionTemplate.executeWithoutResult(tx -> questionBatchWriter.insertQuestions(questions));
+        } catch (RuntimeException e) {
+            context.serials.clear();
+            context.serials.putAll(serialSnapshot);
+            log.error("导入第{}-{}行写入失败", converted.get(0).number(), converted.get(converted.size() - 1).number(), e);
+            for (int i = 0; i < converted.size(); i++) {
+                result.incrementFail();
+            }
+            addError(result, String.format("第%d-%d行写入失败: %s",
+                    converted.get(0).number(), converted.get(converted.size() - 1).number(), e.getMessage()));
+            return;
+        }
+
+        for (int i = 0; i < questions.size(); i++) {
+            result.incrementSuccess();
+            ChapterKey key = keys.get(converted.get(i));
+            if (key != null) {
+                result.getChapterStats().merge(key.name(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 解析章节：已缓存的跳过，其余按名称一次查询，仍缺失的一次创建
+     */
+    private void resolveChapters(ImportContext context, Collection<ChapterKey> keys) {
+        Map<String, ChapterKey> missing = new LinkedHashMap<>();
+        for (ChapterKey key : keys) {
+            if (key != null && !context.chapters.containsKey(key.name())) {
+                missing.putIfAbsent(key.name(), key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        for (Chapter chapter : chapterRepository.findBySubjectIdAndNameIn(context.subject.getId(), missing.keySet())) {
+            context.chapters.putIfAbsent(chapter.getName(), chapter);
+            missing.remove(chapter.getName());
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        if (context.nextSortOrder == null) {
+            context.nextSortOrder = (int) chapterRepository.countBySubjectId(context.subject.getId()) + 1;
+        }
+        List<Chapter> created = new ArrayList<>(missing.size());
+        for (ChapterKey key : missing.values()) {
+            Chapter chapter = new Chapter();
+            chapter.setSubjectId(context.subject.getId());
+            chapter.setName(key.name());
+            chapter.setParentId(0L);
+            chapter.setLevel(1);
+            chapter.setSortOrder(key.sortOrder() != null ? key.sortOrder() : context.nextSortOrder++);
+            chapter.setQuestionCount(0);
+            created.add(chapter);
+        }
+        List<Chapter> saved = transactionTemplate.execute(tx -> chapterRepository.saveAll(created));
+        for (Chapter chapter : saved) {
+            context.chapters.put(chapter.getName(), chapter);
+            // 新章节没有题目，序号从1开始
+            context.serials.put(chapter.getId(), 0);
+        }
+    }
+
+    /**
+     * 一次查询新解析章节的当前最大序号
+     */
+    private void loadSerialNumbers(ImportContext context) {
+        List<Long> chapterIds = context.chapters.values().stream()
+                .map(Chapter::getId)
+                .filter(id -> !context.serials.containsKey(id))
+                .toList();
+        if (chapterIds.isEmpty()) {
+            return;
+        }
+        for (Long chapterId : chapterIds) {
+            context.serials.put(chapterId, 0);
+        }
+        for (Object[] row : questionRepository.findMaxSerialNumbersByChapterIds(chapterIds)) {
+            if (row[1] != null) {
+                context.serials.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+        }
+    }
+
+    /**
+     * 非空字段校验，避免单行数据导致整块写入失败
+     */
+    private void validate(Question question) {
+        if (question.getType() == null) {
+            throw new IllegalArgumentException("题型不能为空");
+        }
+        if (question.getTitle() == null || question.getTitle().isBlank()) {
+            throw new IllegalArgumentException("题干不能为空");
+        }
+        if (question.getAnswer() == null) {
+            throw new IllegalArgumentException("答案不能为空");
+        }
+    }
+
+    private void fail(ImportResultDTO result, int row, Exception e) {
+        result.incrementFail();
+        addError(result, String.format("第%d行导入失败: %s", row, e.getMessage()));
+        log.debug("导入第{}行题目失败", row, e);
+    }
+
+    private void addError(ImportResultDTO result, String error) {
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.addError(error);
+        }
+    }
+
+    /**
+     * 导入进度回调（在导入线程中调用）
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onChunk(int rowsRead, int successCount, int failCount);
+    }
+
+    /**
+     * 章节键（按名称归类，sortOrder 为空时新章节排在已有章节之后）
+     */
+    public record ChapterKey(String name, Integer sortOrder) {
+    }
+
+    /**
+     * 带行号的数据项
+     */
+    private record Row<T>(int number, T item) {
+    }
+
+    /**
+     * 单次导入的状态
+     */
+    private static final class ImportContext {
+        private final Subject subject;
+        private final Map<String, Chapter> chapters = new HashMap<>();
+        private final Map<Long, Integer> serials = new HashMap<>();
+        private Integer nextSortOrder;
+
+        ImportContext(Subject subject) {
+            this.subject = subject;
+        }
+    }
+}
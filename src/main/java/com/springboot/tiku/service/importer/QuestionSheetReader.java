@@ -0,0 +1,129 @@
+package com.springboot.tiku.service.importer;
+
+import com.springboot.tiku.dto.question.SmartImportRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 智能导入模板的逐行读取（xlsx 或 csv）
+ * 第一行为表头，列名与前端模板一致（中文或英文字段名均可），之后每行转换为一个导入项；
+ * 必填列缺失时由 next 抛出异常，该行记为失败。
+ */
+public class QuestionSheetReader implements Iterator<SmartImportRequest.QuestionImportItem>, Closeable {
+
+    private static final String[] OPTION_LETTERS = {"A", "B", "C", "D", "E", "F", "G", "H"};
+
+    private final Iterator<List<String>> rows;
+    private final Closeable source;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private QuestionSheetReader(Iterator<List<String>> rows, Closeable source) {
+        this.rows = rows;
+        this.source = source;
+        if (rows.hasNext()) {
+            List<String> header = rows.next();
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i) != null) {
+                    columns.putIfAbsent(header.get(i).trim(), i);
+                }
+            }
+        }
+        if (!columns.containsKey("题目内容") && !columns.containsKey("content")) {
+            throw new IllegalArgumentException("表头缺少“题目内容”列");
+        }
+    }
+
+    /**
+     * 按扩展名打开 xlsx 或 csv 文件
+     */
+    public static QuestionSheetReader open(Path file, String fileName) throws IOException {
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".xlsx")) {
+            XlsxRowReader reader = new XlsxRowReader(file);
+            return wrap(reader, reader);
+        }
+        if (name.endsWith(".csv")) {
+            CsvRowReader reader = new CsvRowReader(file);
+            return wrap(reader, reader);
+        }
+        throw new IllegalArgumentException("仅支持 .xlsx 和 .csv 文件");
+    }
+
+    private static QuestionSheetReader wrap(Iterator<List<String>> rows, Closeable source) throws IOException {
+        try {
+            return new QuestionSheetReader(rows, source);
+        } catch (RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return rows.hasNext();
+    }
+
+    @Override
+    public SmartImportRequest.QuestionImportItem next() {
+        List<String> row = rows.next();
+
+        SmartImportRequest.QuestionImportItem item = new SmartImportRequest.QuestionImportItem();
+        item.setChapterOrder(cell(row, "章节序号", "chapterOrder"));
+        item.setChapterName(cell(row, "章节名称", "chapterName"));
+        item.setContent(cell(row, "题目内容", "content"));
+        item.setType(cell(row, "题型", "type"));
+        item.setCorrectAnswer(cell(row, "正确答案", "correctAnswer"));
+        item.setExplanation(cell(row, "解析", "explanation"));
+
+        if (item.getContent() == null) {
+            throw new IllegalArgumentException("题目内容不能为空");
+        }
+        if (item.getType() == null) {
+            throw new IllegalArgumentException("题型不能为空");
+        }
+        if (item.getCorrectAnswer() == null) {
+            throw new IllegalArgumentException("正确答案不能为空");
+        }
+
+        List<SmartImportRequest.OptionItem> options = new ArrayList<>();
+        for (String letter : OPTION_LETTERS) {
+            String content = cell(row, "选项" + letter, "option" + letter);
+            if (content != null) {
+                SmartImportRequest.OptionItem option = new SmartImportRequest.OptionItem();
+                option.setContent(content);
+                options.add(option);
+            }
+        }
+        item.setOptions(options);
+
+        String difficulty = cell(row, "难度", "difficulty");
+        String score = cell(row, "分值", "score");
+        try {
+            item.setDifficulty(difficulty != null ? (int) Double.parseDouble(difficulty) : 3);
+            item.setScore(score != null ? Double.parseDouble(score) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("难度或分值不是数字");
+        }
+        return item;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private String cell(List<String> row, String name, String alias) {
+        Integer index = columns.get(name);
+        if (index == null) {
+            index = columns.get(alias);
+        }
+        if (index == null || index >= row.size()) {
+            return null;
+        }
+        String value = row.get(index);
+        return value != null && !value.isBlank() ? value.trim() : null;
+    }
+}
@@ -0,0 +1,382 @@
+package com.springboot.tiku.service.importer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * xlsx 工作表流式读取
+ * 直接用 StAX 逐行解析第一个工作表的 XML，不构建整个工作簿；只有共享字符串表（去重后的文本）需要常驻内存。
+ * 每行返回按列号排列的单元格文本，缺失的单元格为null，空行跳过。
+ * 对不可信文件的防护：列号不超过 Excel 上限，首行（表头）之后超出表头宽度的单元格丢弃；
+ * 共享字符串表限制条数和总字符数；压缩包内每个XML限制解压后大小和压缩比，防止压缩炸弹。
+ */
+public class XlsxRowReader implements Iterator<List<String>>, Closeable {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String DEFAULT_SHEET = "xl/worksheets/sheet1.xml";
+
+    /**
+     * Excel 最大列数（XFD）
+     */
+    static final int MAX_COLUMNS = 16384;
+
+    /**
+     * 共享字符串表的条数和总字符数上限
+     */
+    static final int MAX_SHARED_STRINGS = 1_000_000;
+    static final long MAX_SHARED_STRING_CHARS = 64L * 1024 * 1024;
+
+    /**
+     * 单个XML解压后的大小上限，以及解压后与压缩前大小之比的上限
+     */
+    static final long MAX_ENTRY_BYTES = 512L * 1024 * 1024;
+    static final long MAX_COMPRESSION_RATIO = 100;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final ZipFile zip;
+    private final List<String> sharedStrings;
+    private final InputStream sheetStream;
+    private final XMLStreamReader sheet;
+    private List<String> pending;
+    private int maxColumns = MAX_COLUMNS;
+
+    public XlsxRowReader(Path path) throws IOException {
+        this.zip = new ZipFile(path.toFile());
+        try {
+            this.sharedStrings = readSharedStrings();
+            ZipEntry entry = zip.getEntry(firstSheetPath());
+            if (entry == null) {
+                throw new IOException("xlsx文件中没有工作表");
+            }
+            this.sheetStream = openEntry(entry);
+            this.sheet = XML_INPUT_FACTORY.createXMLStreamReader(sheetStream, "UTF-8");
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            zip.close();
+            throw e instanceof IOException io ? io : new IOException("xlsx文件格式错误", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null) {
+            try {
+                pending = readRow();
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("xlsx文件格式错误", e);
+            }
+        }
+        return pending != null;
+    }
+
+    @Override
+    public List<String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<String> row = pending;
+        pending = null;
+        // 首行为表头，之后的行不需要超出表头宽度的列
+        if (maxColumns == MAX_COLUMNS) {
+            maxColumns = Math.max(1, row.size());
+        }
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sheet.close();
+        } catch (XMLStreamException e) {
+            // 忽略
+        } finally {
+            sheetStream.close();
+            zip.close();
+        }
+    }
+
+    /**
+     * 读取下一个非空行
+     */
+    private List<String> readRow() throws XMLStreamException {
+        List<String> row = null;
+        int column = 0;
+        String cellType = null;
+        StringBuilder value = null;
+        boolean hasValue = false;
+
+        while (sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (sheet.getLocalName()) {
+                    case "row" -> row = new ArrayList<>();
+                    case "c" -> {
+                        String ref = sheet.getAttributeValue(null, "r");
+                        column = ref != null ? columnIndex(ref) : (row != null ? row.size() : 0);
+                        cellType = sheet.getAttributeValue(null, "t");
+                        value = new StringBuilder();
+                    }
+                    case "v", "t" -> {
+                        if (value != null) {
+                            value.append(sheet.getElementText());
+                        }
+                    }
+                    case "rPh" -> skipElement();
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (sheet.getLocalName()) {
+                    case "c" -> {
+                        if (row != null && value != null && column < maxColumns) {
+                            String text = cellText(cellType, value.toString());
+                            while (row.size() <= column) {
+                                row.add(null);
+                            }
+                            row.set(column, text);
+                            hasValue |= text != null && !text.isBlank();
+                        }
+                        value = null;
+                    }
+                    case "row" -> {
+                        if (row != null && hasValue) {
+                            return row;
+                        }
+                        row = null;
+                        hasValue = false;
+                    }
+                    case "sheetData" -> {
+                        return null;
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private String cellText(String type, String raw) {
+        if (raw.isEmpty()) {
+            return null;
+        }
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(raw.trim());
+            return index >= 0 && index < sharedStrings.size() ? sharedStrings.get(index) : null;
+        }
+        if ("b".equals(type)) {
+            return "1".equals(raw) ? "TRUE" : "FALSE";
+        }
+        if (type == null || "n".equals(type)) {
+            // 整数值去掉小数部分（如 3.0）
+            if (raw.endsWith(".0")) {
+                return raw.substring(0, raw.length() - 2);
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * 单元格引用的列号（A1 -> 0，超过 Excel 上限的返回 MAX_COLUMNS）
+     */
+    static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+            if (column > MAX_COLUMNS) {
+                return MAX_COLUMNS;
+            }
+        }
+        return Math.max(0, column - 1);
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * 共享字符串表（每个 si 的全部 t 文本拼接，忽略注音）
+     */
+    private List<String> readSharedStrings() throws IOException, XMLStreamException {
+        List<String> strings = new ArrayList<>();
+        ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+        if (entry == null) {
+            return strings;
+        }
+        long chars = 0;
+        try (InputStream in = openEntry(entry)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in, "UTF-8");
+            StringBuilder current = null;
+            int phonetic = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("si".equals(name)) {
+                        current = new StringBuilder();
+                    } else if ("rPh".equals(name)) {
+                        phonetic++;
+                    } else if ("t".equals(name) && current != null && phonetic == 0) {
+                        current.append(reader.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("si".equals(name) && current != null) {
+                        chars += current.length();
+                        if (strings.size() >= MAX_SHARED_STRINGS || chars > MAX_SHARED_STRING_CHARS) {
+                            throw new IOException("xlsx共享字符串表过大");
+                        }
+                        strings.add(current.toString());
+                        current = null;
+                    } else if ("rPh".equals(name)) {
+                        phonetic--;
+                    }
+                }
+            }
+            reader.close();
+        }
+        return strings;
+    }
+
+    /**
+     * 第一个工作表在压缩包中的路径（workbook.xml 中第一个 sheet 的关系目标）
+     */
+    private String firstSheetPath() throws IOException, XMLStreamException {
+        String relationId = firstAttribute("xl/workbook.xml", MAIN_NS, "sheet", REL_NS, "id", null);
+        if (relationId == null) {
+            return DEFAULT_SHEET;
+        }
+        String target = firstAttribute("xl/_rels/workbook.xml.rels", null, "Relationship", null, "Target", relationId);
+        if (target == null) {
+            return DEFAULT_SHEET;
+        }
+        return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+    }
+
+    /**
+     * 读取第一个匹配元素的属性；relationId 不为空时只匹配 Id 等于它的元素
+     */
+    private String firstAttribute(String entryName, String elementNs, String element,
+                                  String attributeNs, String attribute, String relationId)
+            throws IOException, XMLStreamException {
+        ZipEntry entry = zip.getEntry(entryName);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = openEntry(entry)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in, "UTF-8");
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT || !element.equals(reader.getLocalName())) {
+                        continue;
+                    }
+                    if (elementNs != null && !elementNs.equals(reader.getNamespaceURI())) {
+                        continue;
+                    }
+                    if (relationId != null && !relationId.equals(reader.getAttributeValue(null, "Id"))) {
+                        continue;
+                    }
+                    return reader.getAttributeValue(attributeNs, attribute);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 打开压缩包内的XML，读取时限制解压后的大小和压缩比
+     */
+    private InputStream openEntry(ZipEntry entry) throws IOException {
+        long limit = MAX_ENTRY_BYTES;
+        if (entry.getCompressedSize() > 0) {
+            // 小文件压缩比天然偏高，预留 1MB
+            limit = Math.min(limit, entry.getCompressedSize() * MAX_COMPRESSION_RATIO + 1024 * 1024);
+        }
+        return new BoundedInputStream(zip.getInputStream(entry), limit, entry.getName());
+    }
+
+    /**
+     * 读取超过上限字节数时抛出异常的输入流
+     */
+    static final class BoundedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private final String name;
+        private long count;
+
+        BoundedInputStream(InputStream in, long limit, String name) {
+            super(in);
+            this.limit = limit;
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                consumed(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consumed(skipped);
+            return skipped;
+        }
+
+        private void consumed(long n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new IOException("xlsx文件中 " + name + " 解压后过大");
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // 禁用 DTD 和外部实体，防止 XXE
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+}
@@ -0,0 +1,503 @@
+package com.springboot.tiku.service.mastery;
+
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.entity.UserMastery;
+import com.springboot.tiku.repository.UserMasteryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户知识掌握度存储
+ * 按（学科、章节）和（学科、题型）维护答题数、正确数和指数衰减正确率，答题提交后增量更新内存状态，
+ * 定时把有变化的条目批量写入 user_mastery；内存中最多缓存 cache-size 个用户，超出时先落库再清空。
+ * 落库只写本节点新增的变化：答题数、正确数按增量累加，衰减正确率按“旧值 × 衰减因子 + 偏移”更新，
+ * 多节点同时更新同一用户时互不覆盖。
+ * 用户首次加载且表中没有数据时，从答题记录聚合初始化（不含触发加载的答题，随后按增量计入），
+ * 初始化结果仅在表中没有该条目时写入。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MasteryStore {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_mastery (user_id, subject_id, dimension, ref_key, attempts, correct_count, " +
+            "decayed_accuracy, last_answered_at, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE attempts = attempts + VALUES(attempts), " +
+            "correct_count = correct_count + VALUES(correct_count), decayed_accuracy = decayed_accuracy * ? + ?, " +
+            "last_answered_at = GREATEST(COALESCE(last_answered_at, VALUES(last_answered_at)), " +
+            "COALESCE(VALUES(last_answered_at), last_answered_at)), updated_at = NOW()";
+
+    private static final String INSERT_ABSENT_SQL =
+            "INSERT INTO user_mastery (user_id, subject_id, dimension, ref_key, attempts, correct_count, " +
+            "decayed_accuracy, last_answered_at, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE user_id = user_id";
+
+    private static final String BOOTSTRAP_SQL =
+            "SELECT q.subject_id, q.chapter_id, q.type, COUNT(*), " +
+            "SUM(CASE WHEN a.is_correct = 1 THEN 1 ELSE 0 END), MAX(a.answered_at) " +
+            "FROM answer_record a JOIN question q ON q.id = a.question_id " +
+            "WHERE a.user_id = ? AND a.is_correct IS NOT NULL%s " +
+            "GROUP BY q.subject_id, q.chapter_id, q.type";
+
+    /**
+     * 无答题记录时的先验正确率
+     */
+    private static final double PRIOR_ACCURACY = 0.5;
+
+    private final UserMasteryRepository userMasteryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 衰减系数（新答题在正确率中的权重）
+     */
+    @Value("${practice.mastery.decay:0.1}")
+    private double decay;
+
+    /**
+     * 最多缓存的用户数
+     */
+    @Value("${practice.mastery.cache-size:10000}")
+    private int cacheSize;
+
+    private final Map<Long, UserKnowledge> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 有未落库变化的用户状态（按对象登记，缓存清空后仍能落库）
+     */
+    private final Set<UserKnowledge> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 登记答题结果（在事务中调用时，提交后才生效）
+     */
+    public void recordAnswers(Long userId, List<Attempt> attempts) {
+        if (userId == null || attempts.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> applyQuietly(userId, attempts, false));
+    }
+
+    /**
+     * 登记改判为正确的答题（之前已按答错计入）：答题数不变，正确数加一；
+     * 原答题之后可能已有新的答题，无法还原它在衰减序列中的位置，衰减正确率按一次答对近似更新
+     */
+    public void recordCorrections(Long userId, List<Attempt> corrections) {
+        if (userId == null || corrections.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> applyQuietly(userId, corrections, true));
+    }
+
+    /**
+     * 获取用户掌握度（不在缓存时从数据库加载）
+     */
+    public UserKnowledge get(Long userId) {
+        return get(userId, List.of());
+    }
+
+    private UserKnowledge get(Long userId, List<Long> excludedAnswerIds) {
+        UserKnowledge knowledge = cache.get(userId);
+        if (knowledge != null) {
+            return knowledge;
+        }
+        if (cache.size() >= cacheSize) {
+            flush();
+            cache.clear();
+        }
+        return cache.computeIfAbsent(userId, id -> load(id, excludedAnswerIds));
+    }
+
+    /**
+     * 定时落库
+     */
+    @Scheduled(fixedDelayString = "${practice.mastery.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("掌握度落库失败，下次重试", e);
+        }
+    }
+
+    /**
+     * 把有变化的条目批量写入数据库
+     */
+    public synchronized void flush() {
+        List<UserKnowledge> pending = new ArrayList<>(dirty);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<UserKnowledge, Drained> drained = new LinkedHashMap<>();
+        List<Object[]> initial = new ArrayList<>();
+        List<Object[]> changes = new ArrayList<>();
+        for (UserKnowledge knowledge : pending) {
+            dirty.remove(knowledge);
+            Drained part = knowledge.drain();
+            drained.put(knowledge, part);
+            initial.addAll(part.initial());
+            part.changes().forEach(change -> changes.add(change.toArgs(knowledge.userId)));
+        }
+        try {
+            // 先写入初始化结果（表中已有时跳过），再累加本节点的变化
+            if (!initial.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ABSENT_SQL, initial);
+            }
+            if (!changes.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, changes);
+            }
+            log.debug("掌握度已落库：{}个用户，初始化{}条，变化{}条", pending.size(), initial.size(), changes.size());
+        } catch (RuntimeException e) {
+            drained.forEach(UserKnowledge::restore);
+            dirty.addAll(pending);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 清空掌握度（清空答题记录时调用）
+     */
+    public synchronized void clear() {
+        cache.clear();
+        dirty.clear();
+        jdbcTemplate.update("DELETE FROM user_mastery");
+    }
+
+    /**
+     * 在事务中调用时提交后执行，否则立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void applyQuietly(Long userId, List<Attempt> attempts, boolean correction) {
+        try {
+            if (correction) {
+                // 改判的答题已按答错计入，初始化时不排除
+                UserKnowledge knowledge = get(userId);
+                knowledge.correct(attempts, decay);
+                dirty.add(knowledge);
+                return;
+            }
+            List<Long> answerIds = attempts.stream().map(Attempt::answerRecordId).filter(Objects::nonNull).toList();
+            UserKnowledge knowledge = get(userId, answerIds);
+            knowledge.apply(attempts, decay);
+            dirty.add(knowledge);
+        } catch (Exception e) {
+            log.error("更新掌握度失败：userId={}", userId, e);
+        }
+    }
+
+    private UserKnowledge load(Long userId, List<Long> excludedAnswerIds) {
+        UserKnowledge knowledge = new UserKnowledge(userId);
+        List<UserMastery> rows = userMasteryRepository.findByUserId(userId);
+        if (!rows.isEmpty()) {
+            for (UserMastery row : rows) {
+                knowledge.put(new StatKey(row.getSubjectId(), row.getDimension(), row.getRefKey()),
+                        new Stat(row.getAttempts(), row.getCorrectCount(), row.getDecayedAccuracy(), row.getLastAnsweredAt()));
+            }
+            return knowledge;
+        }
+
+        // 首次使用：从答题记录聚合（无时间先后信息，衰减正确率取总体正确率），触发加载的答题随后按增量计入
+        String sql = String.format(BOOTSTRAP_SQL, excludedAnswerIds.isEmpty() ? ""
+                : " AND a.id NOT IN (" + String.join(", ", Collections.nCopies(excludedAnswerIds.size(), "?")) + ")");
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.addAll(excludedAnswerIds);
+        Map<StatKey, Stat> initial = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long subjectId = rs.getLong(1);
+            long chapterId = rs.getLong(2);
+            boolean hasChapter = !rs.wasNull();
+            Question.QuestionType type = Question.QuestionType.valueOf(rs.getString(3));
+            long attempts = rs.getLong(4);
+            long correct = rs.getLong(5);
+            Timestamp last = rs.getTimestamp(6);
+            LocalDateTime lastAnsweredAt = last != null ? last.toLocalDateTime() : null;
+            if (hasChapter) {
+                merge(initial, StatKey.chapter(subjectId, chapterId), attempts, correct, lastAnsweredAt);
+            }
+            merge(initial, StatKey.type(subjectId, type), attempts, correct, lastAnsweredAt);
+        }, params.toArray());
+        if (!initial.isEmpty()) {
+            knowledge.initialize(initial);
+            dirty.add(knowledge);
+        }
+        return knowledge;
+    }
+
+    private static void merge(Map<StatKey, Stat> stats, StatKey key, long attempts, long correct, LocalDateTime lastAnsweredAt) {
+        Stat stat = stats.computeIfAbsent(key, k -> new Stat(0, 0, PRIOR_ACCURACY, null));
+        stat.attempts += attempts;
+        stat.correct += correct;
+        stat.accuracy = stat.attempts > 0 ? (double) stat.correct / stat.attempts : PRIOR_ACCURACY;
+        if (lastAnsweredAt != null && (stat.lastAnsweredAt == null || lastAnsweredAt.isAfter(stat.lastAnsweredAt))) {
+            stat.lastAnsweredAt = lastAnsweredAt;
+        }
+    }
+
+    /**
+     * 一次答题
+     */
+    public record Attempt(Long answerRecordId, Long subjectId, Long chapterId, Question.QuestionType type, boolean correct) {
+
+        public static Attempt of(Long answerRecordId, Question question, Boolean isCorrect) {
+            return new Attempt(answerRecordId, question.getSubjectId(), question.getChapterId(), question.getType(),
+                    Boolean.TRUE.equals(isCorrect));
+        }
+    }
+
+    /**
+     * 某个维度的掌握度快照
+     */
+    public record Mastery(long attempts, long correct, double accuracy) {
+    }
+
+    /**
+     * 条目键
+     */
+    private record StatKey(Long subjectId, UserMastery.Dimension dimension, String refKey) {
+
+        static StatKey chapter(Long subjectId, Long chapterId) {
+            return new StatKey(subjectId, UserMastery.Dimension.CHAPTER, String.valueOf(chapterId));
+        }
+
+        static StatKey type(Long subjectId, Question.QuestionType type) {
+            return new StatKey(subjectId, UserMastery.Dimension.TYPE, type.name());
+        }
+    }
+
+    /**
+     * 条目状态（由所属 UserKnowledge 加锁访问）
+     * 未落库的变化：答题数、正确数增量，衰减正确率按 旧值 × factor + offset 变换
+     */
+    private static final class Stat {
+        long attempts;
+        long correct;
+        double accuracy;
+        LocalDateTime lastAnsweredAt;
+        boolean dirty;
+        long pendingAttempts;
+        long pendingCorrect;
+        double pendingFactor = 1.0;
+        double pendingOffset;
+
+        Stat(long attempts, long correct, double accuracy, LocalDateTime lastAnsweredAt) {
+            this.attempts = attempts;
+            this.correct = correct;
+            this.accuracy = accuracy;
+            this.lastAnsweredAt = lastAnsweredAt;
+        }
+    }
+
+    /**
+     * 一个条目取出的未落库变化（accuracy 为表中没有该条目时写入的完整值）
+     */
+    private record Change(StatKey key, long attempts, long correct, double accuracy,
+                          double factor, double offset, LocalDateTime lastAnsweredAt) {
+
+        Object[] toArgs(Long userId) {
+            return new Object[]{userId, key.subjectId(), key.dimension().name(), key.refKey(), attempts, correct,
+                    accuracy, lastAnsweredAt != null ? Timestamp.valueOf(lastAnsweredAt) : null, factor, offset};
+        }
+    }
+
+    /**
+     * 一个用户取出的待落库数据
+     */
+    private record Drained(List<Object[]> initial, List<Change> changes) {
+    }
+
+    /**
+     * 单个用户的掌握度
+     */
+    public static final class UserKnowledge {
+
+        private final Long userId;
+        private final Map<StatKey, Stat> stats = new HashMap<>();
+
+        /**
+         * 尚未落库的初始化结果（INSERT_ABSENT_SQL 参数）
+         */
+        private List<Object[]> initial = new ArrayList<>();
+
+        UserKnowledge(Long userId) {
+            this.userId = userId;
+        }
+
+        /**
+         * 章节掌握度（没有答题记录返回null）
+         */
+        public synchronized Mastery chapter(Long subjectId, Long chapterId) {
+            return view(stats.get(StatKey.chapter(subjectId, chapterId)));
+        }
+
+        /**
+         * 题型掌握度（没有答题记录返回null）
+         */
+        public synchronized Mastery type(Long subjectId, Question.QuestionType type) {
+            return view(stats.get(StatKey.type(subjectId, type)));
+        }
+
+        /**
+         * 学科内各题型掌握度
+         */
+        public synchronized Map<Question.QuestionType, Mastery> types(Long subjectId) {
+            Map<Question.QuestionType, Mastery> result = new EnumMap<>(Question.QuestionType.class);
+            stats.forEach((key, stat) -> {
+                if (key.dimension() == UserMastery.Dimension.TYPE && key.subjectId().equals(subjectId)) {
+                    result.put(Question.QuestionType.valueOf(key.refKey()), view(stat));
+                }
+            });
+            return result;
+        }
+
+        synchronized void apply(List<Attempt> attempts, double decay) {
+            LocalDateTime now = LocalDateTime.now();
+            for (Attempt attempt : attempts) {
+                if (attempt.subjectId() == null) {
+                    continue;
+                }
+                if (attempt.chapterId() != null) {
+                    update(StatKey.chapter(attempt.subjectId(), attempt.chapterId()), attempt.correct(), decay, now);
+                }
+                if (attempt.type() != null) {
+                    update(StatKey.type(attempt.subjectId(), attempt.type()), attempt.correct(), decay, now);
+                }
+            }
+        }
+
+        synchronized void correct(List<Attempt> corrections, double decay) {
+            for (Attempt attempt : corrections) {
+                if (attempt.subjectId() == null) {
+                    continue;
+                }
+                if (attempt.chapterId() != null) {
+                    correct(StatKey.chapter(attempt.subjectId(), attempt.chapterId()), decay);
+                }
+                if (attempt.type() != null) {
+                    correct(StatKey.type(attempt.subjectId(), attempt.type()), decay);
+                }
+            }
+        }
+
+        synchronized void put(StatKey key, Stat stat) {
+            stats.put(key, stat);
+        }
+
+        /**
+         * 以答题记录聚合结果初始化（需要落库）
+         */
+        synchronized void initialize(Map<StatKey, Stat> aggregated) {
+            aggregated.forEach((key, stat) -> {
+                stats.put(key, stat);
+                initial.add(new Object[]{userId, key.subjectId(), key.dimension().name(), key.refKey(),
+                        stat.attempts, stat.correct, stat.accuracy,
+                        stat.lastAnsweredAt != null ? Timestamp.valueOf(stat.lastAnsweredAt) : null});
+            });
+        }
+
+        /**
+         * 取出未落库的初始化结果和变化，并清除变化
+         */
+        synchronized Drained drain() {
+            List<Change> changes = new ArrayList<>();
+            stats.forEach((key, stat) -> {
+                if (stat.dirty) {
+                    changes.add(new Change(key, stat.pendingAttempts, stat.pendingCorrect, stat.accuracy,
+                            stat.pendingFactor, stat.pendingOffset, stat.lastAnsweredAt));
+                    stat.dirty = false;
+                    stat.pendingAttempts = 0;
+                    stat.pendingCorrect = 0;
+                    stat.pendingFactor = 1.0;
+                    stat.pendingOffset = 0;
+                }
+            });
+            Drained drained = new Drained(initial, changes);
+            initial = new ArrayList<>();
+            return drained;
+        }
+
+        /**
+         * 落库失败时放回取出的数据（取出后的新变化排在其后）
+         */
+        synchronized void restore(Drained drained) {
+            List<Object[]> restored = new ArrayList<>(drained.initial());
+            restored.addAll(initial);
+            initial = restored;
+            for (Change change : drained.changes()) {
+                Stat stat = stats.get(change.key());
+                if (stat == null) {
+                    continue;
+                }
+                stat.pendingAttempts += change.attempts();
+                stat.pendingCorrect += change.correct();
+                stat.pendingOffset = change.offset() * stat.pendingFactor + stat.pendingOffset;
+                stat.pendingFactor = change.factor() * stat.pendingFactor;
+                stat.dirty = true;
+            }
+        }
+
+        private void update(StatKey key, boolean correct, double decay, LocalDateTime now) {
+            Stat stat = stats.computeIfAbsent(key, k -> new Stat(0, 0, PRIOR_ACCURACY, null));
+            double target = correct ? 1.0 : 0.0;
+            stat.attempts++;
+            stat.pendingAttempts++;
+            if (correct) {
+                stat.correct++;
+                stat.pendingCorrect++;
+            }
+            stat.accuracy += decay * (target - stat.accuracy);
+            stat.pendingFactor *= 1 - decay;
+            stat.pendingOffset = stat.pendingOffset * (1 - decay) + decay * target;
+            stat.lastAnsweredAt = now;
+            stat.dirty = true;
+        }
+
+        /**
+         * 一次答错改判为答对（没有可改判的答错记录时忽略）
+         */
+        private void correct(StatKey key, double decay) {
+            Stat stat = stats.get(key);
+            if (stat == null || stat.correct >= stat.attempts) {
+                return;
+            }
+            stat.correct++;
+            stat.pendingCorrect++;
+            stat.accuracy += decay * (1.0 - stat.accuracy);
+            stat.pendingFactor *= 1 - decay;
+            stat.pendingOffset = stat.pendingOffset * (1 - decay) + decay;
+            stat.dirty = true;
+        }
+
+        private Mastery view(Stat stat) {
+            return stat == null ? null : new Mastery(stat.attempts, stat.correct, stat.accuracy);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.springboot.tiku.service.ranking;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 排行榜（用户ID -> 榜单条目）
+ * 条目按比较器排序，比较器需以用户ID兜底保证全序；非线程安全，由调用方加锁。
+ */
+public class Leaderboard<E> {
+
+    private final Map<Long, E> entries = new HashMap<>();
+    private final OrderStatisticTree<E> tree;
+
+    public Leaderboard(Comparator<? super E> comparator) {
+        this.tree = new OrderStatisticTree<>(comparator);
+    }
+
+    /**
+     * 写入或替换用户的条目
+     */
+    public void put(Long userId, E entry) {
+        E old = entries.put(userId, entry);
+        if (old != null) {
+            tree.remove(old);
+        }
+        tree.add(entry);
+    }
+
+    /**
+     * 移除用户的条目
+     */
+    public void remove(Long userId) {
+        E old = entries.remove(userId);
+        if (old != null) {
+            tree.remove(old);
+        }
+    }
+
+    /**
+     * 获取用户的条目
+     */
+    public E get(Long userId) {
+        return entries.get(userId);
+    }
+
+    /**
+     * 前N名
+     */
+    public List<E> top(int n) {
+        return tree.first(n);
+    }
+
+    /**
+     * 用户名次（从1开始，未上榜返回0）
+     */
+    public int rankOf(Long userId) {
+        E entry = entries.get(userId);
+        return entry == null ? 0 : tree.indexOf(entry) + 1;
+    }
+
+    public int size() {
+        return tree.size();
+    }
+}
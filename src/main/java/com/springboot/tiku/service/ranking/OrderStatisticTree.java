@@ -0,0 +1,150 @@
+package com.springboot.tiku.service.ranking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 顺序统计树（维护子树大小的 Treap）
+ * 插入、删除、名次查询均为 O(log n)，取前N项为 O(log n + N)。
+ * 元素按比较器全序排列且不可重复；非线程安全，由调用方加锁。
+ */
+public class OrderStatisticTree<T> {
+
+    private final Comparator<? super T> comparator;
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * 元素数量
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * 插入元素
+     */
+    public void add(T value) {
+        Split<T> split = split(root, value, false);
+        root = merge(merge(split.left(), new Node<>(value)), split.right());
+    }
+
+    /**
+     * 删除元素（不存在返回false）
+     */
+    public boolean remove(T value) {
+        Split<T> lower = split(root, value, false);
+        Split<T> upper = split(lower.right(), value, true);
+        root = merge(lower.left(), upper.right());
+        return upper.left() != null;
+    }
+
+    /**
+     * 查询元素的名次（从0开始，不存在返回-1）
+     */
+    public int indexOf(T value) {
+        int index = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int c = comparator.compare(value, node.value);
+            if (c < 0) {
+                node = node.left;
+            } else if (c > 0) {
+                index += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return index + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按顺序取前N项
+     */
+    public List<T> first(int n) {
+        List<T> result = new ArrayList<>(Math.min(n, size()));
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while ((node != null || !stack.isEmpty()) && result.size() < n) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(node.value);
+            node = node.right;
+        }
+        return result;
+    }
+
+    /**
+     * 按比较器切分：左侧为小于key（inclusive时为小于等于key）的节点
+     */
+    private Split<T> split(Node<T> node, T key, boolean inclusive) {
+        if (node == null) {
+            return new Split<>(null, null);
+        }
+        int c = comparator.compare(node.value, key);
+        if (c < 0 || (inclusive && c == 0)) {
+            Split<T> split = split(node.right, key, inclusive);
+            node.right = split.left();
+            update(node);
+            return new Split<>(node, split.right());
+        }
+        Split<T> split = split(node.left, key, inclusive);
+        node.left = split.right();
+        update(node);
+        return new Split<>(split.left(), node);
+    }
+
+    /**
+     * 合并两棵树（left中所有元素均小于right）
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static final class Node<T> {
+        final T value;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private record Split<T>(Node<T> left, Node<T> right) {
+    }
+}
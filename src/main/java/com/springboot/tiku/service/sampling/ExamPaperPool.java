@@ -0,0 +1,259 @@
+package com.springboot.tiku.service.sampling;
+
+import com.springboot.tiku.entity.Question;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * 模拟考试试卷池
+ * 按（学科、题型、题目数）在后台预生成若干份随机试卷，开考时轮流发放并按考生打乱题目顺序，
+ * 集中开考时不再逐章抽题；试卷发放次数达到上限或超过有效期后由后台线程换新，换新期间继续发放旧卷；
+ * 题目变更（删除、停用、移动）后旧卷可能包含已失效的题目，不再发放，按未命中现场组卷并在后台换新。
+ * 组合数达到上限时淘汰最久未使用的一个组合。暴露命中率和补充延迟指标。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExamPaperPool {
+
+    private final QuestionSampler questionSampler;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 每个组合预生成的试卷份数
+     */
+    @Value("${practice.paper-pool.size:20}")
+    private int poolSize;
+
+    /**
+     * 单份试卷最多发放次数，达到后后台换新
+     */
+    @Value("${practice.paper-pool.max-uses:50}")
+    private int maxUses;
+
+    /**
+     * 试卷有效期（秒）
+     */
+    @Value("${practice.paper-pool.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    /**
+     * 最多缓存的组合数（超过后淘汰最久未使用的组合）
+     */
+    @Value("${practice.paper-pool.max-keys:200}")
+    private int maxKeys;
+
+    private final Map<PaperKey, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private ThreadPoolExecutor refillExecutor;
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Timer refillLagTimer;
+
+    @PostConstruct
+    public void init() {
+        refillExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "paper-pool-refill");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        hitCounter = Counter.builder("practice.paper.pool.requests")
+                .tag("result", "hit")
+                .description("从试卷池直接发放的次数")
+                .register(meterRegistry);
+        missCounter = Counter.builder("practice.paper.pool.requests")
+                .tag("result", "miss")
+                .description("试卷池为空、现场组卷的次数")
+                .register(meterRegistry);
+        Gauge.builder("practice.paper.pool.hit.rate", this, ExamPaperPool::hitRate)
+                .description("试卷池命中率")
+                .register(meterRegistry);
+        Gauge.builder("practice.paper.pool.papers", pools, p -> p.values().stream().mapToInt(Pool::size).sum())
+                .description("试卷池中的试卷份数")
+                .register(meterRegistry);
+        Gauge.builder("practice.paper.pool.refill.queue", refillExecutor, e -> e.getQueue().size())
+                .description("等待补充的试卷池数")
+                .register(meterRegistry);
+        refillLagTimer = Timer.builder("practice.paper.pool.refill.lag")
+                .description("试卷池从触发补充到补充完成的延迟")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取一份试卷（题目ID，顺序已按考生打乱）
+     * @param builder 组卷方法，池为空时在当前线程调用，补充时在后台线程调用
+     */
+    public List<Long> take(PaperKey key, Function<PaperKey, List<Long>> builder) {
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            if (pools.size() >= maxKeys) {
+                evictLeastRecentlyUsed();
+            }
+            pool = pools.computeIfAbsent(key, k -> new Pool(k, builder, poolSize));
+        }
+        pool.lastUsedAt = System.nanoTime();
+
+        Paper paper = pool.next();
+        if (paper == null || paper.generation() != questionSampler.generation()) {
+            misses.incrementAndGet();
+            missCounter.increment();
+            scheduleRefill(pool);
+            return builder.apply(key);
+        }
+
+        hits.incrementAndGet();
+        hitCounter.increment();
+        if (paper.uses().incrementAndGet() >= maxUses || isStale(paper)) {
+            scheduleRefill(pool);
+        }
+        List<Long> ids = new ArrayList<>(paper.ids());
+        Collections.shuffle(ids, ThreadLocalRandom.current());
+        return ids;
+    }
+
+    /**
+     * 清空试卷池
+     */
+    public void clear() {
+        pools.clear();
+    }
+
+    public double hitRate() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        pools.values().stream()
+                .min((a, b) -> Long.compare(a.lastUsedAt, b.lastUsedAt))
+                .ifPresent(pool -> pools.remove(pool.key, pool));
+    }
+
+    private void scheduleRefill(Pool pool) {
+        if (!pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        long requestedAt = System.nanoTime();
+        try {
+            refillExecutor.execute(() -> refill(pool, requestedAt));
+        } catch (RejectedExecutionException e) {
+            pool.refilling.set(false);
+        }
+    }
+
+    /**
+     * 补充空位，替换用满、过期或题目已变更的试卷
+     */
+    private void refill(Pool pool, long requestedAt) {
+        int built = 0;
+        try {
+            for (int i = 0; i < pool.slots.length(); i++) {
+                Paper paper = pool.slots.get(i);
+                if (paper != null && paper.uses().get() < maxUses && !isStale(paper)) {
+                    continue;
+                }
+                long generation = questionSampler.generation();
+                List<Long> ids = pool.builder.apply(pool.key);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                pool.slots.set(i, new Paper(List.copyOf(ids), generation, System.currentTimeMillis(), new AtomicInteger()));
+                built++;
+            }
+            refillLagTimer.record(System.nanoTime() - requestedAt, TimeUnit.NANOSECONDS);
+            log.debug("试卷池已补充：{}，新生成{}份", pool.key, built);
+        } catch (Exception e) {
+            log.error("试卷池补充失败：{}", pool.key, e);
+        } finally {
+            pool.refilling.set(false);
+        }
+    }
+
+    private boolean isStale(Paper paper) {
+        return paper.generation() != questionSampler.generation()
+                || System.currentTimeMillis() - paper.builtAt() > ttlSeconds * 1000;
+    }
+
+    /**
+     * 试卷池键
+     */
+    public record PaperKey(Long subjectId, Question.QuestionType type, int count) {
+    }
+
+    /**
+     * 预生成的试卷
+     */
+    private record Paper(List<Long> ids, long generation, long builtAt, AtomicInteger uses) {
+    }
+
+    /**
+     * 单个组合的试卷池（固定槽位，轮流发放）
+     */
+    private static final class Pool {
+        private final PaperKey key;
+        private final Function<PaperKey, List<Long>> builder;
+        private final AtomicReferenceArray<Paper> slots;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private volatile long lastUsedAt = System.nanoTime();
+
+        Pool(PaperKey key, Function<PaperKey, List<Long>> builder, int size) {
+            this.key = key;
+            this.builder = builder;
+            this.slots = new AtomicReferenceArray<>(Math.max(1, size));
+        }
+
+        /**
+         * 轮流取下一份试卷，池为空返回null
+         */
+        Paper next() {
+            int size = slots.length();
+            for (int i = 0; i < size; i++) {
+                Paper paper = slots.get((int) Math.floorMod(cursor.getAndIncrement(), (long) size));
+                if (paper != null) {
+                    return paper;
+                }
+            }
+            return null;
+        }
+
+        int size() {
+            int count = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                if (slots.get(i) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.springboot.tiku.service.sampling;
+
+import com.springboot.tiku.entity.PracticeCursor;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.repository.PracticeCursorRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 顺序刷题进度游标
+ * 按（用户、学科、筛选条件）保存最后下发的题目ID，读写均为唯一键单行操作
+ */
+@Component
+@RequiredArgsConstructor
+public class PracticeCursorStore {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO practice_cursor (user_id, subject_id, filter_key, last_question_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE last_question_id = VALUES(last_question_id), updated_at = NOW()";
+
+    private final PracticeCursorRepository practiceCursorRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 筛选条件键（未指定的条件用 "-" 表示）
+     */
+    public static String filterKey(Long chapterId, Question.QuestionType type, Question.Difficulty difficulty) {
+        return "c:" + (chapterId != null ? chapterId : "-")
+                + "|t:" + (type != null ? type.name() : "-")
+                + "|d:" + (difficulty != null ? difficulty.name() : "-");
+    }
+
+    /**
+     * 获取最后下发的题目ID（没有进度返回0）
+     */
+    public long get(Long userId, Long subjectId, String filterKey) {
+        return practiceCursorRepository.findByUserIdAndSubjectIdAndFilterKey(userId, subjectId, filterKey)
+                .map(PracticeCursor::getLastQuestionId)
+                .orElse(0L);
+    }
+
+    /**
+     * 保存最后下发的题目ID
+     */
+    public void save(Long userId, Long subjectId, String filterKey, Long lastQuestionId) {
+        jdbcTemplate.update(UPSERT_SQL, userId, subjectId, filterKey, lastQuestionId);
+    }
+}
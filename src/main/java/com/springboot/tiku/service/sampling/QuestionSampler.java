@@ -0,0 +1,231 @@
+package com.springboot.tiku.service.sampling;
+
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.repository.QuestionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 题目随机抽样引擎
+ * 按（学科、章节、题型、状态）在内存中维护题目ID数组，
+ * 抽样时先在内存中均匀抽取k个不重复ID，再通过一次 findAllById 批量加载，
+ * 替代 ORDER BY RAND() 的全量扫描排序
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuestionSampler {
+
+    private final QuestionRepository questionRepository;
+
+    /**
+     * ID池过期时间（秒），用于多实例部署下感知其他节点的题目变更
+     */
+    @Value("${practice.sampling.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * ID池缓存
+     */
+    private final Map<PoolKey, IdPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 失效代数（每次失效递增，防止加载中的旧数据覆盖失效结果）
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 从学科中随机抽取题目
+     */
+    public List<Question> sampleBySubject(Long subjectId, Integer status, int count) {
+        return fetch(sampleIds(PoolKey.ofSubject(subjectId, null, status), count));
+    }
+
+    /**
+     * 从学科中按题型随机抽取题目
+     */
+    public List<Question> sampleBySubjectAndType(Long subjectId, Question.QuestionType type, Integer status, int count) {
+        return fetch(sampleIds(PoolKey.ofSubject(subjectId, type, status), count));
+    }
+
+    /**
+     * 从章节中随机抽取题目
+     */
+    public List<Question> sampleByChapter(Long chapterId, Integer status, int count) {
+        return fetch(sampleIds(PoolKey.ofChapter(chapterId, status), count));
+    }
+
+    /**
+     * 仅抽取题目ID（调用方可合并多次抽样后一次性加载）
+     */
+    public List<Long> sampleChapterIds(Long chapterId, Integer status, int count) {
+        return sampleIds(PoolKey.ofChapter(chapterId, status), count);
+    }
+
+    /**
+     * 仅抽取学科题目ID（题型可为空）
+     */
+    public List<Long> sampleSubjectIds(Long subjectId, Question.QuestionType type, Integer status, int count) {
+        return sampleIds(PoolKey.ofSubject(subjectId, type, status), count);
+    }
+
+    /**
+     * 按ID批量加载题目，并保持传入ID的顺序
+     */
+    public List<Question> fetch(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Question> questionMap = questionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        List<Question> questions = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Question question = questionMap.get(id);
+            if (question != null) {
+                questions.add(question);
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * 题目变更后失效相关ID池（在事务中调用时，提交后才失效，避免提交前重新加载到旧数据）
+     * @param subjectId 学科ID（可为空）
+     * @param chapterId 章节ID（可为空）
+     */
+    public void evict(Long subjectId, Long chapterId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            pools.keySet().removeIf(key ->
+                    (subjectId != null && subjectId.equals(key.subjectId()))
+                            || (chapterId != null && chapterId.equals(key.chapterId())));
+        });
+    }
+
+    /**
+     * 失效全部ID池（批量导入等场景，在事务中调用时提交后才失效）
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            pools.clear();
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 当前失效代数（题目变更时递增，上层缓存据此判断是否过期）
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 均匀抽取k个不重复ID（Floyd算法），结果顺序随机
+     */
+    private List<Long> sampleIds(PoolKey key, int count) {
+        long[] ids = getPool(key).ids();
+        int n = ids.length;
+        if (n == 0 || count <= 0) {
+            return new ArrayList<>();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Long> result;
+        if (count >= n) {
+            result = new ArrayList<>(n);
+            for (long id : ids) {
+                result.add(id);
+            }
+        } else {
+            Set<Integer> picked = new HashSet<>(count * 2);
+            for (int j = n - count; j < n; j++) {
+                int t = random.nextInt(j + 1);
+                picked.add(picked.contains(t) ? j : t);
+            }
+            result = new ArrayList<>(count);
+            for (int index : picked) {
+                result.add(ids[index]);
+            }
+        }
+
+        Collections.shuffle(result, random);
+        return result;
+    }
+
+    /**
+     * 获取ID池（不存在或已过期时从数据库加载）
+     */
+    private IdPool getPool(PoolKey key) {
+        IdPool pool = pools.get(key);
+        long now = System.currentTimeMillis();
+        if (pool != null && now - pool.loadedAt() < ttlSeconds * 1000) {
+            return pool;
+        }
+
+        long gen = generation.get();
+        long[] ids = loadIds(key).stream().mapToLong(Long::longValue).toArray();
+        IdPool loaded = new IdPool(ids, now);
+        if (generation.get() == gen) {
+            pools.put(key, loaded);
+        }
+        log.debug("加载题目ID池：{}，共{}题", key, ids.length);
+        return loaded;
+    }
+
+    /**
+     * 从数据库加载ID列表（仅查询主键，走二级索引）
+     */
+    private List<Long> loadIds(PoolKey key) {
+        if (key.chapterId() != null) {
+            return questionRepository.findIdsByChapterIdAndStatus(key.chapterId(), key.status());
+        }
+        if (key.type() != null) {
+            return questionRepository.findIdsBySubjectIdAndTypeAndStatus(key.subjectId(), key.type(), key.status());
+        }
+        return questionRepository.findIdsBySubjectIdAndStatus(key.subjectId(), key.status());
+    }
+
+    /**
+     * ID池键
+     */
+    private record PoolKey(Long subjectId, Long chapterId, Question.QuestionType type, Integer status) {
+
+        static PoolKey ofSubject(Long subjectId, Question.QuestionType type, Integer status) {
+            return new PoolKey(subjectId, null, type, status);
+        }
+
+        static PoolKey ofChapter(Long chapterId, Integer status) {
+            return new PoolKey(null, chapterId, null, status);
+        }
+    }
+
+    /**
+     * ID池（不可变快照）
+     */
+    private record IdPool(long[] ids, long loadedAt) {
+    }
+}
@@ -0,0 +1,271 @@
+package com.springboot.tiku.service.search;
+
+import com.springboot.tiku.common.ResultCode;
+import com.springboot.tiku.dto.question.QuestionQueryRequest;
+import com.springboot.tiku.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 题目全文检索
+ * 基于 MySQL FULLTEXT 索引（ngram 分词，支持中文），索引随题目增删改在同一事务内由 InnoDB 维护；
+ * 关键词检索标题和内容、标签单独检索（与 LIKE 查询的字段一致）；有排序条件时按排序条件排序，否则按相关度排序，
+ * 排序字段不在可排序列中时同样退回 LIKE 查询。
+ * 检索只返回题目ID，由调用方一次批量加载。索引不可用或关键词过短时返回null，调用方退回 LIKE 查询。
+ * 每组列各有两个可交替使用的索引名，重建时先建新索引再删旧索引，重建期间其他节点的检索不受影响。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuestionSearchIndex {
+
+    private static final String TEXT_COLUMNS = "title, content";
+    private static final String TAG_COLUMNS = "tags";
+
+    /**
+     * 两组列各自交替使用的索引名
+     */
+    private static final List<String> TEXT_INDEXES = List.of("ft_question_content", "ft_question_content_2");
+    private static final List<String> TAG_INDEXES = List.of("ft_question_tags", "ft_question_tags_2");
+
+    /**
+     * 旧版本包含 tags 列的标题内容索引，重建时删除
+     */
+    private static final String LEGACY_TEXT_INDEX = "ft_question_text";
+
+    private static final String TEXT_MATCH = "MATCH(title, content) AGAINST (? IN BOOLEAN MODE)";
+    private static final String TAG_MATCH = "MATCH(tags) AGAINST (? IN BOOLEAN MODE)";
+
+    /**
+     * 可排序的列
+     */
+    private static final Set<String> SORTABLE_COLUMNS = Set.of("id", "serial_number", "created_at", "updated_at",
+            "subject_id", "chapter_id", "type", "difficulty", "score", "status", "use_count", "correct_count", "wrong_count",
+            "title");
+
+    /**
+     * 布尔模式下的运算符，检索词中出现时按分隔符处理
+     */
+    private static final String BOOLEAN_OPERATORS = "[+\\-<>()~*\"@]";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 是否启用全文索引
+     */
+    @Value("${search.fulltext.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * ngram 分词长度（与 MySQL ngram_token_size 一致），短于该长度的词无法命中索引
+     */
+    @Value("${search.fulltext.ngram-token-size:2}")
+    private int ngramTokenSize;
+
+    private volatile boolean available;
+
+    /**
+     * 启动时检查并创建全文索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            createIfMissing(TEXT_INDEXES, TEXT_COLUMNS);
+            createIfMissing(TAG_INDEXES, TAG_COLUMNS);
+            available = true;
+        } catch (Exception e) {
+            log.error("创建题目全文索引失败，题目搜索退回LIKE查询", e);
+        }
+    }
+
+    /**
+     * 按关键词和标签检索题目ID（按相关度排序），无法使用索引时返回null
+     */
+    public Page<Long> search(QuestionQueryRequest request, Pageable pageable) {
+        String keywordQuery = toBooleanQuery(request.getKeyword());
+        String tagQuery = toBooleanQuery(request.getTag());
+        if (!available
+                || !isSortable(pageable.getSort())
+                || hasText(request.getKeyword()) && keywordQuery == null
+                || hasText(request.getTag()) && tagQuery == null
+                || keywordQuery == null && tagQuery == null) {
+            return null;
+        }
+
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (keywordQuery != null) {
+            where.append(" AND ").append(TEXT_MATCH);
+            args.add(keywordQuery);
+        }
+        if (tagQuery != null) {
+            where.append(" AND ").append(TAG_MATCH);
+            args.add(tagQuery);
+        }
+        appendFilter(where, args, "subject_id", request.getSubjectId());
+        appendFilter(where, args, "chapter_id", request.getChapterId());
+        appendFilter(where, args, "type", request.getType() != null ? request.getType().name() : null);
+        appendFilter(where, args, "difficulty", request.getDifficulty() != null ? request.getDifficulty().name() : null);
+        appendFilter(where, args, "status", request.getStatus());
+        appendFilter(where, args, "creator_id", request.getCreatorId());
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM question" + where, Long.class, args.toArray());
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total != null ? total : 0);
+        }
+
+        List<Object> pageArgs = new ArrayList<>(args);
+        String orderBy = orderBy(pageable.getSort());
+        if (orderBy == null) {
+            // 未指定排序时按相关度排序
+            orderBy = (keywordQuery != null ? TEXT_MATCH : TAG_MATCH) + " DESC, id DESC";
+            pageArgs.add(keywordQuery != null ? keywordQuery : tagQuery);
+        }
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM question" + where + " ORDER BY " + orderBy + " LIMIT ? OFFSET ?",
+                Long.class, pageArgs.toArray());
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    /**
+     * 重建全文索引（先用另一个索引名新建，再删除旧索引）
+     */
+    public Map<String, Object> rebuild() {
+        if (!enabled) {
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "题目全文索引未启用");
+        }
+        long start = System.currentTimeMillis();
+        String textIndex = replace(TEXT_INDEXES, TEXT_COLUMNS);
+        String tagIndex = replace(TAG_INDEXES, TAG_COLUMNS);
+        dropIfExists(LEGACY_TEXT_INDEX);
+        available = true;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("indexes", List.of(textIndex, tagIndex));
+        result.put("questionCount", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM question", Long.class));
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        log.info("题目全文索引重建完成：{}", result);
+        return result;
+    }
+
+    /**
+     * 转换为布尔模式检索式：每个词都必须出现（按短语匹配），过短的词无法命中ngram索引，整体返回null
+     */
+    private String toBooleanQuery(String text) {
+        if (!hasText(text)) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : text.replaceAll(BOOLEAN_OPERATORS, " ").trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (term.codePointCount(0, term.length()) < ngramTokenSize) {
+                return null;
+            }
+            query.append(query.length() > 0 ? " " : "").append("+\"").append(term).append('"');
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    private static boolean isSortable(Sort sort) {
+        return sort.stream().allMatch(order -> SORTABLE_COLUMNS.contains(toColumn(order.getProperty())));
+    }
+
+    /**
+     * 排序条件转换为 ORDER BY 子句（未指定排序返回null）
+     */
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return null;
+        }
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(toColumn(order.getProperty()) + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return String.join(", ", orders);
+    }
+
+    private static String toColumn(String property) {
+        return property.replaceAll("([A-Z])", "_$1").toLowerCase(Locale.ROOT);
+    }
+
+    private void appendFilter(StringBuilder where, List<Object> args, String column, Object value) {
+        if (value != null) {
+            where.append(" AND ").append(column).append(" = ?");
+            args.add(value);
+        }
+    }
+
+    /**
+     * 两个索引名都不存在时创建第一个
+     */
+    private void createIfMissing(List<String> names, String columns) {
+        if (names.stream().noneMatch(this::indexExists)) {
+            create(names.get(0), columns);
+        }
+    }
+
+    /**
+     * 用未使用的索引名新建索引，建好后删除其他同列索引，返回新索引名
+     */
+    private String replace(List<String> names, String columns) {
+        String target = names.stream().filter(name -> !indexExists(name)).findFirst().orElse(null);
+        if (target == null) {
+            // 上次重建中断，两个索引都在：删除第二个后重建
+            target = names.get(1);
+            dropIfExists(target);
+        }
+        create(target, columns);
+        for (String name : names) {
+            if (!name.equals(target)) {
+                dropIfExists(name);
+            }
+        }
+        return target;
+    }
+
+    private void create(String name, String columns) {
+        log.info("创建题目全文索引：{}", name);
+        jdbcTemplate.execute("ALTER TABLE question ADD FULLTEXT INDEX " + name + " (" + columns + ") WITH PARSER ngram");
+    }
+
+    private void dropIfExists(String name) {
+        if (indexExists(name)) {
+            jdbcTemplate.execute("ALTER TABLE question DROP INDEX " + name);
+        }
+    }
+
+    private boolean indexExists(String name) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'question' AND index_name = ?",
+                Integer.class, name);
+        return count != null && count > 0;
+    }
+
+    private static boolean hasText(String text) {
+        return text != null && !text.isBlank();
+    }
+}
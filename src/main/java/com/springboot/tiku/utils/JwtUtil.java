@@ -1,8 +1,10 @@
 package com.springboot.tiku.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -26,11 +28,19 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    private SecretKey secretKey;
+    
+    private JwtParser jwtParser;
+    
     /**
-     * 生成密钥
+     * 初始化密钥和解析器（线程安全，全局复用）
      */
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @PostConstruct
+    public void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
     }
     
     /**
@@ -56,18 +66,16 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expirationDate)
-                .signWith(getSecretKey())
+                .signWith(secretKey)
                 .compact();
     }
     
     /**
-     * 从Token中获取Claims
+     * 解析并校验Token（签名或过期校验失败返回null）
      */
-    private Claims getClaimsFromToken(String token) {
+    public Claims parseToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSecretKey())
-                    .build()
+            return jwtParser
                     .parseSignedClaims(token)
                     .getPayload();
         } catch (Exception e) {
@@ -80,7 +88,7 @@ public class JwtUtil {
      * 从Token中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseToken(token);
         return claims != null ? claims.getSubject() : null;
     }
     
@@ -88,7 +96,7 @@ public class JwtUtil {
      * 从Token中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseToken(token);
         return claims != null ? claims.get("userId", Long.class) : null;
     }
     
@@ -96,7 +104,7 @@ public class JwtUtil {
      * 从Token中获取角色
      */
     public String getRoleFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseToken(token);
         return claims != null ? claims.get("role", String.class) : null;
     }
     
@@ -104,7 +112,7 @@ public class JwtUtil {
      * 验证Token是否过期
      */
     public boolean isTokenExpired(String token) {
-        Claims claims = getClaimsFromToken(token);
+        Claims claims = parseToken(token);
         if (claims == null) {
             return true;
         }
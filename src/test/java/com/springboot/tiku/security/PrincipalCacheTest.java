@@ -0,0 +1,94 @@
+package com.springboot.tiku.security;
+
+import com.springboot.tiku.entity.User;
+import com.springboot.tiku.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrincipalCacheTest {
+
+    private UserRepository userRepository;
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        cache = new PrincipalCache(userRepository);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+    }
+
+    @Test
+    void enabledUserIsLoadedOnceAndServedFromCache() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, 1)));
+
+        JwtPrincipal first = cache.get(1L);
+        JwtPrincipal second = cache.get(1L);
+
+        assertThat(first.getUserId()).isEqualTo(1L);
+        assertThat(first.getRole()).isEqualTo("STUDENT");
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void disabledMissingAndStatuslessUsersAreRejectedAndCachedAsNegative() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, 0)));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        when(userRepository.findById(3L)).thenReturn(Optional.of(user(3L, null)));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(cache.get(1L)).isNull();
+            assertThat(cache.get(2L)).isNull();
+            assertThat(cache.get(3L)).isNull();
+        }
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findById(2L);
+        verify(userRepository, times(1)).findById(3L);
+    }
+
+    @Test
+    void invalidationReloadsChangedAccount() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, 1)), Optional.of(user(1L, 0)));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L, 1)), Optional.of(user(2L, 0)));
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNotNull();
+
+        cache.invalidate(1L);
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+
+        cache.invalidateAll(List.of(2L));
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, 1)), Optional.of(user(1L, 0)));
+        assertThat(cache.get(1L)).isNotNull();
+
+        Thread.sleep(5);
+
+        assertThat(cache.get(1L)).isNull();
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    private static User user(Long id, Integer status) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setStatus(status);
+        return user;
+    }
+}
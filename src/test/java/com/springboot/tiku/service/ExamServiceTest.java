@@ -0,0 +1,185 @@
+package com.springboot.tiku.service;
+
+import com.springboot.tiku.common.ResultCode;
+import com.springboot.tiku.dto.exam.ExamSessionDTO;
+import com.springboot.tiku.entity.Exam;
+import com.springboot.tiku.entity.ExamRecord;
+import com.springboot.tiku.exception.BusinessException;
+import com.springboot.tiku.repository.ExamRecordRepository;
+import com.springboot.tiku.repository.ExamRepository;
+import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
+import com.springboot.tiku.service.exam.ExamPaper;
+import com.springboot.tiku.service.exam.ExamPaperGenerator;
+import com.springboot.tiku.service.exam.ExamSession;
+import com.springboot.tiku.service.exam.ExamSessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExamServiceTest {
+
+    private static final Long EXAM_ID = 1L;
+    private static final Long USER_ID = 7L;
+
+    private ExamRecordRepository examRecordRepository;
+    private ExamPaperGenerator paperGenerator;
+    private ExamSessionStore sessionStore;
+    private ExamService examService;
+
+    /**
+     * 数据库中的考试记录，以及各节点内存中的会话
+     */
+    private final List<ExamRecord> records = new CopyOnWriteArrayList<>();
+    private final Map<Long, ExamSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        ExamRepository examRepository = mock(ExamRepository.class);
+        examRecordRepository = mock(ExamRecordRepository.class);
+        paperGenerator = mock(ExamPaperGenerator.class);
+        sessionStore = mock(ExamSessionStore.class);
+        examService = new ExamService(examRepository, examRecordRepository, mock(QuestionRepository.class),
+                mock(QuestionAssembler.class), paperGenerator, sessionStore, mock(GradingService.class),
+                mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(examService, "submitGraceSeconds", 30L);
+
+        Exam exam = new Exam();
+        exam.setId(EXAM_ID);
+        exam.setName("模拟考试");
+        exam.setStatus(1);
+        exam.setDuration(60);
+        exam.setType(Exam.ExamType.PRACTICE);
+        when(examRepository.findById(EXAM_ID)).thenReturn(Optional.of(exam));
+        when(paperGenerator.generate(any())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return new ExamPaper(List.of(new ExamPaper.Item(11L, new BigDecimal("5"), null)));
+        });
+
+        when(examRecordRepository.findByUserIdAndExamIdAndStatus(anyLong(), anyLong(), eq(ExamRecord.ExamStatus.ONGOING)))
+                .thenAnswer(invocation -> records.stream()
+                        .filter(r -> r.getUserId().equals(invocation.getArgument(0))
+                                && r.getExamId().equals(invocation.getArgument(1))
+                                && r.getStatus() == ExamRecord.ExamStatus.ONGOING)
+                        .findFirst());
+        // 模拟 ongoing_key 唯一索引：同一用户同一考试已有进行中的记录时插入失败
+        when(examRecordRepository.save(any(ExamRecord.class))).thenAnswer(invocation -> {
+            ExamRecord record = invocation.getArgument(0);
+            synchronized (records) {
+                boolean duplicate = records.stream().anyMatch(r -> r.getUserId().equals(record.getUserId())
+                        && r.getExamId().equals(record.getExamId()) && r.getStatus() == ExamRecord.ExamStatus.ONGOING);
+                if (duplicate) {
+                    throw new DataIntegrityViolationException("Duplicate entry for key 'uk_ongoing_key'");
+                }
+                record.setId(ids.incrementAndGet());
+                records.add(record);
+            }
+            return record;
+        });
+        when(sessionStore.register(any(), any())).thenAnswer(invocation -> {
+            ExamRecord record = invocation.getArgument(0);
+            return sessions.computeIfAbsent(record.getId(), id -> session(record));
+        });
+        when(sessionStore.get(anyLong())).thenAnswer(invocation -> sessions.get(invocation.<Long>getArgument(0)));
+    }
+
+    @Test
+    void concurrentStartsOnOneNodeCreateOneRecord() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ExamSessionDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return examService.startExam(EXAM_ID, USER_ID);
+            }));
+        }
+        start.countDown();
+        List<Long> recordIds = new ArrayList<>();
+        for (Future<ExamSessionDTO> future : futures) {
+            recordIds.add(future.get(10, TimeUnit.SECONDS).getRecordId());
+        }
+        pool.shutdown();
+
+        assertThat(records).hasSize(1);
+        assertThat(recordIds).containsOnly(records.get(0).getId());
+        verify(examRecordRepository, times(1)).save(any(ExamRecord.class));
+        verify(paperGenerator, times(1)).generate(any());
+    }
+
+    @Test
+    void startLosingInsertRaceToOtherNodeResumesThatRecord() {
+        // 本节点查询时还没有进行中的记录，插入前其他节点已创建并登记了会话
+        when(paperGenerator.generate(any())).thenAnswer(invocation -> {
+            ExamRecord other = record(99L);
+            records.add(other);
+            sessions.put(99L, session(other));
+            return new ExamPaper(List.of(new ExamPaper.Item(11L, new BigDecimal("5"), null)));
+        });
+
+        ExamSessionDTO dto = examService.startExam(EXAM_ID, USER_ID);
+
+        assertThat(dto.getRecordId()).isEqualTo(99L);
+        assertThat(records).hasSize(1);
+        verify(sessionStore, never()).register(any(), any());
+    }
+
+    @Test
+    void insertConflictWithoutResumableRecordAsksToRetry() {
+        when(examRecordRepository.save(any(ExamRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'uk_ongoing_key'"));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> examService.startExam(EXAM_ID, USER_ID));
+
+        assertThat(e.getCode()).isEqualTo(ResultCode.CONFLICT.getCode());
+        verify(sessionStore, never()).register(any(), any());
+    }
+
+    private static ExamRecord record(Long id) {
+        ExamRecord record = new ExamRecord();
+        record.setId(id);
+        record.setUserId(USER_ID);
+        record.setExamId(EXAM_ID);
+        record.setTotalCount(1);
+        record.setStartTime(LocalDateTime.now());
+        record.setDeadline(LocalDateTime.now().plusMinutes(60));
+        record.setStatus(ExamRecord.ExamStatus.ONGOING);
+        return record;
+    }
+
+    private static ExamSession session(ExamRecord record) {
+        return new ExamSession(record.getId(), record.getExamId(), record.getUserId(),
+                new ExamPaper(List.of(new ExamPaper.Item(11L, new BigDecimal("5"), null))),
+                record.getStartTime(), record.getDeadline(), Map.of());
+    }
+}
@@ -0,0 +1,136 @@
+package com.springboot.tiku.service;
+
+import com.springboot.tiku.dto.practice.PracticeMode;
+import com.springboot.tiku.dto.practice.PracticeRequest;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.entity.Subject;
+import com.springboot.tiku.repository.ChapterRepository;
+import com.springboot.tiku.repository.FavoriteRepository;
+import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.repository.WrongQuestionRepository;
+import com.springboot.tiku.service.assembler.QuestionAssembler;
+import com.springboot.tiku.service.mastery.MasteryStore;
+import com.springboot.tiku.service.sampling.ExamPaperPool;
+import com.springboot.tiku.service.sampling.PracticeCursorStore;
+import com.springboot.tiku.service.sampling.QuestionSampler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PracticeServiceTest {
+
+    private static final Long USER_ID = 7L;
+    private static final Long SUBJECT_ID = 1L;
+    private static final String FILTER_KEY = PracticeCursorStore.filterKey(null, null, null);
+    private static final int BANK_SIZE = 5;
+
+    private QuestionRepository questionRepository;
+    private PracticeCursorStore practiceCursorStore;
+    private QuestionAssembler questionAssembler;
+    private PracticeService practiceService;
+
+    @BeforeEach
+    void setUp() {
+        questionRepository = mock(QuestionRepository.class);
+        SubjectRepository subjectRepository = mock(SubjectRepository.class);
+        practiceCursorStore = mock(PracticeCursorStore.class);
+        questionAssembler = mock(QuestionAssembler.class);
+        practiceService = new PracticeService(questionRepository, subjectRepository, mock(ChapterRepository.class),
+                mock(WrongQuestionRepository.class), mock(FavoriteRepository.class), mock(QuestionSampler.class),
+                mock(ExamPaperPool.class), practiceCursorStore, mock(MasteryStore.class), questionAssembler);
+
+        Subject subject = new Subject();
+        subject.setId(SUBJECT_ID);
+        subject.setName("Java");
+        when(subjectRepository.findById(SUBJECT_ID)).thenReturn(Optional.of(subject));
+        when(questionAssembler.toDTOs(any())).thenReturn(List.of());
+        // 题库：ID 1..5，按 id > cursor ORDER BY id LIMIT n 返回
+        when(questionRepository.findNextBySubject(eq(SUBJECT_ID), eq(1), anyLong(), any(), any(), any(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    long cursor = invocation.getArgument(2);
+                    Pageable page = invocation.getArgument(6);
+                    return LongStream.rangeClosed(cursor + 1, BANK_SIZE)
+                            .limit(page.getPageSize())
+                            .mapToObj(PracticeServiceTest::question)
+                            .toList();
+                });
+    }
+
+    @Test
+    void continuesAfterLastServedQuestion() {
+        when(practiceCursorStore.get(USER_ID, SUBJECT_ID, FILTER_KEY)).thenReturn(2L);
+
+        practiceService.startPractice(request(2, true), USER_ID);
+
+        assertThat(served()).containsExactly(3L, 4L);
+        verify(practiceCursorStore).save(USER_ID, SUBJECT_ID, FILTER_KEY, 4L);
+    }
+
+    @Test
+    void wrapsAroundAtEndOfBank() {
+        when(practiceCursorStore.get(USER_ID, SUBJECT_ID, FILTER_KEY)).thenReturn(4L);
+
+        practiceService.startPractice(request(3, true), USER_ID);
+
+        assertThat(served()).containsExactly(5L, 1L, 2L);
+        verify(practiceCursorStore).save(USER_ID, SUBJECT_ID, FILTER_KEY, 2L);
+    }
+
+    @Test
+    void wrapAroundDoesNotRepeatQuestions() {
+        when(practiceCursorStore.get(USER_ID, SUBJECT_ID, FILTER_KEY)).thenReturn(2L);
+
+        practiceService.startPractice(request(10, true), USER_ID);
+
+        assertThat(served()).containsExactly(3L, 4L, 5L, 1L, 2L);
+        verify(practiceCursorStore).save(USER_ID, SUBJECT_ID, FILTER_KEY, 2L);
+    }
+
+    @Test
+    void startsFromBeginningWithoutContinueProgress() {
+        practiceService.startPractice(request(2, false), USER_ID);
+
+        assertThat(served()).containsExactly(1L, 2L);
+        verify(practiceCursorStore, never()).get(anyLong(), anyLong(), anyString());
+        verify(practiceCursorStore).save(USER_ID, SUBJECT_ID, FILTER_KEY, 2L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> served() {
+        ArgumentCaptor<List<Question>> captor = ArgumentCaptor.forClass(List.class);
+        verify(questionAssembler).toDTOs(captor.capture());
+        return captor.getValue().stream().map(Question::getId).toList();
+    }
+
+    private static PracticeRequest request(int count, boolean continueProgress) {
+        PracticeRequest request = new PracticeRequest();
+        request.setMode(PracticeMode.SEQUENTIAL);
+        request.setSubjectId(SUBJECT_ID);
+        request.setCount(count);
+        request.setContinueProgress(continueProgress);
+        return request;
+    }
+
+    private static Question question(long id) {
+        Question question = new Question();
+        question.setId(id);
+        question.setSubjectId(SUBJECT_ID);
+        return question;
+    }
+}
@@ -0,0 +1,95 @@
+package com.springboot.tiku.service.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiResilienceGuardTest {
+
+    @Test
+    void bulkheadRejectsCallsBeyondMaxConcurrentAndReleasesOnCompletion() {
+        AiResilienceGuard guard = guard(1, 0, 60_000, 1);
+
+        Disposable running = guard.execute(Mono.never()).subscribe();
+        AiUnavailableException rejected = assertThrows(AiUnavailableException.class,
+                () -> guard.execute(Mono.just("ok")).block());
+        assertEquals(AiUnavailableException.Reason.BULKHEAD_FULL, rejected.getReason());
+
+        running.dispose();
+        assertEquals("ok", guard.execute(Mono.just("ok")).block());
+        assertEquals(1, guard.getStats().get("availableConcurrent"));
+    }
+
+    @Test
+    void openCircuitRejectsWithoutCallingService() {
+        AiResilienceGuard guard = guard(5, 0, 60_000, 1);
+        fail(guard, 503);
+        fail(guard, 503);
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+
+        AiUnavailableException rejected = assertThrows(AiUnavailableException.class,
+                () -> guard.execute(Mono.fromCallable(() -> {
+                    throw new AssertionError("call should not be issued");
+                })).block());
+        assertEquals(AiUnavailableException.Reason.CIRCUIT_OPEN, rejected.getReason());
+    }
+
+    @Test
+    void nonRetryableErrorInHalfOpenDoesNotCloseCircuit() {
+        AiResilienceGuard guard = guard(5, 0, 0, 1);
+        fail(guard, 503);
+        fail(guard, 503);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getCircuitState());
+
+        fail(guard, 400);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getCircuitState());
+
+        assertEquals("ok", guard.execute(Mono.just("ok")).block());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    @Test
+    void onlyConnectionTimeoutThrottlingAndServerErrorsAreRetryable() {
+        assertTrue(AiResilienceGuard.isRetryable(responseError(503)));
+        assertTrue(AiResilienceGuard.isRetryable(responseError(429)));
+        assertTrue(AiResilienceGuard.isRetryable(new TimeoutException()));
+        assertFalse(AiResilienceGuard.isRetryable(responseError(400)));
+        assertFalse(AiResilienceGuard.isRetryable(new IllegalStateException("bad json")));
+    }
+
+    private static AiResilienceGuard guard(int maxConcurrent, int retryTimes, long openDurationMs, int halfOpenCalls) {
+        AiResilienceGuard guard = new AiResilienceGuard(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(guard, "retryTimes", retryTimes);
+        ReflectionTestUtils.setField(guard, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(guard, "maxBackoffMs", 1L);
+        ReflectionTestUtils.setField(guard, "windowSize", 2);
+        ReflectionTestUtils.setField(guard, "minimumCalls", 2);
+        ReflectionTestUtils.setField(guard, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(guard, "openDurationMs", openDurationMs);
+        ReflectionTestUtils.setField(guard, "halfOpenCalls", halfOpenCalls);
+        ReflectionTestUtils.setField(guard, "maxConcurrent", maxConcurrent);
+        guard.init();
+        return guard;
+    }
+
+    private static void fail(AiResilienceGuard guard, int status) {
+        assertThrows(WebClientResponseException.class,
+                () -> guard.execute(Mono.error(responseError(status))).block());
+    }
+
+    private static WebClientResponseException responseError(int status) {
+        return WebClientResponseException.create(status, "error", HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+    }
+}
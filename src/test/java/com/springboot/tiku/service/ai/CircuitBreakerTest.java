@@ -0,0 +1,135 @@
+package com.springboot.tiku.service.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CircuitBreakerTest {
+
+    private static final long LONG_OPEN_MS = 60_000;
+
+    @Test
+    void staysClosedUntilMinimumCallsRecorded() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, LONG_OPEN_MS, 1);
+
+        record(breaker, true);
+        record(breaker, true);
+        record(breaker, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1.0, breaker.failureRate(), 1e-9);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThresholdAndRejectsCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, LONG_OPEN_MS, 1);
+
+        record(breaker, false);
+        record(breaker, false);
+        record(breaker, true);
+        record(breaker, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void slidingWindowForgetsOldOutcomes() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, LONG_OPEN_MS, 1);
+
+        record(breaker, true);
+        record(breaker, true);
+        record(breaker, false);
+        record(breaker, false);
+        assertEquals(0.5, breaker.failureRate(), 1e-9);
+
+        record(breaker, false);
+        record(breaker, false);
+        assertEquals(0.0, breaker.failureRate(), 1e-9);
+        assertEquals(4, breaker.getRecordedCalls());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenLimitsTrialsAndClosesAfterTrialSuccesses() {
+        CircuitBreaker breaker = openedBreaker(2);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(first, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(second, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getRecordedCalls());
+    }
+
+    @Test
+    void halfOpenFailureReopens() {
+        CircuitBreaker breaker = openedBreaker(2);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        CircuitBreaker.Permit pending = breaker.tryAcquire();
+        breaker.onResult(trial, true);
+
+        // 重新打开后等待时间为0，立即再次进入半开：之前的试探结果不再计入，试探名额重新计算
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(pending, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+        assertNotNull(breaker.tryAcquire());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void releasedTrialFreesSlotWithoutCountingAsSuccess() {
+        CircuitBreaker breaker = openedBreaker(1);
+
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertNull(breaker.tryAcquire());
+        breaker.release(trial);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        CircuitBreaker.Permit next = breaker.tryAcquire();
+        assertNotNull(next);
+        breaker.onResult(next, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void resultsFromPreviousStateAreIgnored() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0, 1);
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        record(breaker, true);
+        record(breaker, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        breaker.onResult(stale, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onResult(trial, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * 打开后等待时间为0的断路器（下次申请即进入半开）
+     */
+    private static CircuitBreaker openedBreaker(int halfOpenCalls) {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0, halfOpenCalls);
+        record(breaker, true);
+        record(breaker, true);
+        return breaker;
+    }
+
+    private static void record(CircuitBreaker breaker, boolean failure) {
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        assertNotNull(permit);
+        breaker.onResult(permit, failure);
+    }
+}
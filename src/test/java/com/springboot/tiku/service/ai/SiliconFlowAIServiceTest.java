@@ -0,0 +1,190 @@
+package com.springboot.tiku.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.config.AiHttpClientConfig;
+import com.springboot.tiku.service.SystemConfigService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SiliconFlowAIServiceTest {
+
+    private static final int MAX_CONNECTIONS = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Map<String, Object>> requests = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private volatile int status = 200;
+    private volatile long delayMs;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ConnectionProvider connectionProvider;
+    private SimpleMeterRegistry meterRegistry;
+    private SiliconFlowAIService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        AiHttpClientConfig config = new AiHttpClientConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", MAX_CONNECTIONS);
+        ReflectionTestUtils.setField(config, "pendingAcquireMaxCount", 100);
+        ReflectionTestUtils.setField(config, "pendingAcquireTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "maxIdleTimeMs", 60_000L);
+        ReflectionTestUtils.setField(config, "maxLifeTimeMs", 300_000L);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 2000);
+        ReflectionTestUtils.setField(config, "http2Enabled", true);
+        ReflectionTestUtils.setField(config, "maxResponseBytes", 1024 * 1024);
+        ReflectionTestUtils.setField(config, "responseTimeoutMs", 5000L);
+        connectionProvider = config.aiConnectionProvider();
+        WebClient webClient = config.aiWebClient(WebClient.builder(), connectionProvider);
+
+        SystemConfigService systemConfigService = mock(SystemConfigService.class);
+        when(systemConfigService.getConfig(anyString(), anyString())).thenReturn("");
+        AiResilienceGuard resilienceGuard = mock(AiResilienceGuard.class);
+        when(resilienceGuard.execute(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new SiliconFlowAIService(systemConfigService, webClient, resilienceGuard, meterRegistry);
+        ReflectionTestUtils.setField(service, "configApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "configBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/v1");
+        ReflectionTestUtils.setField(service, "configDefaultModel", "test-model");
+        ReflectionTestUtils.setField(service, "temperature", 0.3);
+        ReflectionTestUtils.setField(service, "maxTokens", 200);
+        ReflectionTestUtils.setField(service, "timeout", 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void sendsOpenAiCompatibleRequestAndReadsFirstChoice() {
+        String reply = service.chat("你是阅卷老师", "请评分");
+
+        assertThat(reply).isEqualTo("回复1");
+        assertThat(authorizations).containsExactly("Bearer test-key");
+        Map<String, Object> body = requests.get(0);
+        assertThat(body).containsEntry("model", "test-model")
+                .containsEntry("max_tokens", 200)
+                .containsEntry("stream", false)
+                .containsEntry("temperature", 0.3);
+        assertThat(body.get("messages")).isEqualTo(List.of(
+                Map.of("role", "system", "content", "你是阅卷老师"),
+                Map.of("role", "user", "content", "请评分")));
+        assertThat(meterRegistry.get("ai.tokens").tag("type", "prompt").counter().count()).isEqualTo(12.0);
+        assertThat(meterRegistry.get("ai.tokens").tag("type", "completion").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void sequentialCallsReuseOneConnection() {
+        for (int i = 0; i < 5; i++) {
+            service.chat("系统", "问题" + i);
+        }
+
+        assertThat(requests).hasSize(5);
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void concurrentCallsShareBoundedPool() {
+        delayMs = 100;
+
+        List<String> replies = Flux.range(0, 20)
+                .flatMap(i -> service.chatAsync("系统", "问题" + i))
+                .collectList()
+                .block();
+
+        assertThat(replies).hasSize(20);
+        assertThat(maxInFlight.get()).isGreaterThan(1).isLessThanOrEqualTo(MAX_CONNECTIONS);
+        assertThat(clientPorts.size()).isLessThanOrEqualTo(MAX_CONNECTIONS);
+    }
+
+    @Test
+    void serverErrorIsWrapped() {
+        status = 500;
+
+        assertThatThrownBy(() -> service.chat("系统", "问题"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageStartingWith("AI服务调用失败");
+    }
+
+    @Test
+    void missingApiKeyFailsWithoutRequest() {
+        ReflectionTestUtils.setField(service, "configApiKey", "");
+
+        Mono<String> call = service.chatAsync("系统", "问题");
+
+        assertThat(requests).isEmpty();
+        assertThatThrownBy(call::block).hasMessageContaining("AI API密钥未配置");
+        assertThat(requests).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            requests.add(objectMapper.readValue(exchange.getRequestBody().readAllBytes(), Map.class));
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            String body = status == 200
+                    ? "{\"id\":\"chatcmpl-1\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"回复"
+                    + requests.size() + "\"}}],\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":3,\"total_tokens\":15}}"
+                    : "{\"error\":{\"message\":\"internal error\"}}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
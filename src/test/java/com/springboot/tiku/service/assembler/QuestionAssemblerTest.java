@@ -0,0 +1,126 @@
+package com.springboot.tiku.service.assembler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.dto.question.QuestionDTO;
+import com.springboot.tiku.entity.Chapter;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.entity.Subject;
+import com.springboot.tiku.entity.User;
+import com.springboot.tiku.repository.ChapterRepository;
+import com.springboot.tiku.repository.QuestionRepository;
+import com.springboot.tiku.repository.SubjectRepository;
+import com.springboot.tiku.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QuestionAssemblerTest {
+
+    private SubjectRepository subjectRepository;
+    private ChapterRepository chapterRepository;
+    private UserRepository userRepository;
+    private QuestionAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        subjectRepository = mock(SubjectRepository.class);
+        chapterRepository = mock(ChapterRepository.class);
+        userRepository = mock(UserRepository.class);
+        assembler = new QuestionAssembler(mock(QuestionRepository.class), subjectRepository, chapterRepository,
+                userRepository, new ObjectMapper());
+
+        Subject subject = new Subject();
+        subject.setId(1L);
+        subject.setName("马克思主义基本原理");
+        Chapter first = new Chapter();
+        first.setId(11L);
+        first.setName("第一章");
+        Chapter second = new Chapter();
+        second.setId(12L);
+        second.setName("第二章");
+        User admin = new User();
+        admin.setId(100L);
+        admin.setUsername("admin");
+        when(subjectRepository.findAllById(any())).thenReturn(List.of(subject));
+        when(chapterRepository.findAllById(any())).thenReturn(List.of(first, second));
+        when(userRepository.findAllById(any())).thenReturn(List.of(admin));
+    }
+
+    @Test
+    void resolvesNamesWithOneLookupPerRepositoryForWholeSession() {
+        List<Question> questions = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            questions.add(question(i, i % 2 == 0 ? 11L : 12L));
+        }
+
+        List<QuestionDTO> dtos = assembler.toDTOs(questions);
+
+        assertThat(dtos).hasSize(100);
+        assertThat(dtos.get(0).getSubjectName()).isEqualTo("马克思主义基本原理");
+        assertThat(dtos.get(0).getChapterName()).isEqualTo("第一章");
+        assertThat(dtos.get(1).getChapterName()).isEqualTo("第二章");
+        verify(subjectRepository, times(1)).findAllById(any());
+        verify(chapterRepository, times(1)).findAllById(any());
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void parsesJsonFieldsAndKeepsRawTextWhenInvalid() {
+        Question valid = question(1L, 11L);
+        Question invalid = question(2L, null);
+        invalid.setOptions("[A, B");
+
+        List<QuestionDTO> dtos = assembler.toDTOs(List.of(valid, invalid));
+
+        assertThat(dtos.get(0).getOptions()).isEqualTo(List.of(Map.of("key", "A", "value", "对")));
+        assertThat(dtos.get(0).getAnswer()).isEqualTo(Map.of("answer", "A"));
+        assertThat(dtos.get(1).getOptions()).isEqualTo("[A, B");
+        assertThat(dtos.get(1).getChapterName()).isNull();
+    }
+
+    @Test
+    void detailedDtosIncludeCreatorAndGradingConfig() {
+        Question question = question(1L, 11L);
+        question.setCreatorId(100L);
+        question.setAiGradingConfig("{\"strictness\": \"high\"}");
+
+        QuestionDTO dto = assembler.toDetailedDTOs(List.of(question)).get(0);
+
+        assertThat(dto.getCreatorName()).isEqualTo("admin");
+        assertThat(dto.getAiGradingConfig()).containsEntry("strictness", "high");
+        verify(userRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void emptyInputIssuesNoQueries() {
+        assertThat(assembler.toDTOs(List.of())).isEmpty();
+        assertThat(assembler.subjectNames(Arrays.asList(null, null))).isEmpty();
+
+        verifyNoInteractions(subjectRepository, chapterRepository, userRepository);
+    }
+
+    private static Question question(Long id, Long chapterId) {
+        Question question = new Question();
+        question.setId(id);
+        question.setSubjectId(1L);
+        question.setChapterId(chapterId);
+        question.setType(Question.QuestionType.SINGLE);
+        question.setTitle("题目" + id);
+        question.setOptions("[{\"key\": \"A\", \"value\": \"对\"}]");
+        question.setAnswer("{\"answer\": \"A\"}");
+        return question;
+    }
+}
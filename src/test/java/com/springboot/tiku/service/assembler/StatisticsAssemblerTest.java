@@ -0,0 +1,84 @@
+package com.springboot.tiku.service.assembler;
+
+import com.springboot.tiku.dto.statistics.ChapterStatistics;
+import com.springboot.tiku.dto.statistics.SubjectStatistics;
+import com.springboot.tiku.entity.Chapter;
+import com.springboot.tiku.entity.Subject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatisticsAssemblerTest {
+
+    private final StatisticsAssembler assembler = new StatisticsAssembler();
+
+    @Test
+    void countMapAcceptsAnyNumericTypeAndSkipsNullGroups() {
+        Map<Long, long[]> counts = assembler.toCountMap(List.of(
+                new Object[]{1L, 3L, 2L},
+                new Object[]{2L, 5, null},
+                new Object[]{null, 7L, 7L}));
+
+        assertThat(counts).containsOnlyKeys(1L, 2L);
+        assertThat(counts.get(1L)).containsExactly(3L, 2L);
+        assertThat(counts.get(2L)).containsExactly(5L, 0L);
+    }
+
+    @Test
+    void subjectStatisticsComputeAccuracyAndProgress() {
+        Subject answered = subject(1L, "马原", 8);
+        Subject untouched = subject(2L, "毛概", 0);
+
+        List<SubjectStatistics> result = assembler.toSubjectStatistics(List.of(answered, untouched),
+                Map.of(1L, new long[]{3, 2}));
+
+        assertThat(result).hasSize(2);
+        SubjectStatistics first = result.get(0);
+        assertThat(first.getSubjectName()).isEqualTo("马原");
+        assertThat(first.getAnsweredCount()).isEqualTo(3L);
+        assertThat(first.getCorrectCount()).isEqualTo(2L);
+        assertThat(first.getAccuracy()).isEqualByComparingTo("66.67");
+        assertThat(first.getProgress()).isEqualByComparingTo("37.50");
+
+        SubjectStatistics second = result.get(1);
+        assertThat(second.getAnsweredCount()).isZero();
+        assertThat(second.getAccuracy()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(second.getProgress()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void chapterStatisticsUseGroupedCounts() {
+        Chapter chapter = chapter(11L, "第一章", 10);
+        Chapter empty = chapter(12L, "第二章", 0);
+
+        List<ChapterStatistics> result = assembler.toChapterStatistics(List.of(chapter, empty),
+                Map.of(11L, new long[]{5, 4}, 12L, new long[]{1, 1}));
+
+        assertThat(result.get(0).getChapterName()).isEqualTo("第一章");
+        assertThat(result.get(0).getAnsweredCount()).isEqualTo(5L);
+        assertThat(result.get(0).getAccuracy()).isEqualByComparingTo("80.00");
+        assertThat(result.get(0).getTotalQuestions()).isEqualTo(10);
+        assertThat(result.get(1).getAccuracy()).isEqualByComparingTo("100.00");
+        assertThat(result.get(1).getMasteryLevel()).isZero();
+    }
+
+    private static Subject subject(Long id, String name, int questionCount) {
+        Subject subject = new Subject();
+        subject.setId(id);
+        subject.setName(name);
+        subject.setQuestionCount(questionCount);
+        return subject;
+    }
+
+    private static Chapter chapter(Long id, String name, int questionCount) {
+        Chapter chapter = new Chapter();
+        chapter.setId(id);
+        chapter.setName(name);
+        chapter.setQuestionCount(questionCount);
+        return chapter;
+    }
+}
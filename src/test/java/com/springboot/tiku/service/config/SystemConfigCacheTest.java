@@ -0,0 +1,141 @@
+package com.springboot.tiku.service.config;
+
+import com.springboot.tiku.entity.SystemConfig;
+import com.springboot.tiku.repository.SystemConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SystemConfigCacheTest {
+
+    private SystemConfigRepository systemConfigRepository;
+    private SystemConfigCache cache;
+    private final List<SystemConfigChangedEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        systemConfigRepository = mock(SystemConfigRepository.class);
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        doAnswer(invocation -> events.add(invocation.getArgument(0))).when(eventPublisher).publishEvent(any(Object.class));
+        cache = new SystemConfigCache(systemConfigRepository, eventPublisher);
+    }
+
+    @Test
+    void refreshSwapsSnapshotAndPublishesChangedKeys() {
+        rows(Map.of("system.name", "题库", "exam.duration", "60", "ai.modelName", "a"));
+        assertThat(cache.getString("system.name", null)).isEqualTo("题库");
+        assertThat(events).isEmpty();
+
+        rows(Map.of("system.name", "题库", "exam.duration", "90", "ai.apiUrl", "http://ai"));
+        cache.refresh();
+
+        assertThat(cache.getInt("exam.duration", 0)).isEqualTo(90);
+        assertThat(cache.getString("ai.modelName", "default")).isEqualTo("default");
+        assertThat(cache.getString("ai.apiUrl", null)).isEqualTo("http://ai");
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).changedKeys()).containsExactlyInAnyOrder("exam.duration", "ai.modelName", "ai.apiUrl");
+
+        cache.refresh();
+        assertThat(events).hasSize(1);
+    }
+
+    @Test
+    void parsedValuesAreMemoizedPerSnapshot() {
+        rows(Map.of("upload.types", "[\"jpg\",\"png\"]", "exam.duration", "abc"));
+
+        List<String> first = cache.getStringList("upload.types", List.of());
+        assertThat(first).containsExactly("jpg", "png");
+        assertThat(cache.getStringList("upload.types", List.of())).isSameAs(first);
+        assertThat(cache.getInt("exam.duration", 60)).isEqualTo(60);
+        assertThat(cache.getString("exam.duration", null)).isEqualTo("abc");
+
+        cache.put("upload.types", "[\"gif\"]");
+        cache.put("exam.duration", "45");
+
+        assertThat(cache.getStringList("upload.types", List.of())).containsExactly("gif");
+        assertThat(cache.getInt("exam.duration", 60)).isEqualTo(45);
+        assertThat(events).extracting(SystemConfigChangedEvent::changedKeys)
+                .containsExactly(Set.of("upload.types"), Set.of("exam.duration"));
+    }
+
+    @Test
+    void putInTransactionAppliesOnlyAfterCommit() {
+        rows(Map.of("system.allowRegister", "true"));
+        assertThat(cache.getBoolean("system.allowRegister", false)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.put("system.allowRegister", "false");
+            assertThat(cache.getBoolean("system.allowRegister", true)).isTrue();
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(cache.getBoolean("system.allowRegister", true)).isFalse();
+    }
+
+    @Test
+    void putCommittedDuringSlowRefreshIsNotOverwrittenByOldRead() throws Exception {
+        rows(Map.of("system.name", "旧名称"));
+        assertThat(cache.getString("system.name", null)).isEqualTo("旧名称");
+
+        // 刷新线程读到的是修改提交前的旧值，读库期间修改提交并登记到缓存
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(systemConfigRepository.findAll()).thenAnswer(invocation -> {
+            reading.countDown();
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            return List.of(config("system.name", "旧名称"));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> refresh = executor.submit(() -> cache.refresh());
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> put = executor.submit(() -> cache.put("system.name", "新名称"));
+            Thread.sleep(50);
+            assertThat(put.isDone()).isFalse();
+
+            release.countDown();
+            refresh.get(5, TimeUnit.SECONDS);
+            put.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(cache.getString("system.name", null)).isEqualTo("新名称");
+    }
+
+    private void rows(Map<String, String> values) {
+        List<SystemConfig> configs = new ArrayList<>();
+        values.forEach((key, value) -> configs.add(config(key, value)));
+        when(systemConfigRepository.findAll()).thenReturn(configs);
+    }
+
+    private static SystemConfig config(String key, String value) {
+        SystemConfig config = new SystemConfig();
+        config.setConfigKey(key);
+        config.setConfigValue(value);
+        return config;
+    }
+}
@@ -0,0 +1,230 @@
+package com.springboot.tiku.service.counter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CounterAggregatorTest {
+
+    private static final int QUESTIONS = 10;
+    private static final int USERS = 3;
+
+    private JdbcTemplate jdbcTemplate;
+    private CounterAggregator aggregator;
+
+    /**
+     * 已刷入数据库的计数：题目ID -> [use, correct, wrong]，用户ID -> [answer, correct]
+     */
+    private final Map<Long, long[]> questionRows = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> userRows = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        aggregator = new CounterAggregator(jdbcTemplate);
+        ReflectionTestUtils.setField(aggregator, "reconcilePageSize", 100);
+        ReflectionTestUtils.setField(aggregator, "reconcileQuietMinutes", 10L);
+
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE question SET use_count = use_count"), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            for (Object[] row : batch) {
+                long[] counts = questionRows.computeIfAbsent((Long) row[3], id -> new long[3]);
+                synchronized (counts) {
+                    counts[0] += (Long) row[0];
+                    counts[1] += (Long) row[1];
+                    counts[2] += (Long) row[2];
+                }
+            }
+            return new int[batch.size()];
+        });
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE `user` SET total_answer_count = total_answer_count"), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            for (Object[] row : batch) {
+                long[] counts = userRows.computeIfAbsent((Long) row[2], id -> new long[2]);
+                synchronized (counts) {
+                    counts[0] += (Long) row[0];
+                    counts[1] += (Long) row[1];
+                }
+            }
+            return new int[batch.size()];
+        });
+    }
+
+    @Test
+    void concurrentRecordAndFlushLosesNoCounts() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        long[][] expectedQuestions = new long[QUESTIONS][2];
+        long[][] expectedUsers = new long[USERS][2];
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        List<long[][]> perThreadQuestions = new ArrayList<>();
+        List<long[][]> perThreadUsers = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long[][] questions = new long[QUESTIONS][2];
+            long[][] users = new long[USERS][2];
+            perThreadQuestions.add(questions);
+            perThreadUsers.add(users);
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    int question = random.nextInt(QUESTIONS);
+                    int user = random.nextInt(USERS);
+                    boolean correct = random.nextBoolean();
+                    aggregator.recordAnswer((long) question, (long) user, correct);
+                    questions[question][0]++;
+                    users[user][0]++;
+                    if (correct) {
+                        questions[question][1]++;
+                        users[user][1]++;
+                    }
+                }
+                return null;
+            }));
+        }
+        AtomicLong flushes = new AtomicLong();
+        Future<?> flusher = pool.submit(() -> {
+            start.await();
+            while (recording.get()) {
+                aggregator.flush();
+                flushes.incrementAndGet();
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        recording.set(false);
+        flusher.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+        aggregator.flush();
+
+        for (int t = 0; t < threads; t++) {
+            for (int q = 0; q < QUESTIONS; q++) {
+                expectedQuestions[q][0] += perThreadQuestions.get(t)[q][0];
+                expectedQuestions[q][1] += perThreadQuestions.get(t)[q][1];
+            }
+            for (int u = 0; u < USERS; u++) {
+                expectedUsers[u][0] += perThreadUsers.get(t)[u][0];
+                expectedUsers[u][1] += perThreadUsers.get(t)[u][1];
+            }
+        }
+        assertThat(flushes.get()).isPositive();
+        for (int q = 0; q < QUESTIONS; q++) {
+            long[] row = questionRows.getOrDefault((long) q, new long[3]);
+            assertThat(row[0]).as("use_count of question %d", q).isEqualTo(expectedQuestions[q][0]);
+            assertThat(row[1]).as("correct_count of question %d", q).isEqualTo(expectedQuestions[q][1]);
+            assertThat(row[2]).as("wrong_count of question %d", q).isEqualTo(expectedQuestions[q][0] - expectedQuestions[q][1]);
+        }
+        for (int u = 0; u < USERS; u++) {
+            long[] row = userRows.getOrDefault((long) u, new long[2]);
+            assertThat(row[0]).as("total_answer_count of user %d", u).isEqualTo(expectedUsers[u][0]);
+            assertThat(row[1]).as("total_correct_count of user %d", u).isEqualTo(expectedUsers[u][1]);
+        }
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForNextFlush() {
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE question SET use_count = use_count"), anyList()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenAnswer(invocation -> {
+                    List<Object[]> batch = invocation.getArgument(1);
+                    for (Object[] row : batch) {
+                        questionRows.put((Long) row[3], new long[]{(Long) row[0], (Long) row[1], (Long) row[2]});
+                    }
+                    return new int[batch.size()];
+                });
+
+        aggregator.recordAnswer(1L, 7L, true);
+        aggregator.recordAnswer(1L, 7L, false);
+        aggregator.flush();
+        assertThat(questionRows).doesNotContainKey(1L);
+
+        aggregator.flush();
+        assertThat(questionRows.get(1L)).containsExactly(2, 1, 1);
+        assertThat(userRows.get(7L)).containsExactly(2, 1);
+    }
+
+    @Test
+    void reconcileFixesQuietDriftAndSkipsRowsWithUnflushedDeltas() throws Exception {
+        Timestamp old = Timestamp.valueOf(LocalDateTime.now().minusHours(1));
+        Timestamp recent = Timestamp.valueOf(LocalDateTime.now());
+        // 题目1：计数丢失且已静默，应修正；题目2：最近有答题，跳过；题目3：内存中有未刷盘增量，跳过
+        List<ResultSet> rows = List.of(
+                questionRow(1L, 3, 1, 2, 5, 2, old),
+                questionRow(2L, 0, 0, 0, 1, 1, recent),
+                questionRow(3L, 0, 0, 0, 1, 0, old));
+        when(jdbcTemplate.query(startsWith("SELECT q.id"), any(RowMapper.class), any(), any())).thenAnswer(invocation -> {
+            RowMapper<Long> mapper = invocation.getArgument(1);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                ids.add(mapper.mapRow(rows.get(i), i));
+            }
+            return ids;
+        });
+        when(jdbcTemplate.query(startsWith("SELECT u.id"), any(RowMapper.class), any(), any())).thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE question SET use_count = use_count"), anyList()))
+                .thenThrow(new IllegalStateException("db down"));
+        List<Object[]> fixes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE question SET use_count = ?"), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            fixes.addAll(batch);
+            return new int[]{1};
+        });
+
+        aggregator.recordAnswer(3L, null, false);
+        int fixed = aggregator.reconcile();
+
+        assertThat(fixed).isEqualTo(1);
+        assertThat(fixes).hasSize(1);
+        assertThat(fixes.get(0)).containsExactly(5L, 2L, 3L, 1L, 3L, 1L, 2L);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE `user` SET total_answer_count = ?"), anyList());
+    }
+
+    private static ResultSet questionRow(long id, long use, long correct, long wrong,
+                                         long answers, long answersCorrect, Timestamp lastChange) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getLong("use_count")).thenReturn(use);
+        when(rs.getLong("correct_count")).thenReturn(correct);
+        when(rs.getLong("wrong_count")).thenReturn(wrong);
+        when(rs.getLong("answers")).thenReturn(answers);
+        when(rs.getLong("correct")).thenReturn(answersCorrect);
+        when(rs.getTimestamp(eq("last_change"))).thenReturn(lastChange);
+        return rs;
+    }
+}
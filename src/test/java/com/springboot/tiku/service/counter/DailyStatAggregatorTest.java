@@ -0,0 +1,336 @@
+package com.springboot.tiku.service.counter;
+
+import com.springboot.tiku.repository.DailyStatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DailyStatAggregatorTest {
+
+    private static final int USERS = 3;
+    private static final int TIME_SPENT = 5;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private DailyStatAggregator aggregator;
+
+    /**
+     * 已提交的答题记录，以及各线程当前事务中未提交的答题记录
+     */
+    private final List<AnswerRow> answerRecords = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<List<AnswerRow>> uncommitted = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * 为当前线程的下一次提交设置的阻塞：[已开始提交, 允许完成提交]
+     */
+    private final ThreadLocal<CountDownLatch[]> commitBlock = new ThreadLocal<>();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+
+    /**
+     * user_daily_stat：用户ID + 日期 -> [answer, correct, time]
+     */
+    private final Map<UserDay, long[]> userDailyRows = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(new TestTransactionManager());
+        aggregator = new DailyStatAggregator(jdbcTemplate, transactionTemplate, mock(DailyStatRepository.class));
+        ReflectionTestUtils.setField(aggregator, "inFlightWaitMs", 5000L);
+
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO user_daily_stat"), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            for (Object[] row : batch) {
+                long[] counts = userDailyRows.computeIfAbsent(
+                        new UserDay((Long) row[0], ((Date) row[1]).toLocalDate()), key -> new long[3]);
+                synchronized (counts) {
+                    counts[0] += ((Number) row[2]).longValue();
+                    counts[1] += ((Number) row[3]).longValue();
+                    counts[2] += ((Number) row[4]).longValue();
+                }
+            }
+            return new int[batch.size()];
+        });
+        when(jdbcTemplate.update(startsWith("DELETE FROM user_daily_stat"), any(Object[].class))).thenAnswer(invocation -> {
+            LocalDate from = ((Date) invocation.getArgument(1)).toLocalDate();
+            LocalDate to = invocation.getArguments().length > 2 ? ((Date) invocation.getArgument(2)).toLocalDate() : from;
+            userDailyRows.keySet().removeIf(key -> !key.date().isBefore(from) && !key.date().isAfter(to));
+            return 0;
+        });
+        // 历史日期重建：INSERT ... SELECT 按答题记录聚合
+        when(jdbcTemplate.update(startsWith("INSERT INTO user_daily_stat"), any(Object[].class))).thenAnswer(invocation -> {
+            LocalDateTime from = ((Timestamp) invocation.getArgument(1)).toLocalDateTime();
+            LocalDateTime to = ((Timestamp) invocation.getArgument(2)).toLocalDateTime();
+            List<Object[]> rows = aggregate(from.toLocalDate(), to.toLocalDate().minusDays(1));
+            rows.forEach(row -> userDailyRows.put(new UserDay((Long) row[0], ((Date) row[1]).toLocalDate()),
+                    new long[]{(Long) row[2], (Long) row[3], (Long) row[4]}));
+            return rows.size();
+        });
+        // 当日重建：一致性读聚合当日答题记录
+        when(jdbcTemplate.query(startsWith("SELECT user_id, COUNT(*)"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    LocalDate day = ((Timestamp) invocation.getArgument(2)).toLocalDateTime().toLocalDate();
+                    return aggregate(day, day);
+                });
+    }
+
+    @Test
+    void concurrentAnswersAndTodayRebuildCountEachAnswerOnce() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        LocalDateTime now = LocalDateTime.now();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean answering = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perThread; i++) {
+                    answer(random.nextInt(USERS), now, random.nextBoolean());
+                }
+                return null;
+            }));
+        }
+        AtomicLong rebuilds = new AtomicLong();
+        Future<?> rebuilder = pool.submit(() -> {
+            start.await();
+            while (answering.get()) {
+                aggregator.backfill(now.toLocalDate(), now.toLocalDate());
+                rebuilds.incrementAndGet();
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        answering.set(false);
+        rebuilder.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        aggregator.flush();
+
+        assertThat(rebuilds.get()).isPositive();
+        assertThat(answerRecords).hasSize(threads * perThread);
+        assertMatchesAnswerRecords(now.toLocalDate());
+    }
+
+    @Test
+    void historyRebuildReplacesRowsAndDropsFlushedDeltas() {
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        answer(1, yesterday, true);
+        answer(1, yesterday, false);
+        aggregator.flush();
+        // 汇总与答题记录不一致（如历史数据修复后），重建以答题记录为准
+        userDailyRows.put(new UserDay(1L, yesterday.toLocalDate()), new long[]{9, 9, 9});
+
+        aggregator.backfill(yesterday.toLocalDate(), yesterday.toLocalDate());
+        aggregator.flush();
+
+        assertMatchesAnswerRecords(yesterday.toLocalDate());
+    }
+
+    @Test
+    void correctionOnlyAddsCorrectCount() {
+        LocalDateTime now = LocalDateTime.now();
+        answer(1, now, false);
+        aggregator.flush();
+
+        // 复评改判为正确：答题数与用时不变，只补正确数
+        transactionTemplate.executeWithoutResult(tx -> aggregator.recordCorrection(1L, now));
+        aggregator.flush();
+
+        assertThat(userDailyRows.get(new UserDay(1L, now.toLocalDate()))).containsExactly(1, 1, TIME_SPENT);
+    }
+
+    @Test
+    void historyRebuildRollsBackWhenCommittingAnswerDoesNotRegister() throws Exception {
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        ReflectionTestUtils.setField(aggregator, "inFlightWaitMs", 200L);
+        answer(1, yesterday, true);
+        aggregator.flush();
+
+        // 一个答题事务已进入提交，迟迟不登记增量
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> stuck = pool.submit(() -> {
+            commitBlock.set(new CountDownLatch[]{committing, release});
+            answer(2, yesterday, true);
+            return null;
+        });
+        assertThat(committing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        int rollbacksBefore = rollbacks.get();
+        assertThatThrownBy(() -> aggregator.backfill(yesterday.toLocalDate(), yesterday.toLocalDate()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("超时");
+        assertThat(rollbacks.get()).isEqualTo(rollbacksBefore + 1);
+
+        release.countDown();
+        stuck.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        aggregator.flush();
+        assertMatchesAnswerRecords(yesterday.toLocalDate());
+
+        aggregator.backfill(yesterday.toLocalDate(), yesterday.toLocalDate());
+        aggregator.flush();
+        assertMatchesAnswerRecords(yesterday.toLocalDate());
+    }
+
+    @Test
+    void todayRebuildTimesOutWithoutTouchingRowsWhileAnswerIsCommitting() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        ReflectionTestUtils.setField(aggregator, "inFlightWaitMs", 200L);
+        answer(1, now, true);
+        aggregator.flush();
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> stuck = pool.submit(() -> {
+            commitBlock.set(new CountDownLatch[]{committing, release});
+            answer(1, now, false);
+            return null;
+        });
+        assertThat(committing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> aggregator.backfill(now.toLocalDate(), now.toLocalDate()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("超时");
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM user_daily_stat"), any(Object[].class));
+
+        release.countDown();
+        stuck.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        aggregator.backfill(now.toLocalDate(), now.toLocalDate());
+        aggregator.flush();
+        assertMatchesAnswerRecords(now.toLocalDate());
+    }
+
+    /**
+     * 在事务中写入一条答题记录并登记增量
+     */
+    private void answer(long userId, LocalDateTime answeredAt, boolean correct) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            uncommitted.get().add(new AnswerRow(userId, answeredAt.toLocalDate(), correct));
+            aggregator.recordAnswer(userId, answeredAt, correct, TIME_SPENT);
+        });
+    }
+
+    /**
+     * 按（用户, 日期）聚合已提交的答题记录，行格式与 user_daily_stat 批量写入一致
+     */
+    private List<Object[]> aggregate(LocalDate from, LocalDate to) {
+        Map<UserDay, long[]> totals = new HashMap<>();
+        for (AnswerRow row : answerRecords) {
+            if (row.date().isBefore(from) || row.date().isAfter(to)) {
+                continue;
+            }
+            long[] total = totals.computeIfAbsent(new UserDay(row.userId(), row.date()), key -> new long[3]);
+            total[0]++;
+            total[1] += row.correct() ? 1 : 0;
+            total[2] += TIME_SPENT;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        totals.forEach((key, total) ->
+                rows.add(new Object[]{key.userId(), Date.valueOf(key.date()), total[0], total[1], total[2]}));
+        return rows;
+    }
+
+    private void assertMatchesAnswerRecords(LocalDate date) {
+        Map<UserDay, long[]> expected = new HashMap<>();
+        for (Object[] row : aggregate(date, date)) {
+            expected.put(new UserDay((Long) row[0], date), new long[]{(Long) row[2], (Long) row[3], (Long) row[4]});
+        }
+        for (long user = 0; user < USERS; user++) {
+            UserDay key = new UserDay(user, date);
+            assertThat(userDailyRows.getOrDefault(key, new long[3]))
+                    .as("user_daily_stat of user %d on %s", user, date)
+                    .containsExactly(expected.getOrDefault(key, new long[3]));
+        }
+    }
+
+    private record UserDay(Long userId, LocalDate date) {
+    }
+
+    private record AnswerRow(long userId, LocalDate date, boolean correct) {
+    }
+
+    /**
+     * 支持事务同步回调的事务管理器：提交时答题记录才对重建可见
+     */
+    private class TestTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            uncommitted.get().clear();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            CountDownLatch[] block = commitBlock.get();
+            if (block != null) {
+                commitBlock.remove();
+                block[0].countDown();
+                try {
+                    block[1].await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            answerRecords.addAll(uncommitted.get());
+            uncommitted.get().clear();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            uncommitted.get().clear();
+            rollbacks.incrementAndGet();
+        }
+    }
+}
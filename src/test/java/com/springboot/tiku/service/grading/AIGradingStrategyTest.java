@@ -0,0 +1,147 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.dto.grading.GradingResult;
+import com.springboot.tiku.entity.AnswerRecord;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.service.ai.AiUnavailableException;
+import com.springboot.tiku.service.ai.SiliconFlowAIService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AIGradingStrategyTest {
+
+    private SiliconFlowAIService aiService;
+    private AiGradingResultCache resultCache;
+    private AIGradingStrategy strategy;
+    private final Question question = question();
+
+    @BeforeEach
+    void setUp() {
+        aiService = mock(SiliconFlowAIService.class);
+        resultCache = mock(AiGradingResultCache.class);
+        strategy = new AIGradingStrategy(aiService, resultCache, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(strategy, "confidenceThreshold", 0.75);
+        ReflectionTestUtils.setField(strategy, "batchSize", 10);
+        ReflectionTestUtils.setField(strategy, "batchConcurrency", 2);
+        ReflectionTestUtils.setField(strategy, "batchMaxTokens", 8000);
+        strategy.init();
+    }
+
+    @Test
+    void batchSendsDistinctAnswersOnceAndSharesResultWithDuplicates() {
+        batchResponse("[{\"index\":1,\"score\":8,\"confidence\":0.9},{\"index\":2,\"score\":3,\"confidence\":0.9}]");
+
+        List<GradingResult> results = strategy.gradeBatch(question, Arrays.asList("要点一", " 要点一 ", "要点二", ""));
+
+        assertThat(results).extracting(GradingResult::getScore).containsExactly(
+                new BigDecimal("8"), new BigDecimal("8"), new BigDecimal("3"), BigDecimal.ZERO);
+        assertThat(results.get(0).getIsCorrect()).isTrue();
+        assertThat(results.get(2).getIsCorrect()).isFalse();
+        verify(aiService, times(1)).chatAsync(anyString(), anyString(), anyInt());
+        verify(resultCache).put(eq(question), eq("要点一"), any());
+        verify(resultCache).put(eq(question), eq("要点二"), any());
+    }
+
+    @Test
+    void cachedAnswersAreNotSent() {
+        GradingResult cached = GradingResult.builder().score(new BigDecimal("9")).build();
+        when(resultCache.get(question, "要点一")).thenReturn(cached);
+
+        List<GradingResult> results = strategy.gradeBatch(question, List.of("要点一"));
+
+        assertThat(results).containsExactly(cached);
+        verify(aiService, never()).chatAsync(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void lowConfidenceResultGoesToManualReviewAndIsNotCached() {
+        batchResponse("[{\"index\":1,\"score\":8,\"confidence\":0.5},{\"index\":2,\"score\":6,\"confidence\":0.95}]");
+
+        List<GradingResult> results = strategy.gradeBatch(question, List.of("要点一", "要点二"));
+
+        assertThat(results.get(0).getNeedManualReview()).isTrue();
+        assertThat(results.get(1).getNeedManualReview()).isFalse();
+        verify(resultCache, never()).put(eq(question), eq("要点一"), any());
+        verify(resultCache).put(eq(question), eq("要点二"), any());
+    }
+
+    @Test
+    void singleLowConfidenceResultIsNotCached() {
+        when(aiService.chat(anyString(), anyString())).thenReturn("评分如下：{\"score\":7,\"confidence\":0.4}");
+
+        GradingResult result = strategy.grade(question, "要点一");
+
+        assertThat(result.getScore()).isEqualByComparingTo("7");
+        assertThat(result.getNeedManualReview()).isTrue();
+        verify(resultCache, never()).put(any(), anyString(), any());
+    }
+
+    @Test
+    void invalidBatchItemFallsBackToSingleGrading() {
+        batchResponse("[{\"index\":1,\"score\":15,\"confidence\":0.9},{\"index\":2,\"score\":4,\"confidence\":0.9}]");
+        when(aiService.chat(anyString(), anyString())).thenReturn("{\"score\":6,\"confidence\":0.9}");
+
+        List<GradingResult> results = strategy.gradeBatch(question, List.of("要点一", "要点二"));
+
+        assertThat(results).extracting(GradingResult::getScore)
+                .containsExactly(new BigDecimal("6"), new BigDecimal("4"));
+        verify(aiService, times(1)).chat(anyString(), anyString());
+    }
+
+    @Test
+    void mismatchedBatchFallsBackForEveryAnswer() {
+        batchResponse("[{\"index\":1,\"score\":5,\"confidence\":0.9},{\"index\":1,\"score\":4,\"confidence\":0.9}]");
+        when(aiService.chat(anyString(), anyString())).thenReturn("{\"score\":6,\"confidence\":0.9}");
+
+        List<GradingResult> results = strategy.gradeBatch(question, List.of("要点一", "要点二"));
+
+        assertThat(results).extracting(GradingResult::getScore)
+                .containsExactly(new BigDecimal("6"), new BigDecimal("6"));
+        verify(aiService, times(2)).chat(anyString(), anyString());
+    }
+
+    @Test
+    void unavailableServiceDefersWholeBatch() {
+        when(aiService.chatAsync(anyString(), anyString(), anyInt()))
+                .thenReturn(Mono.error(new AiUnavailableException(AiUnavailableException.Reason.CIRCUIT_OPEN, "open")));
+
+        List<GradingResult> results = strategy.gradeBatch(question, List.of("要点一", "要点二"));
+
+        assertThat(results).extracting(GradingResult::getGradingStatus)
+                .containsOnly(AnswerRecord.GradingStatus.PENDING.name());
+        verify(aiService, never()).chat(anyString(), anyString());
+        verify(resultCache, never()).put(any(), anyString(), any());
+    }
+
+    private void batchResponse(String response) {
+        when(aiService.chatAsync(anyString(), anyString(), anyInt())).thenReturn(Mono.just(response));
+    }
+
+    private static Question question() {
+        Question question = new Question();
+        question.setId(1L);
+        question.setType(Question.QuestionType.SHORT_ANSWER);
+        question.setTitle("简述题");
+        question.setAnswer("{\"answer\":\"参考答案\"}");
+        question.setScore(new BigDecimal("10"));
+        return question;
+    }
+}
@@ -0,0 +1,90 @@
+package com.springboot.tiku.service.grading;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.tiku.dto.grading.GradingResult;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.repository.AiGradingCacheRepository;
+import com.springboot.tiku.service.config.SystemConfigChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiGradingResultCacheTest {
+
+    private AiGradingCacheRepository aiGradingCacheRepository;
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private AiGradingResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        aiGradingCacheRepository = mock(AiGradingCacheRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(aiGradingCacheRepository.findByCacheKey(anyString())).thenReturn(Optional.empty());
+        cache = new AiGradingResultCache(aiGradingCacheRepository, jdbcTemplate, new ObjectMapper(),
+                new SimpleMeterRegistry(), transactionManager);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "ttlHours", 1L);
+        cache.init();
+    }
+
+    @Test
+    void unrelatedConfigChangeKeepsCachedResults() {
+        Question question = question();
+        cache.put(question, "答案", result());
+
+        cache.onSystemConfigChanged(new SystemConfigChangedEvent(Set.of("system.name", "ai.apiKey")));
+
+        assertThat(cache.get(question, "答案").getScore()).isEqualByComparingTo("8");
+        verify(jdbcTemplate, never()).update("DELETE FROM ai_grading_cache");
+    }
+
+    @Test
+    void modelChangeClearsMemoryAndTableInOwnTransaction() {
+        Question question = question();
+        cache.put(question, "答案", result());
+        when(jdbcTemplate.update("DELETE FROM ai_grading_cache")).thenReturn(1);
+
+        cache.onSystemConfigChanged(new SystemConfigChangedEvent(Set.of("ai.modelName")));
+
+        assertThat(cache.get(question, "答案")).isNull();
+        verify(jdbcTemplate).update("DELETE FROM ai_grading_cache");
+        verify(transactionManager).commit(any());
+    }
+
+    private static Question question() {
+        Question question = new Question();
+        question.setId(1L);
+        question.setType(Question.QuestionType.SHORT_ANSWER);
+        question.setTitle("简述");
+        question.setAnswer("参考答案");
+        question.setScore(new BigDecimal("10"));
+        return question;
+    }
+
+    private static GradingResult result() {
+        GradingResult result = new GradingResult();
+        result.setScore(new BigDecimal("8"));
+        result.setTotalScore(new BigDecimal("10"));
+        return result;
+    }
+}
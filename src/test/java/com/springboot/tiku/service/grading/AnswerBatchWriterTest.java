@@ -0,0 +1,61 @@
+package com.springboot.tiku.service.grading;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnswerBatchWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AnswerBatchWriter writer = new AnswerBatchWriter(jdbcTemplate);
+
+    @Test
+    void pendingReviewResultLeavesWrongQuestionUntouched() {
+        Map<Long, Boolean> results = new LinkedHashMap<>();
+        results.put(1L, false);
+        results.put(2L, true);
+        results.put(3L, null);
+        List<List<Object[]>> upserts = captureBatches("INSERT INTO wrong_question");
+        List<List<Object[]>> mastered = captureBatches("UPDATE wrong_question SET status = 'MASTERED'");
+
+        writer.applyWrongQuestions(7L, results);
+
+        assertThat(upserts).hasSize(1);
+        assertThat(upserts.get(0)).containsExactly(new Object[]{7L, 1L});
+        assertThat(mastered).hasSize(1);
+        assertThat(mastered.get(0)).containsExactly(new Object[]{7L, 2L});
+    }
+
+    @Test
+    void onlyPendingResultsIssueNoUpdate() {
+        Map<Long, Boolean> results = new LinkedHashMap<>();
+        results.put(3L, null);
+
+        writer.applyWrongQuestions(7L, results);
+
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE wrong_question"), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO wrong_question"), anyList());
+    }
+
+    private List<List<Object[]>> captureBatches(String sqlPrefix) {
+        List<List<Object[]>> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith(sqlPrefix), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batches.add(batch);
+            return new int[batch.size()];
+        });
+        return batches;
+    }
+}
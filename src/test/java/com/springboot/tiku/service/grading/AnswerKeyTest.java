@@ -0,0 +1,119 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerKeyTest {
+
+    @Test
+    void singleIgnoresCase() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.SINGLE, "{\"answer\": \"B\"}");
+
+        assertTrue(key.matches("B"));
+        assertTrue(key.matches("b"));
+        assertFalse(key.matches("C"));
+        assertFalse(key.matches(null));
+    }
+
+    @Test
+    void plainStringAnswerIsTheAnswerItself() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.SINGLE, "A");
+
+        assertTrue(key.matches("a"));
+        assertEquals("A", AnswerKey.answerValue("A"));
+        assertEquals("C", AnswerKey.answerValue(Map.of("answer", "C")));
+        assertNull(AnswerKey.answerValue(null));
+    }
+
+    @Test
+    void judgeAcceptsBooleanNumberAndText() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.JUDGE, "{\"answer\": true}");
+
+        assertTrue(key.matches(true));
+        assertTrue(key.matches("TRUE"));
+        assertTrue(key.matches("1"));
+        assertTrue(key.matches(1));
+        assertFalse(key.matches(false));
+        assertFalse(key.matches(0));
+        assertFalse(key.matches("yes"));
+        assertFalse(key.matches(null));
+    }
+
+    @Test
+    void multipleLetterLabelsIgnoreOrderAndDuplicates() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.MULTIPLE, "{\"answer\": [\"A\", \"C\"]}");
+
+        assertTrue(key.matches(List.of("C", "A")));
+        assertTrue(key.matches(List.of("A", "A", "C")));
+        assertFalse(key.matches(List.of("A")));
+        assertFalse(key.matches(List.of("A", "C", "D")));
+        assertFalse(key.matches(List.of("a", "c")));
+        assertFalse(key.matches(List.of("A", "CC")));
+        assertFalse(key.matches("A"));
+    }
+
+    @Test
+    void multipleNonLetterLabelsCompareAsSet() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.MULTIPLE, "{\"answer\": [\"选项1\", \"选项2\"]}");
+
+        assertTrue(key.matches(List.of("选项2", "选项1")));
+        assertFalse(key.matches(List.of("选项1")));
+        assertFalse(key.matches(List.of("选项1", "选项3")));
+    }
+
+    @Test
+    void fillAcceptsAlternativesAndNormalizesCaseAndSpaces() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.FILL, "{\"answer\": [\"北京|Beijing\", \" 1949 \"]}");
+
+        assertTrue(key.matches(List.of("北京", "1949")));
+        assertTrue(key.matches(List.of(" beijing ", "1949")));
+        assertFalse(key.matches(List.of("上海", "1949")));
+        assertFalse(key.matches(List.of("北京")));
+        assertFalse(key.matches("北京"));
+    }
+
+    @Test
+    void orderingOfIntegersComparesNumericValues() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.ORDERING, "{\"answer\": [3, 1, 2]}");
+
+        assertTrue(key.matches(List.of(3, 1, 2)));
+        assertTrue(key.matches(List.of(3L, 1L, 2L)));
+        assertFalse(key.matches(List.of(1, 2, 3)));
+        assertFalse(key.matches(List.of("3", "1", "2")));
+        assertFalse(key.matches(List.of(3, 1)));
+    }
+
+    @Test
+    void orderingOfLabelsComparesItems() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.ORDERING, "{\"answer\": [\"b\", \"a\", \"c\"]}");
+
+        assertTrue(key.matches(List.of("b", "a", "c")));
+        assertFalse(key.matches(List.of("a", "b", "c")));
+    }
+
+    @Test
+    void matchingComparesPairsByStringKey() {
+        AnswerKey key = AnswerKey.compile(Question.QuestionType.MATCHING, "{\"answer\": {\"1\": \"A\", \"2\": \"B\"}}");
+
+        assertTrue(key.matches(Map.of("1", "A", "2", "B")));
+        assertTrue(key.matches(Map.of(1, "A", 2, "B")));
+        assertFalse(key.matches(Map.of("1", "B", "2", "A")));
+        assertFalse(key.matches(Map.of("1", "A")));
+        assertFalse(key.matches(List.of("A", "B")));
+    }
+
+    @Test
+    void subjectiveTypesAreNotCompiled() {
+        assertThrows(IllegalArgumentException.class,
+                () -> AnswerKey.compile(Question.QuestionType.ESSAY, "{\"answer\": \"要点\"}"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.springboot.tiku.service.grading;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingAnswerBatcherTest {
+
+    private static final long LONG_LINGER_MS = 60_000;
+
+    private final Map<Long, List<List<Long>>> dispatched = Collections.synchronizedMap(new HashMap<>());
+
+    @Test
+    void fullBatchIsDispatchedImmediately() {
+        PendingAnswerBatcher batcher = new PendingAnswerBatcher(3, LONG_LINGER_MS, this::record);
+
+        batcher.add(1L, 10L);
+        batcher.add(2L, 20L);
+        batcher.add(1L, 11L);
+        assertTrue(dispatched.isEmpty());
+
+        batcher.add(1L, 12L);
+        assertEquals(Map.of(1L, List.of(List.of(10L, 11L, 12L))), dispatched);
+        assertEquals(1, batcher.size());
+    }
+
+    @Test
+    void flushWaitsForLingerUnlessForced() {
+        PendingAnswerBatcher batcher = new PendingAnswerBatcher(10, LONG_LINGER_MS, this::record);
+        batcher.add(1L, 10L);
+        batcher.add(2L, 20L);
+
+        batcher.flush(false);
+        assertTrue(dispatched.isEmpty());
+        assertEquals(2, batcher.size());
+
+        batcher.flush(true);
+        assertEquals(Map.of(1L, List.of(List.of(10L)), 2L, List.of(List.of(20L))), dispatched);
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    void flushDispatchesBatchesPastLinger() {
+        PendingAnswerBatcher batcher = new PendingAnswerBatcher(10, 0, this::record);
+        batcher.add(1L, 10L);
+        batcher.add(1L, 11L);
+
+        batcher.flush(false);
+
+        assertEquals(Map.of(1L, List.of(List.of(10L, 11L))), dispatched);
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    void batchSizeBelowOneDispatchesEachRecord() {
+        PendingAnswerBatcher batcher = new PendingAnswerBatcher(0, LONG_LINGER_MS, this::record);
+
+        batcher.add(1L, 10L);
+        batcher.add(1L, 11L);
+
+        assertEquals(Map.of(1L, List.of(List.of(10L), List.of(11L))), dispatched);
+    }
+
+    @Test
+    void concurrentAddsAreDispatchedExactlyOnce() throws Exception {
+        PendingAnswerBatcher batcher = new PendingAnswerBatcher(7, LONG_LINGER_MS, this::record);
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = base; i < base + perThread; i++) {
+                        batcher.add(i % 5, i);
+                        if (i % 100 == 0) {
+                            batcher.flush(false);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        batcher.flush(true);
+
+        Set<Long> seen = new HashSet<>();
+        int total = 0;
+        for (Map.Entry<Long, List<List<Long>>> entry : dispatched.entrySet()) {
+            for (List<Long> batch : entry.getValue()) {
+                assertTrue(batch.size() <= 7);
+                for (Long id : batch) {
+                    assertEquals(entry.getKey().longValue(), id % 5);
+                    seen.add(id);
+                    total++;
+                }
+            }
+        }
+        assertEquals(threads * perThread, total);
+        assertEquals(threads * perThread, seen.size());
+        assertEquals(0, batcher.size());
+    }
+
+    private void record(Long questionId, List<Long> answerRecordIds) {
+        dispatched.computeIfAbsent(questionId, k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(List.copyOf(answerRecordIds));
+    }
+}
@@ -0,0 +1,130 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.AnswerRecord;
+import com.springboot.tiku.repository.AnswerRecordRepository;
+import com.springboot.tiku.service.GradingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegradeWorkerTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private JdbcTemplate jdbcTemplate;
+    private AnswerBatchWriter answerBatchWriter;
+    private AnswerRecordRepository answerRecordRepository;
+    private GradingService gradingService;
+    private SimpleMeterRegistry meterRegistry;
+    private RegradeWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        answerBatchWriter = mock(AnswerBatchWriter.class);
+        answerRecordRepository = mock(AnswerRecordRepository.class);
+        gradingService = mock(GradingService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new RegradeWorker(jdbcTemplate, answerBatchWriter, answerRecordRepository, gradingService, meterRegistry);
+        ReflectionTestUtils.setField(worker, "enabled", true);
+        ReflectionTestUtils.setField(worker, "pageSize", 50);
+        ReflectionTestUtils.setField(worker, "maxBatchesPerRun", 5);
+        ReflectionTestUtils.setField(worker, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(worker, "minAgeMinutes", 10L);
+        ReflectionTestUtils.setField(worker, "leaseMinutes", 10L);
+        ReflectionTestUtils.setField(worker, "concurrency", 2);
+        worker.init();
+    }
+
+    @Test
+    void batchClaimedByAnotherNodeIsNotGraded() {
+        candidates(List.of(1L, 2L), List.of());
+        when(answerBatchWriter.claim(anyString(), anyList(), anyList(), any(), any())).thenReturn(0);
+
+        worker.run();
+
+        verify(answerRecordRepository, never()).findByClaimTokenOrderByIdAsc(anyString());
+        verify(gradingService, never()).regradeClaimed(anyString(), anyLong(), anyList(), anyInt());
+    }
+
+    @Test
+    void onlyClaimedRecordsAreGradedGroupedByQuestion() {
+        candidates(List.of(1L, 2L, 3L), List.of());
+        when(answerBatchWriter.claim(anyString(), eq(List.of(1L, 2L, 3L)), anyList(), any(), any())).thenReturn(2);
+        // 记录2已被其他节点认领，只返回本节点认领成功的记录
+        AnswerRecord first = record(1L, 100L);
+        AnswerRecord third = record(3L, 100L);
+        when(answerRecordRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(first, third));
+        when(gradingService.regradeClaimed(anyString(), eq(100L), anyList(), eq(MAX_ATTEMPTS)))
+                .thenReturn(Map.of("graded", 2));
+
+        worker.run();
+
+        verify(gradingService).regradeClaimed(anyString(), eq(100L), eq(List.of(first, third)), eq(MAX_ATTEMPTS));
+        assertThat(meterRegistry.get("grading.regrade.records").tag("outcome", "graded").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void deferredOutcomeEndsRun() {
+        candidates(List.of(1L), List.of(2L));
+        when(answerBatchWriter.claim(anyString(), anyList(), anyList(), any(), any())).thenReturn(1);
+        when(answerRecordRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(record(1L, 100L)));
+        when(gradingService.regradeClaimed(anyString(), anyLong(), anyList(), anyInt()))
+                .thenReturn(Map.of("deferred", 1));
+
+        worker.run();
+
+        verify(answerBatchWriter, times(1)).claim(anyString(), anyList(), anyList(), any(), any());
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), any(Object[].class));
+    }
+
+    @Test
+    void gradingErrorIsCountedAndOtherQuestionsStillGraded() {
+        candidates(List.of(1L, 2L, 3L), List.of());
+        when(answerBatchWriter.claim(anyString(), anyList(), anyList(), any(), any())).thenReturn(3);
+        when(answerRecordRepository.findByClaimTokenOrderByIdAsc(anyString()))
+                .thenReturn(List.of(record(1L, 100L), record(2L, 100L), record(3L, 200L)));
+        when(gradingService.regradeClaimed(anyString(), eq(100L), anyList(), anyInt()))
+                .thenThrow(new IllegalStateException("write failed"));
+        when(gradingService.regradeClaimed(anyString(), eq(200L), anyList(), anyInt()))
+                .thenReturn(Map.of("graded", 1));
+
+        worker.run();
+
+        assertThat(meterRegistry.get("grading.regrade.records").tag("outcome", "error").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("grading.regrade.records").tag("outcome", "graded").counter().count())
+                .isEqualTo(1);
+    }
+
+    @SafeVarargs
+    private void candidates(List<Long> first, List<Long>... rest) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(first, rest);
+    }
+
+    private static AnswerRecord record(Long id, Long questionId) {
+        AnswerRecord record = new AnswerRecord();
+        record.setId(id);
+        record.setQuestionId(questionId);
+        return record;
+    }
+}
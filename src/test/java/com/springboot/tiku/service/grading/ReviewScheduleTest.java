@@ -0,0 +1,85 @@
+package com.springboot.tiku.service.grading;
+
+import com.springboot.tiku.entity.WrongQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewScheduleTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @Test
+    void correctAnswersGrowIntervalOneSixThenByEase() {
+        WrongQuestion question = new WrongQuestion();
+
+        ReviewSchedule.onCorrect(question, NOW);
+        assertEquals(1, question.getRepetitions());
+        assertEquals(1, question.getIntervalDays());
+        assertEquals(2.6, question.getEaseFactor(), 1e-9);
+        assertEquals(NOW.plusDays(1), question.getDueAt());
+
+        ReviewSchedule.onCorrect(question, NOW);
+        assertEquals(2, question.getRepetitions());
+        assertEquals(6, question.getIntervalDays());
+        assertEquals(2.7, question.getEaseFactor(), 1e-9);
+
+        ReviewSchedule.onCorrect(question, NOW);
+        assertEquals(3, question.getRepetitions());
+        assertEquals(16, question.getIntervalDays());
+        assertEquals(2.8, question.getEaseFactor(), 1e-9);
+        assertEquals(NOW.plusDays(16), question.getDueAt());
+    }
+
+    @Test
+    void wrongAnswerResetsAndIsDueImmediately() {
+        WrongQuestion question = new WrongQuestion();
+        question.setRepetitions(4);
+        question.setIntervalDays(30);
+        question.setEaseFactor(2.5);
+
+        ReviewSchedule.onWrong(question, NOW);
+
+        assertEquals(0, question.getRepetitions());
+        assertEquals(0, question.getIntervalDays());
+        assertEquals(2.3, question.getEaseFactor(), 1e-9);
+        assertEquals(NOW, question.getDueAt());
+    }
+
+    @Test
+    void firstWrongAnswerStartsFromInitialEase() {
+        WrongQuestion question = new WrongQuestion();
+
+        ReviewSchedule.onWrong(question, NOW);
+
+        assertEquals(ReviewSchedule.INITIAL_EASE, question.getEaseFactor(), 1e-9);
+        assertEquals(NOW, question.getDueAt());
+    }
+
+    @Test
+    void easeNeverDropsBelowMinimum() {
+        WrongQuestion question = new WrongQuestion();
+        question.setEaseFactor(1.4);
+
+        ReviewSchedule.onWrong(question, NOW);
+        assertEquals(ReviewSchedule.MIN_EASE, question.getEaseFactor(), 1e-9);
+
+        ReviewSchedule.onWrong(question, NOW);
+        assertEquals(ReviewSchedule.MIN_EASE, question.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    void intervalIsCappedAtMaximum() {
+        WrongQuestion question = new WrongQuestion();
+        question.setRepetitions(10);
+        question.setIntervalDays(300);
+        question.setEaseFactor(2.5);
+
+        ReviewSchedule.onCorrect(question, NOW);
+
+        assertEquals(ReviewSchedule.MAX_INTERVAL_DAYS, question.getIntervalDays());
+        assertEquals(NOW.plusDays(ReviewSchedule.MAX_INTERVAL_DAYS), question.getDueAt());
+    }
+}
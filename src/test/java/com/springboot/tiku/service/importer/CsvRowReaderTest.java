@@ -0,0 +1,68 @@
+package com.springboot.tiku.service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRowReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsQuotedFieldsWithCommasNewlinesAndEscapedQuotes() throws IOException {
+        List<List<String>> rows = read("题目,答案\n\"1+1=?, 选一个\",\"第一行\n第二行\"\n\"他说\"\"好\"\"\",B\n");
+
+        assertEquals(List.of(
+                List.of("题目", "答案"),
+                List.of("1+1=?, 选一个", "第一行\n第二行"),
+                List.of("他说\"好\"", "B")), rows);
+    }
+
+    @Test
+    void skipsBomAndBlankRowsAndHandlesCrlf() throws IOException {
+        List<List<String>> rows = read("\uFEFF标题,类型\r\n\r\n , \r\n内容,SINGLE\r\n");
+
+        assertEquals(List.of(List.of("标题", "类型"), List.of("内容", "SINGLE")), rows);
+    }
+
+    @Test
+    void trimsValuesAndMapsEmptyFieldsToNull() throws IOException {
+        List<List<String>> rows = read("a, b ,,\nc");
+
+        assertEquals(List.of(Arrays.asList("a", "b", null, null), List.of("c")), rows);
+    }
+
+    @Test
+    void emptyFileHasNoRows() throws IOException {
+        Path file = write("");
+        try (CsvRowReader reader = new CsvRowReader(file)) {
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, reader::next);
+        }
+    }
+
+    private List<List<String>> read(String content) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (CsvRowReader reader = new CsvRowReader(write(content))) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("questions.csv"), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.springboot.tiku.service.importer;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MayuanQuestionReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsObjectLiteralsOneAtATime() throws IOException {
+        Path file = write("<html><script>\n"
+                + "const other = [1, 2];\n"
+                + "const questions = [\n"
+                + "  // 第一章\n"
+                + "  {id: 1, type: \"single\", question: \"矛盾的{基本}属性\", options: [\"A\", \"B\",], answer: \"A\"},\n"
+                + "  {id: 2, type: \"judge\", question: \"引号\\\"与]括号\", answer: true,},\n"
+                + "];\n"
+                + "render(questions);\n"
+                + "</script></html>");
+
+        List<JSONObject> objects = read(file);
+
+        assertEquals(2, objects.size());
+        assertEquals("矛盾的{基本}属性", objects.get(0).getString("question"));
+        assertEquals(List.of("A", "B"), objects.get(0).getJSONArray("options"));
+        assertEquals("judge", objects.get(1).getString("type"));
+        assertEquals(Boolean.TRUE, objects.get(1).get("answer"));
+    }
+
+    @Test
+    void emptyArrayHasNoQuestions() throws IOException {
+        try (MayuanQuestionReader reader = new MayuanQuestionReader(write("const questions = [];"))) {
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void missingMarkerIsRejected() throws IOException {
+        try (MayuanQuestionReader reader = new MayuanQuestionReader(write("<html>没有题目</html>"))) {
+            assertThrows(IllegalStateException.class, reader::hasNext);
+        }
+    }
+
+    @Test
+    void truncatedObjectIsRejected() throws IOException {
+        try (MayuanQuestionReader reader = new MayuanQuestionReader(write("const questions = [{id: 1, question: \"未完"))) {
+            assertThrows(IllegalStateException.class, reader::hasNext);
+        }
+    }
+
+    private List<JSONObject> read(Path file) throws IOException {
+        List<JSONObject> objects = new ArrayList<>();
+        try (MayuanQuestionReader reader = new MayuanQuestionReader(file)) {
+            reader.forEachRemaining(objects::add);
+        }
+        return objects;
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("mayuan.html"), content, StandardCharsets.UTF_8);
+    }
+}
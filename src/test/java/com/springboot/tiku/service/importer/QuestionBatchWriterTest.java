@@ -0,0 +1,55 @@
+package com.springboot.tiku.service.importer;
+
+import com.springboot.tiku.entity.Question;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class QuestionBatchWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final QuestionBatchWriter writer = new QuestionBatchWriter(jdbcTemplate);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertsWholeChunkInOneBatchWithArgumentPerPlaceholder() {
+        writer.insertQuestions(List.of(question(1L, "第一题"), question(2L, "第二题")));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), args.capture());
+
+        long placeholders = sql.getValue().chars().filter(c -> c == '?').count();
+        assertThat(args.getValue()).hasSize(2);
+        assertThat(args.getValue()).allSatisfy(row -> assertThat(row).hasSize((int) placeholders));
+        assertThat(args.getValue().get(0)).startsWith(10L, 1L, "SINGLE", "第一题");
+        assertThat(args.getValue().get(1)[3]).isEqualTo("第二题");
+    }
+
+    @Test
+    void emptyChunkIssuesNoStatement() {
+        writer.insertQuestions(List.of());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static Question question(Long chapterId, String title) {
+        Question question = new Question();
+        question.setSubjectId(10L);
+        question.setChapterId(chapterId);
+        question.setType(Question.QuestionType.SINGLE);
+        question.setTitle(title);
+        question.setContent(title);
+        question.setDifficulty(Question.Difficulty.EASY);
+        return question;
+    }
+}
@@ -0,0 +1,147 @@
+package com.springboot.tiku.service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class XlsxRowReaderTest {
+
+    private static final String MAIN = "xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsSharedInlineNumericAndBooleanCells() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("xl/sharedStrings.xml", "<sst " + MAIN + ">"
+                + "<si><t>标题</t></si>"
+                + "<si><r><t>富</t></r><r><t>文本</t></r><rPh><t>ふ</t></rPh></si>"
+                + "</sst>");
+        entries.put("xl/worksheets/sheet1.xml", sheet(
+                "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"B1\" t=\"s\"><v>1</v></c>"
+                        + "<c r=\"C1\" t=\"inlineStr\"><is><t>分值</t></is></c><c r=\"D1\" t=\"str\"><v>判断</v></c></row>"
+                        + "<row r=\"2\"><c r=\"A2\"><v>3.0</v></c><c r=\"B2\" t=\"n\"><v>2.5</v></c>"
+                        + "<c r=\"C2\" t=\"b\"><v>1</v></c><c r=\"D2\" t=\"b\"><v>0</v></c></row>"));
+
+        assertEquals(List.of(
+                List.of("标题", "富文本", "分值", "判断"),
+                List.of("3", "2.5", "TRUE", "FALSE")), read(entries));
+    }
+
+    @Test
+    void placesCellsByReferenceAndSkipsEmptyRows() throws IOException {
+        Map<String, String> entries = Map.of("xl/worksheets/sheet1.xml", sheet(
+                "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>a</t></is></c><c r=\"C1\" t=\"inlineStr\"><is><t>c</t></is></c></row>"
+                        + "<row r=\"2\"><c r=\"A2\" s=\"1\"/><c r=\"B2\" t=\"inlineStr\"><is><t> </t></is></c></row>"
+                        + "<row r=\"3\"><c r=\"B3\"><v>7</v></c></row>"));
+
+        assertEquals(List.of(Arrays.asList("a", null, "c"), Arrays.asList(null, "7")), read(entries));
+    }
+
+    @Test
+    void dropsCellsBeyondHeaderWidth() throws IOException {
+        Map<String, String> entries = Map.of("xl/worksheets/sheet1.xml", sheet(
+                "<row r=\"1\"><c r=\"A1\"><v>1</v></c><c r=\"B1\"><v>2</v></c></row>"
+                        + "<row r=\"2\"><c r=\"A2\"><v>3</v></c><c r=\"XFD2\"><v>4</v></c></row>"
+                        + "<row r=\"3\"><c r=\"ZZZZZZ3\"><v>5</v></c></row>"));
+
+        assertEquals(List.of(List.of("1", "2"), List.of("3")), read(entries));
+    }
+
+    @Test
+    void followsWorkbookRelationshipToFirstSheet() throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("xl/workbook.xml", "<workbook " + MAIN
+                + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                + "<sheets><sheet name=\"题库\" sheetId=\"1\" r:id=\"rId3\"/></sheets></workbook>");
+        entries.put("xl/_rels/workbook.xml.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rId1\" Target=\"worksheets/sheet1.xml\"/>"
+                        + "<Relationship Id=\"rId3\" Target=\"worksheets/questions.xml\"/></Relationships>");
+        entries.put("xl/worksheets/sheet1.xml", sheet("<row r=\"1\"><c r=\"A1\"><v>1</v></c></row>"));
+        entries.put("xl/worksheets/questions.xml", sheet("<row r=\"1\"><c r=\"A1\"><v>2</v></c></row>"));
+
+        assertEquals(List.of(List.of("2")), read(entries));
+    }
+
+    @Test
+    void missingSheetIsRejected() throws IOException {
+        Path file = write(Map.of("xl/sharedStrings.xml", "<sst " + MAIN + "/>"));
+
+        assertThrows(IOException.class, () -> new XlsxRowReader(file));
+    }
+
+    @Test
+    void doctypeIsRejected() throws IOException {
+        Path file = write(Map.of("xl/worksheets/sheet1.xml",
+                "<!DOCTYPE worksheet [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                        + "<worksheet " + MAIN + "><sheetData><row r=\"1\"><c r=\"A1\" t=\"str\"><v>&x;</v></c></row></sheetData></worksheet>"));
+
+        assertThrows(RuntimeException.class, () -> {
+            try (XlsxRowReader reader = new XlsxRowReader(file)) {
+                reader.forEachRemaining(row -> {
+                });
+            }
+        });
+    }
+
+    @Test
+    void columnIndexConvertsLettersAndClampsToExcelLimit() {
+        assertEquals(0, XlsxRowReader.columnIndex("A1"));
+        assertEquals(25, XlsxRowReader.columnIndex("Z9"));
+        assertEquals(26, XlsxRowReader.columnIndex("AA10"));
+        assertEquals(XlsxRowReader.MAX_COLUMNS - 1, XlsxRowReader.columnIndex("XFD1"));
+        assertEquals(XlsxRowReader.MAX_COLUMNS, XlsxRowReader.columnIndex("XFE1"));
+        assertEquals(XlsxRowReader.MAX_COLUMNS, XlsxRowReader.columnIndex("ZZZZZZZZZZ1"));
+    }
+
+    @Test
+    void boundedStreamFailsPastLimit() throws IOException {
+        InputStream in = new XlsxRowReader.BoundedInputStream(new ByteArrayInputStream(new byte[10]), 8, "sheet1.xml");
+
+        assertEquals(8, in.read(new byte[8], 0, 8));
+        assertThrows(IOException.class, in::read);
+    }
+
+    private List<List<String>> read(Map<String, String> entries) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (XlsxRowReader reader = new XlsxRowReader(write(entries))) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    private Path write(Map<String, String> entries) throws IOException {
+        Path file = dir.resolve("questions.xlsx");
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static String sheet(String rows) {
+        return "<worksheet " + MAIN + "><sheetData>" + rows + "</sheetData></worksheet>";
+    }
+}
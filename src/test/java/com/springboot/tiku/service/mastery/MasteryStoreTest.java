@@ -0,0 +1,250 @@
+package com.springboot.tiku.service.mastery;
+
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.entity.UserMastery;
+import com.springboot.tiku.repository.UserMasteryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MasteryStoreTest {
+
+    private static final Long USER_ID = 7L;
+    private static final Long SUBJECT_ID = 1L;
+    private static final Long CHAPTER_ID = 10L;
+    private static final double DECAY = 0.1;
+
+    private UserMasteryRepository userMasteryRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 模拟 user_mastery 表：用户|维度|引用 -> [attempts, correct, decayed_accuracy]
+     */
+    private final Map<String, double[]> table = new ConcurrentHashMap<>();
+    private final List<List<Object[]>> upserts = new ArrayList<>();
+    private boolean databaseDown;
+
+    @BeforeEach
+    void setUp() {
+        userMasteryRepository = mock(UserMasteryRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO user_mastery"), anyList())).thenAnswer(invocation -> {
+            if (databaseDown) {
+                throw new IllegalStateException("db down");
+            }
+            String sql = invocation.getArgument(0);
+            List<Object[]> batch = invocation.getArgument(1);
+            boolean increment = sql.contains("decayed_accuracy * ?");
+            if (increment) {
+                upserts.add(batch);
+            }
+            for (Object[] row : batch) {
+                String key = row[0] + "|" + row[2] + "|" + row[3];
+                double[] current = table.get(key);
+                if (current == null) {
+                    table.put(key, new double[]{((Long) row[4]), ((Long) row[5]), (Double) row[6]});
+                } else if (increment) {
+                    current[0] += (Long) row[4];
+                    current[1] += (Long) row[5];
+                    current[2] = current[2] * (Double) row[8] + (Double) row[9];
+                }
+            }
+            return new int[batch.size()];
+        });
+    }
+
+    @Test
+    void flushWritesIncrementsAndComposedDecay() {
+        storedRows(4, 2, 0.5);
+        MasteryStore store = store();
+
+        store.recordAnswers(USER_ID, List.of(attempt(1L, true), attempt(2L, false), attempt(3L, true)));
+        MasteryStore.Mastery chapter = store.get(USER_ID).chapter(SUBJECT_ID, CHAPTER_ID);
+        assertThat(chapter.attempts()).isEqualTo(7);
+        assertThat(chapter.correct()).isEqualTo(4);
+        assertThat(chapter.accuracy()).isCloseTo(0.5455, within(1e-9));
+
+        store.flush();
+
+        assertThat(upserts).hasSize(1);
+        Object[] row = chapterRow(upserts.get(0));
+        assertThat(row[4]).isEqualTo(3L);
+        assertThat(row[5]).isEqualTo(2L);
+        assertThat((Double) row[8]).isCloseTo(0.729, within(1e-9));
+        assertThat((Double) row[9]).isCloseTo(0.181, within(1e-9));
+        assertThat(table.get(chapterKey())).containsExactly(new double[]{7, 4, 0.5455}, within(1e-9));
+
+        store.flush();
+        assertThat(upserts).hasSize(1);
+    }
+
+    @Test
+    void nodesUpdatingSameUserDoNotOverwriteEachOther() {
+        storedRows(4, 2, 0.5);
+        MasteryStore nodeA = store();
+        MasteryStore nodeB = store();
+        nodeA.get(USER_ID);
+        nodeB.get(USER_ID);
+
+        nodeA.recordAnswers(USER_ID, List.of(attempt(1L, true)));
+        nodeB.recordAnswers(USER_ID, List.of(attempt(2L, false)));
+        nodeA.flush();
+        nodeB.flush();
+
+        // 两节点的变化依次作用于表中的值：0.5 答对 -> 0.55，再答错 -> 0.495
+        assertThat(table.get(chapterKey())).containsExactly(new double[]{6, 3, 0.495}, within(1e-9));
+    }
+
+    @Test
+    void failedFlushKeepsChangesAndComposesWithLaterOnes() {
+        storedRows(4, 2, 0.5);
+        MasteryStore store = store();
+        store.recordAnswers(USER_ID, List.of(attempt(1L, true)));
+        databaseDown = true;
+        assertThatThrownBy(store::flush).isInstanceOf(IllegalStateException.class);
+
+        databaseDown = false;
+        store.recordAnswers(USER_ID, List.of(attempt(2L, false)));
+        store.flush();
+
+        Object[] row = chapterRow(upserts.get(0));
+        assertThat(row[4]).isEqualTo(2L);
+        assertThat(row[5]).isEqualTo(1L);
+        assertThat((Double) row[8]).isCloseTo(0.81, within(1e-9));
+        assertThat((Double) row[9]).isCloseTo(0.09, within(1e-9));
+    }
+
+    @Test
+    void correctionAddsCorrectWithoutAttempt() {
+        storedRows(4, 2, 0.5);
+        MasteryStore store = store();
+
+        store.recordCorrections(USER_ID, List.of(attempt(1L, true)));
+        MasteryStore.Mastery chapter = store.get(USER_ID).chapter(SUBJECT_ID, CHAPTER_ID);
+        assertThat(chapter.attempts()).isEqualTo(4);
+        assertThat(chapter.correct()).isEqualTo(3);
+        assertThat(chapter.accuracy()).isCloseTo(0.55, within(1e-9));
+
+        store.flush();
+
+        Object[] row = chapterRow(upserts.get(0));
+        assertThat(row[4]).isEqualTo(0L);
+        assertThat(row[5]).isEqualTo(1L);
+        assertThat((Double) row[8]).isCloseTo(0.9, within(1e-9));
+        assertThat((Double) row[9]).isCloseTo(0.1, within(1e-9));
+        assertThat(table.get(chapterKey())).containsExactly(new double[]{4, 3, 0.55}, within(1e-9));
+    }
+
+    @Test
+    void correctionIsIgnoredWhenNothingWasAnsweredWrong() {
+        storedRows(2, 2, 0.8);
+        MasteryStore store = store();
+
+        store.recordCorrections(USER_ID, List.of(attempt(1L, true)));
+        store.flush();
+
+        assertThat(upserts).isEmpty();
+        assertThat(table.get(chapterKey())).containsExactly(new double[]{2, 2, 0.8}, within(1e-9));
+    }
+
+    @Test
+    void bootstrapExcludesTriggeringAnswerThenAppliesItAsIncrement() throws Exception {
+        when(userMasteryRepository.findByUserId(USER_ID)).thenReturn(List.of());
+        List<String> sqls = new ArrayList<>();
+        List<Object[]> params = new ArrayList<>();
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(SUBJECT_ID);
+        when(rs.getLong(2)).thenReturn(CHAPTER_ID);
+        when(rs.wasNull()).thenReturn(false);
+        when(rs.getString(3)).thenReturn(Question.QuestionType.SINGLE.name());
+        when(rs.getLong(4)).thenReturn(4L);
+        when(rs.getLong(5)).thenReturn(3L);
+        when(rs.getTimestamp(6)).thenReturn(Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+        doAnswer(invocation -> {
+            sqls.add(invocation.getArgument(0));
+            Object[] args = invocation.getArguments();
+            params.add(Arrays.copyOfRange(args, 2, args.length));
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT q.subject_id"), any(RowCallbackHandler.class), any(Object[].class));
+        MasteryStore store = store();
+
+        store.recordAnswers(USER_ID, List.of(attempt(5L, false)));
+
+        assertThat(sqls.get(0)).contains("a.id NOT IN (?)");
+        assertThat(params.get(0)).containsExactly(USER_ID, 5L);
+        MasteryStore.Mastery chapter = store.get(USER_ID).chapter(SUBJECT_ID, CHAPTER_ID);
+        assertThat(chapter.attempts()).isEqualTo(5);
+        assertThat(chapter.correct()).isEqualTo(3);
+        assertThat(chapter.accuracy()).isCloseTo(0.675, within(1e-9));
+
+        store.flush();
+        assertThat(table.get(chapterKey())).containsExactly(new double[]{5, 3, 0.675}, within(1e-9));
+    }
+
+    private MasteryStore store() {
+        MasteryStore store = new MasteryStore(userMasteryRepository, jdbcTemplate);
+        ReflectionTestUtils.setField(store, "decay", DECAY);
+        ReflectionTestUtils.setField(store, "cacheSize", 100);
+        return store;
+    }
+
+    private void storedRows(long attempts, long correct, double accuracy) {
+        List<UserMastery> rows = List.of(
+                row(UserMastery.Dimension.CHAPTER, String.valueOf(CHAPTER_ID), attempts, correct, accuracy),
+                row(UserMastery.Dimension.TYPE, Question.QuestionType.SINGLE.name(), attempts, correct, accuracy));
+        when(userMasteryRepository.findByUserId(USER_ID)).thenReturn(rows);
+        for (UserMastery row : rows) {
+            table.put(USER_ID + "|" + row.getDimension() + "|" + row.getRefKey(), new double[]{attempts, correct, accuracy});
+        }
+    }
+
+    private static UserMastery row(UserMastery.Dimension dimension, String refKey, long attempts, long correct, double accuracy) {
+        UserMastery row = new UserMastery();
+        row.setUserId(USER_ID);
+        row.setSubjectId(SUBJECT_ID);
+        row.setDimension(dimension);
+        row.setRefKey(refKey);
+        row.setAttempts(attempts);
+        row.setCorrectCount(correct);
+        row.setDecayedAccuracy(accuracy);
+        return row;
+    }
+
+    private static MasteryStore.Attempt attempt(Long answerId, boolean correct) {
+        return new MasteryStore.Attempt(answerId, SUBJECT_ID, CHAPTER_ID, Question.QuestionType.SINGLE, correct);
+    }
+
+    private static String chapterKey() {
+        return USER_ID + "|" + UserMastery.Dimension.CHAPTER + "|" + CHAPTER_ID;
+    }
+
+    private static Object[] chapterRow(List<Object[]> batch) {
+        return batch.stream()
+                .filter(row -> UserMastery.Dimension.CHAPTER.name().equals(row[2]))
+                .findFirst()
+                .orElseThrow();
+    }
+}
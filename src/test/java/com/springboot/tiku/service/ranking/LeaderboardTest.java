@@ -0,0 +1,72 @@
+package com.springboot.tiku.service.ranking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LeaderboardTest {
+
+    private record Entry(Long userId, long score) {
+    }
+
+    private Leaderboard<Entry> leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new Leaderboard<>(Comparator.comparingLong(Entry::score).reversed()
+                .thenComparing(Entry::userId));
+    }
+
+    @Test
+    void ranksByScoreAndBreaksTiesByUserId() {
+        leaderboard.put(1L, new Entry(1L, 10));
+        leaderboard.put(2L, new Entry(2L, 30));
+        leaderboard.put(3L, new Entry(3L, 10));
+
+        assertEquals(List.of(2L, 1L, 3L), leaderboard.top(10).stream().map(Entry::userId).toList());
+        assertEquals(1, leaderboard.rankOf(2L));
+        assertEquals(2, leaderboard.rankOf(1L));
+        assertEquals(3, leaderboard.rankOf(3L));
+        assertEquals(0, leaderboard.rankOf(4L));
+    }
+
+    @Test
+    void putReplacesPreviousEntry() {
+        leaderboard.put(1L, new Entry(1L, 10));
+        leaderboard.put(2L, new Entry(2L, 20));
+        leaderboard.put(1L, new Entry(1L, 50));
+
+        assertEquals(2, leaderboard.size());
+        assertEquals(50, leaderboard.get(1L).score());
+        assertEquals(1, leaderboard.rankOf(1L));
+        assertEquals(List.of(1L), leaderboard.top(1).stream().map(Entry::userId).toList());
+    }
+
+    @Test
+    void putWithUnchangedEntryKeepsSingleEntry() {
+        leaderboard.put(1L, new Entry(1L, 10));
+        leaderboard.put(1L, new Entry(1L, 10));
+
+        assertEquals(1, leaderboard.size());
+        assertEquals(1, leaderboard.rankOf(1L));
+    }
+
+    @Test
+    void removeDropsUserFromRanking() {
+        leaderboard.put(1L, new Entry(1L, 10));
+        leaderboard.put(2L, new Entry(2L, 20));
+
+        leaderboard.remove(2L);
+        leaderboard.remove(3L);
+
+        assertEquals(1, leaderboard.size());
+        assertNull(leaderboard.get(2L));
+        assertEquals(0, leaderboard.rankOf(2L));
+        assertEquals(1, leaderboard.rankOf(1L));
+    }
+}
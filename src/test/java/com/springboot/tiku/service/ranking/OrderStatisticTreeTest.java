@@ -0,0 +1,80 @@
+package com.springboot.tiku.service.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void indexOfAndFirstFollowComparatorOrder() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.reverseOrder());
+        for (int value : new int[]{5, 1, 9, 3, 7}) {
+            tree.add(value);
+        }
+
+        assertEquals(5, tree.size());
+        assertEquals(List.of(9, 7, 5), tree.first(3));
+        assertEquals(List.of(9, 7, 5, 3, 1), tree.first(10));
+        assertEquals(0, tree.indexOf(9));
+        assertEquals(2, tree.indexOf(5));
+        assertEquals(4, tree.indexOf(1));
+        assertEquals(-1, tree.indexOf(4));
+    }
+
+    @Test
+    void removeReportsWhetherElementExisted() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.add(1);
+        tree.add(2);
+        tree.add(3);
+
+        assertTrue(tree.remove(2));
+        assertFalse(tree.remove(2));
+        assertEquals(2, tree.size());
+        assertEquals(1, tree.indexOf(3));
+        assertEquals(List.of(1, 3), tree.first(5));
+    }
+
+    @Test
+    void emptyTree() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+
+        assertEquals(0, tree.size());
+        assertEquals(List.of(), tree.first(3));
+        assertEquals(-1, tree.indexOf(1));
+        assertFalse(tree.remove(1));
+    }
+
+    @Test
+    void randomOperationsMatchTreeSet() {
+        Random random = new Random(42);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), tree.remove(value));
+            } else if (expected.add(value)) {
+                tree.add(value);
+            }
+            if (i % 500 == 0) {
+                int probe = random.nextInt(2_000);
+                int rank = expected.contains(probe) ? expected.headSet(probe).size() : -1;
+                assertEquals(rank, tree.indexOf(probe), "indexOf(" + probe + ")");
+            }
+        }
+
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.first(expected.size()));
+        assertEquals(new ArrayList<>(expected).subList(0, 10), tree.first(10));
+    }
+}
@@ -0,0 +1,154 @@
+package com.springboot.tiku.service.sampling;
+
+import com.springboot.tiku.entity.Question;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExamPaperPoolTest {
+
+    private static final ExamPaperPool.PaperKey KEY = new ExamPaperPool.PaperKey(1L, Question.QuestionType.SINGLE, 3);
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicInteger builds = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private ExamPaperPool pool;
+
+    @BeforeEach
+    void setUp() {
+        QuestionSampler questionSampler = mock(QuestionSampler.class);
+        when(questionSampler.generation()).thenAnswer(invocation -> generation.get());
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new ExamPaperPool(questionSampler, meterRegistry);
+        ReflectionTestUtils.setField(pool, "poolSize", 3);
+        ReflectionTestUtils.setField(pool, "maxUses", 100);
+        ReflectionTestUtils.setField(pool, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(pool, "maxKeys", 2);
+        pool.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void emptyPoolBuildsInlineThenServesPapersRoundRobin() {
+        List<Long> first = pool.take(KEY, this::build);
+
+        assertThat(first).hasSize(3);
+        assertThat(missCount()).isEqualTo(1.0);
+        awaitRefills(1);
+
+        List<Set<Long>> served = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            served.add(new HashSet<>(pool.take(KEY, this::build)));
+        }
+        assertThat(new HashSet<>(served.subList(0, 3))).hasSize(3);
+        assertThat(served.subList(3, 6)).isEqualTo(served.subList(0, 3));
+        assertThat(served).doesNotContain(new HashSet<>(first));
+        assertThat(missCount()).isEqualTo(1.0);
+        assertThat(pool.hitRate()).isEqualTo(6.0 / 7);
+    }
+
+    @Test
+    void paperReachingMaxUsesIsReplacedInBackground() {
+        ReflectionTestUtils.setField(pool, "maxUses", 2);
+        pool.take(KEY, this::build);
+        awaitRefills(1);
+
+        Set<Long> firstSlot = new HashSet<>(pool.take(KEY, this::build));
+        pool.take(KEY, this::build);
+        pool.take(KEY, this::build);
+        assertThat(new HashSet<>(pool.take(KEY, this::build))).isEqualTo(firstSlot);
+        awaitRefills(2);
+
+        pool.take(KEY, this::build);
+        pool.take(KEY, this::build);
+        assertThat(new HashSet<>(pool.take(KEY, this::build))).isNotEqualTo(firstSlot);
+        assertThat(missCount()).isEqualTo(1.0);
+    }
+
+    @Test
+    void papersBuiltBeforeQuestionChangeAreNotServed() {
+        pool.take(KEY, this::build);
+        awaitRefills(1);
+        Set<Set<Long>> pooled = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            pooled.add(new HashSet<>(pool.take(KEY, this::build)));
+        }
+
+        generation.incrementAndGet();
+        List<Long> afterChange = pool.take(KEY, this::build);
+
+        assertThat(pooled).doesNotContain(new HashSet<>(afterChange));
+        assertThat(missCount()).isEqualTo(2.0);
+
+        // 后台换新后恢复命中，且不再发放旧卷
+        awaitRefills(2);
+        for (int i = 0; i < 3; i++) {
+            assertThat(pooled).doesNotContain(new HashSet<>(pool.take(KEY, this::build)));
+        }
+        assertThat(missCount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void newKeyAtCapacityEvictsLeastRecentlyUsedKeyOnly() {
+        ExamPaperPool.PaperKey second = new ExamPaperPool.PaperKey(2L, Question.QuestionType.SINGLE, 3);
+        ExamPaperPool.PaperKey third = new ExamPaperPool.PaperKey(3L, Question.QuestionType.SINGLE, 3);
+
+        pool.take(KEY, this::build);
+        pool.take(second, this::build);
+        pool.take(KEY, this::build);
+        pool.take(third, this::build);
+
+        Map<ExamPaperPool.PaperKey, ?> pools = poolsByKey();
+        assertThat(pools.keySet()).containsExactlyInAnyOrder(KEY, third);
+    }
+
+    private List<Long> build(ExamPaperPool.PaperKey key) {
+        long n = builds.incrementAndGet();
+        return List.of(n * 100 + 1, n * 100 + 2, n * 100 + 3);
+    }
+
+    private double missCount() {
+        return meterRegistry.get("practice.paper.pool.requests").tag("result", "miss").counter().count();
+    }
+
+    private void awaitRefills(long refills) {
+        await(() -> meterRegistry.get("practice.paper.pool.refill.lag").timer().count() >= refills);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<ExamPaperPool.PaperKey, ?> poolsByKey() {
+        return (Map<ExamPaperPool.PaperKey, ?>) ReflectionTestUtils.getField(pool, "pools");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.springboot.tiku.service.sampling;
+
+import com.springboot.tiku.entity.PracticeCursor;
+import com.springboot.tiku.entity.Question;
+import com.springboot.tiku.repository.PracticeCursorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PracticeCursorStoreTest {
+
+    private final PracticeCursorRepository practiceCursorRepository = mock(PracticeCursorRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PracticeCursorStore store = new PracticeCursorStore(practiceCursorRepository, jdbcTemplate);
+
+    @Test
+    void filterKeyMarksUnsetConditions() {
+        assertThat(PracticeCursorStore.filterKey(null, null, null)).isEqualTo("c:-|t:-|d:-");
+        assertThat(PracticeCursorStore.filterKey(10L, Question.QuestionType.SINGLE, null))
+                .isEqualTo("c:10|t:SINGLE|d:-");
+        assertThat(PracticeCursorStore.filterKey(null, null, Question.Difficulty.HARD))
+                .isNotEqualTo(PracticeCursorStore.filterKey(null, null, null));
+    }
+
+    @Test
+    void getReturnsZeroWithoutProgress() {
+        when(practiceCursorRepository.findByUserIdAndSubjectIdAndFilterKey(7L, 1L, "c:-|t:-|d:-"))
+                .thenReturn(Optional.empty());
+
+        assertThat(store.get(7L, 1L, "c:-|t:-|d:-")).isZero();
+    }
+
+    @Test
+    void getReturnsLastServedQuestionOfSameFilter() {
+        PracticeCursor cursor = new PracticeCursor();
+        cursor.setLastQuestionId(42L);
+        when(practiceCursorRepository.findByUserIdAndSubjectIdAndFilterKey(7L, 1L, "c:10|t:-|d:-"))
+                .thenReturn(Optional.of(cursor));
+
+        assertThat(store.get(7L, 1L, "c:10|t:-|d:-")).isEqualTo(42L);
+        assertThat(store.get(7L, 1L, "c:-|t:-|d:-")).isZero();
+    }
+
+    @Test
+    void saveUpsertsSingleRowOnUniqueKey() {
+        store.save(7L, 1L, "c:-|t:-|d:-", 42L);
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO practice_cursor"),
+                eq(7L), eq(1L), eq("c:-|t:-|d:-"), eq(42L));
+    }
+}
@@ -0,0 +1,128 @@
+package com.springboot.tiku.service.search;
+
+import com.springboot.tiku.dto.question.QuestionQueryRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QuestionSearchIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private QuestionSearchIndex index;
+
+    private String selectSql;
+    private List<Object> selectArgs;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        index = new QuestionSearchIndex(jdbcTemplate);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "ngramTokenSize", 2);
+        ReflectionTestUtils.setField(index, "available", true);
+
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM question WHERE"), eq(Long.class), any(Object[].class)))
+                .thenReturn(3L);
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM question"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] arguments = invocation.getArguments();
+                    selectSql = invocation.getArgument(0);
+                    selectArgs = new ArrayList<>(Arrays.asList(arguments).subList(2, arguments.length));
+                    return List.of(7L, 5L, 9L);
+                });
+    }
+
+    @Test
+    void unsortedSearchOrdersByRelevance() {
+        Page<Long> page = index.search(request("矛盾 规律", null), PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).containsExactly(7L, 5L, 9L);
+        assertThat(page.getTotalElements()).isEqualTo(3L);
+        assertThat(selectSql).contains("ORDER BY MATCH(title, content) AGAINST (? IN BOOLEAN MODE) DESC, id DESC");
+        assertThat(selectArgs).containsExactly("+\"矛盾\" +\"规律\"", "+\"矛盾\" +\"规律\"", 10, 0L);
+    }
+
+    @Test
+    void requestedSortReplacesRelevanceOrder() {
+        Sort sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.asc("serialNumber"));
+
+        index.search(request(null, "马原"), PageRequest.of(1, 2, sort));
+
+        assertThat(selectSql).contains("MATCH(tags) AGAINST").endsWith("ORDER BY created_at DESC, serial_number ASC LIMIT ? OFFSET ?");
+        assertThat(selectArgs).containsExactly("+\"马原\"", 2, 2L);
+    }
+
+    @Test
+    void operatorsAreTreatedAsSeparators() {
+        index.search(request("+唯物-辩证*", null), PageRequest.of(0, 10));
+
+        assertThat(selectArgs.get(0)).isEqualTo("+\"唯物\" +\"辩证\"");
+    }
+
+    @Test
+    void fallsBackWhenIndexCannotServeRequest() {
+        assertThat(index.search(request("矛盾", null), PageRequest.of(0, 10, Sort.by("answerAnalysis")))).isNull();
+        assertThat(index.search(request("矛 盾", null), PageRequest.of(0, 10))).isNull();
+        assertThat(index.search(request(null, null), PageRequest.of(0, 10))).isNull();
+
+        ReflectionTestUtils.setField(index, "available", false);
+        assertThat(index.search(request("矛盾", null), PageRequest.of(0, 10))).isNull();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void pageBeyondTotalSkipsIdQuery() {
+        Page<Long> page = index.search(request("矛盾", null), PageRequest.of(5, 10));
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(3L);
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Long.class), any(Object[].class));
+    }
+
+    @Test
+    void rebuildCreatesAlternateIndexBeforeDroppingCurrent() {
+        Set<String> existing = new HashSet<>(List.of("ft_question_content", "ft_question_tags", "ft_question_text"));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM information_schema"), eq(Integer.class), any(Object[].class)))
+                .thenAnswer(invocation -> existing.contains(invocation.<String>getArgument(2)) ? 1 : 0);
+
+        index.rebuild();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute(startsWith("ALTER TABLE question ADD FULLTEXT INDEX ft_question_content_2 "));
+        order.verify(jdbcTemplate).execute("ALTER TABLE question DROP INDEX ft_question_content");
+        order.verify(jdbcTemplate).execute(startsWith("ALTER TABLE question ADD FULLTEXT INDEX ft_question_tags_2 "));
+        order.verify(jdbcTemplate).execute("ALTER TABLE question DROP INDEX ft_question_tags");
+        order.verify(jdbcTemplate).execute("ALTER TABLE question DROP INDEX ft_question_text");
+    }
+
+    private static QuestionQueryRequest request(String keyword, String tag) {
+        QuestionQueryRequest request = new QuestionQueryRequest();
+        request.setKeyword(keyword);
+        request.setTag(tag);
+        return request;
+    }
+}
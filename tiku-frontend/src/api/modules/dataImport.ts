@@ -17,6 +17,19 @@ export const dataImportApi = {
   // 智能批量导入（根据Excel自动归类章节）
   smartImport(data: any) {
     return request.post<any>('/admin/data-import/smart-import', data)
+  },
+
+  // 上传文件智能导入（xlsx/csv，后台分块导入，返回任务ID）
+  smartImportFile(subjectId: number, file: File) {
+    return request.post<any>('/admin/data-import/smart-import/file', file, {
+      params: { subjectId, fileName: file.name },
+      headers: { 'Content-Type': 'application/octet-stream' }
+    })
+  },
+
+  // 查询文件导入任务进度
+  getImportJob(jobId: string) {
+    return request.get<any>(`/admin/data-import/jobs/${jobId}`)
   }
 }
 
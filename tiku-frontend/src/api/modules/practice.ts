@@ -28,6 +28,22 @@ export const practiceApi = {
   // 批量提交答案
   submitBatch(data: SubmitAnswerRequest[]) {
     return request.post<GradingResult[]>('/grading/submit/batch', data)
+  },
+
+  // 查询判题结果（AI判题异步完成）
+  getGradingResult(answerRecordId: number) {
+    return request.get<GradingResult>(`/grading/result/${answerRecordId}`)
+  },
+
+  // 轮询直到AI判题完成（超时后返回最后一次结果）
+  async waitForGradingResult(answerRecordId: number, intervalMs = 1500, timeoutMs = 90000) {
+    const deadline = Date.now() + timeoutMs
+    let res = await this.getGradingResult(answerRecordId)
+    while (res.data?.gradingStatus === 'PENDING' && Date.now() < deadline) {
+      await new Promise(resolve => setTimeout(resolve, intervalMs))
+      res = await this.getGradingResult(answerRecordId)
+    }
+    return res
   }
 }
 
@@ -22,6 +22,11 @@ export const rankingApi = {
   // 学科排行榜
   getSubjectRanking(subjectId: number, limit: number = 100) {
     return request.get<any[]>(`/ranking/subject/${subjectId}`, { params: { limit } })
+  },
+
+  // 我的排名（type: answer-count / accuracy / points / subject）
+  getMyRanking(type: string, subjectId?: number) {
+    return request.get<any>('/ranking/me', { params: { type, subjectId } })
   }
 }
 
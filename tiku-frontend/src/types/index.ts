@@ -222,6 +222,7 @@ export interface GradingResult {
   correctAnswer: any
   userAnswer: any
   needManualReview?: boolean
+  gradingStatus?: string // 'PENDING' | 'GRADED' | 'REVIEWING'
   aiFeedback?: AIFeedback
 }
 